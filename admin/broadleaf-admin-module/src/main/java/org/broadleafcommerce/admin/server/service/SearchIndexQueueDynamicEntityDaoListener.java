@@ -0,0 +1,79 @@
+/*
+ * Copyright 2008-2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.broadleafcommerce.admin.server.service;
+
+import org.broadleafcommerce.core.catalog.domain.CategoryProductXref;
+import org.broadleafcommerce.core.catalog.domain.Product;
+import org.broadleafcommerce.core.catalog.domain.ProductAttribute;
+import org.broadleafcommerce.core.catalog.domain.Sku;
+import org.broadleafcommerce.core.search.service.solr.SolrIndexQueueService;
+import org.broadleafcommerce.openadmin.server.dao.DynamicEntityDaoListener;
+import org.springframework.stereotype.Component;
+
+import java.io.Serializable;
+import java.util.Collections;
+
+import javax.annotation.Resource;
+
+/**
+ * Queues the products affected by catalog changes made in the admin so that the search index can be updated
+ * without waiting for the next full rebuild.
+ */
+@Component("blSearchIndexQueueDynamicEntityDaoListener")
+public class SearchIndexQueueDynamicEntityDaoListener implements DynamicEntityDaoListener {
+
+    @Resource(name = "blSolrIndexQueueService")
+    protected SolrIndexQueueService solrIndexQueueService;
+
+    @Override
+    public void postSave(Serializable entity) {
+        enqueue(entity);
+    }
+
+    @Override
+    public void postRemove(Serializable entity) {
+        enqueue(entity);
+    }
+
+    protected void enqueue(Serializable entity) {
+        Product product = getAffectedProduct(entity);
+        if (product != null && product.getId() != null) {
+            solrIndexQueueService.enqueueProducts(Collections.singletonList(product.getId()));
+        }
+    }
+
+    /**
+     * @param entity
+     * @return the product whose index document is affected by a change to the given entity, or null if the entity 
+     * is not part of a product document
+     */
+    protected Product getAffectedProduct(Serializable entity) {
+        if (entity instanceof Product) {
+            return (Product) entity;
+        }
+        if (entity instanceof Sku) {
+            return ((Sku) entity).getProduct();
+        }
+        if (entity instanceof CategoryProductXref) {
+            return ((CategoryProductXref) entity).getProduct();
+        }
+        if (entity instanceof ProductAttribute) {
+            return ((ProductAttribute) entity).getProduct();
+        }
+        return null;
+    }
+
+}
@@ -0,0 +1,90 @@
+/*
+ * Copyright 2008-2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.broadleafcommerce.cms.common;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.broadleafcommerce.cms.page.domain.Page;
+import org.broadleafcommerce.cms.page.service.PageService;
+import org.broadleafcommerce.cms.structure.domain.StructuredContent;
+import org.broadleafcommerce.cms.structure.service.StructuredContentService;
+import org.broadleafcommerce.common.rule.MvelHelper;
+import org.broadleafcommerce.common.rule.RuleExpressionService;
+import org.broadleafcommerce.common.sandbox.domain.SandBox;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationListener;
+import org.springframework.context.event.ContextRefreshedEvent;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+import javax.annotation.Resource;
+
+/**
+ * Compiles the rules of the production pages and structured content items when the application starts, so that 
+ * the first requests after a restart do not pay for compiling them.
+ */
+@Component("blContentRuleExpressionWarmer")
+public class ContentRuleExpressionWarmer implements ApplicationListener<ContextRefreshedEvent> {
+
+    private static final Log LOG = LogFactory.getLog(ContentRuleExpressionWarmer.class);
+
+    @Value("${rule.expression.cache.warm.enabled}")
+    protected boolean warmEnabled = true;
+
+    @Resource(name = "blPageService")
+    protected PageService pageService;
+
+    @Resource(name = "blStructuredContentService")
+    protected StructuredContentService structuredContentService;
+
+    @Resource(name = "blRuleExpressionService")
+    protected RuleExpressionService ruleExpressionService;
+
+    protected volatile boolean warmed = false;
+
+    @Override
+    @Transactional("blTransactionManager")
+    public void onApplicationEvent(ContextRefreshedEvent event) {
+        if (!warmEnabled || warmed) {
+            return;
+        }
+        warmed = true;
+
+        Set<String> expressions = new LinkedHashSet<String>();
+        for (Page page : pageService.readAllPages()) {
+            if (isProductionItem(page.getSandbox(), page.getDeletedFlag(), page.getArchivedFlag(), page.getOfflineFlag())) {
+                expressions.add(pageService.buildRuleExpression(page));
+            }
+        }
+        for (StructuredContent sc : structuredContentService.findAllContentItems()) {
+            if (isProductionItem(sc.getSandbox(), sc.getDeletedFlag(), sc.getArchivedFlag(), sc.getOfflineFlag())) {
+                expressions.add(structuredContentService.buildRuleExpression(sc));
+            }
+        }
+
+        int compiled = ruleExpressionService.warmExpressions(expressions, MvelHelper.DEFAULT_IMPORTS);
+        LOG.info(String.format("Compiled [%s] page and structured content rule expressions", compiled));
+    }
+
+    protected boolean isProductionItem(SandBox sandbox, Boolean deletedFlag, Boolean archivedFlag, Boolean offlineFlag) {
+        return sandbox == null && !Boolean.TRUE.equals(deletedFlag) && !Boolean.TRUE.equals(archivedFlag) 
+                && !Boolean.TRUE.equals(offlineFlag);
+    }
+
+}
@@ -0,0 +1,87 @@
+/*
+ * Copyright 2008-2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.broadleafcommerce.cms.file.service;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+
+/**
+ * An input stream over a file that supports {@link #mark(int)} and {@link #reset()} without any limit, by seeking in
+ * the file rather than buffering what has been read. The artifact processors read an asset more than once, and this
+ * allows them to do so without holding the whole asset in memory.
+ */
+public class ResettableFileInputStream extends InputStream {
+
+    protected final RandomAccessFile file;
+    protected long markPosition = 0;
+
+    public ResettableFileInputStream(File file) throws IOException {
+        this.file = new RandomAccessFile(file, "r");
+    }
+
+    @Override
+    public int read() throws IOException {
+        return file.read();
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        return file.read(b, off, len);
+    }
+
+    @Override
+    public long skip(long n) throws IOException {
+        if (n <= 0) {
+            return 0;
+        }
+        long position = file.getFilePointer();
+        long target = Math.min(file.length(), position + n);
+        file.seek(target);
+        return target - position;
+    }
+
+    @Override
+    public int available() throws IOException {
+        return (int) Math.min(Integer.MAX_VALUE, file.length() - file.getFilePointer());
+    }
+
+    @Override
+    public boolean markSupported() {
+        return true;
+    }
+
+    @Override
+    public synchronized void mark(int readlimit) {
+        try {
+            markPosition = file.getFilePointer();
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    @Override
+    public synchronized void reset() throws IOException {
+        file.seek(markPosition);
+    }
+
+    @Override
+    public void close() throws IOException {
+        file.close();
+    }
+
+}
@@ -0,0 +1,168 @@
+/*
+ * Copyright 2008-2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.broadleafcommerce.cms.file.service;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Keeps the cache files generated by the {@link StaticAssetStorageService} (the files whose name contains 
+ * {@link #CACHE_FILE_MARKER}) in least recently used order, and deletes the least recently used ones once their 
+ * total size exceeds <code>maxSize</code>. The stored assets themselves are never touched.
+ * 
+ * The index starts out empty and learns about cache files left by earlier runs from {@link #load()}, which walks 
+ * the directory once and orders those files by their last modified time.
+ */
+public class StaticAssetCacheIndex {
+
+    private static final Log LOG = LogFactory.getLog(StaticAssetCacheIndex.class);
+
+    public static final String CACHE_FILE_MARKER = "---";
+
+    /**
+     * Once the limit has been exceeded, files are deleted until the cache is back under this fraction of it, so that
+     * the next eviction is not triggered by the very next file
+     */
+    protected static final double EVICTION_TARGET = 0.9D;
+
+    protected final File baseDirectory;
+    protected final long maxSize;
+
+    protected LinkedHashMap<String, Long> files = new LinkedHashMap<String, Long>(1024, 0.75F, true);
+    protected long totalSize = 0;
+
+    public StaticAssetCacheIndex(File baseDirectory, long maxSize) {
+        this.baseDirectory = baseDirectory;
+        this.maxSize = maxSize;
+    }
+
+    /**
+     * Records a read of the given cache file
+     */
+    public synchronized void touch(File file) {
+        files.get(file.getAbsolutePath());
+    }
+
+    /**
+     * Records a newly written cache file and evicts the least recently used files if the cache has grown too large
+     */
+    public void add(File file) {
+        List<File> evicted;
+        synchronized (this) {
+            Long previous = files.put(file.getAbsolutePath(), file.length());
+            totalSize += file.length() - (previous == null ? 0 : previous);
+            evicted = collectEvictions();
+        }
+        delete(evicted);
+    }
+
+    /**
+     * Adds the cache files that are already on disk, treating them as less recently used than any file recorded so far
+     */
+    public void load() {
+        List<File> found = new ArrayList<File>();
+        collectCacheFiles(baseDirectory, found);
+        Collections.sort(found, new Comparator<File>() {
+            @Override
+            public int compare(File o1, File o2) {
+                long diff = o1.lastModified() - o2.lastModified();
+                return diff < 0 ? -1 : (diff > 0 ? 1 : 0);
+            }
+        });
+
+        List<File> evicted;
+        synchronized (this) {
+            LinkedHashMap<String, Long> loaded = new LinkedHashMap<String, Long>(Math.max(1024, found.size() * 2), 0.75F, true);
+            long loadedSize = 0;
+            for (File file : found) {
+                long length = file.length();
+                loaded.put(file.getAbsolutePath(), length);
+                loadedSize += length;
+            }
+            for (Map.Entry<String, Long> entry : files.entrySet()) {
+                Long previous = loaded.put(entry.getKey(), entry.getValue());
+                loadedSize += entry.getValue() - (previous == null ? 0 : previous);
+            }
+            files = loaded;
+            totalSize = loadedSize;
+            evicted = collectEvictions();
+        }
+        if (LOG.isInfoEnabled()) {
+            LOG.info(String.format("Found [%s] static asset cache files totalling [%s] bytes", found.size(), totalSize));
+        }
+        delete(evicted);
+    }
+
+    public synchronized long getTotalSize() {
+        return totalSize;
+    }
+
+    public synchronized int getFileCount() {
+        return files.size();
+    }
+
+    protected List<File> collectEvictions() {
+        if (totalSize <= maxSize) {
+            return Collections.emptyList();
+        }
+        List<File> evicted = new ArrayList<File>();
+        long target = (long) (maxSize * EVICTION_TARGET);
+        // Never evict the most recently used file, it is about to be served
+        Iterator<Map.Entry<String, Long>> iterator = files.entrySet().iterator();
+        while (totalSize > target && files.size() > 1 && iterator.hasNext()) {
+            Map.Entry<String, Long> eldest = iterator.next();
+            iterator.remove();
+            totalSize -= eldest.getValue();
+            evicted.add(new File(eldest.getKey()));
+        }
+        return evicted;
+    }
+
+    protected void delete(List<File> evicted) {
+        for (File file : evicted) {
+            if (!file.delete() && file.exists()) {
+                LOG.warn("Unable to delete the static asset cache file " + file.getAbsolutePath());
+            }
+        }
+        if (!evicted.isEmpty() && LOG.isDebugEnabled()) {
+            LOG.debug("Deleted [" + evicted.size() + "] least recently used static asset cache files");
+        }
+    }
+
+    protected void collectCacheFiles(File directory, List<File> found) {
+        File[] children = directory.listFiles();
+        if (children == null) {
+            return;
+        }
+        for (File child : children) {
+            if (child.isDirectory()) {
+                collectCacheFiles(child, found);
+            } else if (child.getName().contains(CACHE_FILE_MARKER)) {
+                found.add(child);
+            }
+        }
+    }
+
+}
@@ -30,16 +30,20 @@ import org.broadleafcommerce.common.site.domain.Site;
 import org.broadleafcommerce.common.web.BroadleafRequestContext;
 import org.broadleafcommerce.openadmin.server.service.artifact.ArtifactService;
 import org.broadleafcommerce.openadmin.server.service.artifact.image.Operation;
+import org.springframework.beans.factory.DisposableBean;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.core.io.ClassPathResource;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionStatus;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.DefaultTransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.BufferedInputStream;
 import java.io.BufferedOutputStream;
-import java.io.ByteArrayInputStream;
-import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileOutputStream;
@@ -52,9 +56,22 @@ import java.security.NoSuchAlgorithmException;
 import java.sql.Blob;
 import java.sql.SQLException;
 import java.text.SimpleDateFormat;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import javax.annotation.Resource;
 
@@ -62,7 +79,7 @@ import javax.annotation.Resource;
  * @author Jeff Fischer, Brian Polster
  */
 @Service("blStaticAssetStorageService")
-public class StaticAssetStorageServiceImpl implements StaticAssetStorageService {
+public class StaticAssetStorageServiceImpl implements StaticAssetStorageService, DisposableBean {
 
     @Value("${asset.server.file.system.path}")
     protected String assetFileSystemPath;
@@ -79,6 +96,15 @@ public class StaticAssetStorageServiceImpl implements StaticAssetStorageService
     @Value("${asset.server.file.buffer.size}")
     protected int fileBufferSize = 8096;
 
+    @Value("${asset.server.conversion.threads}")
+    protected int conversionThreads = 4;
+
+    @Value("${asset.server.cache.max.size}")
+    protected long maxCacheSize = 0;
+
+    @Value("${asset.server.pregenerate.named.operations}")
+    protected boolean pregenerateNamedOperations = true;
+
     private static final Log LOG = LogFactory.getLog(StaticAssetStorageServiceImpl.class);
     private static final String DEFAULT_STORAGE_DIRECTORY = System.getProperty("java.io.tmpdir");
 
@@ -96,6 +122,18 @@ public class StaticAssetStorageServiceImpl implements StaticAssetStorageService
     @Resource(name="blNamedOperationManager")
     protected NamedOperationManager namedOperationManager;
 
+    @Resource(name="blTransactionManagerAssetStorageInfo")
+    protected PlatformTransactionManager assetStorageTransactionManager;
+
+    /**
+     * The cache files currently being written, keyed by path. Requests for a file that is being written wait for it
+     * rather than writing it again.
+     */
+    protected final ConcurrentMap<String, Future<File>> pendingCacheFiles = new ConcurrentHashMap<String, Future<File>>();
+
+    protected volatile ExecutorService conversionExecutor;
+    protected volatile StaticAssetCacheIndex cacheIndex;
+
     protected StaticAsset findStaticAsset(String fullUrl, SandBox sandBox) {
         StaticAsset staticAsset = staticAssetService.findStaticAssetByFullUrl(fullUrl, sandBox);
         if (staticAsset == null && sandBox != null) {
@@ -202,10 +240,12 @@ public class StaticAssetStorageServiceImpl implements StaticAssetStorageService
                 // Create a file system cache file representing this file.
                 String cacheName = constructCacheFileName(staticAsset, convertedParameters, true);
                 File cacheFile = new File(cacheName);
-                if (!cacheFile.exists()) {
-                    createCacheFile(classPathInputStream, cacheFile);
+                try {
+                    cacheFile = createCacheFileOnce(cacheFile, new CopyCacheFileTask(classPathInputStream, cacheFile), false);
+                    returnFilePath = cacheFile.getAbsolutePath();
+                } finally {
+                    closeQuietly(classPathInputStream);
                 }
-                returnFilePath = cacheFile.getAbsolutePath();
             } else {
                 returnFilePath = generateStorageFileName(staticAsset.getFullUrl(), false);
             }
@@ -222,24 +262,18 @@ public class StaticAssetStorageServiceImpl implements StaticAssetStorageService
             }
 
             if (!cacheFile.exists()) {
-                InputStream original = findInputStreamForStaticAsset(staticAsset);
-                boolean useSharedFile = shouldUseSharedFile(original);
-    
                 if (!convertedParameters.isEmpty()) {
-                    Operation[] operations = artifactService.buildOperations(convertedParameters, original, staticAsset.getMimeType());
-                    InputStream converted = artifactService.convert(original, operations, staticAsset.getMimeType());
-                    createCacheFile(converted, cacheFile);
+                    File originalFile = getConversionSourceFile(staticAsset);
+                    cacheFile = createCacheFileOnce(cacheFile, new ConvertCacheFileTask(originalFile, cacheFile, 
+                            convertedParameters, staticAsset.getMimeType()), true);
                     if ("image/gif".equals(mimeType)) {
                         mimeType = "image/png";
                     }
                 } else {
-                    if (useSharedFile) {
-                        cacheFile = new File(sharedCacheName);
-                        createCacheFile(original, cacheFile);
-                    } else {
-                        createCacheFile(original, cacheFile);
-                    }
+                    cacheFile = getOriginalCacheFile(staticAsset);
                 }
+            } else {
+                touchCacheFile(cacheFile);
             }
             returnFilePath = cacheFile.getAbsolutePath();
         }
@@ -258,28 +292,8 @@ public class StaticAssetStorageServiceImpl implements StaticAssetStorageService
 
         if (StorageType.DATABASE.equals(staticAsset.getStorageType())) {
             StaticAssetStorage storage = readStaticAssetStorageByStaticAssetId(staticAsset.getId());
-            //there are filter operations to perform on the asset
-            ByteArrayOutputStream baos = new ByteArrayOutputStream();
-            InputStream is = null;
-            try {
-                is = storage.getFileData().getBinaryStream();
-                byte[] buffer = new byte[fileBufferSize];
-                int bytesRead;
-                while ((bytesRead = is.read(buffer)) != -1) {
-                    baos.write(buffer, 0, bytesRead);
-                }
-                baos.flush();
-            } finally {
-                if (is != null) {
-                    try {
-                        is.close();
-                    } catch (Throwable e) {
-                        //do nothing
-                    }
-                }
-            }
-            InputStream original = new ByteArrayInputStream(baos.toByteArray());
-            return original;
+            // Streamed straight from the blob, so it must be read before the transaction ends
+            return new BufferedInputStream(storage.getFileData().getBinaryStream(), fileBufferSize);
         } else if (StorageType.FILESYSTEM.equals(staticAsset.getStorageType())) {
             FileInputStream assetFile = new FileInputStream(generateStorageFileName(staticAsset.getFullUrl(), false));
             BufferedInputStream bufferedStream = new BufferedInputStream(assetFile);
@@ -352,32 +366,259 @@ public class StaticAssetStorageServiceImpl implements StaticAssetStorageService
         return staticAssetStorageDao.createBlob(uploadedFile);
     }
 
+    /**
+     * Writes the stream to a temporary file next to the cache file and then renames it, so that a partially written
+     * cache file is never served
+     */
     protected void createCacheFile(InputStream is, File cacheFile) throws SQLException, IOException {
         if (!cacheFile.getParentFile().exists()) {
-            if (!cacheFile.getParentFile().mkdirs()) {
+            if (!cacheFile.getParentFile().mkdirs() && !cacheFile.getParentFile().exists()) {
                 throw new RuntimeException("Unable to create middle directories for file: " + cacheFile.getAbsolutePath());
             }
         }
-        BufferedOutputStream bos = new BufferedOutputStream(new FileOutputStream(cacheFile));
+        File tmpFile = new File(cacheFile.getAbsolutePath() + "." + UUID.randomUUID().toString() + ".tmp");
+        BufferedOutputStream bos = new BufferedOutputStream(new FileOutputStream(tmpFile), fileBufferSize);
+        boolean written = false;
         try {
-            boolean eof = false;
-            int temp;
-            while (!eof) {
-                temp = is.read();
-                if (temp < 0) {
-                    eof = true;
-                } else {
-                    bos.write(temp);
-                }
+            byte[] buffer = new byte[fileBufferSize];
+            int bytesRead;
+            while ((bytesRead = is.read(buffer)) != -1) {
+                bos.write(buffer, 0, bytesRead);
             }
+            bos.flush();
+            written = true;
         } finally {
             try {
-                bos.flush();
                 bos.close();
             } catch (Throwable e) {
                 //do nothing
             }
+            if (!written) {
+                tmpFile.delete();
+            }
+        }
+        if (!tmpFile.renameTo(cacheFile)) {
+            tmpFile.delete();
+            if (!cacheFile.exists()) {
+                throw new RuntimeException("Unable to rename temp file to create file named: " + cacheFile.getAbsolutePath());
+            }
+        }
+    }
+
+    /**
+     * Returns the file that conversions of the asset are read from: the stored file for file system assets, or else
+     * a cached copy of the original, so that a database asset is read from storage only once
+     */
+    protected File getConversionSourceFile(StaticAsset staticAsset) throws Exception {
+        if (StorageType.FILESYSTEM.equals(staticAsset.getStorageType())) {
+            InputStream classPathInputStream = getResourceFromClasspath(staticAsset);
+            if (classPathInputStream == null) {
+                return new File(generateStorageFileName(staticAsset.getFullUrl(), false));
+            }
+            closeQuietly(classPathInputStream);
+        }
+        return getOriginalCacheFile(staticAsset);
+    }
+
+    /**
+     * Returns the cache file holding the unconverted asset, writing it from storage if it does not exist yet. Assets
+     * from the classpath are cached in the shared location, all others in the site specific one.
+     */
+    protected File getOriginalCacheFile(StaticAsset staticAsset) throws Exception {
+        Map<String, String> noParameters = Collections.emptyMap();
+        File sharedCacheFile = new File(constructCacheFileName(staticAsset, noParameters, true));
+        if (sharedCacheFile.exists()) {
+            touchCacheFile(sharedCacheFile);
+            return sharedCacheFile;
+        }
+        File cacheFile = new File(constructCacheFileName(staticAsset, noParameters, false));
+        if (cacheFile.exists()) {
+            touchCacheFile(cacheFile);
+            return cacheFile;
+        }
+
+        InputStream original = findInputStreamForStaticAsset(staticAsset);
+        try {
+            if (shouldUseSharedFile(original)) {
+                cacheFile = sharedCacheFile;
+            }
+            // Read in this thread, as a database asset can only be read within the current transaction
+            return createCacheFileOnce(cacheFile, new CopyCacheFileTask(original, cacheFile), false);
+        } finally {
+            closeQuietly(original);
+        }
+    }
+
+    /**
+     * Writes the cache file with the given task unless it already exists. Only one task runs for a given file at a 
+     * time; concurrent requests for the same file wait for that task instead of writing it again. Conversions run on 
+     * a pool of <code>asset.server.conversion.threads</code> threads to bound the number of images being resized at 
+     * once.
+     */
+    protected File createCacheFileOnce(File cacheFile, Callable<File> task, boolean conversion) throws Exception {
+        if (cacheFile.exists()) {
+            touchCacheFile(cacheFile);
+            return cacheFile;
+        }
+        String key = cacheFile.getAbsolutePath();
+        FutureTask<File> future = new FutureTask<File>(task);
+        Future<File> existing = pendingCacheFiles.putIfAbsent(key, future);
+        if (existing != null) {
+            return waitForCacheFile(existing);
+        }
+        try {
+            // The file may have been written between the check above and registering the task
+            if (cacheFile.exists()) {
+                return cacheFile;
+            }
+            if (conversion) {
+                getConversionExecutor().execute(future);
+            } else {
+                future.run();
+            }
+            File result = waitForCacheFile(future);
+            StaticAssetCacheIndex index = getCacheIndex();
+            if (index != null) {
+                index.add(result);
+            }
+            return result;
+        } finally {
+            pendingCacheFiles.remove(key, future);
+        }
+    }
+
+    protected File waitForCacheFile(Future<File> future) throws Exception {
+        try {
+            return future.get();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof Exception) {
+                throw (Exception) e.getCause();
+            }
+            throw new RuntimeException(e.getCause());
+        }
+    }
+
+    protected void touchCacheFile(File cacheFile) {
+        StaticAssetCacheIndex index = getCacheIndex();
+        if (index != null) {
+            index.touch(cacheFile);
+        }
+    }
+
+    /**
+     * @return the index of the cache files, or null if <code>asset.server.cache.max.size</code> does not limit the
+     * size of the cache
+     */
+    protected StaticAssetCacheIndex getCacheIndex() {
+        if (maxCacheSize <= 0) {
+            return null;
+        }
+        if (cacheIndex == null) {
+            synchronized (this) {
+                if (cacheIndex == null) {
+                    final StaticAssetCacheIndex index = new StaticAssetCacheIndex(new File(getBaseDirectory()), maxCacheSize);
+                    getConversionExecutor().execute(new Runnable() {
+                        @Override
+                        public void run() {
+                            index.load();
+                        }
+                    });
+                    cacheIndex = index;
+                }
+            }
+        }
+        return cacheIndex;
+    }
+
+    protected ExecutorService getConversionExecutor() {
+        if (conversionExecutor == null) {
+            synchronized (this) {
+                if (conversionExecutor == null) {
+                    conversionExecutor = Executors.newFixedThreadPool(Math.max(1, conversionThreads), new ThreadFactory() {
+                        protected final AtomicInteger count = new AtomicInteger();
+
+                        @Override
+                        public Thread newThread(Runnable runnable) {
+                            Thread thread = new Thread(runnable, "bl-static-asset-conversion-" + count.incrementAndGet());
+                            thread.setDaemon(true);
+                            return thread;
+                        }
+                    });
+                }
+            }
+        }
+        return conversionExecutor;
+    }
+
+    @Override
+    public void destroy() throws Exception {
+        if (conversionExecutor != null) {
+            conversionExecutor.shutdownNow();
+        }
+    }
+
+    protected void closeQuietly(InputStream is) {
+        if (is != null) {
+            try {
+                is.close();
+            } catch (Throwable e) {
+                //do nothing
+            }
+        }
+    }
+
+    /**
+     * Copies an unconverted asset into its cache file
+     */
+    protected class CopyCacheFileTask implements Callable<File> {
+
+        protected final InputStream original;
+        protected final File cacheFile;
+
+        public CopyCacheFileTask(InputStream original, File cacheFile) {
+            this.original = original;
+            this.cacheFile = cacheFile;
+        }
+
+        @Override
+        public File call() throws Exception {
+            createCacheFile(original, cacheFile);
+            return cacheFile;
+        }
+
+    }
+
+    /**
+     * Applies the requested operations to the cached copy of the original asset and writes the result to the cache
+     * file
+     */
+    protected class ConvertCacheFileTask implements Callable<File> {
+
+        protected final File originalFile;
+        protected final File cacheFile;
+        protected final Map<String, String> parameters;
+        protected final String mimeType;
+
+        public ConvertCacheFileTask(File originalFile, File cacheFile, Map<String, String> parameters, String mimeType) {
+            this.originalFile = originalFile;
+            this.cacheFile = cacheFile;
+            this.parameters = parameters;
+            this.mimeType = mimeType;
+        }
+
+        @Override
+        public File call() throws Exception {
+            InputStream original = new ResettableFileInputStream(originalFile);
+            try {
+                Operation[] operations = artifactService.buildOperations(parameters, original, mimeType);
+                InputStream converted = artifactService.convert(original, operations, mimeType);
+                createCacheFile(converted, cacheFile);
+            } finally {
+                closeQuietly(original);
+            }
+            return cacheFile;
         }
+
     }
 
     /**
@@ -480,6 +721,84 @@ public class StaticAssetStorageServiceImpl implements StaticAssetStorageService
                 }
             }
         }
+
+        schedulePregeneration(staticAsset);
+    }
+
+    /**
+     * Generates the named operations (such as the admin thumbnails) of a newly uploaded image in the background, so
+     * that the first request for them is served from the cache. If the upload is part of a transaction, this waits 
+     * until that transaction has committed and the stored asset can be read.
+     */
+    protected void schedulePregeneration(final StaticAsset staticAsset) {
+        if (!pregenerateNamedOperations || staticAsset.getMimeType() == null || !staticAsset.getMimeType().startsWith("image/")) {
+            return;
+        }
+        final List<String> names = namedOperationManager.getNamedOperationNames();
+        if (names.isEmpty()) {
+            return;
+        }
+        final BroadleafRequestContext context = new BroadleafRequestContext();
+        BroadleafRequestContext brc = BroadleafRequestContext.getBroadleafRequestContext();
+        if (brc != null) {
+            context.setSite(brc.getSite());
+            context.setSandbox(brc.getSandbox());
+        }
+        final Runnable task = new Runnable() {
+            @Override
+            public void run() {
+                BroadleafRequestContext.setBroadleafRequestContext(context);
+                try {
+                    for (String name : names) {
+                        pregenerateNamedOperation(staticAsset, name);
+                    }
+                } finally {
+                    BroadleafRequestContext.setBroadleafRequestContext(null);
+                }
+            }
+        };
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+                @Override
+                public void afterCommit() {
+                    getConversionExecutor().execute(task);
+                }
+            });
+        } else {
+            getConversionExecutor().execute(task);
+        }
+    }
+
+    /**
+     * Writes the cache file for the given named operation of the asset, just as a request for it would. Failures
+     * are only logged; the file is then generated on the first request instead.
+     */
+    protected void pregenerateNamedOperation(StaticAsset staticAsset, String name) {
+        Map<String, String> parameters = new LinkedHashMap<String, String>();
+        parameters.put(name, "");
+        Map<String, String> convertedParameters = namedOperationManager.manageNamedParameters(parameters);
+        if (new File(constructCacheFileName(staticAsset, convertedParameters, true)).exists()) {
+            return;
+        }
+        File cacheFile = new File(constructCacheFileName(staticAsset, convertedParameters, false));
+        if (cacheFile.exists()) {
+            return;
+        }
+
+        DefaultTransactionDefinition definition = new DefaultTransactionDefinition();
+        definition.setName("pregenerateNamedOperation");
+        definition.setReadOnly(true);
+        TransactionStatus status = assetStorageTransactionManager.getTransaction(definition);
+        try {
+            File originalFile = getConversionSourceFile(staticAsset);
+            // Already running on the conversion pool, so convert in this thread rather than queueing behind it
+            createCacheFileOnce(cacheFile, new ConvertCacheFileTask(originalFile, cacheFile, convertedParameters, 
+                    staticAsset.getMimeType()), false);
+        } catch (Exception e) {
+            LOG.warn("Unable to pregenerate the " + name + " image for the asset " + staticAsset.getFullUrl(), e);
+        } finally {
+            assetStorageTransactionManager.commit(status);
+        }
     }
 
     public static void main(String[] args) {
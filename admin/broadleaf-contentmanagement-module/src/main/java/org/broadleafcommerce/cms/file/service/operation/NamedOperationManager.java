@@ -16,6 +16,7 @@
 
 package org.broadleafcommerce.cms.file.service.operation;
 
+import java.util.List;
 import java.util.Map;
 
 /**
@@ -25,4 +26,10 @@ public interface NamedOperationManager {
 
     Map<String, String> manageNamedParameters(Map<String, String> parameterMap);
 
+    /**
+     * @return the names of the statically configured operations, e.g. the admin thumbnails, so that their images
+     * can be generated ahead of the first request for them
+     */
+    List<String> getNamedOperationNames();
+
 }
@@ -43,6 +43,17 @@ public class NamedOperationManagerImpl implements NamedOperationManager {
         return derivedMap;
     }
 
+    @Override
+    public List<String> getNamedOperationNames() {
+        List<String> names = new ArrayList<String>();
+        for (NamedOperationComponent namedOperationComponent : namedOperationComponents) {
+            if (namedOperationComponent instanceof StaticMapNamedOperationComponent) {
+                names.addAll(((StaticMapNamedOperationComponent) namedOperationComponent).getNamedOperations().keySet());
+            }
+        }
+        return names;
+    }
+
     public List<NamedOperationComponent> getNamedOperationComponents() {
         return namedOperationComponents;
     }
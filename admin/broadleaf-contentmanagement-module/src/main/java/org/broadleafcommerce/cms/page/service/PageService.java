@@ -145,6 +145,15 @@ public interface PageService {
      * @return all {@link Page}s configured in the system
      */
     public List<Page> readAllPages();
+
+    /**
+     * Builds the MVEL expression that combines all of the match rules of the given page, as evaluated by the
+     * {@link PageRuleProcessor}s
+     * 
+     * @param page
+     * @return the rule expression, or null if the page has no rules
+     */
+    public String buildRuleExpression(Page page);
     
     /**
      * Returns all page templates, regardless of any sandbox they are apart of
@@ -362,7 +362,8 @@ public class PageServiceImpl extends AbstractContentService implements PageServi
     }
     
         
-    protected String buildRuleExpression(Page page) {
+    @Override
+    public String buildRuleExpression(Page page) {
        StringBuffer ruleExpression = null;
        Map<String, PageRule> ruleMap = page.getPageMatchRules();
        if (ruleMap != null) {
@@ -16,23 +16,24 @@
 
 package org.broadleafcommerce.cms.structure.service;
 
-import org.apache.commons.collections.map.LRUMap;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.broadleafcommerce.common.rule.MvelHelper;
+import org.broadleafcommerce.common.rule.RuleExpressionService;
 import org.mvel2.CompileException;
 import org.mvel2.MVEL;
 import org.mvel2.ParserContext;
 
 import java.io.Serializable;
-import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
 
+import javax.annotation.Resource;
+
 /**
  * This class is useful as a starting point for rule processors that need to execute MVEL rules.
  *
- * Sets up an LRU cache for rule processing and a convenience method for executing MVEL rules.
+ * Provides a convenience method for executing MVEL rules, compiled through the shared {@link RuleExpressionService}.
  *
  * @author bpolster
  *
@@ -40,56 +41,37 @@ import java.util.Map;
 public abstract class AbstractStructuredContentRuleProcessor implements StructuredContentRuleProcessor {
     private static final Log LOG = LogFactory.getLog(AbstractStructuredContentRuleProcessor.class);
 
-    private Map expressionCache = Collections.synchronizedMap(new LRUMap(1000));
-    private ParserContext parserContext;
+    @Resource(name = "blRuleExpressionService")
+    protected RuleExpressionService ruleExpressionService;
+
     private Map<String, String> contextClassNames = new HashMap<String, String> ();
 
     /**
-     * Having a parser context that imports the classes speeds MVEL by up to 60%.
+     * The classes imported into the parser context of the rules, keyed by the name used in the rule. Having a parser
+     * context that imports the classes speeds MVEL by up to 60%.
      * @return
      */
-    protected ParserContext getParserContext() {
-        if (parserContext == null) {
-            parserContext = new ParserContext();
-            parserContext.addImport("MVEL", MVEL.class);
-            parserContext.addImport("MvelHelper", MvelHelper.class);
-           /*  Getting errors when the following is in place.
-           for (String key : contextClassNames.keySet()) {
-                String className = contextClassNames.get(key);
-                try {
-                    Class c = Class.forName(className);
-                    parserContext.addImport(key, c);
-                } catch (ClassNotFoundException e) {
-                    LOG.error("Error resolving classname while setting up MVEL context, rule processing based on the key " + key + " will not be optimized", e);
-                }
-
-            }  */
-        }
-        return parserContext;
+    protected Map<String, Class<?>> getRuleImports() {
+        return MvelHelper.DEFAULT_IMPORTS;
     }
 
     /**
      * Helpful method for processing a boolean MVEL expression and associated arguments.
      *
-     * Caches the expression in an LRUCache.
+     * The compiled expression is cached by the shared {@link RuleExpressionService}.
      * @param expression
      * @param vars
      * @return the result of the expression
      */
     protected Boolean executeExpression(String expression, Map<String, Object> vars) {
-        Serializable exp = (Serializable) expressionCache.get(expression);
+        Serializable exp;
         vars.put("MVEL", MVEL.class);
 
-        if (exp == null) {
-
-            try {
-                exp = MVEL.compileExpression(expression, getParserContext());
-            } catch (CompileException ce) {
-                LOG.warn("Compile exception processing phrase: " + expression,ce);
-                return Boolean.FALSE;
-            }
-
-            expressionCache.put(expression, exp);
+        try {
+            exp = ruleExpressionService.getCompiledExpression(expression, getRuleImports());
+        } catch (CompileException ce) {
+            LOG.warn("Compile exception processing phrase: " + expression,ce);
+            return Boolean.FALSE;
         }
         try {
             return (Boolean) MVEL.executeExpression(exp, vars);
@@ -119,4 +101,12 @@ public abstract class AbstractStructuredContentRuleProcessor implements Structur
     public void setContextClassNames(Map<String, String> contextClassNames) {
         this.contextClassNames = contextClassNames;
     }
+
+    public RuleExpressionService getRuleExpressionService() {
+        return ruleExpressionService;
+    }
+
+    public void setRuleExpressionService(RuleExpressionService ruleExpressionService) {
+        this.ruleExpressionService = ruleExpressionService;
+    }
 }
@@ -106,6 +106,15 @@ public interface StructuredContentService extends SandBoxItemListener {
      * @return
      */
     public List<StructuredContent> findAllContentItems();
+
+    /**
+     * Builds the MVEL expression that combines all of the match rules of the given content item, as evaluated by the
+     * {@link StructuredContentRuleProcessor}s
+     * 
+     * @param sc
+     * @return the rule expression, or null if the content item has no rules
+     */
+    public String buildRuleExpression(StructuredContent sc);
     
     /**
      * Follows the same rules as {@link #findContentItems(org.broadleafcommerce.common.sandbox.domain.SandBox, org.hibernate.Criteria) findContentItems}.
@@ -258,7 +258,8 @@ public class StructuredContentServiceImpl extends AbstractContentService impleme
         updateStructuredContent(content, destinationSandbox);
     }
     
-    protected String buildRuleExpression(StructuredContent sc) {
+    @Override
+    public String buildRuleExpression(StructuredContent sc) {
        StringBuffer ruleExpression = null;
        Map<String, StructuredContentRule> ruleMap = sc.getStructuredContentMatchRules();
        if (ruleMap != null) {
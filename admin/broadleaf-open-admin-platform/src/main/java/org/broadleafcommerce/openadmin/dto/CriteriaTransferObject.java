@@ -31,6 +31,7 @@ public class CriteriaTransferObject {
 
     private Integer firstResult;
     private Integer maxResults;
+    private String lastId;
     
     private Map<String, FilterAndSortCriteria> criteriaMap = new HashMap<String, FilterAndSortCriteria>();
     
@@ -70,6 +71,25 @@ public class CriteriaTransferObject {
         this.maxResults = maxResults;
     }
     
+    /**
+     * The id of the last record of the previous page. When set, and the records are ordered by their id, the next
+     * page is read by seeking past this id rather than by skipping <code>firstResult</code> records.
+     *
+     * @return the id of the last record already fetched, or null
+     */
+    public String getLastId() {
+        return lastId;
+    }
+
+    /**
+     * The id of the last record of the previous page.
+     *
+     * @param lastId the id of the last record already fetched, or null
+     */
+    public void setLastId(String lastId) {
+        this.lastId = lastId;
+    }
+    
     /**
      * Add a {@link FilterAndSortCriteria} instance. Contains information about which records are retrieved
      * and in what direction they're sorted.
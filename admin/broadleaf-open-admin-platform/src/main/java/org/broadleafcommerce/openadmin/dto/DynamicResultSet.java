@@ -32,6 +32,7 @@ public class DynamicResultSet implements Serializable {
     private Integer pageSize;
     private Integer startIndex;
     private Integer totalRecords;
+    private Boolean totalRecordsApproximate = Boolean.FALSE;
     private Integer batchId;
 
     public DynamicResultSet() {
@@ -69,6 +70,17 @@ public class DynamicResultSet implements Serializable {
         this.totalRecords = totalRecords;
     }
 
+    /**
+     * @return whether {@link #getTotalRecords()} is a lower bound rather than an exact count
+     */
+    public Boolean getTotalRecordsApproximate() {
+        return totalRecordsApproximate;
+    }
+
+    public void setTotalRecordsApproximate(Boolean totalRecordsApproximate) {
+        this.totalRecordsApproximate = totalRecordsApproximate;
+    }
+
     public Entity[] getRecords() {
         return records;
     }
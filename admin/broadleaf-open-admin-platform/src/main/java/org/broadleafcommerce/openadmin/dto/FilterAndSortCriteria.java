@@ -28,6 +28,7 @@ public class FilterAndSortCriteria {
     public static final String SORT_DIRECTION_PARAMETER = "sortDirection";
     public static final String START_INDEX_PARAMETER = "startIndex";
     public static final String MAX_INDEX_PARAMETER = "maxIndex";
+    public static final String LAST_ID_PARAMETER = "lastId";
 
     protected String propertyId;
     protected List<String> filterValues = new ArrayList<String>();
@@ -17,6 +17,9 @@
 package org.broadleafcommerce.openadmin.server.dao;
 
 
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+
 import org.apache.commons.lang.ArrayUtils;
 import org.apache.commons.lang.StringUtils;
 import org.apache.commons.logging.Log;
@@ -42,7 +45,6 @@ import org.broadleafcommerce.openadmin.server.dao.provider.metadata.request.Late
 import org.broadleafcommerce.openadmin.server.service.AppConfigurationService;
 import org.broadleafcommerce.openadmin.server.service.persistence.module.FieldManager;
 import org.broadleafcommerce.openadmin.server.service.type.FieldProviderResponse;
-import org.codehaus.jackson.map.util.LRUMap;
 import org.hibernate.Criteria;
 import org.hibernate.MappingException;
 import org.hibernate.SessionFactory;
@@ -51,6 +53,7 @@ import org.hibernate.mapping.PersistentClass;
 import org.hibernate.mapping.Property;
 import org.hibernate.type.ComponentType;
 import org.hibernate.type.Type;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Scope;
 import org.springframework.stereotype.Component;
@@ -89,7 +92,17 @@ public class DynamicEntityDaoImpl implements DynamicEntityDao {
     
     private static final Log LOG = LogFactory.getLog(DynamicEntityDaoImpl.class);
     
-    protected static final Map<String,Map<String, FieldMetadata>> METADATA_CACHE = new LRUMap<String, Map<String, FieldMetadata>>(100, 1000);
+    protected static final int METADATA_CACHE_MAXIMUM_SIZE = 1000;
+
+    /**
+     * The metadata of each entity class, keyed by {@link #getCacheKey}. Reads do not lock; an entry is built at most
+     * once (under {@link DynamicDaoHelperImpl#LOCK_OBJECT}) and is never modified after it has been published.
+     * When <code>cache.entity.dao.metadata.ttl</code> is positive, each entry expires on its own. The cache holds
+     * at most {@link #METADATA_CACHE_MAXIMUM_SIZE} entries and evicts the least recently used ones beyond that.
+     */
+    protected static final Cache<String, CachedMetadata> METADATA_CACHE = CacheBuilder.newBuilder()
+            .maximumSize(METADATA_CACHE_MAXIMUM_SIZE)
+            .build();
     /*
      * This is the same as POLYMORPHIC_ENTITY_CACHE, except that it does not contain classes that are abstract or have been marked for exclusion 
      * from polymorphism
@@ -115,6 +128,9 @@ public class DynamicEntityDaoImpl implements DynamicEntityDao {
     @Resource(name="blAppConfigurationRemoteService")
     protected AppConfigurationService appConfigurationRemoteService;
 
+    @Autowired(required = false)
+    protected List<DynamicEntityDaoListener> listeners = new ArrayList<DynamicEntityDaoListener>();
+
     protected DynamicDaoHelper dynamicDaoHelper = new DynamicDaoHelperImpl();
 
     @Value("${cache.entity.dao.metadata.ttl}")
@@ -131,11 +147,22 @@ public class DynamicEntityDaoImpl implements DynamicEntityDao {
     public Serializable persist(Serializable entity) {
         standardEntityManager.persist(entity);
         standardEntityManager.flush();
+        for (DynamicEntityDaoListener listener : listeners) {
+            listener.postSave(entity);
+        }
         return entity;
     }
     
     @Override
     public Serializable merge(Serializable entity) {
+        Serializable response = doMerge(entity);
+        for (DynamicEntityDaoListener listener : listeners) {
+            listener.postSave(response);
+        }
+        return response;
+    }
+
+    protected Serializable doMerge(Serializable entity) {
         Serializable response = standardEntityManager.merge(entity);
         standardEntityManager.flush();
         return response;
@@ -166,11 +193,14 @@ public class DynamicEntityDaoImpl implements DynamicEntityDao {
         boolean isArchivable = Status.class.isAssignableFrom(entity.getClass());
         if (isArchivable) {
             ((Status) entity).setArchived('Y');
-            merge(entity);
+            doMerge(entity);
         } else {
             standardEntityManager.remove(entity);
             standardEntityManager.flush();
         }
+        for (DynamicEntityDaoListener listener : listeners) {
+            listener.postRemove(entity);
+        }
     }
     
     @Override
@@ -192,7 +222,6 @@ public class DynamicEntityDaoImpl implements DynamicEntityDao {
         } else {
             if ((System.currentTimeMillis() - lastCacheFlushTime) > cacheEntityMetaDataTtl) {
                 lastCacheFlushTime = System.currentTimeMillis();
-                METADATA_CACHE.clear();
                 DynamicDaoHelperImpl.POLYMORPHIC_ENTITY_CACHE.clear();
                 DynamicDaoHelperImpl.POLYMORPHIC_ENTITY_CACHE_WO_EXCLUSIONS.clear();
                 return true; // cache is empty
@@ -611,57 +640,86 @@ public class DynamicEntityDaoImpl implements DynamicEntityDao {
         for (Class<?> clazz : entities) {
             String cacheKey = getCacheKey(foreignField, additionalNonPersistentProperties, additionalForeignFields, mergedPropertyType, populateManyToOneFields, clazz, configurationKey, isParentExcluded);
 
-            Map<String, FieldMetadata> cacheData = null;
-            synchronized(DynamicDaoHelperImpl.LOCK_OBJECT) {
-                if (useCache()) {
-                    cacheData = METADATA_CACHE.get(cacheKey);
-                }
-
-                if (cacheData == null) {
-                    Map<String, FieldMetadata> props = getPropertiesForEntityClass(
-                        clazz,
-                        foreignField,
-                        additionalNonPersistentProperties,
-                        additionalForeignFields,
-                        mergedPropertyType,
-                        populateManyToOneFields,
-                        includeFields,
-                        excludeFields,
-                        configurationKey,
-                        ceilingEntityFullyQualifiedClassname,
-                        parentClasses,
-                        prefix,
-                        isParentExcluded
-                    );
-                    //first check all the properties currently in there to see if my entity inherits from them
-                    for (Class<?> clazz2 : entities) {
-                        if (!clazz2.getName().equals(clazz.getName())) {
-                            for (Map.Entry<String, FieldMetadata> entry : props.entrySet()) {
-                                FieldMetadata metadata = entry.getValue();
-                                try {
-                                    if (Class.forName(metadata.getInheritedFromType()).isAssignableFrom(clazz2)) {
-                                        String[] both = (String[]) ArrayUtils.addAll(metadata.getAvailableToTypes(), new String[]{clazz2.getName()});
-                                        metadata.setAvailableToTypes(both);
+            Map<String, FieldMetadata> cacheData = getCachedMetadata(cacheKey);
+            if (cacheData == null) {
+                synchronized(DynamicDaoHelperImpl.LOCK_OBJECT) {
+                    // Another thread may have built the entry while this one waited for the lock
+                    cacheData = getCachedMetadata(cacheKey);
+                    if (cacheData == null) {
+                        Map<String, FieldMetadata> props = getPropertiesForEntityClass(
+                            clazz,
+                            foreignField,
+                            additionalNonPersistentProperties,
+                            additionalForeignFields,
+                            mergedPropertyType,
+                            populateManyToOneFields,
+                            includeFields,
+                            excludeFields,
+                            configurationKey,
+                            ceilingEntityFullyQualifiedClassname,
+                            parentClasses,
+                            prefix,
+                            isParentExcluded
+                        );
+                        //first check all the properties currently in there to see if my entity inherits from them
+                        for (Class<?> clazz2 : entities) {
+                            if (!clazz2.getName().equals(clazz.getName())) {
+                                for (Map.Entry<String, FieldMetadata> entry : props.entrySet()) {
+                                    FieldMetadata metadata = entry.getValue();
+                                    try {
+                                        if (Class.forName(metadata.getInheritedFromType()).isAssignableFrom(clazz2)) {
+                                            String[] both = (String[]) ArrayUtils.addAll(metadata.getAvailableToTypes(), new String[]{clazz2.getName()});
+                                            metadata.setAvailableToTypes(both);
+                                        }
+                                    } catch (ClassNotFoundException e) {
+                                        throw new RuntimeException(e);
                                     }
-                                } catch (ClassNotFoundException e) {
-                                    throw new RuntimeException(e);
                                 }
                             }
                         }
+                        cacheData = Collections.unmodifiableMap(props);
+                        if (cacheEntityMetaDataTtl != 0) {
+                            METADATA_CACHE.put(cacheKey, new CachedMetadata(cacheData));
+                        }
                     }
-                    METADATA_CACHE.put(cacheKey, props);
-                    cacheData = props;
                 }
             }
-            //clone the metadata before passing to the system
-            Map<String, FieldMetadata> clonedCache = new HashMap<String, FieldMetadata>(cacheData.size());
+            //clone the metadata before passing to the system, as callers customize it per request
             for (Map.Entry<String, FieldMetadata> entry : cacheData.entrySet()) {
-                clonedCache.put(entry.getKey(), entry.getValue().cloneFieldMetadata());
+                mergedProperties.put(entry.getKey(), entry.getValue().cloneFieldMetadata());
             }
-            mergedProperties.putAll(clonedCache);
         }
     }
 
+    /**
+     * @return the cached metadata for the given key, or null if there is none or it has expired
+     */
+    protected Map<String, FieldMetadata> getCachedMetadata(String cacheKey) {
+        if (cacheEntityMetaDataTtl == 0) {
+            return null;
+        }
+        CachedMetadata cached = METADATA_CACHE.getIfPresent(cacheKey);
+        if (cached == null) {
+            return null;
+        }
+        if (cacheEntityMetaDataTtl > 0 && System.currentTimeMillis() - cached.createdTime > cacheEntityMetaDataTtl) {
+            METADATA_CACHE.invalidate(cacheKey);
+            return null;
+        }
+        return cached.properties;
+    }
+
+    protected static class CachedMetadata {
+
+        protected final Map<String, FieldMetadata> properties;
+        protected final long createdTime = System.currentTimeMillis();
+
+        public CachedMetadata(Map<String, FieldMetadata> properties) {
+            this.properties = properties;
+        }
+
+    }
+
     @Override
     public Field[] getAllFields(Class<?> targetClass) {
         Field[] allFields = new Field[]{};
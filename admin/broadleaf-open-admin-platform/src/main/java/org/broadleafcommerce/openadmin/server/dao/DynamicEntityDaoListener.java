@@ -0,0 +1,42 @@
+/*
+ * Copyright 2008-2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.broadleafcommerce.openadmin.server.dao;
+
+import java.io.Serializable;
+
+/**
+ * Notified of every entity written through {@link DynamicEntityDao}, which all admin add, update and remove
+ * operations pass through. Listeners are invoked inside the admin transaction, after the change has been flushed.
+ * Any Spring bean implementing this interface is picked up automatically.
+ */
+public interface DynamicEntityDaoListener {
+
+    /**
+     * Called after an entity has been persisted or merged
+     * 
+     * @param entity the managed instance
+     */
+    public void postSave(Serializable entity);
+
+    /**
+     * Called after an entity has been removed. Entities implementing {@link org.broadleafcommerce.common.persistence.Status}
+     * are archived rather than deleted, and are reported here rather than to {@link #postSave(Serializable)}.
+     * 
+     * @param entity the removed (or archived) instance
+     */
+    public void postRemove(Serializable entity);
+
+}
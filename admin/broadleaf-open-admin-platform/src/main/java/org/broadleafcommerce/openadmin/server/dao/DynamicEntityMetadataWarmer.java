@@ -0,0 +1,129 @@
+/*
+ * Copyright 2008-2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.broadleafcommerce.openadmin.server.dao;
+
+import org.apache.commons.lang3.StringUtils;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.broadleafcommerce.common.web.BroadleafRequestContext;
+import org.broadleafcommerce.openadmin.dto.PersistencePackage;
+import org.broadleafcommerce.openadmin.server.domain.PersistencePackageRequest;
+import org.broadleafcommerce.openadmin.server.factory.PersistencePackageFactory;
+import org.broadleafcommerce.openadmin.server.security.dao.AdminNavigationDao;
+import org.broadleafcommerce.openadmin.server.security.domain.AdminSection;
+import org.broadleafcommerce.openadmin.server.service.DynamicEntityRemoteService;
+import org.broadleafcommerce.openadmin.server.service.persistence.PersistenceManager;
+import org.broadleafcommerce.openadmin.server.service.persistence.TargetModeType;
+import org.springframework.beans.BeansException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationContext;
+import org.springframework.context.ApplicationContextAware;
+import org.springframework.context.ApplicationListener;
+import org.springframework.context.event.ContextRefreshedEvent;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+import javax.annotation.Resource;
+
+/**
+ * Builds the metadata of the ceiling entity of every admin section when the application starts, so that the first
+ * entity forms loaded after a restart do not have to wait for it to be built.
+ */
+@Component("blDynamicEntityMetadataWarmer")
+public class DynamicEntityMetadataWarmer implements ApplicationListener<ContextRefreshedEvent>, ApplicationContextAware {
+
+    private static final Log LOG = LogFactory.getLog(DynamicEntityMetadataWarmer.class);
+
+    @Value("${cache.entity.dao.metadata.warm.enabled}")
+    protected boolean warmEnabled = true;
+
+    @Value("${cache.entity.dao.metadata.ttl}")
+    protected int cacheEntityMetaDataTtl;
+
+    @Resource(name = "blAdminNavigationDao")
+    protected AdminNavigationDao adminNavigationDao;
+
+    @Resource(name = "blPersistencePackageFactory")
+    protected PersistencePackageFactory persistencePackageFactory;
+
+    protected ApplicationContext applicationContext;
+
+    protected volatile boolean warmed = false;
+
+    @Override
+    @Transactional("blTransactionManager")
+    public void onApplicationEvent(ContextRefreshedEvent event) {
+        if (!warmEnabled || warmed || cacheEntityMetaDataTtl == 0
+                || !applicationContext.containsBean(DynamicEntityRemoteService.DEFAULTPERSISTENCEMANAGERREF)) {
+            return;
+        }
+        warmed = true;
+
+        boolean createdContext = false;
+        if (BroadleafRequestContext.getBroadleafRequestContext() == null) {
+            BroadleafRequestContext brc = new BroadleafRequestContext();
+            brc.setIgnoreSite(true);
+            BroadleafRequestContext.setBroadleafRequestContext(brc);
+            createdContext = true;
+        }
+        try {
+            Set<String> ceilingEntities = new LinkedHashSet<String>();
+            for (AdminSection section : adminNavigationDao.readAllAdminSections()) {
+                if (StringUtils.isNotEmpty(section.getCeilingEntity())) {
+                    ceilingEntities.add(section.getCeilingEntity());
+                }
+            }
+
+            PersistenceManager persistenceManager = (PersistenceManager) applicationContext.getBean(DynamicEntityRemoteService.DEFAULTPERSISTENCEMANAGERREF);
+            persistenceManager.setTargetMode(TargetModeType.SANDBOX);
+            long start = System.currentTimeMillis();
+            int built = 0;
+            for (String ceilingEntity : ceilingEntities) {
+                try {
+                    warmEntity(persistenceManager, ceilingEntity);
+                    built++;
+                } catch (Exception e) {
+                    LOG.warn("Unable to build the admin metadata for " + ceilingEntity, e);
+                }
+            }
+            LOG.info(String.format("Built the admin metadata for [%s] of [%s] ceiling entities in [%s] ms", built, 
+                    ceilingEntities.size(), System.currentTimeMillis() - start));
+        } finally {
+            if (createdContext) {
+                BroadleafRequestContext.setBroadleafRequestContext(null);
+            }
+        }
+    }
+
+    /**
+     * Builds the metadata the same way a standard list grid or entity form request for the entity would
+     */
+    protected void warmEntity(PersistenceManager persistenceManager, String ceilingEntity) {
+        PersistencePackage persistencePackage = persistencePackageFactory.create(PersistencePackageRequest.standard()
+                .withCeilingEntityClassname(ceilingEntity));
+        persistenceManager.getDynamicEntityDao().getSimpleMergedProperties(ceilingEntity, 
+                persistencePackage.getPersistencePerspective());
+    }
+
+    @Override
+    public void setApplicationContext(ApplicationContext applicationContext) throws BeansException {
+        this.applicationContext = applicationContext;
+    }
+
+}
@@ -41,8 +41,9 @@ public class SessionFactoryChangeListener implements SessionFactoryObserver {
     @Override
     public void sessionFactoryCreated(SessionFactory factory) {
         synchronized (DynamicDaoHelperImpl.LOCK_OBJECT) {
-            DynamicEntityDaoImpl.METADATA_CACHE.clear();
+            DynamicEntityDaoImpl.METADATA_CACHE.invalidateAll();
             DynamicDaoHelperImpl.POLYMORPHIC_ENTITY_CACHE.clear();
+            DynamicDaoHelperImpl.POLYMORPHIC_ENTITY_CACHE_WO_EXCLUSIONS.clear();
             try {
                 Field metadataCache = DynamicEntityRemoteService.class.getDeclaredField("METADATA_CACHE");
                 metadataCache.setAccessible(true);
@@ -53,6 +53,7 @@ public class PersistencePackageRequest {
     protected ForeignKey foreignKey;
     protected Integer startIndex;
     protected Integer maxIndex;
+    protected String lastId;
 
     protected OperationTypes operationTypesOverride = null;
 
@@ -223,6 +224,11 @@ public class PersistencePackageRequest {
         return this;
     }
 
+    public PersistencePackageRequest withLastId(String lastId) {
+        setLastId(lastId);
+        return this;
+    }
+
     /* *********** */
     /* ADD METHODS */
     /* *********** */
@@ -373,5 +379,13 @@ public class PersistencePackageRequest {
     public void setMaxIndex(Integer maxIndex) {
         this.maxIndex = maxIndex;
     }
+
+    public String getLastId() {
+        return lastId;
+    }
+
+    public void setLastId(String lastId) {
+        this.lastId = lastId;
+    }
     
 }
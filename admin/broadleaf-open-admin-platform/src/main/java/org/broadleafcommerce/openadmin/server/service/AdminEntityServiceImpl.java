@@ -559,6 +559,7 @@ public class AdminEntityServiceImpl implements AdminEntityService {
         } else {
             cto.setFirstResult(request.getStartIndex());
         }
+        cto.setLastId(request.getLastId());
         
         if (request.getMaxIndex() != null) {
             int requestedMaxResults = request.getMaxIndex() - request.getStartIndex() + 1;
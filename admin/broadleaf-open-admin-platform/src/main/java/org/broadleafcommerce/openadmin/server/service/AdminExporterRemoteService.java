@@ -39,8 +39,8 @@ public class AdminExporterRemoteService implements AdminExporterService, Applica
 
     private static final Log LOG = LogFactory.getLog(AdminExporterRemoteService.class);
     
-    //Lazy initialization via the blAdminExporters bean definition because exporters are not
-    //provided OOB in Broadleaf
+    //Lazy initialization via the blAdminExporters bean definition because exporters are only
+    //provided OOB by the admin module (see StreamingEntityExporter)
     protected List<AdminExporter> exporters;
     
     @Override
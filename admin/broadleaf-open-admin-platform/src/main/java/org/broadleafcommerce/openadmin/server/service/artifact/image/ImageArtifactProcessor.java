@@ -18,6 +18,8 @@ package org.broadleafcommerce.openadmin.server.service.artifact.image;
 
 import org.broadleafcommerce.openadmin.server.service.artifact.ArtifactProcessor;
 import org.broadleafcommerce.openadmin.server.service.artifact.image.effects.chain.EffectsManager;
+import org.broadleafcommerce.openadmin.server.service.artifact.image.effects.chain.UnmarshalledParameter;
+import org.broadleafcommerce.openadmin.server.service.artifact.image.effects.chain.filter.FilterTypeEnum;
 import org.springframework.stereotype.Service;
 
 import java.awt.image.BufferedImage;
@@ -26,12 +28,16 @@ import java.io.BufferedOutputStream;
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
 
 import javax.annotation.Resource;
 import javax.imageio.IIOImage;
 import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
 import javax.imageio.ImageReader;
 import javax.imageio.ImageWriteParam;
 import javax.imageio.ImageWriter;
@@ -48,12 +54,35 @@ import javax.imageio.stream.MemoryCacheImageOutputStream;
 @Service("blImageArtifactProcessor")
 public class ImageArtifactProcessor implements ArtifactProcessor {
 
+    protected static final String RESIZE = FilterTypeEnum.RESIZE.toString().toLowerCase();
+
+    /**
+     * Operations that work on each pixel independently of its neighbours, and so give (nearly) the same result 
+     * whether they run before or after the image has been scaled down
+     */
+    protected static final List<String> PIXEL_OPERATIONS = Arrays.asList(
+            FilterTypeEnum.ALTERHSB.toString().toLowerCase(),
+            FilterTypeEnum.ALTERRGB.toString().toLowerCase(),
+            FilterTypeEnum.AUTOLEVELSRGB.toString().toLowerCase());
+
     @Resource(name="blImageEffectsManager")
     protected EffectsManager effectsManager;
 
     protected String[] supportedUploadTypes = {"gif", "jpg", "jpeg", "png", "bmp", "wbmp"};
     protected float compressionQuality = 0.9F;
 
+    /**
+     * Whether a source image that is much larger than the target of a resize is subsampled while it is decoded, 
+     * rather than being decoded at full resolution and scaled down afterwards
+     */
+    protected boolean subsampleSource = true;
+
+    /**
+     * How many times larger than the resize target the subsampled image must remain, so that the resize still has 
+     * enough pixels to produce a smooth result
+     */
+    protected int subsamplingHeadroom = 2;
+
     @Override
     public boolean isSupported(InputStream artifactStream, String filename) {
         for (String type : supportedUploadTypes) {
@@ -92,15 +121,26 @@ public class ImageArtifactProcessor implements ArtifactProcessor {
             Iterator<ImageReader> iter = ImageIO.getImageReaders(iis);
             ImageReader reader = iter.next();
             String formatName = reader.getFormatName();
-            artifactStream.reset();
-            BufferedImage image = ImageIO.read(ImageIO.createImageInputStream(artifactStream));
+            BufferedImage image;
+            try {
+                reader.setInput(iis, true, true);
+                ImageReadParam param = reader.getDefaultReadParam();
+                int subsampling = getSourceSubsampling(operations, reader.getWidth(0), reader.getHeight(0));
+                if (subsampling > 1) {
+                    param.setSourceSubsampling(subsampling, subsampling, 0, 0);
+                }
+                image = reader.read(0, param);
+            } finally {
+                reader.dispose();
+                iis.close();
+            }
 
             //before
             if (formatName.toLowerCase().equals("jpeg") || formatName.toLowerCase().equals("jpg")) {
                 image = stripAlpha(image);
             }
 
-            for (Operation operation : operations){
+            for (Operation operation : orderOperations(operations)){
                 image = effectsManager.renderEffect(operation.getName(), operation.getFactor(), operation.getParameters(), image);
             }
 
@@ -136,7 +176,82 @@ public class ImageArtifactProcessor implements ArtifactProcessor {
         }
     }
 
+    /**
+     * Moves the per-pixel operations after a resize, so that they run over the scaled down image rather than the 
+     * full size one. The order of the other operations is kept. The operations are built from a hash map by the 
+     * {@link EffectsManager}, so their order was never defined to begin with.
+     */
+    protected Operation[] orderOperations(Operation[] operations) {
+        boolean resize = false;
+        for (Operation operation : operations) {
+            resize |= RESIZE.equals(operation.getName());
+        }
+        if (!resize) {
+            return operations;
+        }
+        List<Operation> ordered = new ArrayList<Operation>(operations.length);
+        List<Operation> pixelOperations = new ArrayList<Operation>();
+        for (Operation operation : operations) {
+            if (PIXEL_OPERATIONS.contains(operation.getName())) {
+                pixelOperations.add(operation);
+            } else {
+                ordered.add(operation);
+            }
+        }
+        ordered.addAll(pixelOperations);
+        return ordered.toArray(new Operation[ordered.size()]);
+    }
+
+    /**
+     * Determines how many source pixels may be skipped in each direction while decoding. This is only done when the
+     * operations consist of a single resize and per-pixel operations; crops, rotations and neighbourhood filters 
+     * work in source pixels and need the full resolution image.
+     * 
+     * @return the subsampling to decode the image with, 1 meaning no subsampling
+     */
+    protected int getSourceSubsampling(Operation[] operations, int width, int height) throws Exception {
+        if (!subsampleSource) {
+            return 1;
+        }
+        int[] target = null;
+        for (Operation operation : operations) {
+            if (RESIZE.equals(operation.getName()) && target == null) {
+                target = getResizeTarget(operation);
+            } else if (!PIXEL_OPERATIONS.contains(operation.getName())) {
+                return 1;
+            }
+        }
+        if (target == null || target[0] <= 0 || target[1] <= 0) {
+            return 1;
+        }
+        // Both sides keep the headroom, as a resize that maintains the aspect ratio may size either one from the other
+        int subsampling = Math.min(width / (target[0] * subsamplingHeadroom), height / (target[1] * subsamplingHeadroom));
+        return Math.max(1, subsampling);
+    }
+
+    /**
+     * @return the target width and height of the given resize operation, with its factor applied
+     */
+    protected int[] getResizeTarget(Operation operation) throws Exception {
+        int[] target = new int[2];
+        for (UnmarshalledParameter parameter : operation.getParameters()) {
+            int index = "target-width".equals(parameter.getName()) ? 0 : "target-height".equals(parameter.getName()) ? 1 : -1;
+            if (index >= 0) {
+                if (parameter.getValue() == null) {
+                    return null;
+                }
+                target[index] = (Integer) effectsManager.getConversionManager().convertParameter(parameter.getValue(), 
+                        parameter.getType(), operation.getFactor(), parameter.isApplyFactor()).getParameterInstance();
+            }
+        }
+        return target;
+    }
+
     protected BufferedImage stripAlpha(BufferedImage image){
+        if (!image.getColorModel().hasAlpha()) {
+            // Nothing to strip, so spare the copy
+            return image;
+        }
         BufferedImage raw_image=image;
         image = new BufferedImage(raw_image.getWidth(), raw_image.getHeight(), BufferedImage.TYPE_INT_RGB);
         ColorConvertOp xformOp=new ColorConvertOp(null);
@@ -160,4 +275,20 @@ public class ImageArtifactProcessor implements ArtifactProcessor {
     public void setCompressionQuality(float compressionQuality) {
         this.compressionQuality = compressionQuality;
     }
+
+    public boolean isSubsampleSource() {
+        return subsampleSource;
+    }
+
+    public void setSubsampleSource(boolean subsampleSource) {
+        this.subsampleSource = subsampleSource;
+    }
+
+    public int getSubsamplingHeadroom() {
+        return subsamplingHeadroom;
+    }
+
+    public void setSubsamplingHeadroom(int subsamplingHeadroom) {
+        this.subsamplingHeadroom = subsamplingHeadroom;
+    }
 }
@@ -161,6 +161,18 @@ public class Resize extends BaseFilter {
             }
         }
 
+        int type;
+        if (img.getType()!=BufferedImage.TYPE_INT_ARGB && img.getType()!=BufferedImage.TYPE_INT_RGB) {
+            // An opaque source does not need an alpha channel, which also spares the jpeg alpha stripping afterwards
+            type = img.getColorModel().hasAlpha() ? BufferedImage.TYPE_INT_ARGB : BufferedImage.TYPE_INT_RGB;
+        } else {
+            type = img.getType();
+        }
+
+        // The intermediate passes alternate between two scratch images that are only reallocated when a pass
+        // needs more room, rather than allocating a new image for every pass
+        BufferedImage[] scratch = new BufferedImage[2];
+        int pass = 0;
         do {
             if (higherQuality && w > destW) {
                 w /= 2;
@@ -185,15 +197,22 @@ public class Resize extends BaseFilter {
                     h = destH;
                 }
             }
-            int type;
-            if (img.getType()!=BufferedImage.TYPE_INT_ARGB && img.getType()!=BufferedImage.TYPE_INT_RGB) {
-                type = BufferedImage.TYPE_INT_ARGB;
+            BufferedImage tmp;
+            if (w == destW && h == destH) {
+                tmp = new BufferedImage(w, h, type);
             } else {
-                type = img.getType();
+                BufferedImage buffer = scratch[pass % 2];
+                if (buffer == null || buffer.getWidth() < w || buffer.getHeight() < h) {
+                    buffer = new BufferedImage(w, h, type);
+                    scratch[pass % 2] = buffer;
+                }
+                tmp = buffer.getSubimage(0, 0, w, h);
             }
+            pass++;
 
-            BufferedImage tmp = new BufferedImage(w, h, type);
             Graphics2D g2 = tmp.createGraphics();
+            // Replace whatever an earlier pass left in the scratch image, rather than blending over it
+            g2.setComposite(AlphaComposite.Src);
             g2.drawImage(ret.getScaledInstance(w, h, Image.SCALE_SMOOTH), 0, 0, w, h, null);
             g2.dispose();
 
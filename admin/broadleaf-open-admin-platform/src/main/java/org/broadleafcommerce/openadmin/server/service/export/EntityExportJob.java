@@ -0,0 +1,131 @@
+/*
+ * Copyright 2008-2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.broadleafcommerce.openadmin.server.service.export;
+
+import java.io.File;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Thread-safe progress of an export that is running in the background. The row count is updated by the export 
+ * thread once per chunk, so it may be polled at any time.
+ */
+public class EntityExportJob {
+
+    public static final String STATUS_QUEUED = "QUEUED";
+    public static final String STATUS_RUNNING = "RUNNING";
+    public static final String STATUS_COMPLETE = "COMPLETE";
+    public static final String STATUS_FAILED = "FAILED";
+    public static final String STATUS_CANCELLED = "CANCELLED";
+
+    protected final String id;
+    protected final EntityExportRequest request;
+    protected final File file;
+    protected final long createdTime = System.currentTimeMillis();
+
+    protected final AtomicLong rowsWritten = new AtomicLong();
+    protected volatile String status = STATUS_QUEUED;
+    protected volatile long startTime = -1;
+    protected volatile long endTime = -1;
+    protected volatile boolean cancelRequested = false;
+    protected volatile String errorMessage;
+
+    public EntityExportJob(String id, EntityExportRequest request, File file) {
+        this.id = id;
+        this.request = request;
+        this.file = file;
+    }
+
+    public void start() {
+        startTime = System.currentTimeMillis();
+        status = STATUS_RUNNING;
+    }
+
+    public void rowsWritten(long rows) {
+        rowsWritten.set(rows);
+    }
+
+    public void finish(String status, String errorMessage) {
+        this.errorMessage = errorMessage;
+        this.endTime = System.currentTimeMillis();
+        this.status = status;
+    }
+
+    public void cancel() {
+        cancelRequested = true;
+    }
+
+    public boolean isCancelRequested() {
+        return cancelRequested;
+    }
+
+    public boolean isRunning() {
+        return STATUS_QUEUED.equals(status) || STATUS_RUNNING.equals(status);
+    }
+
+    public boolean isComplete() {
+        return STATUS_COMPLETE.equals(status);
+    }
+
+    public long getElapsedTime() {
+        if (startTime < 0) {
+            return 0;
+        }
+        return (endTime < 0 ? System.currentTimeMillis() : endTime) - startTime;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public EntityExportRequest getRequest() {
+        return request;
+    }
+
+    public File getFile() {
+        return file;
+    }
+
+    public long getCreatedTime() {
+        return createdTime;
+    }
+
+    public long getRowsWritten() {
+        return rowsWritten.get();
+    }
+
+    public String getStatus() {
+        return status;
+    }
+
+    public long getStartTime() {
+        return startTime;
+    }
+
+    public long getEndTime() {
+        return endTime;
+    }
+
+    public String getErrorMessage() {
+        return errorMessage;
+    }
+
+    @Override
+    public String toString() {
+        return "Export [" + id + "] of [" + request.getCeilingEntity() + "]: status [" + status + "], rows [" 
+                + getRowsWritten() + "], elapsed [" + getElapsedTime() + "ms]";
+    }
+
+}
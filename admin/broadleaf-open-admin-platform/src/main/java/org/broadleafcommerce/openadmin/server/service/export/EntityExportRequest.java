@@ -0,0 +1,121 @@
+/*
+ * Copyright 2008-2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.broadleafcommerce.openadmin.server.service.export;
+
+import org.broadleafcommerce.openadmin.dto.FilterAndSortCriteria;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Describes a single run of the {@link EntityExportService}: which entity to walk, the properties to write for each
+ * entity and the admin filter criteria that narrow the rows, exactly as they would be sent by a list grid.
+ */
+public class EntityExportRequest implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    protected String ceilingEntity;
+    protected List<String> properties = new ArrayList<String>();
+    protected List<FilterAndSortCriteria> criteria = new ArrayList<FilterAndSortCriteria>();
+    protected ExportFormatType format = ExportFormatType.CSV;
+    protected boolean gzip = false;
+    protected String fileName;
+
+    public EntityExportRequest withCeilingEntity(String ceilingEntity) {
+        setCeilingEntity(ceilingEntity);
+        return this;
+    }
+
+    public EntityExportRequest withProperties(List<String> properties) {
+        setProperties(properties);
+        return this;
+    }
+
+    public EntityExportRequest withCriteria(List<FilterAndSortCriteria> criteria) {
+        setCriteria(criteria);
+        return this;
+    }
+
+    public EntityExportRequest withFormat(ExportFormatType format) {
+        setFormat(format);
+        return this;
+    }
+
+    public EntityExportRequest withGzip(boolean gzip) {
+        setGzip(gzip);
+        return this;
+    }
+
+    public EntityExportRequest withFileName(String fileName) {
+        setFileName(fileName);
+        return this;
+    }
+
+    public String getCeilingEntity() {
+        return ceilingEntity;
+    }
+
+    public void setCeilingEntity(String ceilingEntity) {
+        this.ceilingEntity = ceilingEntity;
+    }
+
+    /**
+     * @return the (possibly nested, e.g. "auditable.dateCreated") property paths written for each entity. When empty,
+     * every basic, non-excluded and non-password property of the ceiling entity is written.
+     */
+    public List<String> getProperties() {
+        return properties;
+    }
+
+    public void setProperties(List<String> properties) {
+        this.properties = properties;
+    }
+
+    public List<FilterAndSortCriteria> getCriteria() {
+        return criteria;
+    }
+
+    public void setCriteria(List<FilterAndSortCriteria> criteria) {
+        this.criteria = criteria;
+    }
+
+    public ExportFormatType getFormat() {
+        return format;
+    }
+
+    public void setFormat(ExportFormatType format) {
+        this.format = format;
+    }
+
+    public boolean isGzip() {
+        return gzip;
+    }
+
+    public void setGzip(boolean gzip) {
+        this.gzip = gzip;
+    }
+
+    public String getFileName() {
+        return fileName;
+    }
+
+    public void setFileName(String fileName) {
+        this.fileName = fileName;
+    }
+
+}
@@ -0,0 +1,59 @@
+/*
+ * Copyright 2008-2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.broadleafcommerce.openadmin.server.service.export;
+
+import org.broadleafcommerce.common.exception.ServiceException;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.List;
+
+/**
+ * Streams every entity matching an {@link EntityExportRequest} to an output stream. Entities are read through a 
+ * forward-only cursor and detached in chunks, so memory use does not grow with the number of rows exported.
+ */
+public interface EntityExportService {
+
+    /**
+     * Writes the export to the given stream, gzipped if requested. The stream is flushed but not closed.
+     * 
+     * @throws ServiceException if the current admin user may not fetch the requested entity
+     * 
+     * @return the number of rows written
+     */
+    public long export(EntityExportRequest request, OutputStream out) throws ServiceException, IOException;
+
+    /**
+     * Runs the export in the background, writing it to a temporary file that can be retrieved via 
+     * {@link EntityExportJob#getFile()} once the job is complete.
+     */
+    public EntityExportJob startExport(EntityExportRequest request) throws ServiceException, IOException;
+
+    /**
+     * @return the job with the given id, or null if no such job exists or it has expired
+     */
+    public EntityExportJob getJob(String jobId);
+
+    public List<EntityExportJob> getJobs();
+
+    /**
+     * Asks a running job to stop after the current row.
+     * 
+     * @return whether a running job with the given id was found
+     */
+    public boolean cancelExport(String jobId);
+
+}
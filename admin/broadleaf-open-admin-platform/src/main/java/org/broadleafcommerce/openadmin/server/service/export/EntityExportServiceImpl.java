@@ -0,0 +1,459 @@
+/*
+ * Copyright 2008-2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.broadleafcommerce.openadmin.server.service.export;
+
+import org.apache.commons.collections.CollectionUtils;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.broadleafcommerce.common.BroadleafEnumerationType;
+import org.broadleafcommerce.common.exception.ServiceException;
+import org.broadleafcommerce.common.money.Money;
+import org.broadleafcommerce.common.persistence.Status;
+import org.broadleafcommerce.common.presentation.client.OperationType;
+import org.broadleafcommerce.common.presentation.client.SupportedFieldType;
+import org.broadleafcommerce.common.web.BroadleafRequestContext;
+import org.broadleafcommerce.openadmin.dto.BasicFieldMetadata;
+import org.broadleafcommerce.openadmin.dto.CriteriaTransferObject;
+import org.broadleafcommerce.openadmin.dto.FieldMetadata;
+import org.broadleafcommerce.openadmin.dto.PersistencePerspective;
+import org.broadleafcommerce.openadmin.server.dao.DynamicEntityDao;
+import org.broadleafcommerce.openadmin.server.security.remote.EntityOperationType;
+import org.broadleafcommerce.openadmin.server.security.remote.SecurityVerifier;
+import org.broadleafcommerce.openadmin.server.service.DynamicEntityRemoteService;
+import org.broadleafcommerce.openadmin.server.service.persistence.PersistenceManager;
+import org.broadleafcommerce.openadmin.server.service.persistence.TargetModeType;
+import org.broadleafcommerce.openadmin.server.service.persistence.module.EmptyFilterValues;
+import org.broadleafcommerce.openadmin.server.service.persistence.module.FieldManager;
+import org.broadleafcommerce.openadmin.server.service.persistence.module.FieldNotAvailableException;
+import org.broadleafcommerce.openadmin.server.service.persistence.module.InspectHelper;
+import org.broadleafcommerce.openadmin.server.service.persistence.module.RecordHelper;
+import org.broadleafcommerce.openadmin.server.service.persistence.module.criteria.CriteriaTranslator;
+import org.broadleafcommerce.openadmin.server.service.persistence.module.criteria.FieldPath;
+import org.broadleafcommerce.openadmin.server.service.persistence.module.criteria.FieldPathBuilder;
+import org.broadleafcommerce.openadmin.server.service.persistence.module.criteria.FilterMapping;
+import org.broadleafcommerce.openadmin.server.service.persistence.module.criteria.Restriction;
+import org.broadleafcommerce.openadmin.server.service.persistence.module.criteria.predicate.PredicateProvider;
+import org.hibernate.Query;
+import org.hibernate.ScrollMode;
+import org.hibernate.ScrollableResults;
+import org.hibernate.Session;
+import org.springframework.beans.BeansException;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationContext;
+import org.springframework.context.ApplicationContextAware;
+import org.springframework.jmx.export.annotation.ManagedAttribute;
+import org.springframework.jmx.export.annotation.ManagedResource;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.DefaultTransactionDefinition;
+
+import java.io.BufferedOutputStream;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Serializable;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.GZIPOutputStream;
+
+import javax.annotation.Resource;
+import javax.persistence.TypedQuery;
+import javax.persistence.criteria.CriteriaBuilder;
+import javax.persistence.criteria.From;
+import javax.persistence.criteria.Path;
+import javax.persistence.criteria.Predicate;
+
+/**
+ * Walks the entities with a forward-only, read-only Hibernate cursor built from the same criteria the admin list
+ * grids use (see {@link CriteriaTranslator}) and writes each row straight through to the output. The persistence
+ * context is cleared every <code>admin.export.chunkSize</code> rows so that neither the session nor the output 
+ * buffers grow with the size of the export.
+ * 
+ * The cursor runs on the regular Hibernate session rather than a StatelessSession. The criteria built by 
+ * {@link CriteriaTranslator} are JPA criteria bound to the EntityManager, which a StatelessSession can not execute, 
+ * and the exported columns may be paths through lazy associations (the customer of an order, for example), which a 
+ * StatelessSession can not load. Clearing the session every chunk keeps memory just as flat.
+ */
+@Service("blEntityExportService")
+@ManagedResource(objectName="org.broadleafcommerce:name=EntityExportService", description="Entity Export Service", currencyTimeLimit=15)
+public class EntityExportServiceImpl implements EntityExportService, ApplicationContextAware, DisposableBean {
+
+    private static final Log LOG = LogFactory.getLog(EntityExportServiceImpl.class);
+
+    protected static final String ISO_DATE_FORMAT = "yyyy-MM-dd'T'HH:mm:ss.SSSZ";
+
+    @Resource(name="blCriteriaTranslator")
+    protected CriteriaTranslator criteriaTranslator;
+
+    @Resource(name="blAdminSecurityRemoteService")
+    protected SecurityVerifier adminRemoteSecurityService;
+
+    @Resource(name="blTransactionManager")
+    protected PlatformTransactionManager transactionManager;
+
+    @Value("${admin.export.chunkSize}")
+    protected int chunkSize = 500;
+
+    @Value("${admin.export.threads}")
+    protected int threads = 2;
+
+    @Value("${admin.export.job.retention}")
+    protected long jobRetention = 3600000;
+
+    protected ApplicationContext applicationContext;
+
+    protected final Map<String, EntityExportJob> jobs = new ConcurrentHashMap<String, EntityExportJob>();
+    protected volatile ExecutorService executor;
+
+    @Override
+    public long export(EntityExportRequest request, OutputStream out) throws ServiceException, IOException {
+        adminRemoteSecurityService.securityCheck(request.getCeilingEntity(), EntityOperationType.FETCH);
+        return export(request, out, null);
+    }
+
+    @Override
+    public EntityExportJob startExport(final EntityExportRequest request) throws ServiceException, IOException {
+        // Checked here as the security context is not available to the export thread
+        adminRemoteSecurityService.securityCheck(request.getCeilingEntity(), EntityOperationType.FETCH);
+        purgeExpiredJobs();
+        File file = File.createTempFile("bl-export-", request.isGzip() ? ".gz" : "." + request.getFormat().getType());
+        final EntityExportJob job = new EntityExportJob(UUID.randomUUID().toString(), request, file);
+        jobs.put(job.getId(), job);
+
+        BroadleafRequestContext callerContext = BroadleafRequestContext.getBroadleafRequestContext();
+        final BroadleafRequestContext jobContext = new BroadleafRequestContext();
+        if (callerContext != null) {
+            jobContext.setSite(callerContext.getSite());
+            jobContext.setSandbox(callerContext.getSandbox());
+            jobContext.setLocale(callerContext.getLocale());
+            jobContext.setBroadleafCurrency(callerContext.getBroadleafCurrency());
+        }
+        jobContext.setIgnoreSite(jobContext.getSite() == null);
+
+        getExecutor().execute(new Runnable() {
+            @Override
+            public void run() {
+                BroadleafRequestContext.setBroadleafRequestContext(jobContext);
+                job.start();
+                OutputStream out = null;
+                try {
+                    out = new BufferedOutputStream(new FileOutputStream(job.getFile()));
+                    export(request, out, job);
+                    job.finish(job.isCancelRequested() ? EntityExportJob.STATUS_CANCELLED : EntityExportJob.STATUS_COMPLETE, null);
+                } catch (Exception e) {
+                    LOG.error("Unable to complete " + job, e);
+                    job.finish(EntityExportJob.STATUS_FAILED, e.getMessage());
+                } finally {
+                    if (out != null) {
+                        try {
+                            out.close();
+                        } catch (IOException e) {
+                            LOG.warn("Unable to close the export file " + job.getFile(), e);
+                        }
+                    }
+                    BroadleafRequestContext.setBroadleafRequestContext(null);
+                    if (LOG.isInfoEnabled()) {
+                        LOG.info(job);
+                    }
+                }
+            }
+        });
+        return job;
+    }
+
+    @Override
+    public EntityExportJob getJob(String jobId) {
+        return jobId == null ? null : jobs.get(jobId);
+    }
+
+    @Override
+    public List<EntityExportJob> getJobs() {
+        purgeExpiredJobs();
+        return new ArrayList<EntityExportJob>(jobs.values());
+    }
+
+    @Override
+    public boolean cancelExport(String jobId) {
+        EntityExportJob job = getJob(jobId);
+        if (job == null || !job.isRunning()) {
+            return false;
+        }
+        job.cancel();
+        return true;
+    }
+
+    @ManagedAttribute(description="The number of export jobs currently queued or running")
+    public int getRunningJobCount() {
+        int count = 0;
+        for (EntityExportJob job : jobs.values()) {
+            if (job.isRunning()) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    protected long export(EntityExportRequest request, OutputStream out, EntityExportJob job) throws IOException {
+        OutputStream target = request.isGzip() ? new GZIPOutputStream(out, 8192) : out;
+        Writer writer = new BufferedWriter(new OutputStreamWriter(target, "UTF-8"), 65536);
+        long rows = writeRows(request, createRowWriter(request.getFormat(), writer), job);
+        writer.flush();
+        if (target instanceof GZIPOutputStream) {
+            ((GZIPOutputStream) target).finish();
+        }
+        out.flush();
+        return rows;
+    }
+
+    protected long writeRows(EntityExportRequest request, ExportRowWriter rowWriter, EntityExportJob job) throws IOException {
+        DefaultTransactionDefinition definition = new DefaultTransactionDefinition();
+        definition.setReadOnly(true);
+        TransactionStatus status = transactionManager.getTransaction(definition);
+        try {
+            PersistenceManager persistenceManager = getPersistenceManager();
+            DynamicEntityDao dynamicEntityDao = persistenceManager.getDynamicEntityDao();
+            FieldManager fieldManager = dynamicEntityDao.getFieldManager();
+            Session session = dynamicEntityDao.getStandardEntityManager().unwrap(Session.class);
+
+            PersistencePerspective persistencePerspective = new PersistencePerspective();
+            Map<String, FieldMetadata> mergedProperties = persistenceManager.getSimpleMergedProperties(
+                    request.getCeilingEntity(), persistencePerspective);
+            List<String> columns = CollectionUtils.isEmpty(request.getProperties()) ? getDefaultColumns(mergedProperties)
+                    : request.getProperties();
+            List<FilterMapping> filterMappings = getFilterMappings(persistenceManager, dynamicEntityDao, 
+                    persistencePerspective, request, mergedProperties);
+
+            // The list grid ordering (or the id, when unsorted) gives a stable row order without an offset
+            TypedQuery<Serializable> typedQuery = criteriaTranslator.translateQuery(dynamicEntityDao, 
+                    request.getCeilingEntity(), filterMappings, null, null);
+            Query query = typedQuery.unwrap(Query.class);
+            query.setReadOnly(true);
+            query.setCacheable(false);
+            query.setFetchSize(chunkSize);
+
+            rowWriter.writeHeader(columns);
+            long rows = 0;
+            ScrollableResults results = query.scroll(ScrollMode.FORWARD_ONLY);
+            try {
+                while (results.next()) {
+                    if (job != null && job.isCancelRequested()) {
+                        break;
+                    }
+                    rowWriter.writeRow(columns, readValues(fieldManager, results.get(0), columns));
+                    rows++;
+                    if (rows % chunkSize == 0) {
+                        session.clear();
+                        rowWriter.flush();
+                        if (job != null) {
+                            job.rowsWritten(rows);
+                        }
+                    }
+                }
+            } finally {
+                results.close();
+            }
+            rowWriter.flush();
+            if (job != null) {
+                job.rowsWritten(rows);
+            }
+            return rows;
+        } catch (IOException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new RuntimeException("Unable to export " + request.getCeilingEntity(), e);
+        } finally {
+            // Nothing was written to the database, so there is nothing to commit
+            transactionManager.rollback(status);
+        }
+    }
+
+    protected List<FilterMapping> getFilterMappings(PersistenceManager persistenceManager, DynamicEntityDao dynamicEntityDao,
+            PersistencePerspective persistencePerspective, EntityExportRequest request, 
+            Map<String, FieldMetadata> mergedProperties) throws ClassNotFoundException {
+        CriteriaTransferObject cto = new CriteriaTransferObject();
+        if (request.getCriteria() != null) {
+            cto.addAll(request.getCriteria());
+        }
+        RecordHelper recordHelper = (RecordHelper) ((InspectHelper) persistenceManager).getCompatibleModule(OperationType.BASIC);
+        List<FilterMapping> filterMappings = recordHelper.getFilterMappings(persistencePerspective, cto, 
+                request.getCeilingEntity(), mergedProperties);
+
+        // Match the list grid, which hides archived entities
+        Class<?>[] entities = dynamicEntityDao.getAllPolymorphicEntitiesFromCeiling(Class.forName(request.getCeilingEntity()));
+        boolean isArchivable = false;
+        for (Class<?> entity : entities) {
+            if (Status.class.isAssignableFrom(entity)) {
+                isArchivable = true;
+                break;
+            }
+        }
+        if (isArchivable) {
+            filterMappings.add(new FilterMapping()
+                .withFieldPath(new FieldPath().withTargetProperty("archiveStatus.archived"))
+                .withDirectFilterValues(new EmptyFilterValues())
+                .withRestriction(new Restriction()
+                        .withPredicateProvider(new PredicateProvider<Character, Character>() {
+                            @Override
+                            public Predicate buildPredicate(CriteriaBuilder builder,
+                                                            FieldPathBuilder fieldPathBuilder,
+                                                            From root, String ceilingEntity,
+                                                            String fullPropertyName, Path<Character> explicitPath,
+                                                            List<Character> directValues) {
+                                return builder.or(builder.equal(explicitPath, 'N'), builder.isNull(explicitPath));
+                            }
+                        })
+                ));
+        }
+        return filterMappings;
+    }
+
+    /**
+     * Every basic property of the ceiling entity, except those that are excluded from the admin or hold passwords
+     */
+    protected List<String> getDefaultColumns(Map<String, FieldMetadata> mergedProperties) {
+        List<String> columns = new ArrayList<String>();
+        for (Map.Entry<String, FieldMetadata> entry : mergedProperties.entrySet()) {
+            FieldMetadata metadata = entry.getValue();
+            if (!(metadata instanceof BasicFieldMetadata) || Boolean.TRUE.equals(metadata.getExcluded())) {
+                continue;
+            }
+            SupportedFieldType fieldType = ((BasicFieldMetadata) metadata).getFieldType();
+            if (fieldType == SupportedFieldType.PASSWORD || fieldType == SupportedFieldType.PASSWORD_CONFIRM) {
+                continue;
+            }
+            columns.add(entry.getKey());
+        }
+        return columns;
+    }
+
+    protected List<Object> readValues(FieldManager fieldManager, Object entity, List<String> columns) throws IllegalAccessException {
+        List<Object> values = new ArrayList<Object>(columns.size());
+        for (String column : columns) {
+            Object value;
+            try {
+                value = fieldManager.getFieldValue(entity, column);
+            } catch (FieldNotAvailableException e) {
+                value = null;
+            }
+            values.add(formatValue(value));
+        }
+        return values;
+    }
+
+    /**
+     * Converts a property value to the String, Number or Boolean handed to the {@link ExportRowWriter}
+     */
+    protected Object formatValue(Object value) {
+        if (value == null || value instanceof String || value instanceof Boolean) {
+            return value;
+        }
+        if (value instanceof BigDecimal) {
+            return ((BigDecimal) value).toPlainString();
+        }
+        if (value instanceof Number) {
+            return value;
+        }
+        if (value instanceof Money) {
+            return ((Money) value).getAmount().toPlainString();
+        }
+        if (value instanceof Date) {
+            return new SimpleDateFormat(ISO_DATE_FORMAT).format((Date) value);
+        }
+        if (value instanceof BroadleafEnumerationType) {
+            return ((BroadleafEnumerationType) value).getType();
+        }
+        return value.toString();
+    }
+
+    protected ExportRowWriter createRowWriter(ExportFormatType format, Writer writer) throws IOException {
+        if (ExportFormatType.JSON_LINES.equals(format)) {
+            return new JsonLinesExportRowWriter(writer);
+        }
+        return new CsvExportRowWriter(writer);
+    }
+
+    protected PersistenceManager getPersistenceManager() {
+        PersistenceManager persistenceManager = (PersistenceManager) applicationContext.getBean(DynamicEntityRemoteService.DEFAULTPERSISTENCEMANAGERREF);
+        persistenceManager.setTargetMode(TargetModeType.SANDBOX);
+        return persistenceManager;
+    }
+
+    /**
+     * Forgets finished jobs older than <code>admin.export.job.retention</code> milliseconds and deletes their files
+     */
+    protected void purgeExpiredJobs() {
+        long expiry = System.currentTimeMillis() - jobRetention;
+        for (Iterator<EntityExportJob> iterator = jobs.values().iterator(); iterator.hasNext();) {
+            EntityExportJob job = iterator.next();
+            if (!job.isRunning() && job.getEndTime() < expiry) {
+                iterator.remove();
+                if (!job.getFile().delete() && job.getFile().exists()) {
+                    LOG.warn("Unable to delete the export file " + job.getFile());
+                }
+            }
+        }
+    }
+
+    protected ExecutorService getExecutor() {
+        if (executor == null) {
+            synchronized (this) {
+                if (executor == null) {
+                    executor = Executors.newFixedThreadPool(Math.max(1, threads), new ThreadFactory() {
+                        protected final AtomicInteger count = new AtomicInteger();
+
+                        @Override
+                        public Thread newThread(Runnable runnable) {
+                            Thread thread = new Thread(runnable, "bl-entity-export-" + count.incrementAndGet());
+                            thread.setDaemon(true);
+                            return thread;
+                        }
+                    });
+                }
+            }
+        }
+        return executor;
+    }
+
+    @Override
+    public void destroy() throws Exception {
+        if (executor != null) {
+            executor.shutdownNow();
+        }
+    }
+
+    @Override
+    public void setApplicationContext(ApplicationContext applicationContext) throws BeansException {
+        this.applicationContext = applicationContext;
+    }
+
+}
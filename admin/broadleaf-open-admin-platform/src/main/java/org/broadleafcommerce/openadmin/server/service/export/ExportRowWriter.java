@@ -0,0 +1,38 @@
+/*
+ * Copyright 2008-2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.broadleafcommerce.openadmin.server.service.export;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Writes the rows of an export in a particular {@link ExportFormatType}. Implementations write straight through to 
+ * the underlying writer and must not hold on to the rows.
+ */
+public interface ExportRowWriter {
+
+    public void writeHeader(List<String> columns) throws IOException;
+
+    /**
+     * @param columns the property names of the values, in the same order as the header
+     * @param values the values of the row, already converted by the {@link EntityExportService} to a String, Number
+     * or Boolean (or null)
+     */
+    public void writeRow(List<String> columns, List<Object> values) throws IOException;
+
+    public void flush() throws IOException;
+
+}
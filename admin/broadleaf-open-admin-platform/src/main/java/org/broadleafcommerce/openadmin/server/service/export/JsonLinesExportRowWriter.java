@@ -0,0 +1,73 @@
+/*
+ * Copyright 2008-2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.broadleafcommerce.openadmin.server.service.export;
+
+import org.codehaus.jackson.JsonFactory;
+import org.codehaus.jackson.JsonGenerator;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.List;
+
+/**
+ * Writes one JSON object per line, keyed by property name. There is no header row.
+ */
+public class JsonLinesExportRowWriter implements ExportRowWriter {
+
+    protected static final JsonFactory JSON_FACTORY = new JsonFactory();
+
+    protected final Writer writer;
+    protected final JsonGenerator generator;
+
+    public JsonLinesExportRowWriter(Writer writer) throws IOException {
+        this.writer = writer;
+        this.generator = JSON_FACTORY.createJsonGenerator(writer);
+        // The writer belongs to the caller
+        this.generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+    }
+
+    @Override
+    public void writeHeader(List<String> columns) throws IOException {
+        //do nothing
+    }
+
+    @Override
+    public void writeRow(List<String> columns, List<Object> values) throws IOException {
+        generator.writeStartObject();
+        for (int i = 0; i < columns.size(); i++) {
+            Object value = values.get(i);
+            generator.writeFieldName(columns.get(i));
+            if (value == null) {
+                generator.writeNull();
+            } else if (value instanceof Boolean) {
+                generator.writeBoolean((Boolean) value);
+            } else if (value instanceof Number) {
+                generator.writeNumber(value.toString());
+            } else {
+                generator.writeString(value.toString());
+            }
+        }
+        generator.writeEndObject();
+        // Written through the generator so that it stays in sync with its own buffer
+        generator.writeRaw('\n');
+    }
+
+    @Override
+    public void flush() throws IOException {
+        generator.flush();
+    }
+
+}
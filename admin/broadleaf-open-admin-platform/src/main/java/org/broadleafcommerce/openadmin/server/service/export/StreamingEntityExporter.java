@@ -0,0 +1,208 @@
+/*
+ * Copyright 2008-2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.broadleafcommerce.openadmin.server.service.export;
+
+import org.apache.commons.lang.StringUtils;
+import org.broadleafcommerce.common.exception.ServiceException;
+import org.broadleafcommerce.openadmin.dto.FilterAndSortCriteria;
+import org.broadleafcommerce.openadmin.dto.Property;
+import org.broadleafcommerce.openadmin.dto.SortDirection;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import javax.annotation.Resource;
+import javax.servlet.ServletOutputStream;
+
+/**
+ * A configurable {@link AdminExporter} that streams an entity through the {@link EntityExportService}. The export
+ * request parameters (other than the exporter name and the paging parameters) are applied as list grid filter
+ * criteria, so the same parameters that filter and sort a list grid narrow the export.
+ * 
+ * <pre>
+ * {@code
+ *  <bean class="org.broadleafcommerce.openadmin.server.service.export.StreamingEntityExporter">
+ *      <property name="name" value="orderExport" />
+ *      <property name="friendlyName" value="Orders (CSV)" />
+ *      <property name="type" value="org.broadleafcommerce.core.order.domain.Order" />
+ *      <property name="ceilingEntity" value="org.broadleafcommerce.core.order.domain.Order" />
+ *      <property name="properties">
+ *          <list>
+ *              <value>orderNumber</value>
+ *              <value>total</value>
+ *          </list>
+ *      </property>
+ *  </bean>
+ * }
+ * </pre>
+ */
+public class StreamingEntityExporter implements AdminExporter {
+
+    protected static final List<String> RESERVED_PARAMETERS = Arrays.asList("exporter", 
+            FilterAndSortCriteria.START_INDEX_PARAMETER, FilterAndSortCriteria.MAX_INDEX_PARAMETER,
+            FilterAndSortCriteria.LAST_ID_PARAMETER, FilterAndSortCriteria.SORT_PROPERTY_PARAMETER,
+            FilterAndSortCriteria.SORT_DIRECTION_PARAMETER);
+
+    @Resource(name="blEntityExportService")
+    protected EntityExportService entityExportService;
+
+    protected String name;
+    protected String friendlyName;
+    protected String type;
+    protected String fileName;
+    protected String ceilingEntity;
+    protected List<String> properties = new ArrayList<String>();
+    protected List<Property> criteriaFields;
+    protected String format = ExportFormatType.CSV.getType();
+    protected boolean gzip = false;
+
+    @Override
+    public void writeExport(ServletOutputStream out, Map<String, String> params) throws IOException {
+        try {
+            entityExportService.export(buildRequest(params), out);
+        } catch (ServiceException e) {
+            throw new RuntimeException("Unable to export " + ceilingEntity, e);
+        }
+    }
+
+    /**
+     * Builds the export request for the given export parameters. Also used to start a background export of the
+     * same data.
+     */
+    public EntityExportRequest buildRequest(Map<String, String> params) {
+        List<FilterAndSortCriteria> criteria = new ArrayList<FilterAndSortCriteria>();
+        if (params != null) {
+            for (Map.Entry<String, String> entry : params.entrySet()) {
+                if (!RESERVED_PARAMETERS.contains(entry.getKey()) && StringUtils.isNotEmpty(entry.getValue())) {
+                    criteria.add(new FilterAndSortCriteria(entry.getKey(), entry.getValue()));
+                }
+            }
+            String sortProperty = params.get(FilterAndSortCriteria.SORT_PROPERTY_PARAMETER);
+            if (StringUtils.isNotEmpty(sortProperty)) {
+                FilterAndSortCriteria sortCriteria = null;
+                for (FilterAndSortCriteria test : criteria) {
+                    if (test.getPropertyId().equals(sortProperty)) {
+                        sortCriteria = test;
+                    }
+                }
+                if (sortCriteria == null) {
+                    sortCriteria = new FilterAndSortCriteria(sortProperty);
+                    criteria.add(sortCriteria);
+                }
+                sortCriteria.setSortAscending(!SortDirection.DESCENDING.toString().equals(
+                        params.get(FilterAndSortCriteria.SORT_DIRECTION_PARAMETER)));
+            }
+        }
+
+        ExportFormatType exportFormat = ExportFormatType.getInstance(format);
+        return new EntityExportRequest()
+            .withCeilingEntity(ceilingEntity)
+            .withProperties(properties)
+            .withCriteria(criteria)
+            .withFormat(exportFormat == null ? ExportFormatType.CSV : exportFormat)
+            .withGzip(gzip)
+            .withFileName(getFileName());
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    @Override
+    public String getFriendlyName() {
+        return friendlyName;
+    }
+
+    public void setFriendlyName(String friendlyName) {
+        this.friendlyName = friendlyName;
+    }
+
+    @Override
+    public List<Property> getCriteriaFields() {
+        return criteriaFields;
+    }
+
+    public void setCriteriaFields(List<Property> criteriaFields) {
+        this.criteriaFields = criteriaFields;
+    }
+
+    @Override
+    public String getType() {
+        return type == null ? ceilingEntity : type;
+    }
+
+    public void setType(String type) {
+        this.type = type;
+    }
+
+    /**
+     * @return the configured file name or, if none was configured, the exporter name with the extension of the 
+     * format. ".gz" is appended when the export is gzipped.
+     */
+    @Override
+    public String getFileName() {
+        String result = fileName == null ? name + "." + format : fileName;
+        return gzip ? result + ".gz" : result;
+    }
+
+    public void setFileName(String fileName) {
+        this.fileName = fileName;
+    }
+
+    public String getCeilingEntity() {
+        return ceilingEntity;
+    }
+
+    public void setCeilingEntity(String ceilingEntity) {
+        this.ceilingEntity = ceilingEntity;
+    }
+
+    public List<String> getProperties() {
+        return properties;
+    }
+
+    public void setProperties(List<String> properties) {
+        this.properties = properties;
+    }
+
+    public String getFormat() {
+        return format;
+    }
+
+    /**
+     * @param format the type of an {@link ExportFormatType}, e.g. "csv" or "jsonl"
+     */
+    public void setFormat(String format) {
+        this.format = format;
+    }
+
+    public boolean isGzip() {
+        return gzip;
+    }
+
+    public void setGzip(boolean gzip) {
+        this.gzip = gzip;
+    }
+
+}
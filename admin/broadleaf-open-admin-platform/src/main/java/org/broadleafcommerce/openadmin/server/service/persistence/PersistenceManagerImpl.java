@@ -41,6 +41,7 @@ import org.broadleafcommerce.openadmin.server.service.handler.CustomPersistenceH
 import org.broadleafcommerce.openadmin.server.service.handler.CustomPersistenceHandlerFilter;
 import org.broadleafcommerce.openadmin.server.service.persistence.module.InspectHelper;
 import org.broadleafcommerce.openadmin.server.service.persistence.module.PersistenceModule;
+import org.broadleafcommerce.openadmin.server.service.persistence.module.RecordCountCache;
 import org.broadleafcommerce.openadmin.server.service.persistence.module.RecordHelper;
 import org.hibernate.mapping.PersistentClass;
 import org.springframework.beans.BeansException;
@@ -86,6 +87,9 @@ public class PersistenceManagerImpl implements InspectHelper, PersistenceManager
     @Resource(name="blPersistenceModules")
     protected PersistenceModule[] modules;
 
+    @Resource(name="blRecordCountCache")
+    protected RecordCountCache recordCountCache;
+
     protected TargetModeType targetMode;
     protected ApplicationContext applicationContext;
 
@@ -287,12 +291,14 @@ public class PersistenceManagerImpl implements InspectHelper, PersistenceManager
                     adminRemoteSecurityService.securityCheck(persistencePackage.getCeilingEntityFullyQualifiedClassname(), EntityOperationType.ADD);
                 }
                 Entity response = handler.add(persistencePackage, dynamicEntityDao, (RecordHelper) getCompatibleModule(OperationType.BASIC));
+                invalidateRecordCounts(persistencePackage);
                 return postAdd(response, persistencePackage);
             }
         }
         adminRemoteSecurityService.securityCheck(persistencePackage.getCeilingEntityFullyQualifiedClassname(), EntityOperationType.ADD);
         PersistenceModule myModule = getCompatibleModule(persistencePackage.getPersistencePerspective().getOperationTypes().getAddType());
         Entity response = myModule.add(persistencePackage);
+        invalidateRecordCounts(persistencePackage);
         return postAdd(response, persistencePackage);
     }
 
@@ -310,12 +316,14 @@ public class PersistenceManagerImpl implements InspectHelper, PersistenceManager
                     adminRemoteSecurityService.securityCheck(persistencePackage.getCeilingEntityFullyQualifiedClassname(), EntityOperationType.UPDATE);
                 }
                 Entity response = handler.update(persistencePackage, dynamicEntityDao, (RecordHelper) getCompatibleModule(OperationType.BASIC));
+                invalidateRecordCounts(persistencePackage);
                 return postUpdate(response, persistencePackage);
             }
         }
         adminRemoteSecurityService.securityCheck(persistencePackage.getCeilingEntityFullyQualifiedClassname(), EntityOperationType.UPDATE);
         PersistenceModule myModule = getCompatibleModule(persistencePackage.getPersistencePerspective().getOperationTypes().getUpdateType());
         Entity response = myModule.update(persistencePackage);
+        invalidateRecordCounts(persistencePackage);
         return postUpdate(response, persistencePackage);
     }
 
@@ -333,12 +341,21 @@ public class PersistenceManagerImpl implements InspectHelper, PersistenceManager
                     adminRemoteSecurityService.securityCheck(persistencePackage.getCeilingEntityFullyQualifiedClassname(), EntityOperationType.REMOVE);
                 }
                 handler.remove(persistencePackage, dynamicEntityDao, (RecordHelper) getCompatibleModule(OperationType.BASIC));
+                invalidateRecordCounts(persistencePackage);
                 return;
             }
         }
         adminRemoteSecurityService.securityCheck(persistencePackage.getCeilingEntityFullyQualifiedClassname(), EntityOperationType.REMOVE);
         PersistenceModule myModule = getCompatibleModule(persistencePackage.getPersistencePerspective().getOperationTypes().getRemoveType());
         myModule.remove(persistencePackage);
+        invalidateRecordCounts(persistencePackage);
+    }
+
+    /**
+     * Discards the cached list grid totals of the entity that was just changed, as they may no longer be accurate
+     */
+    protected void invalidateRecordCounts(PersistencePackage persistencePackage) {
+        recordCountCache.invalidate(persistencePackage.getCeilingEntityFullyQualifiedClassname());
     }
 
     @Override
@@ -63,6 +63,7 @@ import org.broadleafcommerce.openadmin.server.service.persistence.validation.Pop
 import org.broadleafcommerce.openadmin.server.service.persistence.validation.PropertyValidationResult;
 import org.broadleafcommerce.openadmin.server.service.type.FieldProviderResponse;
 import org.springframework.beans.BeansException;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.ApplicationContext;
 import org.springframework.context.ApplicationContextAware;
 import org.springframework.context.annotation.Scope;
@@ -130,6 +131,16 @@ public class BasicPersistenceModule implements PersistenceModule, RecordHelper,
     @Resource(name="blRestrictionFactory")
     protected RestrictionFactory restrictionFactory;
 
+    @Resource(name="blRecordCountCache")
+    protected RecordCountCache recordCountCache;
+
+    /**
+     * Fetches matching more than this number of records report it as an approximate total rather than counting
+     * every record. 0 always counts every record.
+     */
+    @Value("${admin.list.grid.count.max}")
+    protected int maxExactCount = 0;
+
     public BasicPersistenceModule() {
         decimalFormat = (DecimalFormat) NumberFormat.getInstance(Locale.US);
         decimalFormat.applyPattern("0.########");
@@ -928,7 +939,7 @@ public class BasicPersistenceModule implements PersistenceModule, RecordHelper,
     @Override
     public DynamicResultSet fetch(PersistencePackage persistencePackage, CriteriaTransferObject cto) throws ServiceException {
         Entity[] payload;
-        int totalRecords;
+        RecordCount totalRecords;
         String ceilingEntityFullyQualifiedClassname = persistencePackage.getCeilingEntityFullyQualifiedClassname();
         if (StringUtils.isEmpty(persistencePackage.getFetchTypeFullyQualifiedClassname())) {
             persistencePackage.setFetchTypeFullyQualifiedClassname(ceilingEntityFullyQualifiedClassname);
@@ -977,15 +988,61 @@ public class BasicPersistenceModule implements PersistenceModule, RecordHelper,
                     );
                 filterMappings.add(filterMapping);
             }
-            List<Serializable> records = getPersistentRecords(persistencePackage.getFetchTypeFullyQualifiedClassname(), filterMappings, cto.getFirstResult(), cto.getMaxResults());
+            List<Serializable> records = getPersistentRecords(persistencePackage.getFetchTypeFullyQualifiedClassname(), filterMappings, cto.getFirstResult(), cto.getMaxResults(), cto.getLastId());
             payload = getRecords(mergedProperties, records, null, null);
-            totalRecords = getTotalRecords(persistencePackage.getFetchTypeFullyQualifiedClassname(), filterMappings);
+            totalRecords = getTotalRecords(ceilingEntityFullyQualifiedClassname, persistencePackage.getFetchTypeFullyQualifiedClassname(), 
+                    filterMappings, cto, records.size());
 
         } catch (Exception e) {
             throw new ServiceException("Unable to fetch results for " + ceilingEntityFullyQualifiedClassname, e);
         }
 
-        return new DynamicResultSet(null, payload, totalRecords);
+        DynamicResultSet drs = new DynamicResultSet(null, payload, totalRecords.getCount());
+        drs.setTotalRecordsApproximate(totalRecords.isApproximate());
+        return drs;
+    }
+
+    /**
+     * Determines the total number of records for a list grid fetch without counting every matching record each time
+     * a page is requested. In order, the total is taken from the {@link RecordCountCache}, estimated from the 
+     * position of the page when the grid is seeking to its next page (the grid already knows its size in that case),
+     * capped at <code>admin.list.grid.count.max</code> records, or counted.
+     * 
+     * @param ceilingEntity the ceiling entity of the fetch, used to invalidate the cached count
+     * @param fetchEntity the entity that is being fetched
+     * @param filterMappings
+     * @param cto
+     * @param pageSize the number of records returned for the requested page
+     * @return the total number of records
+     */
+    protected RecordCount getTotalRecords(String ceilingEntity, String fetchEntity, List<FilterMapping> filterMappings, 
+            CriteriaTransferObject cto, int pageSize) {
+        int firstResult = cto.getFirstResult() == null ? 0 : cto.getFirstResult();
+        String key = recordCountCache.buildKey(ceilingEntity, filterMappings);
+        RecordCount count = recordCountCache.getCount(key);
+        if (count == null) {
+            if (cto.getLastId() != null) {
+                count = new RecordCount(firstResult + pageSize, true);
+            } else if (maxExactCount > 0 && !getPersistentRecords(fetchEntity, filterMappings, maxExactCount, 1).isEmpty()) {
+                count = new RecordCount(maxExactCount, true);
+                recordCountCache.putCount(key, count);
+            } else {
+                count = new RecordCount(getTotalRecords(fetchEntity, filterMappings), false);
+                recordCountCache.putCount(key, count);
+            }
+        }
+
+        if (count.isApproximate()) {
+            // Never report fewer records than the grid has seen, and leave room for another page if this one was full
+            int seen = firstResult + pageSize;
+            if (cto.getMaxResults() != null && pageSize == cto.getMaxResults()) {
+                seen += pageSize;
+            }
+            if (seen > count.getCount()) {
+                count = new RecordCount(seen, true);
+            }
+        }
+        return count;
     }
 
     @Override
@@ -999,6 +1056,10 @@ public class BasicPersistenceModule implements PersistenceModule, RecordHelper,
         return criteriaTranslator.translateQuery(persistenceManager.getDynamicEntityDao(), ceilingEntity, filterMappings, firstResult, maxResults).getResultList();
     }
 
+    public List<Serializable> getPersistentRecords(String ceilingEntity, List<FilterMapping> filterMappings, Integer firstResult, Integer maxResults, String lastId) {
+        return criteriaTranslator.translateQuery(persistenceManager.getDynamicEntityDao(), ceilingEntity, filterMappings, firstResult, maxResults, lastId).getResultList();
+    }
+
     @Override
     public boolean validate(Entity entity, Serializable populatedInstance, Map<String, FieldMetadata> mergedProperties) {
         entityValidatorService.validate(entity, populatedInstance, mergedProperties);
@@ -0,0 +1,48 @@
+/*
+ * Copyright 2008-2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.broadleafcommerce.openadmin.server.service.persistence.module;
+
+import java.io.Serializable;
+
+/**
+ * The number of records matched by a list grid fetch, which may be a lower bound when counting every record was
+ * too expensive.
+ * @see {@link RecordCountCache}
+ */
+public class RecordCount implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    protected final int count;
+    protected final boolean approximate;
+
+    public RecordCount(int count, boolean approximate) {
+        this.count = count;
+        this.approximate = approximate;
+    }
+
+    public int getCount() {
+        return count;
+    }
+
+    /**
+     * @return whether there are at least {@link #getCount()} records rather than exactly that many
+     */
+    public boolean isApproximate() {
+        return approximate;
+    }
+
+}
@@ -0,0 +1,53 @@
+/*
+ * Copyright 2008-2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.broadleafcommerce.openadmin.server.service.persistence.module;
+
+import org.broadleafcommerce.openadmin.server.service.persistence.module.criteria.FilterMapping;
+
+import java.util.List;
+
+/**
+ * Remembers the total number of records of recent list grid fetches so that scrolling through or returning to a 
+ * grid does not count the matching records again.
+ * @see {@link BasicPersistenceModule#fetch(org.broadleafcommerce.openadmin.dto.PersistencePackage, org.broadleafcommerce.openadmin.dto.CriteriaTransferObject)}
+ */
+public interface RecordCountCache {
+
+    /**
+     * @param ceilingEntity
+     * @param filterMappings
+     * @return a key identifying the records matched by the given filters
+     */
+    public String buildKey(String ceilingEntity, List<FilterMapping> filterMappings);
+
+    /**
+     * @param key
+     * @return the cached count, or null if there is none or it has expired
+     */
+    public RecordCount getCount(String key);
+
+    public void putCount(String key, RecordCount count);
+
+    /**
+     * Removes the cached counts of every fetch of the given entity
+     * 
+     * @param ceilingEntity
+     */
+    public void invalidate(String ceilingEntity);
+
+    public void invalidateAll();
+
+}
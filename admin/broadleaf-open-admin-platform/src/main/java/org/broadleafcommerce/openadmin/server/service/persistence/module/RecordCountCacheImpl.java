@@ -0,0 +1,157 @@
+/*
+ * Copyright 2008-2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.broadleafcommerce.openadmin.server.service.persistence.module;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+
+import org.apache.commons.collections.CollectionUtils;
+import org.broadleafcommerce.openadmin.server.service.persistence.module.criteria.FilterMapping;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jmx.export.annotation.ManagedAttribute;
+import org.springframework.jmx.export.annotation.ManagedOperation;
+import org.springframework.jmx.export.annotation.ManagedResource;
+import org.springframework.stereotype.Service;
+
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Counts are kept for <code>admin.list.grid.count.cache.ttl</code> milliseconds, or until a record of the same 
+ * ceiling entity is added, updated or removed through the admin of this node. A ttl of 0 disables the cache.
+ * 
+ * Records written anywhere else, such as orders placed on the storefront, imports, or changes made through the admin
+ * of another node, do not invalidate the cache. Grids only reflect them once the cached count expires, which is why
+ * the default ttl is only a few seconds: long enough to page through a grid without counting it again each time.
+ */
+@Service("blRecordCountCache")
+@ManagedResource(objectName="org.broadleafcommerce:name=AdminRecordCountCache", description="Admin List Grid Record Count Cache", currencyTimeLimit=15)
+public class RecordCountCacheImpl implements RecordCountCache {
+
+    @Value("${admin.list.grid.count.cache.ttl}")
+    protected long ttl = 5000;
+
+    protected int maximumSize = 1000;
+
+    protected volatile Cache<String, RecordCount> countCache;
+
+    @Override
+    public String buildKey(String ceilingEntity, List<FilterMapping> filterMappings) {
+        StringBuilder sb = new StringBuilder(ceilingEntity).append('|');
+        for (FilterMapping filterMapping : filterMappings) {
+            boolean hasFilterValues = CollectionUtils.isNotEmpty(filterMapping.getFilterValues());
+            boolean hasDirectFilterValues = filterMapping.getDirectFilterValues() != null 
+                    && (!filterMapping.getDirectFilterValues().isEmpty() || filterMapping.getDirectFilterValues() instanceof EmptyFilterValues);
+            if (!hasFilterValues && !hasDirectFilterValues) {
+                // Sorting does not change the number of records
+                continue;
+            }
+            sb.append(filterMapping.getFullPropertyName());
+            if (filterMapping.getFieldPath() != null) {
+                sb.append('@').append(filterMapping.getFieldPath().getTargetProperty());
+            }
+            sb.append('=');
+            if (hasFilterValues) {
+                sb.append(filterMapping.getFilterValues());
+            } else {
+                sb.append(filterMapping.getDirectFilterValues());
+            }
+            sb.append(';');
+        }
+        return sb.toString();
+    }
+
+    @Override
+    public RecordCount getCount(String key) {
+        if (!isEnabled()) {
+            return null;
+        }
+        return getCountCache().getIfPresent(key);
+    }
+
+    @Override
+    public void putCount(String key, RecordCount count) {
+        if (isEnabled()) {
+            getCountCache().put(key, count);
+        }
+    }
+
+    @Override
+    public void invalidate(String ceilingEntity) {
+        if (countCache == null || ceilingEntity == null) {
+            return;
+        }
+        String prefix = ceilingEntity + '|';
+        Iterator<String> keys = countCache.asMap().keySet().iterator();
+        while (keys.hasNext()) {
+            if (keys.next().startsWith(prefix)) {
+                keys.remove();
+            }
+        }
+    }
+
+    @Override
+    @ManagedOperation(description="Removes every cached record count")
+    public void invalidateAll() {
+        if (countCache != null) {
+            countCache.invalidateAll();
+        }
+    }
+
+    protected boolean isEnabled() {
+        return ttl > 0;
+    }
+
+    protected Cache<String, RecordCount> getCountCache() {
+        Cache<String, RecordCount> cache = countCache;
+        if (cache == null) {
+            synchronized (this) {
+                cache = countCache;
+                if (cache == null) {
+                    cache = CacheBuilder.newBuilder()
+                            .maximumSize(maximumSize)
+                            .expireAfterWrite(ttl, TimeUnit.MILLISECONDS)
+                            .build();
+                    countCache = cache;
+                }
+            }
+        }
+        return cache;
+    }
+
+    @ManagedAttribute(description="The number of cached record counts", currencyTimeLimit=15)
+    public long getCacheSize() {
+        return countCache == null ? 0 : countCache.size();
+    }
+
+    public long getTtl() {
+        return ttl;
+    }
+
+    public void setTtl(long ttl) {
+        this.ttl = ttl;
+    }
+
+    public int getMaximumSize() {
+        return maximumSize;
+    }
+
+    public void setMaximumSize(int maximumSize) {
+        this.maximumSize = maximumSize;
+    }
+
+}
@@ -29,6 +29,13 @@ public interface CriteriaTranslator {
 
     TypedQuery<Serializable> translateQuery(DynamicEntityDao dynamicEntityDao, String ceilingEntity, List<FilterMapping> filterMappings, Integer firstResult, Integer maxResults);
 
+    /**
+     * Same as {@link #translateQuery(DynamicEntityDao, String, List, Integer, Integer)}, but when the results are 
+     * ordered by id and <b>lastId</b> is given, the page starts after that id instead of at <b>firstResult</b>, so 
+     * that the database does not have to read and discard every record before the requested page.
+     */
+    TypedQuery<Serializable> translateQuery(DynamicEntityDao dynamicEntityDao, String ceilingEntity, List<FilterMapping> filterMappings, Integer firstResult, Integer maxResults, String lastId);
+
     TypedQuery<Serializable> translateCountQuery(DynamicEntityDao dynamicEntityDao, String ceilingEntity, List<FilterMapping> filterMappings);
 
 }
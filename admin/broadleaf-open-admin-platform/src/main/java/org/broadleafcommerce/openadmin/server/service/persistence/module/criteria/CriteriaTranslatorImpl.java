@@ -23,6 +23,7 @@ import org.broadleafcommerce.openadmin.dto.ClassTree;
 import org.broadleafcommerce.openadmin.dto.SortDirection;
 import org.broadleafcommerce.openadmin.server.dao.DynamicEntityDao;
 import org.broadleafcommerce.openadmin.server.service.persistence.module.EmptyFilterValues;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 import java.io.Serializable;
@@ -37,6 +38,8 @@ import javax.persistence.criteria.Order;
 import javax.persistence.criteria.Path;
 import javax.persistence.criteria.Predicate;
 import javax.persistence.criteria.Root;
+import javax.persistence.metamodel.EntityType;
+import javax.persistence.metamodel.SingularAttribute;
 
 /**
  * @author Jeff Fischer
@@ -44,14 +47,26 @@ import javax.persistence.criteria.Root;
 @Service("blCriteriaTranslator")
 public class CriteriaTranslatorImpl implements CriteriaTranslator {
 
+    /**
+     * When enabled, records that are not explicitly sorted are ordered by id so that they can be paged by seeking 
+     * past the last id of the previous page
+     */
+    @Value("${admin.list.grid.keyset.enabled}")
+    protected boolean keysetPagingEnabled = true;
+
     @Override
     public TypedQuery<Serializable> translateCountQuery(DynamicEntityDao dynamicEntityDao, String ceilingEntity, List<FilterMapping> filterMappings) {
-        return constructQuery(dynamicEntityDao, ceilingEntity, filterMappings, true, null, null);
+        return constructQuery(dynamicEntityDao, ceilingEntity, filterMappings, true, null, null, null);
     }
 
     @Override
     public TypedQuery<Serializable> translateQuery(DynamicEntityDao dynamicEntityDao, String ceilingEntity, List<FilterMapping> filterMappings, Integer firstResult, Integer maxResults) {
-        return constructQuery(dynamicEntityDao, ceilingEntity, filterMappings, false, firstResult, maxResults);
+        return constructQuery(dynamicEntityDao, ceilingEntity, filterMappings, false, firstResult, maxResults, null);
+    }
+
+    @Override
+    public TypedQuery<Serializable> translateQuery(DynamicEntityDao dynamicEntityDao, String ceilingEntity, List<FilterMapping> filterMappings, Integer firstResult, Integer maxResults, String lastId) {
+        return constructQuery(dynamicEntityDao, ceilingEntity, filterMappings, false, firstResult, maxResults, lastId);
     }
     
     /**
@@ -137,8 +152,16 @@ public class CriteriaTranslatorImpl implements CriteriaTranslator {
         return null;
     }
 
-    @SuppressWarnings("unchecked")
+    /**
+     * This method is deprecated in favor of {@link #constructQuery(DynamicEntityDao, String, List, boolean, Integer, Integer, String)}
+     */
+    @Deprecated
     protected TypedQuery<Serializable> constructQuery(DynamicEntityDao dynamicEntityDao, String ceilingEntity, List<FilterMapping> filterMappings, boolean isCount, Integer firstResult, Integer maxResults) {
+        return constructQuery(dynamicEntityDao, ceilingEntity, filterMappings, isCount, firstResult, maxResults, null);
+    }
+
+    @SuppressWarnings("unchecked")
+    protected TypedQuery<Serializable> constructQuery(DynamicEntityDao dynamicEntityDao, String ceilingEntity, List<FilterMapping> filterMappings, boolean isCount, Integer firstResult, Integer maxResults, String lastId) {
         CriteriaBuilder criteriaBuilder = dynamicEntityDao.getStandardEntityManager().getCriteriaBuilder();
         
         Class<Serializable> ceilingMarker;
@@ -161,6 +184,10 @@ public class CriteriaTranslatorImpl implements CriteriaTranslator {
         List<Predicate> restrictions = new ArrayList<Predicate>();
         List<Order> sorts = new ArrayList<Order>();
         addRestrictions(ceilingEntity, filterMappings, criteriaBuilder, original, restrictions, sorts, criteria);
+        if (!isCount && addKeysetPaging(filterMappings, criteriaBuilder, original, restrictions, sorts, lastId)) {
+            // The restriction on the id replaces the offset
+            firstResult = null;
+        }
         
         criteria.where(restrictions.toArray(new Predicate[restrictions.size()]));
         if (!isCount) {
@@ -175,6 +202,88 @@ public class CriteriaTranslatorImpl implements CriteriaTranslator {
         return response;
     }
 
+    /**
+     * Orders unsorted results by id and, if <b>lastId</b> is given, restricts the results to the records after it.
+     * Results that are sorted by any property other than the id are left untouched and paged by offset.
+     * 
+     * @return whether the results were restricted to the records after <b>lastId</b>
+     */
+    @SuppressWarnings("unchecked")
+    protected boolean addKeysetPaging(List<FilterMapping> filterMappings, CriteriaBuilder criteriaBuilder, Root original,
+                                      List<Predicate> restrictions, List<Order> sorts, String lastId) {
+        if (!keysetPagingEnabled) {
+            return false;
+        }
+        SingularAttribute idAttribute = getIdAttribute(original);
+        if (idAttribute == null) {
+            return false;
+        }
+
+        SortDirection direction = SortDirection.ASCENDING;
+        for (FilterMapping filterMapping : filterMappings) {
+            if (filterMapping.getSortDirection() != null) {
+                if (!idAttribute.getName().equals(filterMapping.getFullPropertyName()) || sorts.size() != 1) {
+                    return false;
+                }
+                direction = filterMapping.getSortDirection();
+            }
+        }
+
+        Path idPath = original.get(idAttribute);
+        if (sorts.isEmpty()) {
+            sorts.add(criteriaBuilder.asc(idPath));
+        }
+
+        Comparable lastIdValue = convertId(idAttribute.getJavaType(), lastId);
+        if (lastIdValue == null) {
+            return false;
+        }
+        if (SortDirection.ASCENDING == direction) {
+            restrictions.add(criteriaBuilder.greaterThan(idPath, lastIdValue));
+        } else {
+            restrictions.add(criteriaBuilder.lessThan(idPath, lastIdValue));
+        }
+        return true;
+    }
+
+    /**
+     * @return the single id attribute of the queried entity, or null if it has a composite id
+     */
+    protected SingularAttribute getIdAttribute(Root<?> original) {
+        try {
+            EntityType<?> model = original.getModel();
+            if (!model.hasSingleIdAttribute()) {
+                return null;
+            }
+            return model.getId(model.getIdType().getJavaType());
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    /**
+     * @return the given id converted to the type of the id attribute, or null if it cannot be compared
+     */
+    protected Comparable convertId(Class<?> idType, String id) {
+        if (StringUtils.isBlank(id)) {
+            return null;
+        }
+        try {
+            if (Long.class.equals(idType) || long.class.equals(idType)) {
+                return Long.valueOf(id);
+            }
+            if (Integer.class.equals(idType) || int.class.equals(idType)) {
+                return Integer.valueOf(id);
+            }
+        } catch (NumberFormatException e) {
+            return null;
+        }
+        if (String.class.equals(idType)) {
+            return id;
+        }
+        return null;
+    }
+
     protected void addPaging(Query response, Integer firstResult, Integer maxResults) {
         if (firstResult != null) {
             response.setFirstResult(firstResult);
@@ -17,6 +17,7 @@
 package org.broadleafcommerce.openadmin.web.controller;
 
 import org.apache.commons.collections.CollectionUtils;
+import org.apache.commons.lang.StringUtils;
 import org.broadleafcommerce.common.exception.ServiceException;
 import org.broadleafcommerce.common.persistence.EntityConfiguration;
 import org.broadleafcommerce.common.util.BLCMapUtils;
@@ -424,6 +425,21 @@ public abstract class AdminAbstractController extends BroadleafAbstractControlle
         return CollectionUtils.isEmpty(maxIndex) ? null : Integer.parseInt(maxIndex.get(0));
     }
     
+    /**
+     * Obtains the id of the last record the list grid has already loaded, used to seek to the next page
+     * 
+     * @param requestParams
+     * @return
+     */
+    protected String getLastId(Map<String, List<String>> requestParams) {
+        if (requestParams == null || requestParams.isEmpty()) {
+            return null;
+        }
+        
+        List<String> lastId = requestParams.get(FilterAndSortCriteria.LAST_ID_PARAMETER);
+        return CollectionUtils.isEmpty(lastId) || StringUtils.isBlank(lastId.get(0)) ? null : lastId.get(0);
+    }
+    
     // ************************
     // GENERIC HELPER METHODS *
     // ************************
@@ -476,7 +492,8 @@ public abstract class AdminAbstractController extends BroadleafAbstractControlle
         return getSectionPersistencePackageRequest(sectionClassName)
                 .withFilterAndSortCriteria(fascs)
                 .withStartIndex(getStartIndex(requestParams))
-                .withMaxIndex(getMaxIndex(requestParams));
+                .withMaxIndex(getMaxIndex(requestParams))
+                .withLastId(getLastId(requestParams));
     }
     
 
@@ -16,14 +16,27 @@
 
 package org.broadleafcommerce.openadmin.web.controller;
 
+import org.apache.commons.io.IOUtils;
+import org.broadleafcommerce.common.exception.ServiceException;
 import org.broadleafcommerce.openadmin.server.service.export.AdminExporter;
+import org.broadleafcommerce.openadmin.server.service.export.EntityExportJob;
+import org.broadleafcommerce.openadmin.server.service.export.EntityExportService;
+import org.broadleafcommerce.openadmin.server.service.export.StreamingEntityExporter;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestMethod;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.ResponseBody;
 import org.springframework.web.servlet.ModelAndView;
 
 import javax.annotation.Resource;
 import javax.servlet.ServletOutputStream;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
+import java.io.FileInputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
@@ -36,17 +49,11 @@ public class AdminExportController extends AdminAbstractController {
     @Resource(name = "blAdminExporters")
     protected List<AdminExporter> exporters;
 
+    @Resource(name = "blEntityExportService")
+    protected EntityExportService entityExportService;
+
     public ModelAndView export(HttpServletRequest request, HttpServletResponse response, Map<String, String> params) throws IOException {
-        String exporterName = params.get("exporter");
-        AdminExporter exporter = null;
-        for (AdminExporter test : exporters) {
-            if (test.getName().equals(exporterName)) {
-                exporter = test;
-            }
-        }
-        if (exporter == null) {
-            throw new RuntimeException("Could not find exporter with name: " + exporterName);
-        }
+        AdminExporter exporter = getExporter(params.get("exporter"));
         
         response.setContentType("application/download");
         String fileName = exporter.getFileName();
@@ -59,6 +66,91 @@ public class AdminExportController extends AdminAbstractController {
         return null;
     }
 
+    /**
+     * Runs a {@link StreamingEntityExporter} in the background instead of streaming it to the response. The returned
+     * job id can be polled with {@link #exportProgress(String)} and the file retrieved with 
+     * {@link #downloadExport(HttpServletResponse, String)} once the job is complete.
+     * 
+     * The background export handlers are mapped under /export/background, relative to the mapping of the controller
+     * that extends this class.
+     */
+    @RequestMapping(value = "/export/background", method = RequestMethod.POST)
+    public @ResponseBody Map<String, Object> startExport(HttpServletRequest request, 
+            @RequestParam Map<String, String> params) throws IOException, ServiceException {
+        AdminExporter exporter = getExporter(params.get("exporter"));
+        if (!(exporter instanceof StreamingEntityExporter)) {
+            throw new RuntimeException("Exporter " + exporter.getName() + " cannot be run in the background");
+        }
+        EntityExportJob job = entityExportService.startExport(((StreamingEntityExporter) exporter).buildRequest(params));
+        return buildJobMap(job);
+    }
+
+    @RequestMapping(value = "/export/background/{jobId}", method = RequestMethod.GET)
+    public @ResponseBody Map<String, Object> exportProgress(@PathVariable(value="jobId") String jobId) {
+        return buildJobMap(getJob(jobId));
+    }
+
+    @RequestMapping(value = "/export/background/{jobId}/cancel", method = RequestMethod.POST)
+    public @ResponseBody Map<String, Object> cancelExport(@PathVariable(value="jobId") String jobId) {
+        entityExportService.cancelExport(jobId);
+        return buildJobMap(getJob(jobId));
+    }
+
+    @RequestMapping(value = "/export/background/{jobId}/download", method = RequestMethod.GET)
+    public ModelAndView downloadExport(HttpServletResponse response, @PathVariable(value="jobId") String jobId) 
+            throws IOException {
+        EntityExportJob job = getJob(jobId);
+        if (!job.isComplete()) {
+            throw new RuntimeException("Export " + jobId + " is not complete");
+        }
+
+        response.setContentType("application/download");
+        response.setHeader("Content-Disposition", "attachment; filename=\"" + job.getRequest().getFileName() + "\"");
+        // setContentLength takes an int, which overflows for exports over 2GB
+        response.setHeader("Content-Length", String.valueOf(job.getFile().length()));
+
+        ServletOutputStream stream = response.getOutputStream();
+        InputStream in = new FileInputStream(job.getFile());
+        try {
+            IOUtils.copy(in, stream);
+        } finally {
+            IOUtils.closeQuietly(in);
+        }
+        stream.flush();
+
+        return null;
+    }
+
+    protected AdminExporter getExporter(String exporterName) {
+        for (AdminExporter test : exporters) {
+            if (test.getName().equals(exporterName)) {
+                return test;
+            }
+        }
+        throw new RuntimeException("Could not find exporter with name: " + exporterName);
+    }
+
+    protected EntityExportJob getJob(String jobId) {
+        EntityExportJob job = entityExportService.getJob(jobId);
+        if (job == null) {
+            throw new RuntimeException("Could not find export with id: " + jobId);
+        }
+        return job;
+    }
+
+    protected Map<String, Object> buildJobMap(EntityExportJob job) {
+        Map<String, Object> result = new HashMap<String, Object>();
+        result.put("jobId", job.getId());
+        result.put("status", job.getStatus());
+        result.put("rowsWritten", job.getRowsWritten());
+        result.put("elapsedTime", job.getElapsedTime());
+        result.put("fileName", job.getRequest().getFileName());
+        if (job.getErrorMessage() != null) {
+            result.put("errorMessage", job.getErrorMessage());
+        }
+        return result;
+    }
+
     public List<AdminExporter> getExporters() {
         return exporters;
     }
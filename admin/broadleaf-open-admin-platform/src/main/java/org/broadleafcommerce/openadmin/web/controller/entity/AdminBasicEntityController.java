@@ -459,6 +459,7 @@ public class AdminBasicEntityController extends AdminAbstractController {
         ppr.addFilterAndSortCriteria(getCriteria(requestParams));
         ppr.setStartIndex(getStartIndex(requestParams));
         ppr.setMaxIndex(getMaxIndex(requestParams));
+        ppr.setLastId(getLastId(requestParams));
         
         if (md instanceof BasicFieldMetadata) {
             DynamicResultSet drs = service.getRecords(ppr);
@@ -52,6 +52,7 @@ public class ListGrid {
     // These actions will start greyed out and unable to be clicked until a specific row has been selected
     protected List<ListGridAction> rowActions = new ArrayList<ListGridAction>();
     protected int totalRecords;
+    protected boolean totalRecordsApproximate;
     protected int startIndex;
     protected int pageSize;
     protected Boolean canFilterAndSort;
@@ -237,6 +238,14 @@ public class ListGrid {
         this.totalRecords = totalRecords;
     }
     
+    public boolean getTotalRecordsApproximate() {
+        return totalRecordsApproximate;
+    }
+
+    public void setTotalRecordsApproximate(boolean totalRecordsApproximate) {
+        this.totalRecordsApproximate = totalRecordsApproximate;
+    }
+    
     public int getPageSize() {
         return pageSize;
     }
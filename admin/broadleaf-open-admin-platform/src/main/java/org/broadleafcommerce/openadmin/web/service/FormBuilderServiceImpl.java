@@ -344,6 +344,7 @@ public class FormBuilderServiceImpl implements FormBuilderService {
         listGrid.setIdProperty(idProperty);
         listGrid.setStartIndex(drs.getStartIndex());
         listGrid.setTotalRecords(drs.getTotalRecords());
+        listGrid.setTotalRecordsApproximate(Boolean.TRUE.equals(drs.getTotalRecordsApproximate()));
         listGrid.setPageSize(drs.getPageSize());
         
         AdminSection section = navigationService.findAdminSectionByClass(className);
@@ -181,6 +181,15 @@
             
             // Update the loaded record ranges to reflect this new chunk
             this.addLoadedRange($tbody, newRange.lo, newRange.hi);
+            
+            // An approximate total grows as more records are loaded, so make room for the additional records
+            var newTotal = $newTbody.data('totalrecords');
+            var oldTotal = this.getTotalRecords($tbody);
+            if ($tbody.data('totalrecordsapproximate') && newTotal > oldTotal) {
+                $tbody.data('totalrecords', newTotal);
+                $tbody.find('tr:last').after(this.createPadding($tbody, oldTotal, newTotal - 1));
+                $tbody.closest('.listgrid-body-wrapper').mCustomScrollbar('update');
+            }
         },
         
         initializeTableResizing : function($headerTable, $bodyTable) {
@@ -371,6 +380,13 @@
                 var url = BLCAdmin.history.getUrlWithParameter('startIndex', startIndex, null, baseUrl);
                 url = BLCAdmin.history.getUrlWithParameter('maxIndex', maxIndex, null, url);
                 
+                // If the record just before this range is loaded, the server can seek past it rather than
+                // skipping every record before the start index
+                var lastId = $tbody.find('tr[data-index="' + (startIndex - 1) + '"]').data('rowid');
+                if (lastId != null) {
+                    url = BLCAdmin.history.getUrlWithParameter('lastId', lastId, null, url);
+                }
+                
                 //console.log('Loading more records -- ' + url);
                 
                 BLC.ajax({ url: url, type: 'GET' }, function(data) {
@@ -424,7 +440,7 @@
             
             $footer.find('.low-index').text(topIndex);
             $footer.find('.high-index').text(botIndex);
-            $footer.find('.total-records').text(totalRecords);
+            $footer.find('.total-records').text(totalRecords + ($tbody.data('totalrecordsapproximate') ? '+' : ''));
         },
         
         updateGridSize : function($tbody) {
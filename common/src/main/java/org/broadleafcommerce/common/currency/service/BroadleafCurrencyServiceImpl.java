@@ -18,6 +18,7 @@ package org.broadleafcommerce.common.currency.service;
 
 import org.broadleafcommerce.common.currency.dao.BroadleafCurrencyDao;
 import org.broadleafcommerce.common.currency.domain.BroadleafCurrency;
+import org.broadleafcommerce.common.site.service.SiteResolutionTableService;
 import org.springframework.stereotype.Service;
 
 import javax.annotation.Resource;
@@ -34,6 +35,9 @@ public class BroadleafCurrencyServiceImpl implements BroadleafCurrencyService {
     @Resource(name="blCurrencyDao")
     protected BroadleafCurrencyDao currencyDao;
 
+    @Resource(name="blSiteResolutionTableService")
+    protected SiteResolutionTableService siteResolutionTableService;
+
     /**
      * Returns the default Broadleaf currency
      * @return The default currency
@@ -62,6 +66,8 @@ public class BroadleafCurrencyServiceImpl implements BroadleafCurrencyService {
 
     @Override
     public BroadleafCurrency save(BroadleafCurrency currency) {
-        return currencyDao.save(currency);
+        BroadleafCurrency response = currencyDao.save(currency);
+        siteResolutionTableService.refreshAfterCommit();
+        return response;
     }
 }
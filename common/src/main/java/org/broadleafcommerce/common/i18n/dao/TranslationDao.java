@@ -20,6 +20,7 @@ package org.broadleafcommerce.common.i18n.dao;
 import org.broadleafcommerce.common.i18n.domain.TranslatedEntity;
 import org.broadleafcommerce.common.i18n.domain.Translation;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Map;
 
@@ -90,4 +91,23 @@ public interface TranslationDao {
      */
     public Translation readTranslation(TranslatedEntity entity, String entityId, String fieldName, String localeCode);
 
+    /**
+     * Reads the translations of every field of the given entities for the given locales in a single query
+     * 
+     * @param entity
+     * @param entityIds
+     * @param localeCodes
+     * @return the list of translations
+     */
+    public List<Translation> readTranslations(TranslatedEntity entity, Collection<String> entityIds, 
+            Collection<String> localeCodes);
+
+    /**
+     * Reads every translation of the given entity type, for all entities, fields and locales
+     * 
+     * @param entity
+     * @return the list of translations
+     */
+    public List<Translation> readAllTranslations(TranslatedEntity entity);
+
 }
\ No newline at end of file
@@ -20,6 +20,7 @@ package org.broadleafcommerce.common.i18n.service;
 import org.broadleafcommerce.common.i18n.domain.TranslatedEntity;
 import org.broadleafcommerce.common.i18n.domain.Translation;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Locale;
 
@@ -103,5 +104,19 @@ public interface TranslationService {
      */
     public String getTranslatedValue(Object entity, String property, Locale locale);
 
+    /**
+     * Reads the translations of every field of the given entities for the locale (and its language, if the locale has
+     * a country) in as few queries as possible and caches them, so that subsequent calls to 
+     * {@link #getTranslatedValue(Object, String, Locale)} for these entities do not hit the database. This is intended
+     * to be called before rendering a list of entities, such as the products on a category page.
+     * 
+     * Entity types whose translations are all held in memory are skipped.
+     * 
+     * @param entityType
+     * @param entityIds
+     * @param locale
+     */
+    public void preloadTranslations(TranslatedEntity entityType, Collection<String> entityIds, Locale locale);
+
 
 }
\ No newline at end of file
@@ -29,29 +29,66 @@ import org.broadleafcommerce.common.i18n.domain.Translation;
 import org.hibernate.type.LongType;
 import org.hibernate.type.StringType;
 import org.hibernate.type.Type;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationListener;
+import org.springframework.context.event.ContextRefreshedEvent;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.TransactionStatus;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.DefaultTransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import javax.annotation.Resource;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.Set;
 
 
 @Service("blTranslationService")
-public class TranslationServiceImpl implements TranslationService {
+public class TranslationServiceImpl implements TranslationService, ApplicationListener<ContextRefreshedEvent> {
     protected static final Log LOG = LogFactory.getLog(TranslationServiceImpl.class);
     
+    /**
+     * The maximum number of entity ids read by a single query when preloading translations
+     */
+    protected static final int PRELOAD_BATCH_SIZE = 500;
+    
     @Resource(name = "blTranslationDao")
     protected TranslationDao dao;
     
+    @Resource(name = "blTransactionManager")
+    protected PlatformTransactionManager transactionManager;
+    
+    @Value("${i18n.translation.enabled}")
+    protected boolean translationEnabled = true;
+    
+    @Value("${i18n.translation.preload.entityTypes}")
+    protected String preloadEntityTypes = "";
+    
     protected Cache cache;
     
+    /**
+     * Every translation of the preloaded entity types, or null if there are none
+     */
+    protected volatile TranslationTable translationTable;
+    
     @Override
     @Transactional("blTransactionManager")
     public Translation save(Translation translation) {
-        return dao.save(translation);
+        Translation response = dao.save(translation);
+        translationChanged(response.getEntityType(), response.getEntityId(), response.getFieldName(), 
+                response.getLocaleCode(), response.getTranslatedValue());
+        return response;
     }
     
     @Override
@@ -84,6 +121,9 @@ public class TranslationServiceImpl implements TranslationService {
         if (t2 != null && t != t2) {
             dao.delete(t2);
         }
+        if (!localeCode.equals(t.getLocaleCode())) {
+            translationChanged(t.getEntityType(), t.getEntityId(), t.getFieldName(), t.getLocaleCode(), null);
+        }
         
         t.setLocaleCode(localeCode);
         t.setTranslatedValue(translatedValue);
@@ -95,6 +135,7 @@ public class TranslationServiceImpl implements TranslationService {
     public void deleteTranslationById(Long translationId) {
         Translation t = dao.readTranslationById(translationId);
         dao.delete(t);
+        translationChanged(t.getEntityType(), t.getEntityId(), t.getFieldName(), t.getLocaleCode(), null);
     }
     
     @Override
@@ -120,40 +161,210 @@ public class TranslationServiceImpl implements TranslationService {
             localeCountryCode += "_" + locale.getCountry();
         }
 
-        Translation translation;
+        // Every translation of a preloaded entity type is in memory, so a miss there means there is no translation
+        TranslationTable table = translationTable;
+        if (table != null && table.contains(entityType.getFriendlyType())) {
+            String value = table.getTranslatedValue(localeCountryCode, entityType.getFriendlyType(), property, entityId);
+            if (value == null) {
+                value = table.getTranslatedValue(localeCode, entityType.getFriendlyType(), property, entityId);
+            }
+            return StringUtils.isNotBlank(value) ? value : null;
+        }
+        
+        // First, we'll try to look up a country language combo (en_GB), and if we don't find one, just the 
+        // language (en), utilizing the cache for both
+        String translatedValue = getCachedTranslatedValue(entityType, entityId, property, localeCountryCode);
+        if (translatedValue == null) {
+            translatedValue = getCachedTranslatedValue(entityType, entityId, property, localeCode);
+        }
+        
+        // If we have a match on a translation, use that instead of what we found on the entity.
+        if (StringUtils.isNotBlank(translatedValue)) {
+            return translatedValue;
+        }
+        
+        return null;
+    }
+    
+    /**
+     * Looks up a translation in the cache, first among the translations preloaded for the whole entity and then among
+     * the translations of single fields, reading it from the database if neither holds it
+     * 
+     * @return the translated value, which is blank if a translation exists without a value, or null if there is no
+     * translation
+     */
+    protected String getCachedTranslatedValue(TranslatedEntity entityType, String entityId, String property, 
+            String localeCode) {
+        Element entityValue = getCache().get(getEntityCacheKey(entityType, entityId, localeCode));
+        if (entityValue != null) {
+            @SuppressWarnings("unchecked")
+            Map<String, String> translatedValues = (Map<String, String>) entityValue.getObjectValue();
+            return translatedValues.get(property);
+        }
         
-        // First, we'll try to look up a country language combo (en_GB), utilizing the cache
-        String countryCacheKey = getCacheKey(entityType, entityId, property, localeCountryCode);
-        Element countryValue = getCache().get(countryCacheKey);
-        if (countryValue != null) {
-            translation = (Translation) countryValue.getObjectValue();
+        Translation translation;
+        String cacheKey = getCacheKey(entityType, entityId, property, localeCode);
+        Element value = getCache().get(cacheKey);
+        if (value != null) {
+            translation = (Translation) value.getObjectValue();
         } else {
-            translation = getTranslation(entityType, entityId, property, localeCountryCode);
+            translation = getTranslation(entityType, entityId, property, localeCode);
             if (translation != null) {
-                getCache().put(new Element(countryCacheKey, translation));
+                getCache().put(new Element(cacheKey, translation));
             }
         }
         
-        // If we don't find one, let's try just the language (en), again utilizing the cache
         if (translation == null) {
-            String nonCountryCacheKey = getCacheKey(entityType, entityId, property, localeCode);
-            Element nonCountryValue = getCache().get(nonCountryCacheKey);
-            if (nonCountryValue != null) {
-                translation = (Translation) nonCountryValue.getObjectValue();
-            } else {
-                translation = getTranslation(entityType, entityId, property, localeCode);
-                if (translation != null) {
-                    getCache().put(new Element(nonCountryCacheKey, translation));
+            return null;
+        }
+        return translation.getTranslatedValue() == null ? "" : translation.getTranslatedValue();
+    }
+    
+    @Override
+    public void preloadTranslations(TranslatedEntity entityType, Collection<String> entityIds, Locale locale) {
+        TranslationTable table = translationTable;
+        if (entityIds.isEmpty() || (table != null && table.contains(entityType.getFriendlyType()))) {
+            return;
+        }
+        
+        Set<String> localeCodes = new LinkedHashSet<String>();
+        if (StringUtils.isNotBlank(locale.getCountry())) {
+            localeCodes.add(locale.getLanguage() + "_" + locale.getCountry());
+        }
+        localeCodes.add(locale.getLanguage());
+        
+        List<String> missingIds = new ArrayList<String>();
+        for (String entityId : new LinkedHashSet<String>(entityIds)) {
+            for (String localeCode : localeCodes) {
+                if (getCache().get(getEntityCacheKey(entityType, entityId, localeCode)) == null) {
+                    missingIds.add(entityId);
+                    break;
                 }
             }
         }
         
-        // If we have a match on a translation, use that instead of what we found on the entity.
-        if (translation != null && StringUtils.isNotBlank(translation.getTranslatedValue())) {
-            return translation.getTranslatedValue();
+        for (int i = 0; i < missingIds.size(); i += PRELOAD_BATCH_SIZE) {
+            List<String> batch = missingIds.subList(i, Math.min(i + PRELOAD_BATCH_SIZE, missingIds.size()));
+            
+            // An entity without translations is cached as well, so that it is not looked up field by field
+            Map<String, Map<String, String>> translatedValues = new HashMap<String, Map<String, String>>();
+            for (String entityId : batch) {
+                for (String localeCode : localeCodes) {
+                    translatedValues.put(getEntityCacheKey(entityType, entityId, localeCode), new HashMap<String, String>());
+                }
+            }
+            for (Translation translation : dao.readTranslations(entityType, batch, localeCodes)) {
+                Map<String, String> values = translatedValues.get(getEntityCacheKey(entityType, 
+                        translation.getEntityId(), translation.getLocaleCode()));
+                if (values != null) {
+                    values.put(translation.getFieldName(), 
+                            translation.getTranslatedValue() == null ? "" : translation.getTranslatedValue());
+                }
+            }
+            for (Entry<String, Map<String, String>> entry : translatedValues.entrySet()) {
+                getCache().put(new Element(entry.getKey(), entry.getValue()));
+            }
+        }
+    }
+    
+    @Override
+    public void onApplicationEvent(ContextRefreshedEvent event) {
+        if (translationTable == null) {
+            loadTranslationTable();
+        }
+    }
+    
+    /**
+     * Reloads the preloaded translations to pick up changes made in other applications, such as the admin
+     */
+    @Scheduled(fixedDelayString = "${i18n.translation.preload.refresh.interval}")
+    public void refreshTranslationTable() {
+        if (translationTable != null) {
+            loadTranslationTable();
+        }
+    }
+    
+    /**
+     * Reads every translation of the entity types in <code>i18n.translation.preload.entityTypes</code> into a new 
+     * {@link TranslationTable} and swaps it in for the current one
+     */
+    protected void loadTranslationTable() {
+        List<TranslatedEntity> entityTypes = new ArrayList<TranslatedEntity>();
+        if (translationEnabled && StringUtils.isNotBlank(preloadEntityTypes)) {
+            for (String friendlyType : preloadEntityTypes.split(",")) {
+                TranslatedEntity entityType = TranslatedEntity.getInstanceFromFriendlyType(friendlyType.trim());
+                if (entityType == null) {
+                    LOG.warn("Unknown translated entity type configured for preloading: " + friendlyType);
+                } else {
+                    entityTypes.add(entityType);
+                }
+            }
+        }
+        if (entityTypes.isEmpty()) {
+            return;
         }
         
-        return null;
+        DefaultTransactionDefinition definition = new DefaultTransactionDefinition();
+        definition.setName("loadTranslationTable");
+        definition.setReadOnly(true);
+        definition.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        TransactionStatus status = transactionManager.getTransaction(definition);
+        try {
+            List<String> friendlyTypes = new ArrayList<String>();
+            List<Translation> translations = new ArrayList<Translation>();
+            for (TranslatedEntity entityType : entityTypes) {
+                friendlyTypes.add(entityType.getFriendlyType());
+                translations.addAll(dao.readAllTranslations(entityType));
+            }
+            TranslationTable table = TranslationTable.build(friendlyTypes, translations);
+            transactionManager.commit(status);
+            synchronized (this) {
+                translationTable = table;
+            }
+            if (LOG.isDebugEnabled()) {
+                LOG.debug("Loaded " + translations.size() + " translations of " + friendlyTypes);
+            }
+        } catch (RuntimeException e) {
+            if (!status.isCompleted()) {
+                transactionManager.rollback(status);
+            }
+            LOG.error("Unable to load the preloaded translations", e);
+        }
+    }
+    
+    /**
+     * Evicts the changed translation from the cache and applies it to the preloaded translations, once the current 
+     * transaction has committed
+     * 
+     * @param translatedValue the new value, or null if the translation was removed
+     */
+    protected void translationChanged(final TranslatedEntity entityType, final String entityId, final String fieldName,
+            final String localeCode, final String translatedValue) {
+        if (entityType == null) {
+            return;
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+                @Override
+                public void afterCommit() {
+                    applyTranslationChange(entityType, entityId, fieldName, localeCode, translatedValue);
+                }
+            });
+        } else {
+            applyTranslationChange(entityType, entityId, fieldName, localeCode, translatedValue);
+        }
+    }
+    
+    protected void applyTranslationChange(TranslatedEntity entityType, String entityId, String fieldName, 
+            String localeCode, String translatedValue) {
+        getCache().remove(getCacheKey(entityType, entityId, fieldName, localeCode));
+        getCache().remove(getEntityCacheKey(entityType, entityId, localeCode));
+        synchronized (this) {
+            if (translationTable != null) {
+                translationTable = translationTable.withTranslation(localeCode, entityType.getFriendlyType(), fieldName, 
+                        entityId, translatedValue);
+            }
+        }
     }
     
     protected TranslatedEntity getEntityType(Class<?> entityClass) {
@@ -213,6 +424,10 @@ public class TranslationServiceImpl implements TranslationService {
         return StringUtils.join(new String[] { entityType.getFriendlyType(), entityId, property, localeCode }, "|");
     }
     
+    protected String getEntityCacheKey(TranslatedEntity entityType, String entityId, String localeCode) {
+        return StringUtils.join(new String[] { entityType.getFriendlyType(), entityId, localeCode }, "|");
+    }
+    
     protected Cache getCache() {
         if (cache == null) {
             cache = CacheManager.getInstance().getCache("blTranslationElements");
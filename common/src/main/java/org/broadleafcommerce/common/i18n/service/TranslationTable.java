@@ -0,0 +1,225 @@
+/*
+ * Copyright 2008-2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.broadleafcommerce.common.i18n.service;
+
+import org.broadleafcommerce.common.i18n.domain.Translation;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * An immutable, in-memory copy of every translation of a set of entity types, organized by locale code, entity type
+ * and field name. The translations of a field are held in a sorted array of primitive entity ids alongside an array
+ * of values, so that a large number of translations takes little memory and is found with a binary search.
+ * 
+ * Because the table holds every translation of its entity types, a lookup that finds nothing means that there is no
+ * translation, and does not need to go to the database.
+ */
+public class TranslationTable {
+
+    protected final Set<String> entityTypes;
+    protected final Map<String, Map<String, Map<String, FieldTranslations>>> translations;
+
+    protected TranslationTable(Set<String> entityTypes, Map<String, Map<String, Map<String, FieldTranslations>>> translations) {
+        this.entityTypes = entityTypes;
+        this.translations = translations;
+    }
+
+    /**
+     * Builds a table from all of the translations of the given entity types
+     * 
+     * @param entityTypes the friendly types of the entities
+     * @param allTranslations every translation of those entity types
+     */
+    public static TranslationTable build(Collection<String> entityTypes, Collection<Translation> allTranslations) {
+        Map<String, Map<String, Map<String, Map<String, String>>>> grouped = 
+                new HashMap<String, Map<String, Map<String, Map<String, String>>>>();
+        for (Translation translation : allTranslations) {
+            if (translation.getEntityType() == null) {
+                continue;
+            }
+            getOrCreate(getOrCreate(getOrCreate(grouped, translation.getLocaleCode()), 
+                    translation.getEntityType().getFriendlyType()), translation.getFieldName())
+                    .put(translation.getEntityId(), translation.getTranslatedValue());
+        }
+
+        Map<String, Map<String, Map<String, FieldTranslations>>> translations = 
+                new HashMap<String, Map<String, Map<String, FieldTranslations>>>();
+        for (Entry<String, Map<String, Map<String, Map<String, String>>>> locale : grouped.entrySet()) {
+            Map<String, Map<String, FieldTranslations>> types = new HashMap<String, Map<String, FieldTranslations>>();
+            for (Entry<String, Map<String, Map<String, String>>> type : locale.getValue().entrySet()) {
+                Map<String, FieldTranslations> fields = new HashMap<String, FieldTranslations>();
+                for (Entry<String, Map<String, String>> field : type.getValue().entrySet()) {
+                    fields.put(field.getKey().intern(), FieldTranslations.build(field.getValue()));
+                }
+                types.put(type.getKey().intern(), fields);
+            }
+            translations.put(locale.getKey().intern(), types);
+        }
+        return new TranslationTable(Collections.unmodifiableSet(new HashSet<String>(entityTypes)), translations);
+    }
+
+    /**
+     * @return whether this table holds the translations of the given entity type
+     */
+    public boolean contains(String friendlyType) {
+        return entityTypes.contains(friendlyType);
+    }
+
+    public Set<String> getEntityTypes() {
+        return entityTypes;
+    }
+
+    /**
+     * @return the translated value, which may be blank, or null if there is no translation
+     */
+    public String getTranslatedValue(String localeCode, String friendlyType, String fieldName, String entityId) {
+        Map<String, Map<String, FieldTranslations>> types = translations.get(localeCode);
+        if (types == null) {
+            return null;
+        }
+        Map<String, FieldTranslations> fields = types.get(friendlyType);
+        if (fields == null) {
+            return null;
+        }
+        FieldTranslations field = fields.get(fieldName);
+        return field == null ? null : field.get(entityId);
+    }
+
+    /**
+     * Returns a copy of this table with a single translation changed, sharing everything that did not change
+     * 
+     * @param translatedValue the new value, or null to remove the translation
+     */
+    public TranslationTable withTranslation(String localeCode, String friendlyType, String fieldName, String entityId, 
+            String translatedValue) {
+        if (!contains(friendlyType)) {
+            return this;
+        }
+        Map<String, Map<String, FieldTranslations>> types = translations.get(localeCode);
+        types = types == null ? new HashMap<String, Map<String, FieldTranslations>>() 
+                : new HashMap<String, Map<String, FieldTranslations>>(types);
+        Map<String, FieldTranslations> fields = types.get(friendlyType);
+        fields = fields == null ? new HashMap<String, FieldTranslations>() : new HashMap<String, FieldTranslations>(fields);
+        FieldTranslations field = fields.get(fieldName);
+        field = field == null ? FieldTranslations.build(Collections.<String, String>emptyMap()) : field;
+
+        fields.put(fieldName.intern(), field.with(entityId, translatedValue));
+        types.put(friendlyType.intern(), fields);
+        Map<String, Map<String, Map<String, FieldTranslations>>> newTranslations = 
+                new HashMap<String, Map<String, Map<String, FieldTranslations>>>(translations);
+        newTranslations.put(localeCode.intern(), types);
+        return new TranslationTable(entityTypes, newTranslations);
+    }
+
+    protected static <V> Map<String, V> getOrCreate(Map<String, Map<String, V>> map, String key) {
+        Map<String, V> value = map.get(key);
+        if (value == null) {
+            value = new HashMap<String, V>();
+            map.put(key, value);
+        }
+        return value;
+    }
+
+    /**
+     * The translations of one field of one entity type in one locale. Numeric ids, which all out of the box 
+     * translatable entities use, are kept as primitives.
+     */
+    protected static class FieldTranslations {
+
+        protected final long[] ids;
+        protected final String[] values;
+        protected final Map<String, String> otherIds;
+
+        protected FieldTranslations(long[] ids, String[] values, Map<String, String> otherIds) {
+            this.ids = ids;
+            this.values = values;
+            this.otherIds = otherIds;
+        }
+
+        protected static FieldTranslations build(Map<String, String> valuesById) {
+            TreeMap<Long, String> numeric = new TreeMap<Long, String>();
+            Map<String, String> otherIds = new HashMap<String, String>();
+            for (Entry<String, String> entry : valuesById.entrySet()) {
+                long id = parseId(entry.getKey());
+                if (id >= 0) {
+                    numeric.put(id, entry.getValue());
+                } else {
+                    otherIds.put(entry.getKey(), entry.getValue());
+                }
+            }
+            long[] ids = new long[numeric.size()];
+            String[] values = new String[numeric.size()];
+            int i = 0;
+            for (Entry<Long, String> entry : numeric.entrySet()) {
+                ids[i] = entry.getKey();
+                values[i] = entry.getValue();
+                i++;
+            }
+            return new FieldTranslations(ids, values, otherIds.isEmpty() ? Collections.<String, String>emptyMap() : otherIds);
+        }
+
+        protected String get(String entityId) {
+            long id = parseId(entityId);
+            if (id < 0) {
+                return otherIds.get(entityId);
+            }
+            int index = Arrays.binarySearch(ids, id);
+            return index >= 0 ? values[index] : null;
+        }
+
+        protected FieldTranslations with(String entityId, String translatedValue) {
+            Map<String, String> valuesById = new HashMap<String, String>(ids.length + otherIds.size() + 1);
+            for (int i = 0; i < ids.length; i++) {
+                valuesById.put(String.valueOf(ids[i]), values[i]);
+            }
+            valuesById.putAll(otherIds);
+            if (translatedValue == null) {
+                valuesById.remove(entityId);
+            } else {
+                valuesById.put(entityId, translatedValue);
+            }
+            return build(valuesById);
+        }
+
+        /**
+         * @return the id as a long, or -1 if it is not a plain number that survives the round trip through a long
+         */
+        protected static long parseId(String entityId) {
+            if (entityId == null || entityId.length() == 0 || entityId.length() > 18) {
+                return -1;
+            }
+            long id = 0;
+            for (int i = 0; i < entityId.length(); i++) {
+                char c = entityId.charAt(i);
+                if (c < '0' || c > '9' || (c == '0' && i == 0 && entityId.length() > 1)) {
+                    return -1;
+                }
+                id = id * 10 + (c - '0');
+            }
+            return id;
+        }
+
+    }
+
+}
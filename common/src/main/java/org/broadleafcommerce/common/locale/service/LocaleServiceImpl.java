@@ -20,6 +20,7 @@ import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.broadleafcommerce.common.locale.dao.LocaleDao;
 import org.broadleafcommerce.common.locale.domain.Locale;
+import org.broadleafcommerce.common.site.service.SiteResolutionTableService;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -36,6 +37,9 @@ public class LocaleServiceImpl implements LocaleService {
     @Resource(name="blLocaleDao")
     protected LocaleDao localeDao;
 
+    @Resource(name="blSiteResolutionTableService")
+    protected SiteResolutionTableService siteResolutionTableService;
+
     @Override
     public Locale findLocaleByCode(String localeCode) {
         return localeDao.findLocaleByCode(localeCode);
@@ -54,7 +58,9 @@ public class LocaleServiceImpl implements LocaleService {
     @Override
     @Transactional("blTransactionManager")
     public Locale save(Locale locale) {
-        return localeDao.save(locale);
+        Locale response = localeDao.save(locale);
+        siteResolutionTableService.refreshAfterCommit();
+        return response;
     }
     
 }
@@ -20,6 +20,7 @@ import org.broadleafcommerce.common.web.processor.ResourceBundleProcessor;
 import org.broadleafcommerce.common.web.resource.BroadleafResourceHttpRequestHandler;
 import org.springframework.core.io.Resource;
 
+import java.io.File;
 import java.io.IOException;
 import java.util.List;
 
@@ -31,6 +32,9 @@ import java.util.List;
  */
 public interface ResourceBundlingService {
 
+    public static final String GZIP = "gzip";
+    public static final String DEFLATE = "deflate";
+
     /**
      * For the given versioned bundle name, returns a Resource that holds the contents of the combined, and
      * possibly minified (if enabled) bundle.
@@ -40,6 +44,16 @@ public interface ResourceBundlingService {
      */
     public Resource getBundle(String versionedBundleName);
 
+    /**
+     * For the given versioned bundle name, returns the file holding the bundle compressed with the given content
+     * encoding, waiting for the bundle to be built if necessary.
+     * 
+     * @param versionedBundleName
+     * @param contentEncoding {@link #GZIP}, {@link #DEFLATE} or null for the uncompressed bundle
+     * @return the file, or null if there is no copy of the bundle with the given encoding
+     */
+    public File getBundleFile(String versionedBundleName, String contentEncoding);
+
     /**
      * For a given unversioned bundle name, such as "global.js", returns the currently known versioned bundle
      * name, such as "global12345.js".
@@ -20,12 +20,13 @@ import net.sf.ehcache.Cache;
 import net.sf.ehcache.CacheManager;
 import net.sf.ehcache.Element;
 
+import org.apache.commons.codec.digest.DigestUtils;
 import org.apache.commons.lang3.StringUtils;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
-import org.broadleafcommerce.common.resource.GeneratedResource;
 import org.broadleafcommerce.common.web.resource.AbstractGeneratedResourceHandler;
 import org.broadleafcommerce.common.web.resource.BroadleafResourceHttpRequestHandler;
+import org.springframework.beans.factory.DisposableBean;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.core.io.FileSystemResource;
 import org.springframework.core.io.Resource;
@@ -38,25 +39,43 @@ import java.io.File;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
 import java.util.Collection;
 import java.util.HashMap;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.Map.Entry;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.ThreadFactory;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.GZIPOutputStream;
 
 /**
+ * Bundles are named after a hash of their contents, so the name of an unchanged bundle stays the same across restarts 
+ * and servers. The combined and minified bundle, along with gzip and deflate compressed copies of it, is built on a
+ * background thread as soon as the bundle is registered, and written to the bundles directory. A bundle that is 
+ * already in that directory, for instance from before a restart, is not built again.
+ * 
  * @see ResourceBundlingService
  * @author Andre Azzolini (apazzolini)
  */
 @Service("blResourceBundlingService")
-public class ResourceBundlingServiceImpl implements ResourceBundlingService {
+public class ResourceBundlingServiceImpl implements ResourceBundlingService, DisposableBean {
     protected static final Log LOG = LogFactory.getLog(ResourceBundlingServiceImpl.class);
     protected static final String DEFAULT_STORAGE_DIRECTORY = System.getProperty("java.io.tmpdir");
     
     // Map of known versioned bundle names ==> the resources that are part of that bundle
     // ex: "global12345.js" ==> [Resource("/js/BLC.js"), Resource("/js/blc-admin.js")]
-    protected Map<String, Collection<Resource>> bundles = new HashMap<String, Collection<Resource>>();
+    protected Map<String, Collection<Resource>> bundles = new ConcurrentHashMap<String, Collection<Resource>>();
     
     // Map of known bundle names ==> bundle version
     // ex: "global.js" ==> "global12345.js"
@@ -67,6 +86,11 @@ public class ResourceBundlingServiceImpl implements ResourceBundlingService {
     // ex: "global.js" ==> ["classpath:/file1.js", "/js/file2.js"]
     protected Map<String, List<String>> additionalBundleFiles = new HashMap<String, List<String>>();
     
+    // Map of versioned bundle names ==> the build that is writing that bundle to the file system
+    protected final ConcurrentMap<String, Future<File>> bundleBuilds = new ConcurrentHashMap<String, Future<File>>();
+    
+    protected volatile ExecutorService bundleBuilder;
+    
     @Value("${asset.server.file.system.path}")
     protected String assetFileSystemPath;
     
@@ -75,21 +99,20 @@ public class ResourceBundlingServiceImpl implements ResourceBundlingService {
     
     @Override
     public Resource getBundle(String versionedBundleName) {
-        // If we can find this bundle on the file system, we've already generated it
-        // and we don't need to do so again.
-        Resource r = readBundle(versionedBundleName);
-        if (r != null && r.exists()) {
-            return r;
-        }
-        
-        // Otherwise, we'll create the bundle, write it to the file system, and return
-        r = createBundle(versionedBundleName);
-        saveBundle(r);
-        return r;
+        return new FileSystemResource(getBundleFile(versionedBundleName, null));
     }
     
-    protected Resource readBundle(String versionedBundleName) {
-        return new FileSystemResource(getFilePath(versionedBundleName));
+    @Override
+    public File getBundleFile(String versionedBundleName, String contentEncoding) {
+        File file = new File(getFilePath(versionedBundleName));
+        if (!file.exists()) {
+            file = waitForBuild(versionedBundleName);
+        }
+        if (contentEncoding == null) {
+            return file;
+        }
+        File encodedFile = new File(file.getPath() + getEncodingExtension(contentEncoding));
+        return encodedFile.exists() ? encodedFile : null;
     }
     
     protected String getFilePath(String name) {
@@ -98,68 +121,120 @@ public class ResourceBundlingServiceImpl implements ResourceBundlingService {
         return base + "/bundles/" + name;
     }
     
-    protected Resource createBundle(String versionedBundleName) {
+    protected String getEncodingExtension(String contentEncoding) {
+        if (GZIP.equals(contentEncoding)) {
+            return ".gz";
+        } else if (DEFLATE.equals(contentEncoding)) {
+            return ".deflate";
+        }
+        throw new IllegalArgumentException("Unsupported content encoding: " + contentEncoding);
+    }
+    
+    /**
+     * Joins the contents of the given resources, separating them so that each file still compiles on its own
+     */
+    protected byte[] joinResources(String bundleName, Collection<Resource> resources) throws IOException {
         ByteArrayOutputStream baos = new ByteArrayOutputStream();
-        byte[] bytes = null;
-        
-        // Join all of the resources for this bundle together into a byte[]
+        for (Resource r : resources) {
+            InputStream is = r.getInputStream();
+            try {
+                StreamUtils.copy(is, baos);
+            } finally {
+                is.close();
+            }
+            
+            // If we're creating a JavaScript bundle, we'll put a semicolon between each
+            // file to ensure it won't fail to compile.
+            if (bundleName.endsWith(".js")) {
+                baos.write(";\r\n".getBytes());
+            } else {
+                baos.write("\r\n".getBytes());
+            }
+        }
+        return baos.toByteArray();
+    }
+    
+    /**
+     * Starts building the given bundle in the background unless it is already being built
+     */
+    protected void scheduleBuild(String versionedBundleName, byte[] contents) {
+        FutureTask<File> build = newBuild(versionedBundleName, contents);
+        if (bundleBuilds.putIfAbsent(versionedBundleName, build) == null) {
+            getBundleBuilder().execute(build);
+        }
+    }
+    
+    /**
+     * Waits for the build of the given bundle, building it in this thread if no build is running, which is the case 
+     * when the bundle file has been removed since the bundle was registered
+     */
+    protected File waitForBuild(String versionedBundleName) {
         try {
-            for (Resource r : bundles.get(versionedBundleName)) {
-                InputStream is = null;
-                
-                try {
-                    is = r.getInputStream();
-                    StreamUtils.copy(r.getInputStream(), baos);
-                } catch (IOException e) {
-                    throw new RuntimeException(e);
-                } finally {
-                    try {
-                        is.close();
-                    } catch (IOException e2) {
-                        throw new RuntimeException(e2);
-                    }
+            Future<File> build = bundleBuilds.get(versionedBundleName);
+            if (build == null) {
+                Collection<Resource> resources = bundles.get(versionedBundleName);
+                if (resources == null) {
+                    throw new IllegalArgumentException("Unknown bundle: " + versionedBundleName);
                 }
-                
-                // If we're creating a JavaScript bundle, we'll put a semicolon between each
-                // file to ensure it won't fail to compile.
-                if (versionedBundleName.endsWith(".js")) {
-                    baos.write(";\r\n".getBytes());
-                } else {
-                    baos.write("\r\n".getBytes());
+                FutureTask<File> newBuild = newBuild(versionedBundleName, joinResources(versionedBundleName, resources));
+                build = bundleBuilds.putIfAbsent(versionedBundleName, newBuild);
+                if (build == null) {
+                    newBuild.run();
+                    build = newBuild;
                 }
             }
-            bytes = baos.toByteArray();
+            return build.get();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new RuntimeException(e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException(e);
         } catch (IOException e) {
             throw new RuntimeException(e);
-        } finally {
-            try {
-                baos.close();
-            } catch (IOException e2) {
-                throw new RuntimeException(e2);
-            }
         }
-        
-        // Minify the resource
-        byte[] minifiedBytes = minifyService.minify(versionedBundleName, bytes);
-        
-        // Create our GenerateResource that holds our combined and (potentially) minified bundle
-        GeneratedResource r = new GeneratedResource(minifiedBytes, versionedBundleName);
-        return r;
     }
     
-    protected void saveBundle(Resource resource) {
-        File file = new File(getFilePath(resource.getDescription()));
+    protected FutureTask<File> newBuild(final String versionedBundleName, byte[] contents) {
+        return new FutureTask<File>(new BuildBundleTask(versionedBundleName, contents)) {
+            @Override
+            protected void done() {
+                // Once written, the bundle is read from the file system
+                bundleBuilds.remove(versionedBundleName, this);
+            }
+        };
+    }
+    
+    /**
+     * Writes the given bytes to a temporary file next to the target and then renames it, so that a partially written 
+     * file is never served
+     */
+    protected void writeBundleFile(File file, byte[] bytes, String contentEncoding) throws IOException {
         if (!file.getParentFile().exists()) {
-            if (!file.getParentFile().mkdirs()) {
+            if (!file.getParentFile().mkdirs() && !file.getParentFile().exists()) {
                 throw new RuntimeException("Unable to create middle directories for file: " + file.getAbsolutePath());
             }
         }
         
+        File tmpFile = new File(file.getAbsolutePath() + "." + UUID.randomUUID().toString() + ".tmp");
+        OutputStream out = new BufferedOutputStream(new FileOutputStream(tmpFile));
         try {
-            BufferedOutputStream out = new BufferedOutputStream(new FileOutputStream(file));
-            StreamUtils.copy(resource.getInputStream(), out);
-        } catch (IOException e) {
-            throw new RuntimeException(e);
+            if (GZIP.equals(contentEncoding)) {
+                out = new GZIPOutputStream(out);
+            } else if (DEFLATE.equals(contentEncoding)) {
+                out = new DeflaterOutputStream(out, new Deflater(Deflater.BEST_COMPRESSION));
+            }
+            out.write(bytes);
+        } finally {
+            out.close();
+        }
+        if (!tmpFile.renameTo(file)) {
+            tmpFile.delete();
+            if (!file.exists()) {
+                throw new RuntimeException("Unable to rename temp file to create file named: " + file.getAbsolutePath());
+            }
         }
     }
     
@@ -175,7 +250,7 @@ public class ResourceBundlingServiceImpl implements ResourceBundlingService {
     }
     
     @Override
-    public synchronized String registerBundle(String bundleName, List<String> files, 
+    public String registerBundle(String bundleName, List<String> files, 
             BroadleafResourceHttpRequestHandler handler) throws IOException {
         LinkedHashMap<String, Resource> foundResources = new LinkedHashMap<String, Resource>();
         
@@ -217,10 +292,13 @@ public class ResourceBundlingServiceImpl implements ResourceBundlingService {
     		}
         }
         
-        String version = getBundleVersion(foundResources);
-        String versionedName = getBundleName(bundleName, version);
+        byte[] contents = joinResources(bundleName, foundResources.values());
+        String versionedName = getBundleName(bundleName, getBundleVersion(contents));
         
         bundles.put(versionedName, foundResources.values());
+        if (!new File(getFilePath(versionedName)).exists()) {
+            scheduleBuild(versionedName, contents);
+        }
         getBundleVersionsCache().put(new Element(bundleName, versionedName));
         
         return versionedName;
@@ -233,21 +311,11 @@ public class ResourceBundlingServiceImpl implements ResourceBundlingService {
         return versionedName;
     }
     
-    protected String getBundleVersion(LinkedHashMap<String, Resource> foundResources) throws IOException {
-        StringBuilder sb = new StringBuilder();
-        for (Entry<String, Resource> entry : foundResources.entrySet()) {
-            sb.append(entry.getKey());
-            
-            if (entry.getValue() instanceof GeneratedResource) {
-                sb.append(((GeneratedResource) entry.getValue()).getHashRepresentation());
-            } else {
-                sb.append(entry.getValue().lastModified());
-            }
-            
-            sb.append("\r\n");
-        }
-        String version = String.valueOf(sb.toString().hashCode());
-        return version;
+    /**
+     * @return a hash of the bundle's contents, so that the version only changes when the contents do
+     */
+    protected String getBundleVersion(byte[] contents) {
+        return DigestUtils.md5Hex(contents);
     }
     
     @Override
@@ -263,11 +331,69 @@ public class ResourceBundlingServiceImpl implements ResourceBundlingService {
         this.additionalBundleFiles = additionalBundleFiles;
     }
     
+    protected ExecutorService getBundleBuilder() {
+        if (bundleBuilder == null) {
+            synchronized (this) {
+                if (bundleBuilder == null) {
+                    bundleBuilder = Executors.newSingleThreadExecutor(new ThreadFactory() {
+                        @Override
+                        public Thread newThread(Runnable runnable) {
+                            Thread thread = new Thread(runnable, "bl-resource-bundle-builder");
+                            thread.setDaemon(true);
+                            return thread;
+                        }
+                    });
+                }
+            }
+        }
+        return bundleBuilder;
+    }
+    
+    @Override
+    public void destroy() throws Exception {
+        if (bundleBuilder != null) {
+            bundleBuilder.shutdownNow();
+        }
+    }
+    
     protected Cache getBundleVersionsCache() {
         if (bundleVersionsCache == null) {
             bundleVersionsCache = CacheManager.getInstance().getCache("blBundleElements");
         }
         return bundleVersionsCache;
     }
+    
+    /**
+     * Minifies the bundle and writes it, along with its compressed copies, to the file system. The uncompressed file
+     * is written last, as its presence marks the bundle as complete.
+     */
+    protected class BuildBundleTask implements Callable<File> {
+        
+        protected final String versionedBundleName;
+        protected final byte[] contents;
+        
+        public BuildBundleTask(String versionedBundleName, byte[] contents) {
+            this.versionedBundleName = versionedBundleName;
+            this.contents = contents;
+        }
+        
+        @Override
+        public File call() throws Exception {
+            File file = new File(getFilePath(versionedBundleName));
+            if (file.exists()) {
+                return file;
+            }
+            long start = System.currentTimeMillis();
+            byte[] minifiedBytes = minifyService.minify(versionedBundleName, contents);
+            writeBundleFile(new File(file.getPath() + getEncodingExtension(GZIP)), minifiedBytes, GZIP);
+            writeBundleFile(new File(file.getPath() + getEncodingExtension(DEFLATE)), minifiedBytes, DEFLATE);
+            writeBundleFile(file, minifiedBytes, null);
+            if (LOG.isDebugEnabled()) {
+                LOG.debug("Built bundle " + versionedBundleName + " in " + (System.currentTimeMillis() - start) + "ms");
+            }
+            return file;
+        }
+        
+    }
 
 }
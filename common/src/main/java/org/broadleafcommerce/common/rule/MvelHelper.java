@@ -18,9 +18,13 @@ package org.broadleafcommerce.common.rule;
 
 import org.broadleafcommerce.common.presentation.client.SupportedFieldType;
 import org.broadleafcommerce.common.util.FormatUtil;
+import org.mvel2.MVEL;
 
 import java.math.BigDecimal;
 import java.text.ParseException;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
 
 /**
  * Helper class for some common rule functions that can be called from mvel. An instance of this class
@@ -30,6 +34,17 @@ import java.text.ParseException;
  */
 public class MvelHelper {
 
+    /**
+     * The parser context imports available to every rule: MVEL itself and this helper
+     */
+    public static final Map<String, Class<?>> DEFAULT_IMPORTS;
+    static {
+        Map<String, Class<?>> imports = new HashMap<String, Class<?>>();
+        imports.put("MVEL", MVEL.class);
+        imports.put("MvelHelper", MvelHelper.class);
+        DEFAULT_IMPORTS = Collections.unmodifiableMap(imports);
+    }
+
     public static Object convertField(String type, String fieldValue) {
         if (fieldValue == null) {
             return null;
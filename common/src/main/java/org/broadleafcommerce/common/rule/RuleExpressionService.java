@@ -0,0 +1,67 @@
+/*
+ * Copyright 2008-2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.broadleafcommerce.common.rule;
+
+import java.io.Serializable;
+import java.util.Collection;
+import java.util.Map;
+
+/**
+ * Compiles MVEL rule expressions and keeps the compiled form in a single cache that is shared by every rule 
+ * processor (offers, pages, structured content, ...). Lookups do not take a global lock, so rule evaluation on 
+ * different request threads does not contend on the cache.
+ * 
+ * A compiled expression depends on the imports that were available to the parser, so expressions are cached per 
+ * combination of expression and imports.
+ */
+public interface RuleExpressionService {
+
+    /**
+     * Returns the compiled form of the given expression, compiling and caching it on the first request.
+     * 
+     * @param expression the MVEL expression
+     * @param imports the classes to import into the parser context, keyed by the name used in the expression
+     * @return the compiled expression
+     * @throws org.mvel2.CompileException if the expression is not valid
+     */
+    public Serializable getCompiledExpression(String expression, Map<String, Class<?>> imports);
+
+    /**
+     * Executes the given expression, using the cached compiled form if available.
+     * 
+     * @param expression the MVEL expression
+     * @param imports the classes to import into the parser context, keyed by the name used in the expression
+     * @param vars the variables available to the expression
+     * @return the result of the expression
+     */
+    public Object executeExpression(String expression, Map<String, Class<?>> imports, Map<String, Object> vars);
+
+    /**
+     * Compiles and caches the given expressions ahead of their first use. Blank expressions are ignored, and 
+     * expressions that fail to compile are logged and skipped.
+     * 
+     * @param expressions
+     * @param imports
+     * @return the number of expressions that were compiled
+     */
+    public int warmExpressions(Collection<String> expressions, Map<String, Class<?>> imports);
+
+    /**
+     * Removes every compiled expression from the cache
+     */
+    public void clearCache();
+
+}
@@ -0,0 +1,213 @@
+/*
+ * Copyright 2008-2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.broadleafcommerce.common.rule;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+import com.google.common.cache.Weigher;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+
+import org.apache.commons.lang.StringUtils;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.mvel2.MVEL;
+import org.mvel2.ParserContext;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jmx.export.annotation.ManagedAttribute;
+import org.springframework.jmx.export.annotation.ManagedOperation;
+import org.springframework.jmx.export.annotation.ManagedResource;
+import org.springframework.stereotype.Service;
+
+import java.io.Serializable;
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * The cache is bounded by the total length of the cached expressions rather than by the number of entries, as the 
+ * size of a compiled expression grows with its source. Hit, miss and compile time statistics are available over JMX.
+ */
+@Service("blRuleExpressionService")
+@ManagedResource(objectName="org.broadleafcommerce:name=RuleExpressionService", description="Rule Expression Cache", currencyTimeLimit=15)
+public class RuleExpressionServiceImpl implements RuleExpressionService {
+
+    private static final Log LOG = LogFactory.getLog(RuleExpressionServiceImpl.class);
+
+    @Value("${rule.expression.cache.maximumWeight}")
+    protected long maximumWeight = 1000000;
+
+    protected volatile Cache<RuleExpressionKey, Serializable> expressionCache;
+
+    @Override
+    public Serializable getCompiledExpression(final String expression, final Map<String, Class<?>> imports) {
+        try {
+            return getExpressionCache().get(new RuleExpressionKey(expression, imports), new Callable<Serializable>() {
+                @Override
+                public Serializable call() {
+                    return compileExpression(expression, imports);
+                }
+            });
+        } catch (UncheckedExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw e;
+        } catch (ExecutionException e) {
+            throw new RuntimeException(e.getCause());
+        }
+    }
+
+    @Override
+    public Object executeExpression(String expression, Map<String, Class<?>> imports, Map<String, Object> vars) {
+        return MVEL.executeExpression(getCompiledExpression(expression, imports), vars);
+    }
+
+    @Override
+    public int warmExpressions(Collection<String> expressions, Map<String, Class<?>> imports) {
+        int compiled = 0;
+        for (String expression : expressions) {
+            if (StringUtils.isBlank(expression)) {
+                continue;
+            }
+            try {
+                getCompiledExpression(expression, imports);
+                compiled++;
+            } catch (RuntimeException e) {
+                LOG.warn("Unable to compile the rule expression: " + expression, e);
+            }
+        }
+        return compiled;
+    }
+
+    @Override
+    @ManagedOperation(description="Removes every compiled expression from the cache")
+    public void clearCache() {
+        getExpressionCache().invalidateAll();
+    }
+
+    /**
+     * Compiles the expression with a parser context that imports the given classes. Having a parser context that 
+     * imports the classes speeds MVEL by up to 60%. The parser context is not thread safe, so a new one is created 
+     * for each compilation.
+     */
+    protected Serializable compileExpression(String expression, Map<String, Class<?>> imports) {
+        ParserContext context = new ParserContext();
+        if (imports != null) {
+            for (Map.Entry<String, Class<?>> entry : imports.entrySet()) {
+                context.addImport(entry.getKey(), entry.getValue());
+            }
+        }
+        return MVEL.compileExpression(expression, context);
+    }
+
+    protected Cache<RuleExpressionKey, Serializable> getExpressionCache() {
+        Cache<RuleExpressionKey, Serializable> cache = expressionCache;
+        if (cache == null) {
+            synchronized (this) {
+                cache = expressionCache;
+                if (cache == null) {
+                    cache = CacheBuilder.newBuilder()
+                            .maximumWeight(maximumWeight)
+                            .weigher(new Weigher<RuleExpressionKey, Serializable>() {
+                                @Override
+                                public int weigh(RuleExpressionKey key, Serializable value) {
+                                    return key.getExpression().length();
+                                }
+                            })
+                            .recordStats()
+                            .build();
+                    expressionCache = cache;
+                }
+            }
+        }
+        return cache;
+    }
+
+    @ManagedAttribute(description="The number of compiled expressions in the cache", currencyTimeLimit=15)
+    public long getCacheSize() {
+        return getExpressionCache().size();
+    }
+
+    @ManagedAttribute(description="The number of lookups that found a compiled expression", currencyTimeLimit=15)
+    public long getHitCount() {
+        return getCacheStats().hitCount();
+    }
+
+    @ManagedAttribute(description="The number of lookups that had to compile the expression", currencyTimeLimit=15)
+    public long getMissCount() {
+        return getCacheStats().missCount();
+    }
+
+    @ManagedAttribute(description="The ratio of lookups that found a compiled expression", currencyTimeLimit=15)
+    public double getHitRate() {
+        return getCacheStats().hitRate();
+    }
+
+    @ManagedAttribute(description="The number of expressions that failed to compile", currencyTimeLimit=15)
+    public long getCompileFailureCount() {
+        return getCacheStats().loadExceptionCount();
+    }
+
+    @ManagedAttribute(description="The average time in milliseconds spent compiling an expression", currencyTimeLimit=15)
+    public double getAverageCompileTime() {
+        return getCacheStats().averageLoadPenalty() / 1000000D;
+    }
+
+    @ManagedAttribute(description="The number of compiled expressions evicted to stay within the maximum weight", currencyTimeLimit=15)
+    public long getEvictionCount() {
+        return getCacheStats().evictionCount();
+    }
+
+    protected CacheStats getCacheStats() {
+        return getExpressionCache().stats();
+    }
+
+    /**
+     * Cache key made of the expression and the imports used to compile it
+     */
+    protected static class RuleExpressionKey {
+
+        protected final String expression;
+        protected final Map<String, Class<?>> imports;
+
+        public RuleExpressionKey(String expression, Map<String, Class<?>> imports) {
+            this.expression = expression;
+            this.imports = imports;
+        }
+
+        public String getExpression() {
+            return expression;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof RuleExpressionKey)) return false;
+            RuleExpressionKey that = (RuleExpressionKey) o;
+            if (!expression.equals(that.expression)) return false;
+            if (imports == that.imports) return true;
+            return imports != null ? imports.equals(that.imports) : that.imports == null;
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * expression.hashCode() + (imports != null ? imports.hashCode() : 0);
+        }
+    }
+
+}
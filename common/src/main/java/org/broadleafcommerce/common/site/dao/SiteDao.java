@@ -56,4 +56,9 @@ public interface SiteDao {
      * @return a List of all sites in the system
      */
     public List<Site> readAllActiveSites();
+
+    /**
+     * @return a List of all sites in the system, including deactivated and archived ones
+     */
+    public List<Site> readAllSites();
 }
\ No newline at end of file
@@ -69,6 +69,19 @@ public class SiteDaoImpl implements SiteDao {
         return query.getResultList();
     }
 
+    @Override
+    public List<Site> readAllSites() {
+        CriteriaBuilder builder = em.getCriteriaBuilder();
+        CriteriaQuery<Site> criteria = builder.createQuery(Site.class);
+        Root<SiteImpl> site = criteria.from(SiteImpl.class);
+        criteria.select(site);
+
+        TypedQuery<Site> query = em.createQuery(criteria);
+        query.setHint(QueryHints.HINT_CACHEABLE, true);
+
+        return query.getResultList();
+    }
+
     @Override
     public Site retrieveSiteByDomainOrDomainPrefix(String domain, String domainPrefix) {
         if (domain == null) {
@@ -0,0 +1,132 @@
+/*
+ * Copyright 2008-2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.broadleafcommerce.common.site.service;
+
+import org.broadleafcommerce.common.currency.domain.BroadleafCurrency;
+import org.broadleafcommerce.common.locale.domain.Locale;
+import org.broadleafcommerce.common.site.domain.Site;
+import org.broadleafcommerce.common.site.service.type.SiteResolutionType;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * An immutable snapshot of everything needed to set up the request context: the sites keyed by domain and by domain 
+ * prefix, and the locales and currencies keyed by code. A table is built once, from detached copies of the entities,
+ * and replaced as a whole when it is refreshed, so resolving a request never needs the database.
+ * 
+ * @see SiteResolutionTableService
+ */
+public class SiteResolutionTable {
+
+    protected final Map<String, Site> sitesByDomain;
+    protected final Map<String, Site> sitesByDomainPrefix;
+    protected final Map<String, Locale> localesByCode;
+    protected final Locale defaultLocale;
+    protected final Map<String, BroadleafCurrency> currenciesByCode;
+    protected final BroadleafCurrency defaultCurrency;
+    protected final long createdTime = System.currentTimeMillis();
+
+    /**
+     * @param sites the managed sites. Each is resolved to its {@link Site#clone()}.
+     */
+    public SiteResolutionTable(List<Site> sites, List<Locale> locales, Locale defaultLocale,
+            List<BroadleafCurrency> currencies, BroadleafCurrency defaultCurrency) {
+        Map<String, Site> sitesByDomain = new HashMap<String, Site>();
+        Map<String, Site> sitesByDomainPrefix = new HashMap<String, Site>();
+        for (Site site : sites) {
+            String identifier = site.getSiteIdentifierValue();
+            if (identifier == null) {
+                continue;
+            }
+            if (SiteResolutionType.DOMAIN.equals(site.getSiteResolutionType()) && !sitesByDomain.containsKey(identifier)) {
+                sitesByDomain.put(identifier, site.clone());
+            } else if (SiteResolutionType.DOMAIN_PREFIX.equals(site.getSiteResolutionType()) 
+                    && !sitesByDomainPrefix.containsKey(identifier)) {
+                sitesByDomainPrefix.put(identifier, site.clone());
+            }
+        }
+        this.sitesByDomain = Collections.unmodifiableMap(sitesByDomain);
+        this.sitesByDomainPrefix = Collections.unmodifiableMap(sitesByDomainPrefix);
+
+        Map<String, Locale> localesByCode = new HashMap<String, Locale>();
+        for (Locale locale : locales) {
+            if (!localesByCode.containsKey(locale.getLocaleCode())) {
+                localesByCode.put(locale.getLocaleCode(), locale);
+            }
+        }
+        this.localesByCode = Collections.unmodifiableMap(localesByCode);
+        this.defaultLocale = defaultLocale;
+
+        Map<String, BroadleafCurrency> currenciesByCode = new HashMap<String, BroadleafCurrency>();
+        for (BroadleafCurrency currency : currencies) {
+            if (!currenciesByCode.containsKey(currency.getCurrencyCode())) {
+                currenciesByCode.put(currency.getCurrencyCode(), currency);
+            }
+        }
+        this.currenciesByCode = Collections.unmodifiableMap(currenciesByCode);
+        this.defaultCurrency = defaultCurrency;
+    }
+
+    /**
+     * Finds the site for a domain name, preferring a site registered for the full domain over one registered for its
+     * prefix (the part before the first ".")
+     * 
+     * @return the site, or null if no site matches the domain
+     */
+    public Site findSiteByDomainName(String domainName) {
+        if (domainName == null) {
+            return null;
+        }
+        Site site = sitesByDomain.get(domainName);
+        if (site == null) {
+            site = sitesByDomainPrefix.get(getDomainPrefix(domainName));
+        }
+        return site;
+    }
+
+    public Locale findLocaleByCode(String localeCode) {
+        return localesByCode.get(localeCode);
+    }
+
+    public Locale getDefaultLocale() {
+        return defaultLocale;
+    }
+
+    public BroadleafCurrency findCurrencyByCode(String currencyCode) {
+        return currenciesByCode.get(currencyCode);
+    }
+
+    public BroadleafCurrency getDefaultCurrency() {
+        return defaultCurrency;
+    }
+
+    public long getCreatedTime() {
+        return createdTime;
+    }
+
+    public int getSiteCount() {
+        return sitesByDomain.size() + sitesByDomainPrefix.size();
+    }
+
+    public static String getDomainPrefix(String domainName) {
+        int pos = domainName.indexOf('.');
+        return pos >= 0 ? domainName.substring(0, pos) : domainName;
+    }
+
+}
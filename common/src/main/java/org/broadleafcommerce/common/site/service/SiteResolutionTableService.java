@@ -0,0 +1,42 @@
+/*
+ * Copyright 2008-2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.broadleafcommerce.common.site.service;
+
+/**
+ * Maintains the {@link SiteResolutionTable} used to resolve the site, locale and currency of each request. The table
+ * is built when the application starts, rebuilt after sites, locales or currencies are saved through their services,
+ * and rebuilt every <code>site.resolution.table.refresh.interval</code> milliseconds to pick up changes made
+ * elsewhere, such as in the admin.
+ */
+public interface SiteResolutionTableService {
+
+    /**
+     * @return the current table, building it first if it has not been built yet. Returns null only if the table 
+     * could not be built, in which case callers should fall back to their services.
+     */
+    public SiteResolutionTable getTable();
+
+    /**
+     * Builds a new table and swaps it in for the current one
+     */
+    public void refresh();
+
+    /**
+     * Refreshes the table once the current transaction has committed, or immediately if there is no transaction
+     */
+    public void refreshAfterCommit();
+
+}
@@ -0,0 +1,150 @@
+/*
+ * Copyright 2008-2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.broadleafcommerce.common.site.service;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.broadleafcommerce.common.currency.service.BroadleafCurrencyService;
+import org.broadleafcommerce.common.locale.service.LocaleService;
+import org.broadleafcommerce.common.site.dao.SiteDao;
+import org.springframework.context.ApplicationListener;
+import org.springframework.context.event.ContextRefreshedEvent;
+import org.springframework.jmx.export.annotation.ManagedAttribute;
+import org.springframework.jmx.export.annotation.ManagedOperation;
+import org.springframework.jmx.export.annotation.ManagedResource;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.DefaultTransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.annotation.Resource;
+
+@Service("blSiteResolutionTableService")
+@ManagedResource(objectName="org.broadleafcommerce:name=SiteResolutionTableService", description="Site Resolution Table Service", currencyTimeLimit=15)
+public class SiteResolutionTableServiceImpl implements SiteResolutionTableService, ApplicationListener<ContextRefreshedEvent> {
+
+    private static final Log LOG = LogFactory.getLog(SiteResolutionTableServiceImpl.class);
+
+    @Resource(name = "blSiteDao")
+    protected SiteDao siteDao;
+
+    @Resource(name = "blLocaleService")
+    protected LocaleService localeService;
+
+    @Resource(name = "blCurrencyService")
+    protected BroadleafCurrencyService currencyService;
+
+    @Resource(name = "blTransactionManager")
+    protected PlatformTransactionManager transactionManager;
+
+    protected volatile SiteResolutionTable table;
+    protected volatile boolean buildAttempted = false;
+
+    @Override
+    public void onApplicationEvent(ContextRefreshedEvent event) {
+        if (table == null) {
+            refreshQuietly();
+        }
+    }
+
+    @Override
+    public SiteResolutionTable getTable() {
+        SiteResolutionTable current = table;
+        if (current == null && !buildAttempted) {
+            // Only the first request tries to build a missing table; after that, it is left to the scheduled refresh
+            synchronized (this) {
+                if (table == null && !buildAttempted) {
+                    refreshQuietly();
+                }
+                current = table;
+            }
+        }
+        return current;
+    }
+
+    @Override
+    @ManagedOperation(description="Rebuild the site resolution table")
+    public void refresh() {
+        TransactionStatus status = transactionManager.getTransaction(getTransactionDefinition());
+        try {
+            SiteResolutionTable newTable = new SiteResolutionTable(siteDao.readAllSites(), localeService.findAllLocales(),
+                    localeService.findDefaultLocale(), currencyService.getAllCurrencies(),
+                    currencyService.findDefaultBroadleafCurrency());
+            transactionManager.commit(status);
+            table = newTable;
+        } catch (RuntimeException e) {
+            transactionManager.rollback(status);
+            throw e;
+        }
+        if (LOG.isDebugEnabled()) {
+            LOG.debug("Rebuilt the site resolution table with " + table.getSiteCount() + " sites");
+        }
+    }
+
+    @Override
+    public void refreshAfterCommit() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+                @Override
+                public void afterCommit() {
+                    refreshQuietly();
+                }
+            });
+        } else {
+            refreshQuietly();
+        }
+    }
+
+    /**
+     * Rebuilds the table periodically to pick up changes that were not saved through this application's services
+     */
+    @Scheduled(fixedDelayString = "${site.resolution.table.refresh.interval}")
+    public void refreshScheduled() {
+        refreshQuietly();
+    }
+
+    /**
+     * Refreshes the table, keeping the current one if that fails
+     */
+    protected void refreshQuietly() {
+        buildAttempted = true;
+        try {
+            refresh();
+        } catch (RuntimeException e) {
+            LOG.error("Unable to build the site resolution table. " + (table == null ? 
+                    "Sites, locales and currencies will be read from the database." : "Keeping the current table."), e);
+        }
+    }
+
+    protected DefaultTransactionDefinition getTransactionDefinition() {
+        DefaultTransactionDefinition def = new DefaultTransactionDefinition();
+        def.setName("buildSiteResolutionTable");
+        def.setReadOnly(true);
+        def.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        return def;
+    }
+
+    @ManagedAttribute(description="The age of the site resolution table in milliseconds", currencyTimeLimit=15)
+    public Long getTableAge() {
+        SiteResolutionTable current = table;
+        return current == null ? null : System.currentTimeMillis() - current.getCreatedTime();
+    }
+
+}
@@ -19,7 +19,10 @@ package org.broadleafcommerce.common.site.service;
 import org.broadleafcommerce.common.site.dao.SiteDao;
 import org.broadleafcommerce.common.site.domain.Site;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionStatus;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.DefaultTransactionDefinition;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -32,6 +35,12 @@ public class SiteServiceImpl implements SiteService {
     @Resource(name = "blSiteDao")
     protected SiteDao siteDao;
 
+    @Resource(name = "blSiteResolutionTableService")
+    protected SiteResolutionTableService siteResolutionTableService;
+
+    @Resource(name = "blTransactionManager")
+    protected PlatformTransactionManager transactionManager;
+
     @Override
     public Site retrieveSiteById(Long id) {
         Site response = siteDao.retrieve(id);
@@ -42,31 +51,45 @@ public class SiteServiceImpl implements SiteService {
         return response;
     }
 
+    /**
+     * Resolves the site from the {@link SiteResolutionTable}, without a transaction or a query, and returns a clone of
+     * it, so that callers may modify the site as before. Only if the table could not be built is the site read from 
+     * the database.
+     */
     @Override
-    @Transactional(value = "blTransactionManager", readOnly = true)
     public Site retrieveSiteByDomainName(String domainName) {
-        String domainPrefix = null;
-        if (domainName != null) {
-            int pos = domainName.indexOf('.');
-            if (pos >= 0) {
-                domainPrefix = domainName.substring(0, pos);
-            } else {
-                domainPrefix = domainName;
-            }
+        SiteResolutionTable table = siteResolutionTableService.getTable();
+        if (table != null) {
+            Site response = table.findSiteByDomainName(domainName);
+            return response == null ? null : response.clone();
         }
 
-        Site response = siteDao.retrieveSiteByDomainOrDomainPrefix(domainName, domainPrefix);
-        if (response != null) {
-            response = response.clone();
+        DefaultTransactionDefinition definition = new DefaultTransactionDefinition();
+        definition.setName("retrieveSiteByDomainName");
+        definition.setReadOnly(true);
+        TransactionStatus status = transactionManager.getTransaction(definition);
+        try {
+            Site response = null;
+            if (domainName != null) {
+                response = siteDao.retrieveSiteByDomainOrDomainPrefix(domainName, SiteResolutionTable.getDomainPrefix(domainName));
+            }
+            if (response != null) {
+                response = response.clone();
+            }
+            transactionManager.commit(status);
+            return response;
+        } catch (RuntimeException e) {
+            transactionManager.rollback(status);
+            throw e;
         }
-
-        return response;
     }
 
     @Override
     @Transactional("blTransactionManager")
     public Site save(Site site) {
-        return siteDao.save(site).clone();
+        Site response = siteDao.save(site).clone();
+        siteResolutionTableService.refreshAfterCommit();
+        return response;
     }
 
     @Override
@@ -16,7 +16,6 @@
 
 package org.broadleafcommerce.common.util.dao;
 
-import org.apache.commons.collections.map.LRUMap;
 import org.apache.commons.lang3.ArrayUtils;
 import org.broadleafcommerce.common.presentation.AdminPresentationClass;
 import org.hibernate.SessionFactory;
@@ -31,25 +30,27 @@ import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 
 public class DynamicDaoHelperImpl implements DynamicDaoHelper {
     
     public static final Object LOCK_OBJECT = new Object();
-    public static final Map<Class<?>, Class<?>[]> POLYMORPHIC_ENTITY_CACHE = new LRUMap(100, 1000);
-    public static final Map<Class<?>, Class<?>[]> POLYMORPHIC_ENTITY_CACHE_WO_EXCLUSIONS = new LRUMap(100, 1000);
+    public static final Map<Class<?>, Class<?>[]> POLYMORPHIC_ENTITY_CACHE = new ConcurrentHashMap<Class<?>, Class<?>[]>();
+    public static final Map<Class<?>, Class<?>[]> POLYMORPHIC_ENTITY_CACHE_WO_EXCLUSIONS = new ConcurrentHashMap<Class<?>, Class<?>[]>();
     
     @Override
     public Class<?>[] getAllPolymorphicEntitiesFromCeiling(Class<?> ceilingClass, SessionFactory sessionFactory,
             boolean includeUnqualifiedPolymorphicEntities, boolean useCache) {
-        Class<?>[] cache = null;
+        Map<Class<?>, Class<?>[]> entityCache = includeUnqualifiedPolymorphicEntities ? POLYMORPHIC_ENTITY_CACHE 
+                : POLYMORPHIC_ENTITY_CACHE_WO_EXCLUSIONS;
+        Class<?>[] cache = useCache ? entityCache.get(ceilingClass) : null;
+        if (cache != null) {
+            return cache;
+        }
         synchronized(LOCK_OBJECT) {
             if (useCache) {
-                if (includeUnqualifiedPolymorphicEntities) {
-                    cache = POLYMORPHIC_ENTITY_CACHE.get(ceilingClass);
-                } else {
-                    cache = POLYMORPHIC_ENTITY_CACHE_WO_EXCLUSIONS.get(ceilingClass);
-                }
+                cache = entityCache.get(ceilingClass);
             }
             if (cache == null) {
                 List<Class<?>> entities = new ArrayList<Class<?>>();
@@ -80,11 +81,7 @@ public class DynamicDaoHelperImpl implements DynamicDaoHelper {
                 Class<?>[] filteredEntities = new Class<?>[filteredSortedEntities.size()];
                 filteredEntities = filteredSortedEntities.toArray(filteredEntities);
                 cache = filteredEntities;
-                if (includeUnqualifiedPolymorphicEntities) {
-                    POLYMORPHIC_ENTITY_CACHE.put(ceilingClass, filteredEntities);
-                } else {
-                    POLYMORPHIC_ENTITY_CACHE_WO_EXCLUSIONS.put(ceilingClass, filteredEntities);
-                }
+                entityCache.put(ceilingClass, filteredEntities);
             }
         }
 
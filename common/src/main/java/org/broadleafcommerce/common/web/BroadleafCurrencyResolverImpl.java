@@ -21,6 +21,8 @@ import org.apache.commons.logging.LogFactory;
 import org.broadleafcommerce.common.currency.domain.BroadleafCurrency;
 import org.broadleafcommerce.common.currency.service.BroadleafCurrencyService;
 import org.broadleafcommerce.common.locale.domain.Locale;
+import org.broadleafcommerce.common.site.service.SiteResolutionTable;
+import org.broadleafcommerce.common.site.service.SiteResolutionTableService;
 import org.broadleafcommerce.common.util.BLCRequestUtils;
 import org.springframework.stereotype.Component;
 import org.springframework.web.context.request.ServletWebRequest;
@@ -55,6 +57,9 @@ public class BroadleafCurrencyResolverImpl implements BroadleafCurrencyResolver
     @Resource(name = "blCurrencyService")
     private BroadleafCurrencyService broadleafCurrencyService;
 
+    @Resource(name = "blSiteResolutionTableService")
+    protected SiteResolutionTableService siteResolutionTableService;
+
     /**
      * Responsible for returning the currency to use for the current request.
      */
@@ -73,7 +78,7 @@ public class BroadleafCurrencyResolverImpl implements BroadleafCurrencyResolver
         // 2) Check for a request parameter
         if (currency == null && BLCRequestUtils.getURLorHeaderParameter(request, CURRENCY_CODE_PARAM) != null) {
             String currencyCode = BLCRequestUtils.getURLorHeaderParameter(request, CURRENCY_CODE_PARAM);
-            currency = broadleafCurrencyService.findCurrencyByCode(currencyCode);
+            currency = findCurrencyByCode(currencyCode);
             if (LOG.isTraceEnabled()) {
                 LOG.trace("Attempt to find currency by param " + currencyCode + " resulted in " + currency);
             }
@@ -94,7 +99,7 @@ public class BroadleafCurrencyResolverImpl implements BroadleafCurrencyResolver
 
         // 5) Check default currency from DB
         if (currency == null) {
-            currency = broadleafCurrencyService.findDefaultBroadleafCurrency();
+            currency = findDefaultCurrency();
         }
 
         if (BLCRequestUtils.isOKtoUseSession(request)) {
@@ -103,6 +108,16 @@ public class BroadleafCurrencyResolverImpl implements BroadleafCurrencyResolver
         return currency;
     }
 
+    protected BroadleafCurrency findCurrencyByCode(String currencyCode) {
+        SiteResolutionTable table = siteResolutionTableService.getTable();
+        BroadleafCurrency currency = table == null ? null : table.findCurrencyByCode(currencyCode);
+        // A currency added since the table was built is read from the database until the next refresh
+        return currency != null ? currency : broadleafCurrencyService.findCurrencyByCode(currencyCode);
+    }
 
+    protected BroadleafCurrency findDefaultCurrency() {
+        SiteResolutionTable table = siteResolutionTableService.getTable();
+        return table != null ? table.getDefaultCurrency() : broadleafCurrencyService.findDefaultBroadleafCurrency();
+    }
 
 }
@@ -20,6 +20,8 @@ import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.broadleafcommerce.common.locale.domain.Locale;
 import org.broadleafcommerce.common.locale.service.LocaleService;
+import org.broadleafcommerce.common.site.service.SiteResolutionTable;
+import org.broadleafcommerce.common.site.service.SiteResolutionTableService;
 import org.broadleafcommerce.common.util.BLCRequestUtils;
 import org.springframework.stereotype.Component;
 import org.springframework.web.context.request.ServletWebRequest;
@@ -56,6 +58,9 @@ public class BroadleafLocaleResolverImpl implements BroadleafLocaleResolver {
     @Resource(name = "blLocaleService")
     private LocaleService localeService;
 
+    @Resource(name = "blSiteResolutionTableService")
+    protected SiteResolutionTableService siteResolutionTableService;
+
     @Override
     public Locale resolveLocale(HttpServletRequest request) {
         return resolveLocale(new ServletWebRequest(request));
@@ -71,7 +76,7 @@ public class BroadleafLocaleResolverImpl implements BroadleafLocaleResolver {
         // Second, check for a request parameter
         if (locale == null && BLCRequestUtils.getURLorHeaderParameter(request, LOCALE_CODE_PARAM) != null) {
             String localeCode = BLCRequestUtils.getURLorHeaderParameter(request, LOCALE_CODE_PARAM);
-            locale = localeService.findLocaleByCode(localeCode);
+            locale = findLocaleByCode(localeCode);
             if (BLCRequestUtils.isOKtoUseSession(request)) {
                 request.removeAttribute(BroadleafCurrencyResolverImpl.CURRENCY_VAR, WebRequest.SCOPE_GLOBAL_SESSION);
             }
@@ -95,7 +100,7 @@ public class BroadleafLocaleResolverImpl implements BroadleafLocaleResolver {
 
         // Finally, use the default
         if (locale == null) {
-            locale = localeService.findDefaultLocale();
+            locale = findDefaultLocale();
             if (BLCRequestUtils.isOKtoUseSession(request)) {
                 request.removeAttribute(BroadleafCurrencyResolverImpl.CURRENCY_VAR, WebRequest.SCOPE_GLOBAL_SESSION);
             }
@@ -109,4 +114,16 @@ public class BroadleafLocaleResolverImpl implements BroadleafLocaleResolver {
         }
         return locale;
     }
+
+    protected Locale findLocaleByCode(String localeCode) {
+        SiteResolutionTable table = siteResolutionTableService.getTable();
+        Locale locale = table == null ? null : table.findLocaleByCode(localeCode);
+        // A locale added since the table was built is read from the database until the next refresh
+        return locale != null ? locale : localeService.findLocaleByCode(localeCode);
+    }
+
+    protected Locale findDefaultLocale() {
+        SiteResolutionTable table = siteResolutionTableService.getTable();
+        return table != null ? table.getDefaultLocale() : localeService.findDefaultLocale();
+    }
 }
@@ -24,10 +24,18 @@ import org.springframework.core.io.Resource;
 import org.springframework.web.servlet.HandlerMapping;
 import org.springframework.web.servlet.resource.ResourceHttpRequestHandler;
 
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
 import java.util.ArrayList;
 import java.util.List;
 
+import javax.servlet.ServletException;
 import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
 
 
 public class BroadleafResourceHttpRequestHandler extends ResourceHttpRequestHandler {
@@ -39,6 +47,119 @@ public class BroadleafResourceHttpRequestHandler extends ResourceHttpRequestHand
     @javax.annotation.Resource(name = "blResourceBundlingService")
     protected ResourceBundlingService bundlingService;
     
+    /**
+     * Serves bundles straight from their prebuilt files, choosing the compressed copy that the client accepts. All 
+     * other requests are handled as before.
+     */
+    @Override
+    public void handleRequest(HttpServletRequest request, HttpServletResponse response) throws ServletException, IOException {
+        String path = (String) request.getAttribute(HandlerMapping.PATH_WITHIN_HANDLER_MAPPING_ATTRIBUTE);
+        if (path != null && bundlingService.hasBundle(path)) {
+            handleBundleRequest(path, request, response);
+        } else {
+            super.handleRequest(request, response);
+        }
+    }
+    
+    protected void handleBundleRequest(String path, HttpServletRequest request, HttpServletResponse response) 
+            throws ServletException, IOException {
+        checkAndPrepare(request, response, true);
+        
+        String contentEncoding = null;
+        File file = null;
+        String acceptEncoding = request.getHeader("Accept-Encoding");
+        for (String encoding : new String[] { ResourceBundlingService.GZIP, ResourceBundlingService.DEFLATE }) {
+            if (isEncodingAccepted(acceptEncoding, encoding)) {
+                file = bundlingService.getBundleFile(path, encoding);
+                if (file != null) {
+                    contentEncoding = encoding;
+                    break;
+                }
+            }
+        }
+        if (file == null) {
+            file = bundlingService.getBundleFile(path, null);
+        }
+        
+        // The bundle name changes with its contents, so the name identifies the bytes served for each encoding
+        String etag = "\"" + path + (contentEncoding == null ? "" : "-" + contentEncoding) + "\"";
+        response.setHeader("ETag", etag);
+        response.setHeader("Vary", "Accept-Encoding");
+        String ifNoneMatch = request.getHeader("If-None-Match");
+        if (ifNoneMatch != null && (ifNoneMatch.contains(etag) || "*".equals(ifNoneMatch.trim()))) {
+            response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+            return;
+        }
+        
+        String mimeType = getServletContext().getMimeType(path);
+        if (mimeType == null) {
+            mimeType = path.endsWith(".css") ? "text/css" : "text/javascript";
+        }
+        response.setContentType(mimeType);
+        if (contentEncoding != null) {
+            response.setHeader("Content-Encoding", contentEncoding);
+        }
+        response.setContentLength((int) file.length());
+        
+        if (!"HEAD".equals(request.getMethod())) {
+            writeFile(file, request, response);
+        }
+    }
+    
+    /**
+     * @return whether the Accept-Encoding header lists the given encoding (or "*") without a quality of 0
+     */
+    protected boolean isEncodingAccepted(String acceptEncoding, String encoding) {
+        if (acceptEncoding == null) {
+            return false;
+        }
+        for (String entry : acceptEncoding.split(",")) {
+            String[] parts = entry.split(";");
+            String name = parts[0].trim();
+            if (!name.equalsIgnoreCase(encoding) && !"*".equals(name)) {
+                continue;
+            }
+            for (int i = 1; i < parts.length; i++) {
+                String param = parts[i].trim();
+                if (param.startsWith("q=")) {
+                    try {
+                        return Double.parseDouble(param.substring(2)) > 0;
+                    } catch (NumberFormatException e) {
+                        return false;
+                    }
+                }
+            }
+            return true;
+        }
+        return false;
+    }
+    
+    /**
+     * Hands the file to the container to send with sendfile when the container supports it (Tomcat's NIO and APR
+     * connectors), and otherwise transfers it from a file channel to the response without copying it into the heap
+     */
+    protected void writeFile(File file, HttpServletRequest request, HttpServletResponse response) throws IOException {
+        if (Boolean.TRUE.equals(request.getAttribute("org.apache.tomcat.sendfile.support"))) {
+            request.setAttribute("org.apache.tomcat.sendfile.filename", file.getAbsolutePath());
+            request.setAttribute("org.apache.tomcat.sendfile.start", Long.valueOf(0));
+            request.setAttribute("org.apache.tomcat.sendfile.end", Long.valueOf(file.length()));
+            return;
+        }
+        
+        FileInputStream in = new FileInputStream(file);
+        try {
+            FileChannel channel = in.getChannel();
+            WritableByteChannel out = Channels.newChannel(response.getOutputStream());
+            long position = 0;
+            long size = channel.size();
+            while (position < size) {
+                position += channel.transferTo(position, size - position, out);
+            }
+        } finally {
+            in.close();
+        }
+    }
+    
     /**
      * Checks to see if the requested path corresponds to a registered bundle. If so, returns the generated bundle.
      * Otherwise, checks to see if any of the configured GeneratedResourceHandlers can handle the given request.
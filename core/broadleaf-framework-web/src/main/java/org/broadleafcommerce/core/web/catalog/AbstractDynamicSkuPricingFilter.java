@@ -16,6 +16,8 @@
 
 package org.broadleafcommerce.core.web.catalog;
 
+import org.broadleafcommerce.core.catalog.service.dynamic.DynamicSkuPriceCache;
+import org.broadleafcommerce.core.catalog.service.dynamic.DynamicSkuPriceCacheImpl;
 import org.broadleafcommerce.core.catalog.service.dynamic.SkuPricingConsiderationContext;
 
 import javax.servlet.FilterChain;
@@ -44,6 +46,10 @@ public abstract class AbstractDynamicSkuPricingFilter implements DynamicSkuPrici
         } finally {
             SkuPricingConsiderationContext.setSkuPricingConsiderationContext(null);
             SkuPricingConsiderationContext.setSkuPricingService(null);
+            DynamicSkuPriceCache priceCache = DynamicSkuPriceCacheImpl.getPriceCache();
+            if (priceCache != null) {
+                priceCache.clearRequestPrices();
+            }
         }
         
     }
@@ -16,6 +16,7 @@
 
 package org.broadleafcommerce.core.web.catalog;
 
+import org.broadleafcommerce.core.catalog.service.dynamic.DynamicSkuPriceCache;
 import org.broadleafcommerce.core.catalog.service.dynamic.DynamicSkuPricingService;
 import org.broadleafcommerce.core.catalog.service.dynamic.SkuPricingConsiderationContext;
 import org.springframework.ui.ModelMap;
@@ -40,6 +41,9 @@ public abstract class DynamicSkuPricingInterceptor implements WebRequestIntercep
     @Resource(name = "blDynamicSkuPricingService")
     protected DynamicSkuPricingService skuPricingService;
 
+    @Resource(name = "blDynamicSkuPriceCache")
+    protected DynamicSkuPriceCache skuPriceCache;
+
     @Override
     public void preHandle(WebRequest request) throws Exception {
         SkuPricingConsiderationContext.setSkuPricingConsiderationContext(getPricingConsiderations(request));
@@ -65,7 +69,7 @@ public abstract class DynamicSkuPricingInterceptor implements WebRequestIntercep
 
     @Override
     public void afterCompletion(WebRequest request, Exception ex) throws Exception {
-        // unimplemented
+        skuPriceCache.clearRequestPrices();
     }
 
 }
@@ -16,8 +16,17 @@
 
 package org.broadleafcommerce.core.web.controller.catalog;
 
+import org.broadleafcommerce.common.i18n.domain.TranslatedEntity;
+import org.broadleafcommerce.common.i18n.service.TranslationConsiderationContext;
+import org.broadleafcommerce.common.web.BroadleafRequestContext;
 import org.broadleafcommerce.common.web.controller.BroadleafAbstractController;
+import org.broadleafcommerce.core.catalog.domain.Product;
+import org.broadleafcommerce.core.catalog.domain.Sku;
 import org.broadleafcommerce.core.catalog.service.CatalogService;
+import org.broadleafcommerce.core.catalog.service.dynamic.DynamicSkuPriceCache;
+
+import java.util.ArrayList;
+import java.util.List;
 
 import javax.annotation.Resource;
 
@@ -31,6 +40,30 @@ public abstract class AbstractCatalogController extends BroadleafAbstractControl
     
     @Resource(name = "blCatalogService")
     protected CatalogService catalogService;
+
+    @Resource(name = "blDynamicSkuPriceCache")
+    protected DynamicSkuPriceCache skuPriceCache;
     
+    /**
+     * Reads the translations of the default skus of the given products in bulk, so that rendering their names and 
+     * descriptions does not look up each translated field individually
+     * 
+     * @param products
+     */
+    protected void preloadProductTranslations(List<Product> products) {
+        if (products == null || products.isEmpty() || !TranslationConsiderationContext.hasTranslation()) {
+            return;
+        }
+        
+        List<String> skuIds = new ArrayList<String>(products.size());
+        for (Product product : products) {
+            Sku defaultSku = product.getDefaultSku();
+            if (defaultSku != null && defaultSku.getId() != null) {
+                skuIds.add(String.valueOf(defaultSku.getId()));
+            }
+        }
+        TranslationConsiderationContext.getTranslationService().preloadTranslations(TranslatedEntity.SKU, skuIds, 
+                BroadleafRequestContext.getBroadleafRequestContext().getJavaLocale());
+    }
 
 }
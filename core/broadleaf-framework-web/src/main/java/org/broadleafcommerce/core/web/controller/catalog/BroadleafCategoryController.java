@@ -17,7 +17,6 @@
 package org.broadleafcommerce.core.web.controller.catalog;
 
 import org.apache.commons.lang.StringUtils;
-import org.broadleafcommerce.common.web.controller.BroadleafAbstractController;
 import org.broadleafcommerce.core.catalog.domain.Category;
 import org.broadleafcommerce.core.search.domain.ProductSearchCriteria;
 import org.broadleafcommerce.core.search.domain.ProductSearchResult;
@@ -46,7 +45,7 @@ import javax.servlet.http.HttpServletResponse;
  *
  * @author bpolster
  */
-public class BroadleafCategoryController extends BroadleafAbstractController implements Controller {
+public class BroadleafCategoryController extends AbstractCatalogController implements Controller {
     
     protected static String defaultCategoryView = "catalog/category";
     protected static String CATEGORY_ATTRIBUTE_NAME = "category";  
@@ -110,6 +109,10 @@ public class BroadleafCategoryController extends BroadleafAbstractController imp
             
             facetService.setActiveFacetResults(result.getFacets(), request);
             
+            // Price the whole page at once rather than one product at a time while rendering
+            skuPriceCache.prefetchProductPrices(result.getProducts());
+            preloadProductTranslations(result.getProducts());
+            
             model.addObject(CATEGORY_ATTRIBUTE_NAME, category);
             model.addObject(PRODUCTS_ATTRIBUTE_NAME, result.getProducts());
             model.addObject(FACETS_ATTRIBUTE_NAME, result.getFacets());
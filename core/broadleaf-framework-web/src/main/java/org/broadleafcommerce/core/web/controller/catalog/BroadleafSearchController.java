@@ -124,6 +124,8 @@ public class BroadleafSearchController extends AbstractCatalogController {
                 ProductSearchResult result = searchService.findProductsByQuery(query, searchCriteria);
                 
                 facetService.setActiveFacetResults(result.getFacets(), request);
+                skuPriceCache.prefetchProductPrices(result.getProducts());
+                preloadProductTranslations(result.getProducts());
                 
                 model.addAttribute(PRODUCTS_ATTRIBUTE_NAME, result.getProducts());
                 model.addAttribute(FACETS_ATTRIBUTE_NAME, result.getFacets());
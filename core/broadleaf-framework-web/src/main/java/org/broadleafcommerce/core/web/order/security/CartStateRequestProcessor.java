@@ -22,10 +22,12 @@ import org.broadleafcommerce.common.web.AbstractBroadleafWebRequestProcessor;
 import org.broadleafcommerce.common.web.BroadleafWebRequestProcessor;
 import org.broadleafcommerce.core.order.domain.Order;
 import org.broadleafcommerce.core.order.service.OrderService;
+import org.broadleafcommerce.core.order.service.call.CartSummary;
 import org.broadleafcommerce.core.order.service.call.UpdateCartResponse;
 import org.broadleafcommerce.core.web.service.UpdateCartService;
 import org.broadleafcommerce.profile.core.domain.Customer;
 import org.broadleafcommerce.profile.web.core.security.CustomerStateRequestProcessor;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 import org.springframework.web.context.request.ServletWebRequest;
 import org.springframework.web.context.request.WebRequest;
@@ -64,6 +66,13 @@ public class CartStateRequestProcessor extends AbstractBroadleafWebRequestProces
 
     protected static String cartRequestAttributeName = "cart";
 
+    /**
+     * When enabled, the {@link CartSummary} of the customer's cart is read first, and a cart that has already been
+     * validated in its current version is not validated again. The full order is always placed on the request.
+     */
+    @Value("${cart.state.validation.cache.enabled}")
+    protected boolean validationCacheEnabled = false;
+
     @Override
     public void process(WebRequest request) {
         Customer customer = (Customer) request.getAttribute(CustomerStateRequestProcessor.getCustomerRequestAttributeName(), WebRequest.SCOPE_REQUEST);
@@ -72,22 +81,22 @@ public class CartStateRequestProcessor extends AbstractBroadleafWebRequestProces
             if (LOG.isTraceEnabled()) {
                 LOG.trace("Looking up cart for customer " + customer.getId());
             }
-            Order cart = orderService.findCartForCustomer(customer);
+            Order cart = null;
+            boolean cartValidated = false;
+            if (validationCacheEnabled) {
+                CartSummary cartSummary = orderService.findCartSummaryForCustomer(customer);
+                if (cartSummary != null) {
+                    cartValidated = updateCartService.isCartValidated(cartSummary);
+                    cart = orderService.findOrderById(cartSummary.getOrderId());
+                }
+            } else {
+                cart = orderService.findCartForCustomer(customer);
+            }
 
             if (cart == null) {
                 cart = orderService.getNullOrder();
-            } else {
-                try {
-                    updateCartService.validateCart(cart);
-                } catch (IllegalArgumentException e) {
-                    if (copyCartWhenSpecifiedStateChanges) {
-                        UpdateCartResponse updateCartResponse = updateCartService.copyCartToCurrentContext(cart);
-                        request.setAttribute("updateCartResponse", updateCartResponse, WebRequest.SCOPE_REQUEST);
-                    } else {
-                        orderService.cancelOrder(cart);
-                        cart = orderService.createNewCartForCustomer(customer);
-                    }
-                }
+            } else if (!cartValidated) {
+                cart = validateCart(request, customer, cart);
             }
 
             request.setAttribute(cartRequestAttributeName, cart, WebRequest.SCOPE_REQUEST);
@@ -107,6 +116,27 @@ public class CartStateRequestProcessor extends AbstractBroadleafWebRequestProces
 
     }
     
+    /**
+     * Validates a cart that has been fully loaded. If the cart is not valid in the current context, it is either
+     * copied to the current context or replaced by a new cart.
+     * 
+     * @return the cart to place on the request
+     */
+    protected Order validateCart(WebRequest request, Customer customer, Order cart) {
+        try {
+            updateCartService.validateCart(cart);
+        } catch (IllegalArgumentException e) {
+            if (copyCartWhenSpecifiedStateChanges) {
+                UpdateCartResponse updateCartResponse = updateCartService.copyCartToCurrentContext(cart);
+                request.setAttribute("updateCartResponse", updateCartResponse, WebRequest.SCOPE_REQUEST);
+            } else {
+                orderService.cancelOrder(cart);
+                cart = orderService.createNewCartForCustomer(customer);
+            }
+        }
+        return cart;
+    }
+
     public static String getCartRequestAttributeName() {
         return cartRequestAttributeName;
     }
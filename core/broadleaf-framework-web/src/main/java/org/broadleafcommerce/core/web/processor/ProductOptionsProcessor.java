@@ -26,8 +26,9 @@ import org.broadleafcommerce.core.catalog.domain.ProductOption;
 import org.broadleafcommerce.core.catalog.domain.ProductOptionValue;
 import org.broadleafcommerce.core.catalog.domain.Sku;
 import org.broadleafcommerce.core.catalog.service.CatalogService;
+import org.broadleafcommerce.core.catalog.service.ProductOptionMatrix;
+import org.broadleafcommerce.core.catalog.service.ProductOptionsCache;
 import org.codehaus.jackson.map.ObjectMapper;
-import org.codehaus.jackson.map.util.LRUMap;
 import org.springframework.stereotype.Component;
 import org.thymeleaf.Arguments;
 import org.thymeleaf.dom.Element;
@@ -38,7 +39,6 @@ import java.io.Writer;
 import java.text.NumberFormat;
 import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -59,8 +59,11 @@ public class ProductOptionsProcessor extends AbstractModelVariableModifierProces
     @Resource(name = "blCatalogService")
     protected CatalogService catalogService;
 
+    @Resource(name = "blProductOptionsCache")
+    protected ProductOptionsCache productOptionsCache;
+
     private static final Log LOG = LogFactory.getLog(ProductOptionsProcessor.class);
-    protected static final Map<Object, String> JSON_CACHE = Collections.synchronizedMap(new LRUMap<Object, String>(100, 500));
+    protected static final ObjectMapper JSON_MAPPER = new ObjectMapper();
 
     public ProductOptionsProcessor() {
         super("product_options");
@@ -76,69 +79,95 @@ public class ProductOptionsProcessor extends AbstractModelVariableModifierProces
         Long productId = (Long) StandardExpressionProcessor.processExpression(arguments, element.getAttributeValue("productId"));
         Product product = catalogService.findProductById(productId);
         if (product != null) {
-            addAllProductOptionsToModel(arguments, product);
-            addProductOptionPricingToModel(arguments, product);
+            ProductOptionMatrix matrix = productOptionsCache.getMatrix(product);
+            addAllProductOptionsToModel(arguments, product, matrix);
+            addProductOptionPricingToModel(arguments, product, matrix);
         }
     }
     
-    private void addProductOptionPricingToModel(Arguments arguments, Product product) {
+    private void addProductOptionPricingToModel(Arguments arguments, Product product, ProductOptionMatrix matrix) {
         List<Sku> skus = product.getSkus();
-        List<ProductOptionPricingDTO> skuPricing = new ArrayList<ProductOptionPricingDTO>();
-        for (Sku sku : skus) {
-            
-            List<Long> productOptionValueIds = new ArrayList<Long>();
-            
-            List<ProductOptionValue> productOptionValues = sku.getProductOptionValues();
-            for (ProductOptionValue productOptionValue : productOptionValues) {
-                productOptionValueIds.add(productOptionValue.getId());
-            }
-            
-            Long[] values = new Long[productOptionValueIds.size()];
-            productOptionValueIds.toArray(values);
-            
-            ProductOptionPricingDTO dto = new ProductOptionPricingDTO();
+        Long[][] skuOptionValueIds = matrix.getSkuOptionValueIds();
+        
+        // Prices may differ from one request to the next, so they are part of the key of the cached JSON
+        String[] prices = new String[skus.size()];
+        StringBuilder payloadKey = new StringBuilder("skuPricing|").append(getLocaleKey());
+        for (int i = 0; i < skus.size(); i++) {
+            Sku sku = skus.get(i);
             Money currentPrice;
             if (sku.isOnSale()) {
                 currentPrice = sku.getSalePrice();
             } else {
                 currentPrice = sku.getRetailPrice();
             }
-            dto.setPrice(formatPrice(currentPrice));
-            dto.setSelectedOptions(values);
-            skuPricing.add(dto);
+            prices[i] = formatPrice(currentPrice);
+            payloadKey.append('|').append(prices[i]);
+        }
+        
+        String json = matrix.getPayload(payloadKey.toString());
+        if (json == null) {
+            List<ProductOptionPricingDTO> skuPricing = new ArrayList<ProductOptionPricingDTO>();
+            for (int i = 0; i < skus.size(); i++) {
+                ProductOptionPricingDTO dto = new ProductOptionPricingDTO();
+                dto.setPrice(prices[i]);
+                dto.setSelectedOptions(skuOptionValueIds[i]);
+                skuPricing.add(dto);
+            }
+            json = writeJSON(skuPricing);
+            if (json != null) {
+                matrix.putPayload(payloadKey.toString(), json);
+            }
+        }
+        if (json != null) {
+            addToModel(arguments, "skuPricing", json);
         }
-        writeJSONToModel(arguments, "skuPricing", skuPricing);
     }
     
-    private void addAllProductOptionsToModel(Arguments arguments, Product product) {
-        List<ProductOption> productOptions = product.getProductOptions();
-        List<ProductOptionDTO> dtos = new ArrayList<ProductOptionDTO>();
-        for (ProductOption option : productOptions) {
-            ProductOptionDTO dto = new ProductOptionDTO();
-            dto.setId(option.getId());
-            dto.setType(option.getType().getType());
-            Map<Long, String> values = new HashMap<Long, String>();
-            for (ProductOptionValue value : option.getAllowedValues()) {
-                values.put(value.getId(), value.getAttributeValue());
+    private void addAllProductOptionsToModel(Arguments arguments, Product product, ProductOptionMatrix matrix) {
+        // The option values may be translated, so the JSON is kept per locale
+        String payloadKey = "allProductOptions|" + getLocaleKey();
+        String json = matrix.getPayload(payloadKey);
+        if (json == null) {
+            List<ProductOption> productOptions = product.getProductOptions();
+            List<ProductOptionDTO> dtos = new ArrayList<ProductOptionDTO>();
+            for (ProductOption option : productOptions) {
+                ProductOptionDTO dto = new ProductOptionDTO();
+                dto.setId(option.getId());
+                dto.setType(option.getType().getType());
+                Map<Long, String> values = new HashMap<Long, String>();
+                for (ProductOptionValue value : option.getAllowedValues()) {
+                    values.put(value.getId(), value.getAttributeValue());
+                }
+                dto.setValues(values);
+                dtos.add(dto);
+            }
+            json = writeJSON(dtos);
+            if (json != null) {
+                matrix.putPayload(payloadKey, json);
             }
-            dto.setValues(values);
-            dtos.add(dto);
         }
-        writeJSONToModel(arguments, "allProductOptions", dtos);
+        if (json != null) {
+            addToModel(arguments, "allProductOptions", json);
+        }
     }
     
-    private void writeJSONToModel(Arguments arguments, String modelKey, Object o) {
+    private String writeJSON(Object o) {
         try {
-            if (!JSON_CACHE.containsKey(o)) {
-                ObjectMapper mapper = new ObjectMapper();
-                Writer strWriter = new StringWriter();
-                mapper.writeValue(strWriter, o);
-                JSON_CACHE.put(o, strWriter.toString());
-            }
-            addToModel(arguments, modelKey, JSON_CACHE.get(o));
+            Writer strWriter = new StringWriter();
+            JSON_MAPPER.writeValue(strWriter, o);
+            return strWriter.toString();
         } catch (Exception ex) {
             LOG.error("There was a problem writing the product option map to JSON", ex);
+            return null;
+        }
+    }
+    
+    private String getLocaleKey() {
+        BroadleafRequestContext brc = BroadleafRequestContext.getBroadleafRequestContext();
+        if (brc == null || brc.getJavaLocale() == null) {
+            return "";
         }
+        return brc.getJavaLocale().toString();
     }
 
     private String formatPrice(Money price){
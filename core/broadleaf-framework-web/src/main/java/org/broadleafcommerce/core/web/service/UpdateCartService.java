@@ -18,6 +18,7 @@ package org.broadleafcommerce.core.web.service;
 
 import org.broadleafcommerce.common.currency.domain.BroadleafCurrency;
 import org.broadleafcommerce.core.order.domain.Order;
+import org.broadleafcommerce.core.order.service.call.CartSummary;
 import org.broadleafcommerce.core.order.service.call.UpdateCartResponse;
 
 /**
@@ -65,4 +66,13 @@ public interface UpdateCartService {
      */
     public void validateCart (Order cart) throws IllegalArgumentException;
 
+    /**
+     * Checks whether this version of the cart has already passed {@link #validateCart(Order)} in the current
+     * locale and currency, in which case it does not need to be validated again.
+     *
+     * @param cartSummary
+     * @return true if the cart is known to be valid
+     */
+    public boolean isCartValidated(CartSummary cartSummary);
+
 }
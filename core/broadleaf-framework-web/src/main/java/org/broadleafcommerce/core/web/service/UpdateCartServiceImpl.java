@@ -16,6 +16,9 @@
 
 package org.broadleafcommerce.core.web.service;
 
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.broadleafcommerce.common.currency.domain.BroadleafCurrency;
@@ -26,15 +29,18 @@ import org.broadleafcommerce.core.order.domain.DiscreteOrderItem;
 import org.broadleafcommerce.core.order.domain.Order;
 import org.broadleafcommerce.core.order.domain.OrderItem;
 import org.broadleafcommerce.core.order.service.OrderService;
+import org.broadleafcommerce.core.order.service.call.CartSummary;
 import org.broadleafcommerce.core.order.service.call.UpdateCartResponse;
 import org.broadleafcommerce.core.order.service.exception.AddToCartException;
 import org.broadleafcommerce.core.order.service.exception.RemoveFromCartException;
 import org.broadleafcommerce.core.pricing.service.exception.PricingException;
 import org.broadleafcommerce.core.web.order.model.AddToCartItem;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.TimeUnit;
 
 import javax.annotation.Resource;
 
@@ -54,6 +60,14 @@ public class UpdateCartServiceImpl implements UpdateCartService {
     @Resource(name = "blUpdateCartServiceExtensionManager")
     protected UpdateCartServiceExtensionManager extensionManager;
 
+    @Value("${cart.validation.cache.ttl}")
+    protected long validationCacheTtl = 300000;
+
+    @Value("${cart.validation.cache.maximumSize}")
+    protected long validationCacheMaximumSize = 10000;
+
+    protected volatile Cache<String, Boolean> validationCache;
+
     @Override
     public boolean currencyHasChanged() {
         BroadleafCurrency currency = findActiveCurrency();
@@ -157,6 +171,64 @@ public class UpdateCartServiceImpl implements UpdateCartService {
         if (extensionManager != null) {
             extensionManager.getProxy().validateCart(cart);
         }
+
+        if (cart.getId() != null && isValidationCacheable()) {
+            getValidationCacheInstance().put(buildValidationKey(CartSummary.forOrder(cart)), Boolean.TRUE);
+        }
+    }
+
+    @Override
+    public boolean isCartValidated(CartSummary cartSummary) {
+        return isValidationCacheable() 
+                && getValidationCacheInstance().getIfPresent(buildValidationKey(cartSummary)) != null;
+    }
+
+    /**
+     * Extension handlers may validate the cart against anything, which the validation key cannot capture. Validation
+     * results are therefore only remembered while no handler is enabled, so that every request is validated by them.
+     */
+    protected boolean isValidationCacheable() {
+        if (extensionManager == null) {
+            return true;
+        }
+        for (UpdateCartServiceExtensionHandler handler : extensionManager.getHandlers()) {
+            if (handler.isEnabled()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Only the cart version and the active locale and currency are part of the key
+     */
+    protected String buildValidationKey(CartSummary cartSummary) {
+        StringBuilder sb = new StringBuilder(cartSummary.getVersion());
+        if (BroadleafRequestContext.hasLocale()) {
+            sb.append('|').append(BroadleafRequestContext.getBroadleafRequestContext().getLocale().getLocaleCode());
+        }
+        BroadleafCurrency currency = findActiveCurrency();
+        if (currency != null) {
+            sb.append('|').append(currency.getCurrencyCode());
+        }
+        return sb.toString();
+    }
+
+    protected Cache<String, Boolean> getValidationCacheInstance() {
+        Cache<String, Boolean> cache = validationCache;
+        if (cache == null) {
+            synchronized (this) {
+                cache = validationCache;
+                if (cache == null) {
+                    cache = CacheBuilder.newBuilder()
+                            .maximumSize(validationCacheMaximumSize)
+                            .expireAfterWrite(validationCacheTtl, TimeUnit.MILLISECONDS)
+                            .build();
+                    validationCache = cache;
+                }
+            }
+        }
+        return cache;
     }
 
     protected BroadleafCurrency findActiveCurrency(){
@@ -211,6 +211,18 @@ public interface ProductDao {
      */
     public List<Product> readAllActiveProducts(int page, int pageSize, Date currentDate);
 
+    /**
+     * Reads the ids of the products that are currently active, in ascending order, starting after the given id.
+     * Unlike {@link #readAllActiveProducts(int, int, Date)}, this pages by seeking past the last id that was read 
+     * rather than by offset, so reading the last page of a large catalog costs the same as reading the first one.
+     * 
+     * @param lastProductId - the last id returned by the previous call, or null to start from the beginning
+     * @param pageSize - the maximum number of ids to return
+     * @param currentDate
+     * @return the next page of active product ids, or an empty list if there are no more
+     */
+    public List<Long> readAllActiveProductIds(Long lastProductId, int pageSize, Date currentDate);
+
     /**
      * Returns the number of products that are currently active.
      * 
@@ -456,6 +456,33 @@ public class ProductDaoImpl implements ProductDao {
         return query.setFirstResult(firstResult).setMaxResults(pageSize).getResultList();
     }
 
+    @Override
+    public List<Long> readAllActiveProductIds(Long lastProductId, int pageSize, Date currentDate) {
+        CriteriaBuilder builder = em.getCriteriaBuilder();
+        CriteriaQuery<Long> criteria = builder.createQuery(Long.class);
+
+        // The root of our search is Product
+        Root<ProductImpl> product = criteria.from(ProductImpl.class);
+
+        // We need to filter on active date on the sku
+        Join<Product, Sku> sku = product.join("defaultSku");
+
+        // We only want the ids back
+        criteria.select(product.get("id").as(Long.class));
+
+        // Ensure the product is currently active and seek past the last id that was read
+        List<Predicate> restrictions = new ArrayList<Predicate>();
+        attachActiveRestriction(currentDate, product, sku, restrictions);
+        if (lastProductId != null) {
+            restrictions.add(builder.greaterThan(product.get("id").as(Long.class), lastProductId));
+        }
+
+        criteria.where(restrictions.toArray(new Predicate[restrictions.size()]));
+        criteria.orderBy(builder.asc(product.get("id")));
+
+        return em.createQuery(criteria).setMaxResults(pageSize).getResultList();
+    }
+
     @Override
     public List<Product> readAllActiveProducts(Date currentDate) {
         CriteriaQuery<Product> criteria = getCriteriaForActiveProducts(currentDate);
@@ -516,6 +543,9 @@ public class ProductDaoImpl implements ProductDao {
         
         // Add the restrictions to the criteria query
         criteria.where(restrictions.toArray(new Predicate[restrictions.size()]));
+        
+        // Pages are read in separate queries, which only line up with a stable order
+        criteria.orderBy(builder.asc(product.get("id")));
         return criteria;
     }
 }
@@ -40,6 +40,8 @@ import org.broadleafcommerce.common.presentation.client.VisibilityEnum;
 import org.broadleafcommerce.common.util.DateUtil;
 import org.broadleafcommerce.core.catalog.domain.ProductImpl.Presentation;
 import org.broadleafcommerce.core.catalog.service.dynamic.DefaultDynamicSkuPricingInvocationHandler;
+import org.broadleafcommerce.core.catalog.service.dynamic.DynamicSkuPriceCache;
+import org.broadleafcommerce.core.catalog.service.dynamic.DynamicSkuPriceCacheImpl;
 import org.broadleafcommerce.core.catalog.service.dynamic.DynamicSkuPrices;
 import org.broadleafcommerce.core.catalog.service.dynamic.SkuActiveDateConsiderationContext;
 import org.broadleafcommerce.core.catalog.service.dynamic.SkuPricingConsiderationContext;
@@ -396,6 +398,24 @@ public class SkuImpl implements Sku {
         return optionValuePriceAdjustments;
     }
 
+    /**
+     * Prices this sku with the dynamic pricing service on the current thread. The shared price cache is used when 
+     * it is available so that the sku is not priced again for the same considerations.
+     */
+    protected DynamicSkuPrices lookupDynamicPrices() {
+        DynamicSkuPriceCache priceCache = DynamicSkuPriceCacheImpl.getPriceCache();
+        if (priceCache != null && getId() != null) {
+            DynamicSkuPrices prices = priceCache.getSkuPrices(this);
+            if (prices != null) {
+                return prices;
+            }
+        }
+        DefaultDynamicSkuPricingInvocationHandler handler = new DefaultDynamicSkuPricingInvocationHandler(this);
+        Sku proxy = (Sku) Proxy.newProxyInstance(getClass().getClassLoader(), ClassUtils.getAllInterfacesForClass(getClass()), handler);
+
+        return SkuPricingConsiderationContext.getSkuPricingService().getSkuPrices(proxy, SkuPricingConsiderationContext.getSkuPricingConsiderationContext());
+    }
+
     @Override
     public Money getSalePrice() {
         Money returnPrice = null;
@@ -404,10 +424,7 @@ public class SkuImpl implements Sku {
         if (SkuPricingConsiderationContext.hasDynamicPricing()) {
             // We have dynamic pricing, so we will pull the sale price from there
             if (dynamicPrices == null) {
-                DefaultDynamicSkuPricingInvocationHandler handler = new DefaultDynamicSkuPricingInvocationHandler(this);
-                Sku proxy = (Sku) Proxy.newProxyInstance(getClass().getClassLoader(), ClassUtils.getAllInterfacesForClass(getClass()), handler);
-
-                dynamicPrices = SkuPricingConsiderationContext.getSkuPricingService().getSkuPrices(proxy, SkuPricingConsiderationContext.getSkuPricingConsiderationContext());
+                dynamicPrices = lookupDynamicPrices();
             }
             
             returnPrice = dynamicPrices.getSalePrice();
@@ -447,10 +464,7 @@ public class SkuImpl implements Sku {
         if (SkuPricingConsiderationContext.hasDynamicPricing()) {
             // We have dynamic pricing, so we will pull the retail price from there
             if (dynamicPrices == null) {
-                DefaultDynamicSkuPricingInvocationHandler handler = new DefaultDynamicSkuPricingInvocationHandler(this);
-                Sku proxy = (Sku) Proxy.newProxyInstance(getClass().getClassLoader(), ClassUtils.getAllInterfacesForClass(getClass()), handler);
-
-                dynamicPrices = SkuPricingConsiderationContext.getSkuPricingService().getSkuPrices(proxy, SkuPricingConsiderationContext.getSkuPricingConsiderationContext());
+                dynamicPrices = lookupDynamicPrices();
             }
             
             returnPrice = dynamicPrices.getRetailPrice();
@@ -54,6 +54,9 @@ public class CatalogServiceImpl implements CatalogService {
     @Resource(name="blProductOptionDao")
     protected ProductOptionDao productOptionDao;
 
+    @Resource(name="blProductOptionsCache")
+    protected ProductOptionsCache productOptionsCache;
+
     @Override
     public Product findProductById(Long productId) {
         return productDao.readProductById(productId);
@@ -99,7 +102,11 @@ public class CatalogServiceImpl implements CatalogService {
     @Override
     @Transactional("blTransactionManager")
     public Product saveProduct(Product product) {
-        return productDao.save(product);
+        Product response = productDao.save(product);
+        if (productOptionsCache != null) {
+            productOptionsCache.invalidate(response.getId());
+        }
+        return response;
     }
 
     @Override
@@ -193,7 +200,11 @@ public class CatalogServiceImpl implements CatalogService {
     @Override
     @Transactional("blTransactionManager")
     public Sku saveSku(Sku sku) {
-        return skuDao.save(sku);
+        Sku response = skuDao.save(sku);
+        if (productOptionsCache != null && response.getProduct() != null) {
+            productOptionsCache.invalidate(response.getProduct().getId());
+        }
+        return response;
     }
     
     @Override
@@ -261,7 +272,12 @@ public class CatalogServiceImpl implements CatalogService {
     
     @Transactional("blTransactionManager")
     public ProductOption saveProductOption(ProductOption option) {
-        return productOptionDao.saveProductOption(option);
+        ProductOption response = productOptionDao.saveProductOption(option);
+        if (productOptionsCache != null) {
+            // Product options may be shared by any number of products
+            productOptionsCache.invalidateAll();
+        }
+        return response;
     }
     
     @Override
@@ -0,0 +1,143 @@
+/*
+ * Copyright 2008-2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.broadleafcommerce.core.catalog.service;
+
+import org.broadleafcommerce.core.catalog.domain.Product;
+import org.broadleafcommerce.core.catalog.domain.ProductOption;
+import org.broadleafcommerce.core.catalog.domain.ProductOptionValue;
+import org.broadleafcommerce.core.catalog.domain.Sku;
+
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * An immutable snapshot of the product options of a product and of the option values that select each of its skus, 
+ * so that the option and sku collections do not have to be walked every time the product is rendered. 
+ * 
+ * The matrix also holds payloads derived from it, such as the JSON consumed by the product detail page. Payloads that
+ * depend on the request (the locale, the prices) must include it in their key. At most {@link #MAX_PAYLOADS} payloads
+ * are kept per matrix.
+ * 
+ * The arrays returned by this class are shared and must not be modified.
+ * @see {@link ProductOptionsCache}
+ */
+public class ProductOptionMatrix {
+
+    public static final int MAX_PAYLOADS = 32;
+
+    protected final Long productId;
+    protected final Long[] optionIds;
+    protected final Long[][] optionValueIds;
+    protected final Long[] skuIds;
+    protected final Long[][] skuOptionValueIds;
+    protected final ConcurrentMap<String, String> payloads = new ConcurrentHashMap<String, String>();
+
+    public ProductOptionMatrix(Product product) {
+        productId = product.getId();
+        
+        List<ProductOption> options = product.getProductOptions();
+        optionIds = new Long[options.size()];
+        optionValueIds = new Long[options.size()][];
+        for (int i = 0; i < options.size(); i++) {
+            ProductOption option = options.get(i);
+            optionIds[i] = option.getId();
+            optionValueIds[i] = getIds(option.getAllowedValues());
+        }
+        
+        List<Sku> skus = product.getSkus();
+        skuIds = new Long[skus.size()];
+        skuOptionValueIds = new Long[skus.size()][];
+        for (int i = 0; i < skus.size(); i++) {
+            Sku sku = skus.get(i);
+            skuIds[i] = sku.getId();
+            skuOptionValueIds[i] = getIds(sku.getProductOptionValues());
+        }
+    }
+
+    protected static Long[] getIds(List<ProductOptionValue> values) {
+        Long[] ids = new Long[values.size()];
+        for (int i = 0; i < values.size(); i++) {
+            ids[i] = values.get(i).getId();
+        }
+        return ids;
+    }
+
+    /**
+     * @param skus the current skus of the product
+     * @return whether the matrix was built from the same skus, in the same order
+     */
+    public boolean matches(List<Sku> skus) {
+        if (skus.size() != skuIds.length) {
+            return false;
+        }
+        for (int i = 0; i < skuIds.length; i++) {
+            Long skuId = skus.get(i).getId();
+            if (skuId == null || !skuId.equals(skuIds[i])) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public Long getProductId() {
+        return productId;
+    }
+
+    /**
+     * @return the ids of the product options, in the order of {@link Product#getProductOptions()}
+     */
+    public Long[] getOptionIds() {
+        return optionIds;
+    }
+
+    /**
+     * @return for each product option, the ids of its allowed values
+     */
+    public Long[][] getOptionValueIds() {
+        return optionValueIds;
+    }
+
+    /**
+     * @return the ids of the skus, in the order of {@link Product#getSkus()}
+     */
+    public Long[] getSkuIds() {
+        return skuIds;
+    }
+
+    /**
+     * @return for each sku, the ids of the product option values that select it
+     */
+    public Long[][] getSkuOptionValueIds() {
+        return skuOptionValueIds;
+    }
+
+    /**
+     * @param key
+     * @return the payload stored under the given key, or null
+     */
+    public String getPayload(String key) {
+        return payloads.get(key);
+    }
+
+    public void putPayload(String key, String payload) {
+        if (payloads.size() >= MAX_PAYLOADS) {
+            payloads.clear();
+        }
+        payloads.put(key, payload);
+    }
+
+}
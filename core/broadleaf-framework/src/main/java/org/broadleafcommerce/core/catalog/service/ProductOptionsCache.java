@@ -0,0 +1,47 @@
+/*
+ * Copyright 2008-2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.broadleafcommerce.core.catalog.service;
+
+import org.broadleafcommerce.core.catalog.domain.Product;
+
+/**
+ * Keeps a {@link ProductOptionMatrix} per product so that rendering the product options of a product does not walk 
+ * its options and skus on every request. Entries are invalidated when the product, its skus or the product options
+ * are saved through the {@link CatalogService}, when the skus of the product no longer match, and after they expire.
+ */
+public interface ProductOptionsCache {
+
+    /**
+     * @param product
+     * @return the option matrix of the given product, building it if it is not cached or no longer matches the skus 
+     * of the product
+     */
+    public ProductOptionMatrix getMatrix(Product product);
+
+    /**
+     * Removes the matrix of the given product. If a transaction is active, the matrix is removed again once it 
+     * commits, so that a matrix built from the old state in the meantime is not kept.
+     * 
+     * @param productId
+     */
+    public void invalidate(Long productId);
+
+    /**
+     * Removes every matrix, e.g. after a product option shared by many products has changed
+     */
+    public void invalidateAll();
+
+}
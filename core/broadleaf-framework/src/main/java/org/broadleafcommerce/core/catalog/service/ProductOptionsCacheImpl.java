@@ -0,0 +1,175 @@
+/*
+ * Copyright 2008-2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.broadleafcommerce.core.catalog.service;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+
+import org.broadleafcommerce.core.catalog.domain.Product;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jmx.export.annotation.ManagedAttribute;
+import org.springframework.jmx.export.annotation.ManagedOperation;
+import org.springframework.jmx.export.annotation.ManagedOperationParameter;
+import org.springframework.jmx.export.annotation.ManagedOperationParameters;
+import org.springframework.jmx.export.annotation.ManagedResource;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Matrices are kept in a bounded concurrent cache, so reading them never blocks other threads. They expire after
+ * <code>product.options.cache.ttl</code> milliseconds to pick up changes made outside of this application, such as
+ * in the admin.
+ */
+@Service("blProductOptionsCache")
+@ManagedResource(objectName="org.broadleafcommerce:name=ProductOptionsCache", description="Product Options Cache", currencyTimeLimit=15)
+public class ProductOptionsCacheImpl implements ProductOptionsCache {
+
+    @Value("${product.options.cache.ttl}")
+    protected long ttl = 300000;
+
+    @Value("${product.options.cache.maximumSize}")
+    protected long maximumSize = 10000;
+
+    protected volatile Cache<Long, ProductOptionMatrix> matrixCache;
+
+    protected final AtomicLong staleCount = new AtomicLong();
+
+    @Override
+    public ProductOptionMatrix getMatrix(Product product) {
+        if (product.getId() == null) {
+            return new ProductOptionMatrix(product);
+        }
+        
+        Cache<Long, ProductOptionMatrix> cache = getMatrixCacheInstance();
+        ProductOptionMatrix matrix = cache.getIfPresent(product.getId());
+        if (matrix != null && !matrix.matches(product.getSkus())) {
+            staleCount.incrementAndGet();
+            matrix = null;
+        }
+        if (matrix == null) {
+            matrix = new ProductOptionMatrix(product);
+            cache.put(product.getId(), matrix);
+        }
+        return matrix;
+    }
+
+    @Override
+    @ManagedOperation(description="Removes the option matrix of a product")
+    @ManagedOperationParameters({
+        @ManagedOperationParameter(name="productId", description="The id of the product")
+    })
+    public void invalidate(final Long productId) {
+        if (productId == null || matrixCache == null) {
+            return;
+        }
+        matrixCache.invalidate(productId);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+                @Override
+                public void afterCommit() {
+                    matrixCache.invalidate(productId);
+                }
+            });
+        }
+    }
+
+    @Override
+    @ManagedOperation(description="Removes every option matrix")
+    public void invalidateAll() {
+        if (matrixCache == null) {
+            return;
+        }
+        matrixCache.invalidateAll();
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+                @Override
+                public void afterCommit() {
+                    matrixCache.invalidateAll();
+                }
+            });
+        }
+    }
+
+    protected Cache<Long, ProductOptionMatrix> getMatrixCacheInstance() {
+        Cache<Long, ProductOptionMatrix> cache = matrixCache;
+        if (cache == null) {
+            synchronized (this) {
+                cache = matrixCache;
+                if (cache == null) {
+                    cache = CacheBuilder.newBuilder()
+                            .maximumSize(maximumSize)
+                            .expireAfterWrite(ttl, TimeUnit.MILLISECONDS)
+                            .recordStats()
+                            .build();
+                    matrixCache = cache;
+                }
+            }
+        }
+        return cache;
+    }
+
+    @ManagedAttribute(description="The number of cached option matrices", currencyTimeLimit=15)
+    public long getCacheSize() {
+        return matrixCache == null ? 0 : matrixCache.size();
+    }
+
+    @ManagedAttribute(description="The number of lookups that found an option matrix", currencyTimeLimit=15)
+    public long getHitCount() {
+        return getCacheStats().hitCount();
+    }
+
+    @ManagedAttribute(description="The number of lookups that had to build an option matrix", currencyTimeLimit=15)
+    public long getMissCount() {
+        return getCacheStats().missCount();
+    }
+
+    @ManagedAttribute(description="The number of cached option matrices discarded because the skus had changed", currencyTimeLimit=15)
+    public long getStaleCount() {
+        return staleCount.get();
+    }
+
+    @ManagedAttribute(description="The ratio of lookups that found an option matrix", currencyTimeLimit=15)
+    public double getHitRate() {
+        return getCacheStats().hitRate();
+    }
+
+    protected CacheStats getCacheStats() {
+        return matrixCache == null ? new CacheStats(0, 0, 0, 0, 0, 0) : matrixCache.stats();
+    }
+
+    @ManagedAttribute(description="Milliseconds an option matrix is kept", currencyTimeLimit=15)
+    public long getTtl() {
+        return ttl;
+    }
+
+    public void setTtl(long ttl) {
+        this.ttl = ttl;
+    }
+
+    public long getMaximumSize() {
+        return maximumSize;
+    }
+
+    public void setMaximumSize(long maximumSize) {
+        this.maximumSize = maximumSize;
+    }
+
+}
@@ -22,7 +22,10 @@ import org.broadleafcommerce.core.catalog.domain.Sku;
 import org.broadleafcommerce.core.catalog.domain.SkuBundleItem;
 import org.springframework.stereotype.Service;
 
+import java.util.Collection;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
 
 /**
  * Default implementation of the {@link DynamicSkuPricingService} which simply ignores the considerations hashmap in all
@@ -44,6 +47,16 @@ public class DefaultDynamicSkuPricingServiceImpl implements DynamicSkuPricingSer
         return prices;
     }
 
+    @Override
+    @SuppressWarnings("rawtypes")
+    public Map<Long, DynamicSkuPrices> getSkuPrices(Collection<Sku> skus, HashMap skuPricingConsiderations) {
+        Map<Long, DynamicSkuPrices> prices = new LinkedHashMap<Long, DynamicSkuPrices>();
+        for (Sku sku : skus) {
+            prices.put(sku.getId(), getSkuPrices(sku, skuPricingConsiderations));
+        }
+        return prices;
+    }
+
     @Override
     @SuppressWarnings("rawtypes")
     public DynamicSkuPrices getSkuBundleItemPrice(SkuBundleItem skuBundleItem,
@@ -0,0 +1,72 @@
+/*
+ * Copyright 2008-2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.broadleafcommerce.core.catalog.service.dynamic;
+
+import org.broadleafcommerce.core.catalog.domain.Product;
+import org.broadleafcommerce.core.catalog.domain.Sku;
+
+import java.util.Collection;
+
+/**
+ * Caches the results of the {@link DynamicSkuPricingService} that is active on the current thread. Prices are kept
+ * for the remainder of the request and, when the pricing considerations can be reduced to a stable key, shared
+ * between requests with the same considerations until they expire or are invalidated.
+ * @see {@link SkuPricingConsiderationContext}
+ */
+public interface DynamicSkuPriceCache {
+
+    /**
+     * @param sku
+     * @return the dynamic prices of the given sku for the current pricing considerations, or null if dynamic 
+     * pricing is not active on this thread
+     */
+    public DynamicSkuPrices getSkuPrices(Sku sku);
+
+    /**
+     * Prices every given sku that is not cached yet with a single call to 
+     * {@link DynamicSkuPricingService#getSkuPrices(Collection, java.util.HashMap)}. Does nothing if dynamic pricing 
+     * is not active on this thread.
+     * 
+     * @param skus
+     */
+    public void prefetchSkuPrices(Collection<Sku> skus);
+
+    /**
+     * Prefetches the prices of the default skus of the given products, which are the prices shown on catalog pages
+     * 
+     * @param products
+     */
+    public void prefetchProductPrices(Collection<Product> products);
+
+    /**
+     * Removes the cached prices of the given sku for all pricing considerations
+     * 
+     * @param skuId
+     */
+    public void invalidate(Long skuId);
+
+    /**
+     * Removes every cached price
+     */
+    public void invalidateAll();
+
+    /**
+     * Discards the prices kept for the current request. Called when the pricing considerations are removed from
+     * the thread.
+     */
+    public void clearRequestPrices();
+
+}
@@ -0,0 +1,426 @@
+/*
+ * Copyright 2008-2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.broadleafcommerce.core.catalog.service.dynamic;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.broadleafcommerce.common.BroadleafEnumerationType;
+import org.broadleafcommerce.common.currency.domain.BroadleafCurrency;
+import org.broadleafcommerce.common.locale.domain.Locale;
+import org.broadleafcommerce.core.catalog.domain.Product;
+import org.broadleafcommerce.core.catalog.domain.Sku;
+import org.broadleafcommerce.profile.core.domain.Customer;
+import org.hibernate.proxy.HibernateProxy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jmx.export.annotation.ManagedAttribute;
+import org.springframework.jmx.export.annotation.ManagedOperation;
+import org.springframework.jmx.export.annotation.ManagedOperationParameter;
+import org.springframework.jmx.export.annotation.ManagedOperationParameters;
+import org.springframework.jmx.export.annotation.ManagedResource;
+import org.springframework.stereotype.Service;
+import org.springframework.util.ClassUtils;
+
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+
+import javax.annotation.PostConstruct;
+
+/**
+ * Prices are kept on the current thread until the pricing considerations on the thread are replaced, so a sku is 
+ * priced at most once per request no matter how many times its prices are read. In addition, the prices are shared 
+ * between requests when every pricing consideration can be reduced to a stable key (see 
+ * {@link #getConsiderationKey(Object)}). Considerations that cannot be keyed, such as arbitrary domain objects, 
+ * only disable the shared cache for that request.
+ * 
+ * Shared prices expire after <code>dynamic.sku.price.cache.ttl</code> milliseconds and may be invalidated 
+ * explicitly, e.g. after a price list change. A ttl of 0 disables the shared cache.
+ */
+@Service("blDynamicSkuPriceCache")
+@ManagedResource(objectName="org.broadleafcommerce:name=DynamicSkuPriceCache", description="Dynamic Sku Price Cache", currencyTimeLimit=15)
+public class DynamicSkuPriceCacheImpl implements DynamicSkuPriceCache {
+
+    private static final Log LOG = LogFactory.getLog(DynamicSkuPriceCacheImpl.class);
+
+    private static DynamicSkuPriceCache PRICE_CACHE;
+
+    /**
+     * @return the price cache of the running application, or null when outside of a Spring context
+     */
+    public static DynamicSkuPriceCache getPriceCache() {
+        return PRICE_CACHE;
+    }
+
+    @Value("${dynamic.sku.price.cache.ttl}")
+    protected long ttl = 60000;
+
+    @Value("${dynamic.sku.price.cache.maximumSize}")
+    protected long maximumSize = 100000;
+
+    protected volatile Cache<SkuPriceKey, DynamicSkuPrices> priceCache;
+
+    protected final ThreadLocal<RequestPrices> requestPrices = new ThreadLocal<RequestPrices>();
+
+    @PostConstruct
+    public void init() {
+        PRICE_CACHE = this;
+    }
+
+    @Override
+    public DynamicSkuPrices getSkuPrices(Sku sku) {
+        RequestPrices current = getRequestPrices();
+        if (current == null) {
+            return null;
+        }
+        sku = unwrap(sku);
+        if (sku.getId() == null) {
+            return current.service.getSkuPrices(createPricingProxy(sku), current.considerations);
+        }
+
+        DynamicSkuPrices prices = current.prices.get(sku.getId());
+        if (prices == null) {
+            prices = getSharedPrices(current, sku.getId());
+            if (prices == null) {
+                prices = current.service.getSkuPrices(createPricingProxy(sku), current.considerations);
+                putSharedPrices(current, sku.getId(), prices);
+            }
+            current.prices.put(sku.getId(), prices);
+        }
+        return prices;
+    }
+
+    @Override
+    public void prefetchSkuPrices(Collection<Sku> skus) {
+        RequestPrices current = getRequestPrices();
+        if (current == null || skus == null || skus.isEmpty()) {
+            return;
+        }
+
+        Map<Long, Sku> missing = new LinkedHashMap<Long, Sku>();
+        for (Sku sku : skus) {
+            if (sku == null || sku.getId() == null || current.prices.containsKey(sku.getId()) 
+                    || missing.containsKey(sku.getId())) {
+                continue;
+            }
+            DynamicSkuPrices prices = getSharedPrices(current, sku.getId());
+            if (prices != null) {
+                current.prices.put(sku.getId(), prices);
+            } else {
+                missing.put(sku.getId(), createPricingProxy(unwrap(sku)));
+            }
+        }
+        if (missing.isEmpty()) {
+            return;
+        }
+
+        Map<Long, DynamicSkuPrices> fetched = current.service.getSkuPrices(missing.values(), current.considerations);
+        for (Map.Entry<Long, DynamicSkuPrices> entry : fetched.entrySet()) {
+            if (entry.getKey() != null && entry.getValue() != null) {
+                current.prices.put(entry.getKey(), entry.getValue());
+                putSharedPrices(current, entry.getKey(), entry.getValue());
+            }
+        }
+        if (LOG.isDebugEnabled()) {
+            LOG.debug(String.format("Prefetched the dynamic prices of [%s] skus", fetched.size()));
+        }
+    }
+
+    @Override
+    public void prefetchProductPrices(Collection<Product> products) {
+        if (products == null || products.isEmpty() || !SkuPricingConsiderationContext.hasDynamicPricing()) {
+            return;
+        }
+        List<Sku> skus = new ArrayList<Sku>(products.size());
+        for (Product product : products) {
+            if (product != null && product.getDefaultSku() != null) {
+                skus.add(product.getDefaultSku());
+            }
+        }
+        prefetchSkuPrices(skus);
+    }
+
+    @Override
+    @ManagedOperation(description="Removes the cached prices of a sku for all pricing considerations")
+    @ManagedOperationParameters({
+        @ManagedOperationParameter(name="skuId", description="The id of the sku")
+    })
+    public void invalidate(Long skuId) {
+        if (skuId == null || priceCache == null) {
+            return;
+        }
+        Iterator<SkuPriceKey> keys = priceCache.asMap().keySet().iterator();
+        while (keys.hasNext()) {
+            if (skuId.equals(keys.next().skuId)) {
+                keys.remove();
+            }
+        }
+    }
+
+    @Override
+    @ManagedOperation(description="Removes every cached price")
+    public void invalidateAll() {
+        if (priceCache != null) {
+            priceCache.invalidateAll();
+        }
+    }
+
+    @Override
+    public void clearRequestPrices() {
+        requestPrices.remove();
+    }
+
+    /**
+     * @return the prices of the current request, replacing them if the pricing considerations or the pricing 
+     * service on the thread have changed, or null if dynamic pricing is not active
+     */
+    @SuppressWarnings("rawtypes")
+    protected RequestPrices getRequestPrices() {
+        if (!SkuPricingConsiderationContext.hasDynamicPricing()) {
+            return null;
+        }
+        HashMap considerations = SkuPricingConsiderationContext.getSkuPricingConsiderationContext();
+        DynamicSkuPricingService service = SkuPricingConsiderationContext.getSkuPricingService();
+        RequestPrices current = requestPrices.get();
+        if (current == null || current.considerations != considerations || current.service != service) {
+            current = new RequestPrices(considerations, service, isSharedCacheEnabled() ? buildContextKey(service, considerations) : null);
+            requestPrices.set(current);
+        }
+        return current;
+    }
+
+    protected DynamicSkuPrices getSharedPrices(RequestPrices current, Long skuId) {
+        if (current.contextKey == null) {
+            return null;
+        }
+        return getPriceCacheInstance().getIfPresent(new SkuPriceKey(skuId, current.contextKey));
+    }
+
+    protected void putSharedPrices(RequestPrices current, Long skuId, DynamicSkuPrices prices) {
+        if (current.contextKey != null && prices != null) {
+            getPriceCacheInstance().put(new SkuPriceKey(skuId, current.contextKey), prices);
+        }
+    }
+
+    /**
+     * Builds a key for the given considerations that is equal for every request that would be priced the same. The
+     * map is sorted by key so that the result does not depend on insertion order.
+     * 
+     * @return the key, or null if any of the considerations cannot be keyed
+     */
+    @SuppressWarnings("rawtypes")
+    protected String buildContextKey(DynamicSkuPricingService service, HashMap considerations) {
+        Map<String, Object> sorted = new TreeMap<String, Object>();
+        for (Object entry : considerations.entrySet()) {
+            Map.Entry consideration = (Map.Entry) entry;
+            sorted.put(String.valueOf(consideration.getKey()), consideration.getValue());
+        }
+        StringBuilder sb = new StringBuilder(service.getClass().getName());
+        for (Map.Entry<String, Object> entry : sorted.entrySet()) {
+            String valueKey = getConsiderationKey(entry.getValue());
+            if (valueKey == null) {
+                if (LOG.isTraceEnabled()) {
+                    LOG.trace("Pricing consideration [" + entry.getKey() + "] cannot be keyed, prices will only be " +
+                            "cached for the current request");
+                }
+                return null;
+            }
+            sb.append('|').append(entry.getKey()).append('=').append(valueKey);
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Converts a single pricing consideration into a stable string. Override to support additional value types.
+     * 
+     * @return the key, or null if the value cannot be keyed
+     */
+    @SuppressWarnings("rawtypes")
+    protected String getConsiderationKey(Object value) {
+        if (value == null) {
+            return "null";
+        }
+        if (value instanceof String || value instanceof Number || value instanceof Boolean 
+                || value instanceof Character || value instanceof Enum || value instanceof java.util.Locale) {
+            return value.toString();
+        }
+        if (value instanceof Date) {
+            return String.valueOf(((Date) value).getTime());
+        }
+        if (value instanceof BroadleafEnumerationType) {
+            return value.getClass().getSimpleName() + ':' + ((BroadleafEnumerationType) value).getType();
+        }
+        if (value instanceof BroadleafCurrency) {
+            return "currency:" + ((BroadleafCurrency) value).getCurrencyCode();
+        }
+        if (value instanceof Locale) {
+            return "locale:" + ((Locale) value).getLocaleCode();
+        }
+        if (value instanceof Customer) {
+            Long customerId = ((Customer) value).getId();
+            return customerId == null ? null : "customer:" + customerId;
+        }
+        if (value instanceof Collection) {
+            StringBuilder sb = new StringBuilder("[");
+            for (Object item : (Collection) value) {
+                String itemKey = getConsiderationKey(item);
+                if (itemKey == null) {
+                    return null;
+                }
+                sb.append(itemKey).append(',');
+            }
+            return sb.append(']').toString();
+        }
+        return null;
+    }
+
+    /**
+     * The pricing proxy reads the price fields of the sku directly, so they must be read from the entity itself 
+     * rather than from an uninitialized Hibernate proxy
+     */
+    protected Sku unwrap(Sku sku) {
+        if (sku instanceof HibernateProxy) {
+            return (Sku) ((HibernateProxy) sku).getHibernateLazyInitializer().getImplementation();
+        }
+        return sku;
+    }
+
+    protected Sku createPricingProxy(Sku sku) {
+        DefaultDynamicSkuPricingInvocationHandler handler = new DefaultDynamicSkuPricingInvocationHandler(sku);
+        return (Sku) Proxy.newProxyInstance(sku.getClass().getClassLoader(), ClassUtils.getAllInterfacesForClass(sku.getClass()), handler);
+    }
+
+    protected boolean isSharedCacheEnabled() {
+        return ttl > 0 && maximumSize > 0;
+    }
+
+    protected Cache<SkuPriceKey, DynamicSkuPrices> getPriceCacheInstance() {
+        Cache<SkuPriceKey, DynamicSkuPrices> cache = priceCache;
+        if (cache == null) {
+            synchronized (this) {
+                cache = priceCache;
+                if (cache == null) {
+                    cache = CacheBuilder.newBuilder()
+                            .maximumSize(maximumSize)
+                            .expireAfterWrite(ttl, TimeUnit.MILLISECONDS)
+                            .recordStats()
+                            .build();
+                    priceCache = cache;
+                }
+            }
+        }
+        return cache;
+    }
+
+    @ManagedAttribute(description="The number of prices in the shared cache", currencyTimeLimit=15)
+    public long getCacheSize() {
+        return priceCache == null ? 0 : priceCache.size();
+    }
+
+    @ManagedAttribute(description="The number of shared cache lookups that found a price", currencyTimeLimit=15)
+    public long getHitCount() {
+        return getCacheStats().hitCount();
+    }
+
+    @ManagedAttribute(description="The number of shared cache lookups that had to price the sku", currencyTimeLimit=15)
+    public long getMissCount() {
+        return getCacheStats().missCount();
+    }
+
+    @ManagedAttribute(description="The ratio of shared cache lookups that found a price", currencyTimeLimit=15)
+    public double getHitRate() {
+        return getCacheStats().hitRate();
+    }
+
+    protected CacheStats getCacheStats() {
+        return priceCache == null ? new CacheStats(0, 0, 0, 0, 0, 0) : priceCache.stats();
+    }
+
+    @ManagedAttribute(description="Milliseconds a shared price is kept, 0 disables the shared cache", currencyTimeLimit=15)
+    public long getTtl() {
+        return ttl;
+    }
+
+    public void setTtl(long ttl) {
+        this.ttl = ttl;
+    }
+
+    public long getMaximumSize() {
+        return maximumSize;
+    }
+
+    public void setMaximumSize(long maximumSize) {
+        this.maximumSize = maximumSize;
+    }
+
+    /**
+     * The prices of the current request along with the considerations and service they were computed with
+     */
+    protected static class RequestPrices {
+
+        @SuppressWarnings("rawtypes")
+        protected final HashMap considerations;
+        protected final DynamicSkuPricingService service;
+        protected final String contextKey;
+        protected final Map<Long, DynamicSkuPrices> prices = new HashMap<Long, DynamicSkuPrices>();
+
+        @SuppressWarnings("rawtypes")
+        public RequestPrices(HashMap considerations, DynamicSkuPricingService service, String contextKey) {
+            this.considerations = considerations;
+            this.service = service;
+            this.contextKey = contextKey;
+        }
+    }
+
+    /**
+     * Shared cache key made of the sku id and the key of the pricing considerations
+     */
+    protected static class SkuPriceKey {
+
+        protected final Long skuId;
+        protected final String contextKey;
+
+        public SkuPriceKey(Long skuId, String contextKey) {
+            this.skuId = skuId;
+            this.contextKey = contextKey;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof SkuPriceKey)) return false;
+            SkuPriceKey that = (SkuPriceKey) o;
+            return skuId.equals(that.skuId) && contextKey.equals(that.contextKey);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * skuId.hashCode() + contextKey.hashCode();
+        }
+    }
+
+}
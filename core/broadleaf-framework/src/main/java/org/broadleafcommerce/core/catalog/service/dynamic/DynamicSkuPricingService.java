@@ -22,7 +22,9 @@ import org.broadleafcommerce.core.catalog.domain.Sku;
 import org.broadleafcommerce.core.catalog.domain.SkuBundleItem;
 
 import javax.annotation.Nonnull;
+import java.util.Collection;
 import java.util.HashMap;
+import java.util.Map;
 
 /**
  * <p>Interface for calculating dynamic pricing for a {@link Sku}. This should be hooked up via a custom subclass of 
@@ -51,6 +53,19 @@ public interface DynamicSkuPricingService {
     @SuppressWarnings("rawtypes")
     public DynamicSkuPrices getSkuPrices(Sku sku, HashMap skuPricingConsiderations);
 
+    /**
+     * Prices several skus against the same considerations at once. Implementations backed by an external pricing
+     * engine should override this to make a single request for the whole collection. Used by the 
+     * {@link DynamicSkuPriceCache} to prefetch the prices of a page of products.
+     * 
+     * @param skus
+     * @param skuPricingConsiderations
+     * @return the prices of each of the given skus, keyed by sku id
+     */
+    @Nonnull
+    @SuppressWarnings("rawtypes")
+    public Map<Long, DynamicSkuPrices> getSkuPrices(Collection<Sku> skus, HashMap skuPricingConsiderations);
+
     /**
      * Used for t
      * 
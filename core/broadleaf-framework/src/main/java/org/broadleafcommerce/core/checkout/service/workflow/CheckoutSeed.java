@@ -21,10 +21,11 @@ import org.broadleafcommerce.core.payment.domain.PaymentInfo;
 import org.broadleafcommerce.core.payment.domain.Referenced;
 import org.broadleafcommerce.core.payment.service.module.PaymentResponse;
 import org.broadleafcommerce.core.payment.service.module.PaymentResponseImpl;
+import org.broadleafcommerce.core.workflow.IdentifiableSeed;
 
 import java.util.Map;
 
-public class CheckoutSeed implements CheckoutResponse {
+public class CheckoutSeed implements CheckoutResponse, IdentifiableSeed {
 
     private Map<PaymentInfo, Referenced> infos;
     private Order order;
@@ -56,4 +57,9 @@ public class CheckoutSeed implements CheckoutResponse {
     public Map<String, Object> getUserDefinedFields() {
         return userDefinedFields;
     }
+
+    @Override
+    public String getSeedIdentifier() {
+        return order == null ? null : "order id [" + order.getId() + "]";
+    }
 }
@@ -0,0 +1,45 @@
+/*
+ * Copyright 2008-2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.broadleafcommerce.core.checkout.service.workflow;
+
+import org.broadleafcommerce.core.inventory.service.InventoryReservationService;
+import org.broadleafcommerce.core.workflow.BaseActivity;
+
+import javax.annotation.Resource;
+
+/**
+ * Removes the units of the order from stock before payment is taken. Checkout fails with an
+ * {@link org.broadleafcommerce.core.inventory.service.InventoryUnavailableException} if any sku does not have
+ * enough units on hand, and the units are added back if a later activity fails.
+ */
+public class CommitInventoryActivity extends BaseActivity<CheckoutContext> {
+
+    @Resource(name = "blInventoryReservationService")
+    protected InventoryReservationService inventoryReservationService;
+
+    public CommitInventoryActivity() {
+        super();
+        //We can automatically register a rollback handler because the state will be in the process context.
+        super.setAutomaticallyRegisterRollbackHandler(true);
+    }
+
+    @Override
+    public CheckoutContext execute(CheckoutContext context) throws Exception {
+        inventoryReservationService.commitInventory(context.getSeedData().getOrder());
+        return context;
+    }
+
+}
@@ -29,7 +29,8 @@ public class PricingServiceActivity extends BaseActivity<CheckoutContext> {
     @Override
     public CheckoutContext execute(CheckoutContext context) throws Exception {
         CheckoutSeed seed = context.getSeedData();
-        Order order = pricingService.executePricing(seed.getOrder());
+        // The order is always priced again at checkout, since its fingerprint does not cover changes outside of it
+        Order order = pricingService.executePricing(seed.getOrder(), false);
         seed.setOrder(order);
 
         return context;
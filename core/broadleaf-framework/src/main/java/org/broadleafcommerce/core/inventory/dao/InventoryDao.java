@@ -0,0 +1,82 @@
+/*
+ * Copyright 2008-2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.broadleafcommerce.core.inventory.dao;
+
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Stock queries used by {@link org.broadleafcommerce.core.inventory.service.InventoryReservationService}. Only the 
+ * location-independent availability record of a sku is read or changed.
+ */
+public interface InventoryDao {
+
+    /**
+     * @param skuIds
+     * @return the quantity on hand minus the reserve quantity of each of the given skus that has a quantity on hand
+     */
+    public Map<Long, Integer> readAvailableQuantities(List<Long> skuIds);
+
+    /**
+     * @param skuId
+     * @return the quantity on hand of the sku, or null if it does not have one
+     */
+    public Integer readQuantityOnHand(Long skuId);
+
+    /**
+     * Atomically removes units from the quantity on hand of a sku. Nothing is changed if fewer units are on hand.
+     *
+     * @param skuId
+     * @param quantity
+     * @return whether or not the quantity on hand was decremented
+     */
+    public boolean decrementQuantityOnHand(Long skuId, int quantity);
+
+    /**
+     * Adds units back to the quantity on hand of a sku
+     *
+     * @param skuId
+     * @param quantity
+     */
+    public void incrementQuantityOnHand(Long skuId, int quantity);
+
+    /**
+     * Adds the given delta, which may be negative, to the reserve quantity of a sku
+     *
+     * @param skuId
+     * @param delta
+     */
+    public void updateReserveQuantity(Long skuId, int delta);
+
+    /**
+     * Sums the quantities of every sku in the carts that have been changed since the given date, including the skus 
+     * that are part of bundles
+     *
+     * @param updatedSince
+     * @return the quantity of each sku held by those carts
+     */
+    public Map<Long, Integer> readCartQuantities(Date updatedSince);
+
+    /**
+     * Sets the reserve quantity of every sku that has a quantity on hand, using zero for the skus that are not in 
+     * the given map
+     *
+     * @param reserveQuantities
+     */
+    public void replaceReserveQuantities(Map<Long, Integer> reserveQuantities);
+
+}
@@ -0,0 +1,114 @@
+/*
+ * Copyright 2008-2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.broadleafcommerce.core.inventory.dao;
+
+import org.broadleafcommerce.common.util.dao.BatchRetrieveDao;
+import org.broadleafcommerce.core.order.service.type.OrderStatus;
+import org.springframework.stereotype.Repository;
+
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import javax.persistence.Query;
+
+@Repository("blInventoryDao")
+public class InventoryDaoImpl extends BatchRetrieveDao implements InventoryDao {
+
+    @PersistenceContext(unitName = "blPU")
+    protected EntityManager em;
+
+    @Override
+    public Map<Long, Integer> readAvailableQuantities(List<Long> skuIds) {
+        Query query = em.createNamedQuery("BC_READ_SKU_AVAILABLE_QUANTITIES");
+        List<Object[]> results = batchExecuteReadQuery(query, skuIds, "skuIds");
+        Map<Long, Integer> available = new HashMap<Long, Integer>();
+        for (Object[] result : results) {
+            int quantityOnHand = ((Number) result[1]).intValue();
+            int reserveQuantity = result[2] == null ? 0 : ((Number) result[2]).intValue();
+            available.put((Long) result[0], quantityOnHand - reserveQuantity);
+        }
+        return available;
+    }
+
+    @Override
+    public Integer readQuantityOnHand(Long skuId) {
+        Query query = em.createNamedQuery("BC_READ_SKU_QUANTITY_ON_HAND");
+        query.setParameter("skuId", skuId);
+        List<?> results = query.getResultList();
+        return results.isEmpty() || results.get(0) == null ? null : ((Number) results.get(0)).intValue();
+    }
+
+    @Override
+    public boolean decrementQuantityOnHand(Long skuId, int quantity) {
+        Query query = em.createNamedQuery("BC_DECREMENT_SKU_QUANTITY_ON_HAND");
+        query.setParameter("skuId", skuId);
+        query.setParameter("quantity", quantity);
+        return query.executeUpdate() > 0;
+    }
+
+    @Override
+    public void incrementQuantityOnHand(Long skuId, int quantity) {
+        Query query = em.createNamedQuery("BC_INCREMENT_SKU_QUANTITY_ON_HAND");
+        query.setParameter("skuId", skuId);
+        query.setParameter("quantity", quantity);
+        query.executeUpdate();
+    }
+
+    @Override
+    public void updateReserveQuantity(Long skuId, int delta) {
+        Query query = em.createNamedQuery("BC_UPDATE_SKU_RESERVE_QUANTITY");
+        query.setParameter("skuId", skuId);
+        query.setParameter("delta", delta);
+        query.executeUpdate();
+    }
+
+    @Override
+    public Map<Long, Integer> readCartQuantities(Date updatedSince) {
+        Map<Long, Integer> quantities = new HashMap<Long, Integer>();
+        addCartQuantities(quantities, "BC_READ_CART_SKU_QUANTITIES", updatedSince);
+        addCartQuantities(quantities, "BC_READ_CART_BUNDLED_SKU_QUANTITIES", updatedSince);
+        return quantities;
+    }
+
+    protected void addCartQuantities(Map<Long, Integer> quantities, String queryName, Date updatedSince) {
+        Query query = em.createNamedQuery(queryName);
+        query.setParameter("status", OrderStatus.IN_PROCESS.getType());
+        query.setParameter("updatedSince", updatedSince);
+        @SuppressWarnings("unchecked")
+        List<Object[]> results = query.getResultList();
+        for (Object[] result : results) {
+            Long skuId = (Long) result[0];
+            Integer quantity = quantities.get(skuId);
+            quantities.put(skuId, (quantity == null ? 0 : quantity) + ((Number) result[1]).intValue());
+        }
+    }
+
+    @Override
+    public void replaceReserveQuantities(Map<Long, Integer> reserveQuantities) {
+        em.createNamedQuery("BC_CLEAR_SKU_RESERVE_QUANTITIES").executeUpdate();
+        for (Map.Entry<Long, Integer> entry : reserveQuantities.entrySet()) {
+            Query query = em.createNamedQuery("BC_SET_SKU_RESERVE_QUANTITY");
+            query.setParameter("skuId", entry.getKey());
+            query.setParameter("quantity", entry.getValue());
+            query.executeUpdate();
+        }
+    }
+
+}
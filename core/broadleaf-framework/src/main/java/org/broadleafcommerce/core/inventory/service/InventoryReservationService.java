@@ -0,0 +1,103 @@
+/*
+ * Copyright 2008-2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.broadleafcommerce.core.inventory.service;
+
+import org.broadleafcommerce.core.order.domain.Order;
+
+import java.util.Map;
+
+/**
+ * Reserves inventory for carts and removes it from stock when an order is checked out.
+ *
+ * Only skus with a location-independent availability record that has a quantity on hand are tracked. Every other sku is treated as always available.
+ *
+ * A reservation holds units for an order while it is a cart. Reservations are kept in memory and expire when the
+ * cart has not been changed for a while. The database is only authoritative when the order is committed: the
+ * quantity on hand is then decremented with a conditional update, which fails rather than going below zero.
+ */
+public interface InventoryReservationService {
+
+    /**
+     * Brings the units reserved for the order in line with the quantities of its order items. Additional units
+     * are only reserved if all of them are available, in which case units that are no longer needed are
+     * released as well.
+     *
+     * @param order
+     * @return the change in reserved units for each sku, which can be passed to
+     * {@link #revertReservation(Long, Map)}
+     * @throws InventoryUnavailableException if one of the skus does not have enough available units
+     */
+    public Map<Long, Integer> reserveInventory(Order order) throws InventoryUnavailableException;
+
+    /**
+     * Undoes a change made by {@link #reserveInventory(Order)}. Units that were released are only reserved
+     * again if they are still available.
+     *
+     * @param orderId
+     * @param reservationDelta
+     */
+    public void revertReservation(Long orderId, Map<Long, Integer> reservationDelta);
+
+    /**
+     * Releases every unit reserved for the order
+     *
+     * @param orderId
+     */
+    public void releaseReservation(Long orderId);
+
+    /**
+     * Removes the units of the order from the quantity on hand and releases its reservation. Either every sku is
+     * decremented or none is. The update runs in its own transaction; use {@link #revertCommit(Order)} to undo it.
+     *
+     * @param order
+     * @throws InventoryUnavailableException if one of the skus does not have enough units on hand
+     */
+    public void commitInventory(Order order) throws InventoryUnavailableException;
+
+    /**
+     * Adds the units of an order that was committed with {@link #commitInventory(Order)} back to the quantity
+     * on hand.
+     *
+     * @param order
+     */
+    public void revertCommit(Order order);
+
+    /**
+     * @param skuId
+     * @return the number of units that can currently be reserved, or null if the sku is not tracked
+     */
+    public Integer getAvailableQuantity(Long skuId);
+
+    /**
+     * Writes the pending changes to the reserved quantities to the database
+     */
+    public void flushReserveQuantities();
+
+    /**
+     * Releases every reservation that has not been changed within the reservation timeout
+     *
+     * @return the number of reservations that were released
+     */
+    public int releaseExpiredReservations();
+
+    /**
+     * Recomputes the reserve quantities in the database from the carts that have been changed within the reservation
+     * timeout. This releases the units held by reservations that were lost, for example when a node stopped without
+     * releasing them.
+     */
+    public void reconcileReserveQuantities();
+
+}
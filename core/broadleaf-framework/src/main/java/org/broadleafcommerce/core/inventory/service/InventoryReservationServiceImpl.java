@@ -0,0 +1,673 @@
+/*
+ * Copyright 2008-2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.broadleafcommerce.core.inventory.service;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.broadleafcommerce.common.time.SystemTime;
+import org.broadleafcommerce.core.inventory.dao.InventoryDao;
+import org.broadleafcommerce.core.order.domain.BundleOrderItem;
+import org.broadleafcommerce.core.order.domain.DiscreteOrderItem;
+import org.broadleafcommerce.core.order.domain.Order;
+import org.broadleafcommerce.core.order.domain.OrderItem;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationListener;
+import org.springframework.context.event.ContextRefreshedEvent;
+import org.springframework.jmx.export.annotation.ManagedAttribute;
+import org.springframework.jmx.export.annotation.ManagedOperation;
+import org.springframework.jmx.export.annotation.ManagedResource;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.DefaultTransactionDefinition;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.annotation.PreDestroy;
+import javax.annotation.Resource;
+
+/**
+ * Keeps a {@link StripedInventoryCounter} for every tracked sku that has been reserved, initialized with the quantity
+ * on hand minus the reserve quantity of its availability record. Reserving and releasing units only
+ * touches these counters. The resulting changes to the reserve quantities are written to the database in batches
+ * every <code>inventory.reservation.flush.interval</code> milliseconds, and the counters are brought back in line
+ * with the database every <code>inventory.reservation.refresh.interval</code> milliseconds to pick up changes made
+ * by other nodes or in the admin.
+ *
+ * Because the counters are local to a node, a reservation is a strong hint rather than a guarantee across a
+ * cluster. Overselling is prevented by {@link #commitInventory(Order)}, which decrements the quantity on hand with
+ * a conditional update.
+ *
+ * Reservations that were written to the database by a node that stopped without releasing them would otherwise 
+ * stay reserved for good. The reserve quantities are therefore recomputed from the carts that still hold a 
+ * reservation, i.e. the carts changed within the reservation timeout, when the application starts and every
+ * <code>inventory.reservation.reconcile.interval</code> milliseconds, see {@link #reconcileReserveQuantities()}.
+ * While this service is enabled, it owns the reserve quantity of the location-independent availability records.
+ */
+@Service("blInventoryReservationService")
+@ManagedResource(objectName="org.broadleafcommerce:name=InventoryReservationService", description="Inventory Reservation Service", currencyTimeLimit=15)
+public class InventoryReservationServiceImpl implements InventoryReservationService, ApplicationListener<ContextRefreshedEvent> {
+
+    private static final Log LOG = LogFactory.getLog(InventoryReservationServiceImpl.class);
+
+    @Value("${inventory.reservation.enabled}")
+    protected boolean enabled = false;
+
+    @Value("${inventory.reservation.stripes}")
+    protected int stripeCount = 8;
+
+    @Value("${inventory.reservation.timeout}")
+    protected long reservationTimeout = 1800000;
+
+    @Value("${inventory.reservation.refresh.interval}")
+    protected long refreshInterval = 60000;
+
+    @Value("${inventory.reservation.reconcile.interval}")
+    protected long reconcileInterval = 3600000;
+
+    @Resource(name = "blInventoryDao")
+    protected InventoryDao inventoryDao;
+
+    @Resource(name = "blTransactionManager")
+    protected PlatformTransactionManager transactionManager;
+
+    protected final ConcurrentMap<Long, StripedInventoryCounter> counters = new ConcurrentHashMap<Long, StripedInventoryCounter>();
+    protected final Set<Long> untrackedSkuIds = Collections.newSetFromMap(new ConcurrentHashMap<Long, Boolean>());
+    protected final ConcurrentMap<Long, OrderReservation> reservations = new ConcurrentHashMap<Long, OrderReservation>();
+
+    protected volatile long lastRefreshTime = SystemTime.asMillis();
+    protected volatile long lastReconcileTime = SystemTime.asMillis();
+
+    protected final AtomicLong rejectedCount = new AtomicLong();
+    protected final AtomicLong committedCount = new AtomicLong();
+    protected final AtomicLong revertedCount = new AtomicLong();
+    protected final AtomicLong expiredCount = new AtomicLong();
+    protected final AtomicLong flushedCount = new AtomicLong();
+
+    @Override
+    public Map<Long, Integer> reserveInventory(Order order) throws InventoryUnavailableException {
+        if (!enabled || order.getId() == null) {
+            return Collections.emptyMap();
+        }
+
+        Map<Long, Integer> required = collectSkuQuantities(order);
+        while (true) {
+            OrderReservation reservation = getOrCreateReservation(order.getId(), !required.isEmpty());
+            if (reservation == null) {
+                return Collections.emptyMap();
+            }
+            synchronized (reservation) {
+                if (reservation.released) {
+                    // The reservation expired while we were waiting for it
+                    continue;
+                }
+
+                Set<Long> skuIds = new HashSet<Long>(required.keySet());
+                skuIds.addAll(reservation.quantities.keySet());
+                Map<Long, Integer> delta = new HashMap<Long, Integer>();
+                for (Long skuId : skuIds) {
+                    int diff = getQuantity(required, skuId) - getQuantity(reservation.quantities, skuId);
+                    if (diff > 0) {
+                        StripedInventoryCounter counter = getCounter(skuId);
+                        if (counter == null) {
+                            continue;
+                        }
+                        if (!counter.tryAcquire(diff)) {
+                            for (Map.Entry<Long, Integer> entry : delta.entrySet()) {
+                                if (entry.getValue() > 0) {
+                                    counters.get(entry.getKey()).release(entry.getValue());
+                                }
+                            }
+                            rejectedCount.incrementAndGet();
+                            throw new InventoryUnavailableException(skuId, getQuantity(required, skuId),
+                                    getQuantity(reservation.quantities, skuId) + counter.getAvailable());
+                        }
+                        delta.put(skuId, diff);
+                    } else if (diff < 0) {
+                        delta.put(skuId, diff);
+                    }
+                }
+
+                for (Map.Entry<Long, Integer> entry : delta.entrySet()) {
+                    applyReservationChange(reservation, entry.getKey(), entry.getValue(), entry.getValue() < 0);
+                }
+                reservation.lastUpdated = SystemTime.asMillis();
+                removeIfEmpty(order.getId(), reservation);
+                return delta;
+            }
+        }
+    }
+
+    @Override
+    public void revertReservation(Long orderId, Map<Long, Integer> reservationDelta) {
+        if (!enabled || reservationDelta == null || reservationDelta.isEmpty()) {
+            return;
+        }
+        while (true) {
+            OrderReservation reservation = getOrCreateReservation(orderId, true);
+            synchronized (reservation) {
+                if (reservation.released) {
+                    continue;
+                }
+                for (Map.Entry<Long, Integer> entry : reservationDelta.entrySet()) {
+                    int diff = -entry.getValue();
+                    if (diff < 0) {
+                        diff = -Math.min(-diff, getQuantity(reservation.quantities, entry.getKey()));
+                        applyReservationChange(reservation, entry.getKey(), diff, true);
+                    } else if (diff > 0) {
+                        StripedInventoryCounter counter = getCounter(entry.getKey());
+                        if (counter != null && counter.tryAcquire(diff)) {
+                            applyReservationChange(reservation, entry.getKey(), diff, false);
+                        }
+                    }
+                }
+                removeIfEmpty(orderId, reservation);
+                return;
+            }
+        }
+    }
+
+    @Override
+    public void releaseReservation(Long orderId) {
+        if (orderId == null) {
+            return;
+        }
+        OrderReservation reservation = reservations.remove(orderId);
+        if (reservation != null) {
+            release(reservation);
+        }
+    }
+
+    @Override
+    public void commitInventory(Order order) throws InventoryUnavailableException {
+        if (!enabled || order.getId() == null) {
+            return;
+        }
+
+        // Always update the rows in the same order so that concurrent checkouts cannot deadlock
+        Map<Long, Integer> committed = new TreeMap<Long, Integer>();
+        for (Map.Entry<Long, Integer> entry : collectSkuQuantities(order).entrySet()) {
+            if (getCounter(entry.getKey()) != null) {
+                committed.put(entry.getKey(), entry.getValue());
+            }
+        }
+
+        if (!committed.isEmpty()) {
+            Long unavailableSkuId = null;
+            TransactionStatus status = transactionManager.getTransaction(getTransactionDefinition("commitInventory", false));
+            try {
+                for (Map.Entry<Long, Integer> entry : committed.entrySet()) {
+                    if (!inventoryDao.decrementQuantityOnHand(entry.getKey(), entry.getValue())) {
+                        unavailableSkuId = entry.getKey();
+                        break;
+                    }
+                }
+                if (unavailableSkuId == null) {
+                    transactionManager.commit(status);
+                } else {
+                    transactionManager.rollback(status);
+                }
+            } catch (RuntimeException e) {
+                if (!status.isCompleted()) {
+                    transactionManager.rollback(status);
+                }
+                throw e;
+            }
+
+            if (unavailableSkuId != null) {
+                rejectedCount.incrementAndGet();
+                throw new InventoryUnavailableException(unavailableSkuId, committed.get(unavailableSkuId),
+                        readQuantityOnHand(unavailableSkuId));
+            }
+        }
+
+        // The units are gone from stock now, so the reservation no longer has to hold them
+        OrderReservation reservation = reservations.remove(order.getId());
+        Map<Long, Integer> held = new HashMap<Long, Integer>();
+        if (reservation != null) {
+            synchronized (reservation) {
+                reservation.released = true;
+                held.putAll(reservation.quantities);
+                reservation.quantities.clear();
+            }
+        }
+        Set<Long> skuIds = new HashSet<Long>(committed.keySet());
+        skuIds.addAll(held.keySet());
+        for (Long skuId : skuIds) {
+            StripedInventoryCounter counter = counters.get(skuId);
+            if (counter == null) {
+                continue;
+            }
+            int heldQuantity = getQuantity(held, skuId);
+            counter.addPendingReserveDelta(-heldQuantity);
+            counter.adjust(heldQuantity - getQuantity(committed, skuId));
+        }
+        committedCount.incrementAndGet();
+    }
+
+    @Override
+    public void revertCommit(Order order) {
+        if (!enabled || order.getId() == null) {
+            return;
+        }
+
+        Map<Long, Integer> committed = new TreeMap<Long, Integer>();
+        for (Map.Entry<Long, Integer> entry : collectSkuQuantities(order).entrySet()) {
+            if (getCounter(entry.getKey()) != null) {
+                committed.put(entry.getKey(), entry.getValue());
+            }
+        }
+        if (committed.isEmpty()) {
+            return;
+        }
+
+        TransactionStatus status = transactionManager.getTransaction(getTransactionDefinition("revertInventoryCommit", false));
+        try {
+            for (Map.Entry<Long, Integer> entry : committed.entrySet()) {
+                inventoryDao.incrementQuantityOnHand(entry.getKey(), entry.getValue());
+            }
+            transactionManager.commit(status);
+        } catch (RuntimeException e) {
+            if (!status.isCompleted()) {
+                transactionManager.rollback(status);
+            }
+            throw e;
+        }
+
+        for (Map.Entry<Long, Integer> entry : committed.entrySet()) {
+            counters.get(entry.getKey()).release(entry.getValue());
+        }
+        revertedCount.incrementAndGet();
+    }
+
+    @Override
+    public Integer getAvailableQuantity(Long skuId) {
+        StripedInventoryCounter counter = getCounter(skuId);
+        return counter == null ? null : counter.getAvailable();
+    }
+
+    @Scheduled(fixedDelayString = "${inventory.reservation.flush.interval}")
+    public void processScheduledFlush() {
+        if (!enabled || counters.isEmpty()) {
+            return;
+        }
+        try {
+            flushReserveQuantities();
+            if (SystemTime.asMillis() - lastRefreshTime >= refreshInterval) {
+                refreshCounters();
+            }
+        } catch (Exception e) {
+            LOG.error("Unable to write reserved inventory to the database. The changes will be retried on the next run.", e);
+        }
+    }
+
+    @Override
+    @ManagedOperation(description="Writes the pending reserve quantity changes to the database")
+    public void flushReserveQuantities() {
+        Map<Long, Integer> deltas = new TreeMap<Long, Integer>();
+        for (StripedInventoryCounter counter : counters.values()) {
+            int delta = counter.drainPendingReserveDelta();
+            if (delta != 0) {
+                deltas.put(counter.getSkuId(), delta);
+            }
+        }
+        if (deltas.isEmpty()) {
+            return;
+        }
+
+        TransactionStatus status = transactionManager.getTransaction(getTransactionDefinition("flushReserveQuantities", false));
+        try {
+            for (Map.Entry<Long, Integer> entry : deltas.entrySet()) {
+                inventoryDao.updateReserveQuantity(entry.getKey(), entry.getValue());
+            }
+            transactionManager.commit(status);
+        } catch (RuntimeException e) {
+            if (!status.isCompleted()) {
+                transactionManager.rollback(status);
+            }
+            for (Map.Entry<Long, Integer> entry : deltas.entrySet()) {
+                StripedInventoryCounter counter = counters.get(entry.getKey());
+                if (counter != null) {
+                    counter.addPendingReserveDelta(entry.getValue());
+                }
+            }
+            throw e;
+        }
+
+        flushedCount.addAndGet(deltas.size());
+        if (LOG.isDebugEnabled()) {
+            LOG.debug(String.format("Wrote reserve quantity changes for [%s] skus", deltas.size()));
+        }
+    }
+
+    /**
+     * Brings every counter in line with the quantity on hand and reserve quantity in the database, minus the
+     * reservations that have not been written yet
+     */
+    @ManagedOperation(description="Reloads the available quantities from the database")
+    public void refreshCounters() {
+        lastRefreshTime = SystemTime.asMillis();
+        List<Long> skuIds = new ArrayList<Long>(counters.keySet());
+        if (skuIds.isEmpty()) {
+            return;
+        }
+        for (Map.Entry<Long, Integer> entry : readAvailableQuantities(skuIds).entrySet()) {
+            StripedInventoryCounter counter = counters.get(entry.getKey());
+            if (counter == null) {
+                continue;
+            }
+            int target = entry.getValue() - counter.getPendingReserveDelta();
+            counter.adjust(target - counter.getAvailable());
+        }
+    }
+
+    @Override
+    public void onApplicationEvent(ContextRefreshedEvent event) {
+        if (!enabled) {
+            return;
+        }
+        try {
+            reconcileReserveQuantities();
+        } catch (Exception e) {
+            LOG.error("Unable to reconcile the reserved inventory on startup", e);
+        }
+    }
+
+    @Override
+    @ManagedOperation(description="Recomputes the reserve quantities in the database from the carts holding a reservation")
+    public void reconcileReserveQuantities() {
+        lastReconcileTime = SystemTime.asMillis();
+        flushReserveQuantities();
+        
+        TransactionStatus status = transactionManager.getTransaction(getTransactionDefinition("reconcileReserveQuantities", false));
+        try {
+            Map<Long, Integer> reserved = inventoryDao.readCartQuantities(new Date(SystemTime.asMillis() - reservationTimeout));
+            inventoryDao.replaceReserveQuantities(reserved);
+            transactionManager.commit(status);
+        } catch (RuntimeException e) {
+            if (!status.isCompleted()) {
+                transactionManager.rollback(status);
+            }
+            throw e;
+        }
+        refreshCounters();
+    }
+
+    @Scheduled(fixedDelayString = "${inventory.reservation.expiry.interval}")
+    public void processScheduledExpiry() {
+        if (!enabled) {
+            return;
+        }
+        int released = releaseExpiredReservations();
+        if (released > 0 && LOG.isDebugEnabled()) {
+            LOG.debug(String.format("Released [%s] expired inventory reservations", released));
+        }
+        if (SystemTime.asMillis() - lastReconcileTime >= reconcileInterval) {
+            try {
+                reconcileReserveQuantities();
+            } catch (Exception e) {
+                LOG.error("Unable to reconcile the reserved inventory. It will be retried on the next run.", e);
+            }
+        }
+    }
+
+    @Override
+    @ManagedOperation(description="Releases every reservation that has timed out")
+    public int releaseExpiredReservations() {
+        long cutoff = SystemTime.asMillis() - reservationTimeout;
+        int released = 0;
+        for (Map.Entry<Long, OrderReservation> entry : reservations.entrySet()) {
+            OrderReservation reservation = entry.getValue();
+            if (reservation.lastUpdated < cutoff && reservations.remove(entry.getKey(), reservation)) {
+                release(reservation);
+                released++;
+            }
+        }
+        expiredCount.addAndGet(released);
+        return released;
+    }
+
+    /**
+     * Writes the outstanding changes and drops every counter, so the next reservation of a sku reloads it
+     */
+    @ManagedOperation(description="Reloads every counter from the database the next time it is used")
+    public void invalidateCounters() {
+        flushReserveQuantities();
+        counters.clear();
+        untrackedSkuIds.clear();
+    }
+
+    /**
+     * Reservations are only held in memory, so they are released on shutdown. Otherwise the units would stay
+     * reserved in the database.
+     */
+    @PreDestroy
+    public void shutdown() {
+        if (!enabled) {
+            return;
+        }
+        for (Long orderId : new ArrayList<Long>(reservations.keySet())) {
+            releaseReservation(orderId);
+        }
+        try {
+            flushReserveQuantities();
+        } catch (Exception e) {
+            LOG.error("Unable to write reserved inventory to the database on shutdown", e);
+        }
+    }
+
+    /**
+     * @return the quantity of each sku in the order, including the skus that are part of bundles
+     */
+    protected Map<Long, Integer> collectSkuQuantities(Order order) {
+        Map<Long, Integer> quantities = new HashMap<Long, Integer>();
+        for (OrderItem orderItem : order.getOrderItems()) {
+            if (orderItem instanceof BundleOrderItem) {
+                for (DiscreteOrderItem bundledItem : ((BundleOrderItem) orderItem).getDiscreteOrderItems()) {
+                    addSkuQuantity(quantities, bundledItem, bundledItem.getQuantity() * orderItem.getQuantity());
+                }
+            } else if (orderItem instanceof DiscreteOrderItem) {
+                addSkuQuantity(quantities, (DiscreteOrderItem) orderItem, orderItem.getQuantity());
+            }
+        }
+        return quantities;
+    }
+
+    protected void addSkuQuantity(Map<Long, Integer> quantities, DiscreteOrderItem item, int quantity) {
+        if (item.getSku() == null || item.getSku().getId() == null || quantity <= 0) {
+            return;
+        }
+        quantities.put(item.getSku().getId(), getQuantity(quantities, item.getSku().getId()) + quantity);
+    }
+
+    /**
+     * @return the counter for the sku, loading it on first use, or null if the sku is not tracked
+     */
+    protected StripedInventoryCounter getCounter(Long skuId) {
+        StripedInventoryCounter counter = counters.get(skuId);
+        if (counter != null || untrackedSkuIds.contains(skuId)) {
+            return counter;
+        }
+
+        Integer available = readAvailableQuantities(Collections.singletonList(skuId)).get(skuId);
+        if (available == null) {
+            untrackedSkuIds.add(skuId);
+            return null;
+        }
+        counter = new StripedInventoryCounter(skuId, available, stripeCount);
+        StripedInventoryCounter existing = counters.putIfAbsent(skuId, counter);
+        return existing == null ? counter : existing;
+    }
+
+    protected Map<Long, Integer> readAvailableQuantities(List<Long> skuIds) {
+        TransactionStatus status = transactionManager.getTransaction(getTransactionDefinition("readAvailableQuantities", true));
+        try {
+            Map<Long, Integer> available = inventoryDao.readAvailableQuantities(skuIds);
+            transactionManager.commit(status);
+            return available;
+        } catch (RuntimeException e) {
+            if (!status.isCompleted()) {
+                transactionManager.rollback(status);
+            }
+            throw e;
+        }
+    }
+
+    protected int readQuantityOnHand(Long skuId) {
+        TransactionStatus status = transactionManager.getTransaction(getTransactionDefinition("readQuantityOnHand", true));
+        try {
+            Integer quantityOnHand = inventoryDao.readQuantityOnHand(skuId);
+            transactionManager.commit(status);
+            return quantityOnHand == null ? 0 : quantityOnHand;
+        } catch (RuntimeException e) {
+            if (!status.isCompleted()) {
+                transactionManager.rollback(status);
+            }
+            throw e;
+        }
+    }
+
+    protected OrderReservation getOrCreateReservation(Long orderId, boolean create) {
+        OrderReservation reservation = reservations.get(orderId);
+        if (reservation == null && create) {
+            reservation = new OrderReservation();
+            OrderReservation existing = reservations.putIfAbsent(orderId, reservation);
+            if (existing != null) {
+                reservation = existing;
+            }
+        }
+        return reservation;
+    }
+
+    /**
+     * Changes the units held by the reservation. The caller must hold the lock of the reservation and, for an
+     * increase, must already have acquired the units from the counter.
+     */
+    protected void applyReservationChange(OrderReservation reservation, Long skuId, int diff, boolean releaseUnits) {
+        if (diff == 0) {
+            return;
+        }
+        StripedInventoryCounter counter = counters.get(skuId);
+        if (releaseUnits && counter != null) {
+            counter.release(-diff);
+        }
+        if (counter != null) {
+            counter.addPendingReserveDelta(diff);
+        }
+        int quantity = getQuantity(reservation.quantities, skuId) + diff;
+        if (quantity > 0) {
+            reservation.quantities.put(skuId, quantity);
+        } else {
+            reservation.quantities.remove(skuId);
+        }
+    }
+
+    protected void removeIfEmpty(Long orderId, OrderReservation reservation) {
+        if (reservation.quantities.isEmpty() && reservations.remove(orderId, reservation)) {
+            reservation.released = true;
+        }
+    }
+
+    protected void release(OrderReservation reservation) {
+        synchronized (reservation) {
+            reservation.released = true;
+            for (Map.Entry<Long, Integer> entry : reservation.quantities.entrySet()) {
+                StripedInventoryCounter counter = counters.get(entry.getKey());
+                if (counter != null) {
+                    counter.release(entry.getValue());
+                    counter.addPendingReserveDelta(-entry.getValue());
+                }
+            }
+            reservation.quantities.clear();
+        }
+    }
+
+    protected int getQuantity(Map<Long, Integer> quantities, Long skuId) {
+        Integer quantity = quantities.get(skuId);
+        return quantity == null ? 0 : quantity;
+    }
+
+    /**
+     * Reads join the active transaction, such as the one of a cart operation, so that they see the stock changes 
+     * it has made and do not take a second connection from the pool. Writes run in a transaction of their own.
+     */
+    protected TransactionDefinition getTransactionDefinition(String name, boolean readOnly) {
+        DefaultTransactionDefinition def = new DefaultTransactionDefinition();
+        def.setName(name);
+        def.setReadOnly(readOnly);
+        def.setPropagationBehavior(readOnly ? TransactionDefinition.PROPAGATION_REQUIRED 
+                : TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        return def;
+    }
+
+    @ManagedAttribute(description="The number of skus with an inventory counter")
+    public int getTrackedSkuCount() {
+        return counters.size();
+    }
+
+    @ManagedAttribute(description="The number of orders holding a reservation")
+    public int getReservationCount() {
+        return reservations.size();
+    }
+
+    @ManagedAttribute(description="The number of reservations and commits rejected for lack of inventory")
+    public long getRejectedCount() {
+        return rejectedCount.get();
+    }
+
+    @ManagedAttribute(description="The number of orders whose inventory was committed")
+    public long getCommittedCount() {
+        return committedCount.get();
+    }
+
+    @ManagedAttribute(description="The number of committed orders whose inventory was added back")
+    public long getRevertedCount() {
+        return revertedCount.get();
+    }
+
+    @ManagedAttribute(description="The number of reservations released because they timed out")
+    public long getExpiredCount() {
+        return expiredCount.get();
+    }
+
+    @ManagedAttribute(description="The number of reserve quantity updates written to the database")
+    public long getFlushedCount() {
+        return flushedCount.get();
+    }
+
+    /**
+     * The units reserved for a single order. Guarded by its own monitor.
+     */
+    protected static class OrderReservation {
+        protected final Map<Long, Integer> quantities = new HashMap<Long, Integer>();
+        protected volatile long lastUpdated = SystemTime.asMillis();
+        protected boolean released = false;
+    }
+
+}
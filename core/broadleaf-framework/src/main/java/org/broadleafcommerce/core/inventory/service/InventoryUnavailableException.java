@@ -0,0 +1,49 @@
+/*
+ * Copyright 2008-2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.broadleafcommerce.core.inventory.service;
+
+/**
+ * Thrown when fewer units of a sku are available than an order requires
+ */
+public class InventoryUnavailableException extends Exception {
+
+    private static final long serialVersionUID = 1L;
+
+    protected Long skuId;
+    protected int quantityRequested;
+    protected int quantityAvailable;
+
+    public InventoryUnavailableException(Long skuId, int quantityRequested, int quantityAvailable) {
+        super("Unable to reserve " + quantityRequested + " unit(s) of sku (" + skuId + "), only " +
+                Math.max(0, quantityAvailable) + " unit(s) are available");
+        this.skuId = skuId;
+        this.quantityRequested = quantityRequested;
+        this.quantityAvailable = quantityAvailable;
+    }
+
+    public Long getSkuId() {
+        return skuId;
+    }
+
+    public int getQuantityRequested() {
+        return quantityRequested;
+    }
+
+    public int getQuantityAvailable() {
+        return quantityAvailable;
+    }
+
+}
@@ -0,0 +1,177 @@
+/*
+ * Copyright 2008-2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.broadleafcommerce.core.inventory.service;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * In-memory count of the units of a single sku that can still be reserved. The count is split across several
+ * stripes so that concurrent reservations of a hot sku mostly update different counters instead of retrying on
+ * the same one. Every stripe is only ever decremented with a compare-and-set that cannot take it below zero, so
+ * the counter never hands out more units than it holds, no matter how many threads reserve at once.
+ *
+ * The counter also accumulates the change in reserved units that still has to be written to the
+ * <code>SkuAvailability</code> table, see {@link #drainPendingReserveDelta()}.
+ */
+public class StripedInventoryCounter {
+
+    protected final Long skuId;
+    protected final AtomicInteger[] stripes;
+    protected final AtomicInteger pendingReserveDelta = new AtomicInteger();
+
+    public StripedInventoryCounter(Long skuId, int available, int stripeCount) {
+        this.skuId = skuId;
+        int count = Math.max(1, stripeCount);
+        int units = Math.max(0, available);
+        stripes = new AtomicInteger[count];
+        for (int i = 0; i < count; i++) {
+            stripes[i] = new AtomicInteger(units / count + (i < units % count ? 1 : 0));
+        }
+    }
+
+    /**
+     * Takes the given number of units, or none at all if that many are not available. Units can be held for a moment
+     * by a concurrent reservation that is about to fail and give them back, so a failed pass over the stripes is
+     * retried for as long as enough units remain.
+     *
+     * @param quantity
+     * @return whether or not the units were taken
+     */
+    public boolean tryAcquire(int quantity) {
+        if (quantity <= 0) {
+            return true;
+        }
+        while (!acquireFromStripes(quantity)) {
+            if (getAvailable() < quantity) {
+                return false;
+            }
+            Thread.yield();
+        }
+        return true;
+    }
+
+    /**
+     * Returns units that were previously acquired
+     *
+     * @param quantity
+     */
+    public void release(int quantity) {
+        if (quantity > 0) {
+            stripes[homeStripe()].addAndGet(quantity);
+        }
+    }
+
+    /**
+     * @return the number of units that can currently be reserved
+     */
+    public int getAvailable() {
+        int available = 0;
+        for (AtomicInteger stripe : stripes) {
+            available += stripe.get();
+        }
+        return available;
+    }
+
+    /**
+     * Records a change in the number of reserved units that has not been written to the database yet
+     *
+     * @param delta
+     */
+    public void addPendingReserveDelta(int delta) {
+        if (delta != 0) {
+            pendingReserveDelta.addAndGet(delta);
+        }
+    }
+
+    /**
+     * @return the change in reserved units since the last call, which is reset to zero
+     */
+    public int drainPendingReserveDelta() {
+        return pendingReserveDelta.getAndSet(0);
+    }
+
+    public int getPendingReserveDelta() {
+        return pendingReserveDelta.get();
+    }
+
+    public Long getSkuId() {
+        return skuId;
+    }
+
+    /**
+     * Moves the counter towards a new number of available units, for example after the quantity on hand was
+     * changed in the database. Units that are already being reserved by other threads cannot be taken back, so
+     * the counter may end up with more units than requested when the delta is negative.
+     *
+     * @param delta
+     */
+    public void adjust(int delta) {
+        if (delta > 0) {
+            release(delta);
+        } else if (delta < 0) {
+            takeFromStripes(-delta, new int[stripes.length]);
+        }
+    }
+
+    protected boolean acquireFromStripes(int quantity) {
+        int[] taken = new int[stripes.length];
+        if (takeFromStripes(quantity, taken) > 0) {
+            for (int i = 0; i < stripes.length; i++) {
+                if (taken[i] > 0) {
+                    stripes[i].addAndGet(taken[i]);
+                }
+            }
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Takes up to the given number of units, starting at the stripe of the current thread
+     *
+     * @param quantity
+     * @param taken receives the number of units taken from each stripe
+     * @return the number of units that could not be taken
+     */
+    protected int takeFromStripes(int quantity, int[] taken) {
+        int remaining = quantity;
+        int start = homeStripe();
+        for (int i = 0; i < stripes.length && remaining > 0; i++) {
+            int index = (start + i) % stripes.length;
+            AtomicInteger stripe = stripes[index];
+            while (true) {
+                int current = stripe.get();
+                if (current <= 0) {
+                    break;
+                }
+                int take = Math.min(current, remaining);
+                if (stripe.compareAndSet(current, current - take)) {
+                    taken[index] += take;
+                    remaining -= take;
+                    break;
+                }
+            }
+        }
+        return remaining;
+    }
+
+    protected int homeStripe() {
+        int hash = (int) Thread.currentThread().getId();
+        hash ^= (hash >>> 16);
+        return (hash & Integer.MAX_VALUE) % stripes.length;
+    }
+
+}
@@ -44,7 +44,9 @@ import org.springframework.transaction.annotation.Transactional;
 
 import java.util.ArrayList;
 import java.util.Date;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 
 import javax.annotation.Resource;
 
@@ -139,24 +141,19 @@ public class OfferServiceImpl implements OfferService {
     @Override
     public List<Offer> buildOfferListForOrder(Order order) {
         List<Offer> offers = new ArrayList<Offer>();
+        Set<Long> offerIds = new HashSet<Long>();
         List<CustomerOffer> customerOffers = lookupOfferCustomerByCustomer(order.getCustomer());
         for (CustomerOffer customerOffer : customerOffers) {
-            if (!offers.contains(customerOffer.getOffer())) {
-                offers.add(customerOffer.getOffer());
-            }
+            addUniqueOffer(offers, offerIds, customerOffer.getOffer());
         }
         List<OfferCode> orderOfferCodes = order.getAddedOfferCodes();
         orderOfferCodes = removeOutOfDateOfferCodes(orderOfferCodes);
         for (OfferCode orderOfferCode : orderOfferCodes) {
-            if (!offers.contains(orderOfferCode.getOffer())) {
-                offers.add(orderOfferCode.getOffer());
-            }
+            addUniqueOffer(offers, offerIds, orderOfferCode.getOffer());
         }
         List<Offer> globalOffers = lookupAutomaticDeliveryOffers();
         for (Offer globalOffer : globalOffers) {
-            if (!offers.contains(globalOffer)) {
-                offers.add(globalOffer);
-            }
+            addUniqueOffer(offers, offerIds, globalOffer);
         }
         
         if (extensionManager != null) {
@@ -166,6 +163,24 @@ public class OfferServiceImpl implements OfferService {
         return offers;
     }
 
+    /**
+     * Adds the offer to the list unless it is already there. Offers with an id are checked against the set of ids
+     * already added, which keeps building the list linear in the number of automatic delivery offers.
+     *
+     * @param offers
+     * @param offerIds the ids of the offers in the list
+     * @param offer
+     */
+    protected void addUniqueOffer(List<Offer> offers, Set<Long> offerIds, Offer offer) {
+        if (offer.getId() != null) {
+            if (offerIds.add(offer.getId())) {
+                offers.add(offer);
+            }
+        } else if (!offers.contains(offer)) {
+            offers.add(offer);
+        }
+    }
+
     /**
      * Private method used to retrieve all offers assigned to this customer.  These offers
      * have a DeliveryType of MANUAL and are programmatically assigned to the customer.
@@ -16,13 +16,13 @@
 
 package org.broadleafcommerce.core.offer.service.processor;
 
-import org.apache.commons.collections.map.LRUMap;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.broadleafcommerce.common.RequestDTO;
 import org.broadleafcommerce.common.TimeDTO;
 import org.broadleafcommerce.common.money.Money;
 import org.broadleafcommerce.common.rule.MvelHelper;
+import org.broadleafcommerce.common.rule.RuleExpressionService;
 import org.broadleafcommerce.common.time.SystemTime;
 import org.broadleafcommerce.common.web.BroadleafRequestContext;
 import org.broadleafcommerce.core.offer.domain.Offer;
@@ -38,12 +38,11 @@ import org.broadleafcommerce.profile.core.domain.Customer;
 import org.hibernate.tool.hbm2x.StringUtils;
 import org.joda.time.LocalDateTime;
 import org.mvel2.MVEL;
-import org.mvel2.ParserContext;
 
-import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.Calendar;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.GregorianCalendar;
 import java.util.HashMap;
 import java.util.HashSet;
@@ -62,7 +61,25 @@ import javax.annotation.Resource;
 public abstract class AbstractBaseProcessor implements BaseProcessor {
 
     private static final Log LOG = LogFactory.getLog(AbstractBaseProcessor.class);
-    private static final Map EXPRESSION_CACHE = new LRUMap(1000);
+
+    /**
+     * The classes imported into the parser context of every offer rule
+     */
+    public static final Map<String, Class<?>> OFFER_RULE_IMPORTS;
+    static {
+        Map<String, Class<?>> imports = new HashMap<String, Class<?>>();
+        imports.put("OfferType", OfferType.class);
+        imports.put("FulfillmentType", FulfillmentType.class);
+        imports.put("MVEL", MVEL.class);
+        imports.put("MvelHelper", MvelHelper.class);
+        OFFER_RULE_IMPORTS = Collections.unmodifiableMap(imports);
+    }
+
+    @Resource(name = "blRuleExpressionService")
+    protected RuleExpressionService ruleExpressionService;
+    
+    @Resource(name = "blOfferRuleAnalyzer")
+    protected OfferRuleAnalyzer offerRuleAnalyzer;
     
     @Resource(name = "blOfferTimeZoneProcessor")
     protected OfferTimeZoneProcessor offerTimeZoneProcessor;
@@ -201,6 +218,9 @@ public abstract class AbstractBaseProcessor implements BaseProcessor {
         boolean appliesToItem = false;
 
         if (criteria.getMatchRule() != null && criteria.getMatchRule().trim().length() != 0) {
+            if (!offerRuleAnalyzer.analyzeItemRule(criteria.getMatchRule()).couldMatch(offerRuleAnalyzer.getItemValues(orderItem))) {
+                return false;
+            }
             HashMap<String, Object> vars = new HashMap<String, Object>();
             orderItem.updateRuleVariables(vars);
             Boolean expressionOutcome = executeExpression(criteria.getMatchRule(), vars);
@@ -224,24 +244,7 @@ public abstract class AbstractBaseProcessor implements BaseProcessor {
      */
     public Boolean executeExpression(String expression, Map<String, Object> vars) {
         try {
-            Serializable exp;
-            synchronized (EXPRESSION_CACHE) {
-                exp = (Serializable) EXPRESSION_CACHE.get(expression);
-                if (exp == null) {
-                    ParserContext context = new ParserContext();
-                    context.addImport("OfferType", OfferType.class);
-                    context.addImport("FulfillmentType", FulfillmentType.class);
-                    context.addImport("MVEL", MVEL.class);
-                    context.addImport("MvelHelper", MvelHelper.class);
-                    //            StringBuffer completeExpression = new StringBuffer(functions.toString());
-                    //            completeExpression.append(" ").append(expression);
-                    exp = MVEL.compileExpression(expression, context);
-
-                    EXPRESSION_CACHE.put(expression, exp);
-                }
-            }
-
-            Object test = MVEL.executeExpression(exp, vars);
+            Object test = ruleExpressionService.executeExpression(expression, OFFER_RULE_IMPORTS, vars);
             
             return (Boolean) test;
         } catch (Exception e) {
@@ -502,6 +505,9 @@ public abstract class AbstractBaseProcessor implements BaseProcessor {
         }
 
         if (rule != null) {
+            if (!offerRuleAnalyzer.analyzeCustomerRule(rule).couldMatch(offerRuleAnalyzer.getCustomerValues(customer))) {
+                return false;
+            }
             HashMap<String, Object> vars = new HashMap<String, Object>();
             vars.put("customer", customer);
             Boolean expressionOutcome = executeExpression(rule, vars);
@@ -515,6 +521,22 @@ public abstract class AbstractBaseProcessor implements BaseProcessor {
         return appliesToCustomer;
     }
 
+    public RuleExpressionService getRuleExpressionService() {
+        return ruleExpressionService;
+    }
+
+    public void setRuleExpressionService(RuleExpressionService ruleExpressionService) {
+        this.ruleExpressionService = ruleExpressionService;
+    }
+
+    public OfferRuleAnalyzer getOfferRuleAnalyzer() {
+        return offerRuleAnalyzer;
+    }
+
+    public void setOfferRuleAnalyzer(OfferRuleAnalyzer offerRuleAnalyzer) {
+        this.offerRuleAnalyzer = offerRuleAnalyzer;
+    }
+
     public OfferTimeZoneProcessor getOfferTimeZoneProcessor() {
         return offerTimeZoneProcessor;
     }
@@ -31,6 +31,7 @@ import org.broadleafcommerce.core.offer.service.discount.domain.PromotableOrderI
 import org.broadleafcommerce.core.offer.service.discount.domain.PromotableOrderItemPriceDetail;
 import org.broadleafcommerce.core.offer.service.discount.domain.PromotableOrderItemPriceDetailAdjustment;
 import org.broadleafcommerce.core.offer.service.type.OfferType;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.util.CollectionUtils;
 
@@ -40,6 +41,8 @@ import java.util.Comparator;
 import java.util.Iterator;
 import java.util.List;
 
+import javax.annotation.Resource;
+
 /**
  * Filter and apply order item offers.
  * 
@@ -48,6 +51,12 @@ import java.util.List;
  */
 @Service("blItemOfferProcessor")
 public class ItemOfferProcessorImpl extends OrderOfferProcessorImpl implements ItemOfferProcessor {
+
+    @Resource(name = "blOfferCandidateIndex")
+    protected OfferCandidateIndex offerCandidateIndex;
+
+    @Value("${offer.candidate.index.enabled}")
+    protected boolean offerCandidateIndexEnabled = false;
     
     /* (non-Javadoc)
      * @see org.broadleafcommerce.core.offer.service.processor.ItemOfferProcessor#filterItemLevelOffer(org.broadleafcommerce.core.order.domain.Order, java.util.List, java.util.List, org.broadleafcommerce.core.offer.domain.Offer)
@@ -469,6 +478,10 @@ public class ItemOfferProcessorImpl extends OrderOfferProcessorImpl implements I
         // set order subTotal price to total item price without adjustments
         order.setOrderSubTotalToPriceWithoutAdjustments();
 
+        if (offerCandidateIndexEnabled) {
+            filteredOffers = offerCandidateIndex.filterCandidateOffers(filteredOffers, order);
+        }
+
         for (Offer offer : filteredOffers) {            
             if(offer.getType().equals(OfferType.ORDER)){
                 filterOrderLevelOffer(order, qualifiedOrderOffers, offer);
@@ -685,4 +698,20 @@ public class ItemOfferProcessorImpl extends OrderOfferProcessorImpl implements I
             }
         }
     }
+
+    public OfferCandidateIndex getOfferCandidateIndex() {
+        return offerCandidateIndex;
+    }
+
+    public void setOfferCandidateIndex(OfferCandidateIndex offerCandidateIndex) {
+        this.offerCandidateIndex = offerCandidateIndex;
+    }
+
+    public boolean isOfferCandidateIndexEnabled() {
+        return offerCandidateIndexEnabled;
+    }
+
+    public void setOfferCandidateIndexEnabled(boolean offerCandidateIndexEnabled) {
+        this.offerCandidateIndexEnabled = offerCandidateIndexEnabled;
+    }
 }
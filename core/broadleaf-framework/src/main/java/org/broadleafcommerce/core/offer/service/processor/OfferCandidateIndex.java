@@ -0,0 +1,44 @@
+/*
+ * Copyright 2008-2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.broadleafcommerce.core.offer.service.processor;
+
+import org.broadleafcommerce.core.offer.domain.Offer;
+import org.broadleafcommerce.core.offer.service.discount.domain.PromotableOrder;
+
+import java.util.List;
+
+/**
+ * Inverted index from the values required by the qualifying item criteria of ORDER and ORDER_ITEM offers to the
+ * offers themselves. An offer with qualifying criteria can only produce a candidate when every criterion matches
+ * at least one item, so offers whose indexed values do not appear anywhere in the order can be skipped without
+ * executing any of their rules.
+ */
+public interface OfferCandidateIndex {
+
+    /**
+     * @param offers the offers being considered for the order
+     * @param order
+     * @return the offers, in their original order, that could produce a candidate for the order. Offers that the
+     * index can say nothing about are always returned.
+     */
+    public List<Offer> filterCandidateOffers(List<Offer> offers, PromotableOrder order);
+
+    /**
+     * Discards everything that has been indexed
+     */
+    public void clear();
+
+}
@@ -0,0 +1,229 @@
+/*
+ * Copyright 2008-2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.broadleafcommerce.core.offer.service.processor;
+
+import org.broadleafcommerce.core.offer.domain.Offer;
+import org.broadleafcommerce.core.offer.domain.OfferItemCriteria;
+import org.broadleafcommerce.core.offer.service.discount.domain.PromotableOrder;
+import org.broadleafcommerce.core.offer.service.discount.domain.PromotableOrderItem;
+import org.broadleafcommerce.core.offer.service.type.OfferType;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import javax.annotation.Resource;
+
+/**
+ * Keeps one entry per offer id along with the qualifying criteria it was built from. Every call compares the
+ * criteria of the offers passed in against their entries, so an offer that was edited in the admin is re-analyzed
+ * the next time it is priced, and the inverted index is only rebuilt after such a change.
+ */
+@Service("blOfferCandidateIndex")
+public class OfferCandidateIndexImpl implements OfferCandidateIndex {
+
+    @Resource(name = "blOfferRuleAnalyzer")
+    protected OfferRuleAnalyzer offerRuleAnalyzer;
+
+    protected final Map<Long, IndexEntry> entries = new ConcurrentHashMap<Long, IndexEntry>();
+
+    protected volatile Map<String, Set<Long>> offerIdsByKey = Collections.emptyMap();
+    protected volatile boolean dirty = false;
+
+    @Override
+    public List<Offer> filterCandidateOffers(List<Offer> offers, PromotableOrder order) {
+        List<IndexEntry> offerEntries = new ArrayList<IndexEntry>(offers.size());
+        boolean indexed = false;
+        for (Offer offer : offers) {
+            IndexEntry entry = getEntry(offer);
+            offerEntries.add(entry);
+            indexed |= entry.keys != null;
+        }
+        if (!indexed) {
+            return offers;
+        }
+
+        Map<String, Set<Long>> index = getIndex();
+        Set<Long> candidateIds = new HashSet<Long>();
+        for (String key : buildOrderKeys(order)) {
+            Set<Long> offerIds = index.get(key);
+            if (offerIds != null) {
+                candidateIds.addAll(offerIds);
+            }
+        }
+
+        List<Offer> candidates = new ArrayList<Offer>(offers.size());
+        for (int i = 0; i < offers.size(); i++) {
+            Offer offer = offers.get(i);
+            if (offerEntries.get(i).keys == null || candidateIds.contains(offer.getId())) {
+                candidates.add(offer);
+            }
+        }
+        return candidates;
+    }
+
+    @Override
+    public void clear() {
+        entries.clear();
+        dirty = true;
+    }
+
+    /**
+     * @return the entry of the offer, which is rebuilt if the offer's qualifying criteria have changed since it was
+     * indexed. Offers without an id get an unindexed entry that is not stored.
+     */
+    protected IndexEntry getEntry(Offer offer) {
+        String signature = buildSignature(offer);
+        if (offer.getId() == null) {
+            return new IndexEntry(signature, null);
+        }
+        IndexEntry entry = entries.get(offer.getId());
+        if (entry == null || !entry.signature.equals(signature)) {
+            entry = new IndexEntry(signature, buildKeys(offer));
+            entries.put(offer.getId(), entry);
+            dirty = true;
+        }
+        return entry;
+    }
+
+    protected Map<String, Set<Long>> getIndex() {
+        if (dirty) {
+            synchronized (this) {
+                if (dirty) {
+                    dirty = false;
+                    Map<String, Set<Long>> index = new HashMap<String, Set<Long>>();
+                    for (Map.Entry<Long, IndexEntry> entry : entries.entrySet()) {
+                        if (entry.getValue().keys != null) {
+                            for (String key : entry.getValue().keys) {
+                                Set<Long> offerIds = index.get(key);
+                                if (offerIds == null) {
+                                    offerIds = new HashSet<Long>();
+                                    index.put(key, offerIds);
+                                }
+                                offerIds.add(entry.getKey());
+                            }
+                        }
+                    }
+                    offerIdsByKey = index;
+                }
+            }
+        }
+        return offerIdsByKey;
+    }
+
+    /**
+     * Identifies the parts of the offer that the index entry depends on
+     */
+    protected String buildSignature(Offer offer) {
+        StringBuilder sb = new StringBuilder();
+        sb.append(offer.getType() == null ? null : offer.getType().getType());
+        if (offer.getQualifyingItemCriteria() != null) {
+            for (OfferItemCriteria criteria : offer.getQualifyingItemCriteria()) {
+                sb.append('\n').append(criteria.getQuantity()).append(':').append(criteria.getMatchRule());
+            }
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Every qualifying criterion has to be matched by some item for ORDER and ORDER_ITEM offers to produce a 
+     * candidate, so the values of any one constrained criterion are sufficient. The field with the fewest allowed
+     * values is used to keep the offer under as few keys as possible.
+     * 
+     * @return the keys the offer should be indexed under, or null if the offer must always be evaluated
+     */
+    protected Set<String> buildKeys(Offer offer) {
+        if (!OfferType.ORDER.equals(offer.getType()) && !OfferType.ORDER_ITEM.equals(offer.getType())) {
+            return null;
+        }
+        if (offer.getQualifyingItemCriteria() == null || offer.getQualifyingItemCriteria().isEmpty()) {
+            return null;
+        }
+
+        String bestField = null;
+        Set<String> bestValues = null;
+        for (OfferItemCriteria criteria : offer.getQualifyingItemCriteria()) {
+            OfferRulePredicate predicate = offerRuleAnalyzer.analyzeItemRule(criteria.getMatchRule());
+            for (Map.Entry<String, Set<String>> requirement : predicate.getRequirements().entrySet()) {
+                if (bestValues == null || requirement.getValue().size() < bestValues.size()) {
+                    bestField = requirement.getKey();
+                    bestValues = requirement.getValue();
+                }
+            }
+        }
+        if (bestField == null) {
+            return null;
+        }
+
+        Set<String> keys = new HashSet<String>();
+        for (String value : bestValues) {
+            keys.add(buildKey(bestField, value));
+        }
+        return keys;
+    }
+
+    /**
+     * Qualifying criteria are matched against the discountable items, which include the child items of bundles that 
+     * allow discounts on their children instead of the bundles themselves. The keys are read from those items as well 
+     * as from every top level item, so that the index never prunes an offer that one of them could qualify for.
+     */
+    protected Set<String> buildOrderKeys(PromotableOrder order) {
+        Set<String> keys = new HashSet<String>();
+        addOrderItemKeys(keys, order.getAllOrderItems());
+        addOrderItemKeys(keys, order.getDiscountableOrderItems());
+        return keys;
+    }
+
+    protected void addOrderItemKeys(Set<String> keys, List<PromotableOrderItem> items) {
+        for (PromotableOrderItem item : items) {
+            for (Map.Entry<String, String> value : offerRuleAnalyzer.getItemValues(item).entrySet()) {
+                keys.add(buildKey(value.getKey(), value.getValue()));
+            }
+        }
+    }
+
+    protected String buildKey(String field, String value) {
+        return field + '=' + value;
+    }
+
+    public OfferRuleAnalyzer getOfferRuleAnalyzer() {
+        return offerRuleAnalyzer;
+    }
+
+    public void setOfferRuleAnalyzer(OfferRuleAnalyzer offerRuleAnalyzer) {
+        this.offerRuleAnalyzer = offerRuleAnalyzer;
+        clear();
+    }
+
+    protected static class IndexEntry {
+
+        protected final String signature;
+        protected final Set<String> keys;
+
+        public IndexEntry(String signature, Set<String> keys) {
+            this.signature = signature;
+            this.keys = keys;
+        }
+
+    }
+
+}
@@ -0,0 +1,63 @@
+/*
+ * Copyright 2008-2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.broadleafcommerce.core.offer.service.processor;
+
+import org.broadleafcommerce.core.offer.service.discount.domain.PromotableOrderItem;
+import org.broadleafcommerce.profile.core.domain.Customer;
+
+import java.util.Map;
+
+/**
+ * Extracts simple equality requirements from offer rules so that subjects which can not match a rule are rejected 
+ * without executing the MVEL. Only requirements that are certain to hold for every match are extracted; anything 
+ * the analyzer does not understand leaves the rule unconstrained and it is evaluated in full as before.
+ */
+public interface OfferRuleAnalyzer {
+
+    public static final String PRODUCT_ID = "product.id";
+    public static final String PRODUCT_NAME = "product.name";
+    public static final String SKU_ID = "sku.id";
+    public static final String SKU_NAME = "sku.name";
+    public static final String CATEGORY_ID = "category.id";
+    public static final String CATEGORY_NAME = "category.name";
+    public static final String CUSTOMER_ID = "customer.id";
+    public static final String CUSTOMER_REGISTERED = "customer.registered";
+
+    /**
+     * @param rule the match rule of an {@link org.broadleafcommerce.core.offer.domain.OfferItemCriteria}
+     * @return the requirements an order item must meet to match the rule
+     */
+    public OfferRulePredicate analyzeItemRule(String rule);
+
+    /**
+     * @param rule the customer rule of an offer
+     * @return the requirements a customer must meet to match the rule
+     */
+    public OfferRulePredicate analyzeCustomerRule(String rule);
+
+    /**
+     * @param orderItem
+     * @return the values of the order item for the fields used by item rule predicates
+     */
+    public Map<String, String> getItemValues(PromotableOrderItem orderItem);
+
+    /**
+     * @param customer
+     * @return the values of the customer for the fields used by customer rule predicates
+     */
+    public Map<String, String> getCustomerValues(Customer customer);
+
+}
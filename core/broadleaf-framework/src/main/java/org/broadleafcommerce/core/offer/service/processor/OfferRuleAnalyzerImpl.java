@@ -0,0 +1,301 @@
+/*
+ * Copyright 2008-2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.broadleafcommerce.core.offer.service.processor;
+
+import org.broadleafcommerce.core.catalog.domain.Category;
+import org.broadleafcommerce.core.catalog.domain.Product;
+import org.broadleafcommerce.core.catalog.domain.Sku;
+import org.broadleafcommerce.core.offer.service.discount.domain.PromotableOrderItem;
+import org.broadleafcommerce.core.order.domain.BundleOrderItem;
+import org.broadleafcommerce.core.order.domain.DiscreteOrderItem;
+import org.broadleafcommerce.core.order.domain.OrderItem;
+import org.broadleafcommerce.profile.core.domain.Customer;
+import org.springframework.stereotype.Service;
+
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Understands the comparisons produced by the admin rule builder, such as 
+ * <code>discreteOrderItem.?category.?id==5</code> or 
+ * <code>MvelHelper.toUpperCase(discreteOrderItem.?product.?name)==MvelHelper.toUpperCase("shirt")</code>, joined with 
+ * <code>&amp;&amp;</code> and <code>||</code>. A top level conjunct contributes a requirement when it is a single
+ * equality comparison on an id or name, or a disjunction of such comparisons on the same field. Any other conjunct 
+ * (negations, ranges, other properties, ...) is ignored, which only makes the predicate less selective.
+ * 
+ * Names are compared case insensitively whether or not the rule upper cases them, for the same reason.
+ */
+@Service("blOfferRuleAnalyzer")
+public class OfferRuleAnalyzerImpl implements OfferRuleAnalyzer {
+
+    protected static final Pattern ITEM_COMPARISON = Pattern.compile(
+            "(?:MvelHelper\\.toUpperCase\\()?(?:discreteOrderItem|orderItem|bundleOrderItem)\\.\\??(product|sku|category)\\.\\??(id|name)\\)?" +
+            "==(?:MvelHelper\\.toUpperCase\\()?(\"[^\"\\\\]*\"|0|[1-9]\\d*)\\)?");
+
+    protected static final Pattern CUSTOMER_COMPARISON = Pattern.compile(
+            "customer\\.\\??(id|registered)==(0|[1-9]\\d*|true|false)");
+
+    protected Map<String, OfferRulePredicate> itemPredicates = new ConcurrentHashMap<String, OfferRulePredicate>();
+    protected Map<String, OfferRulePredicate> customerPredicates = new ConcurrentHashMap<String, OfferRulePredicate>();
+
+    @Override
+    public OfferRulePredicate analyzeItemRule(String rule) {
+        return analyze(rule, ITEM_COMPARISON, itemPredicates);
+    }
+
+    @Override
+    public OfferRulePredicate analyzeCustomerRule(String rule) {
+        return analyze(rule, CUSTOMER_COMPARISON, customerPredicates);
+    }
+
+    @Override
+    public Map<String, String> getItemValues(PromotableOrderItem promotableOrderItem) {
+        Map<String, String> values = new HashMap<String, String>();
+        OrderItem orderItem = promotableOrderItem.getOrderItem();
+        Product product = null;
+        Sku sku = null;
+        if (orderItem instanceof DiscreteOrderItem) {
+            product = ((DiscreteOrderItem) orderItem).getProduct();
+            sku = ((DiscreteOrderItem) orderItem).getSku();
+        } else if (orderItem instanceof BundleOrderItem) {
+            product = ((BundleOrderItem) orderItem).getProduct();
+            sku = ((BundleOrderItem) orderItem).getSku();
+        }
+        if (product != null) {
+            putValue(values, PRODUCT_ID, product.getId());
+            if (product.getDefaultSku() != null) {
+                putValue(values, PRODUCT_NAME, product.getName());
+            }
+        }
+        if (sku != null) {
+            putValue(values, SKU_ID, sku.getId());
+            putValue(values, SKU_NAME, sku.getName());
+        }
+        Category category = orderItem.getCategory();
+        if (category != null) {
+            putValue(values, CATEGORY_ID, category.getId());
+            putValue(values, CATEGORY_NAME, category.getName());
+        }
+        return values;
+    }
+
+    @Override
+    public Map<String, String> getCustomerValues(Customer customer) {
+        Map<String, String> values = new HashMap<String, String>();
+        if (customer != null) {
+            putValue(values, CUSTOMER_ID, customer.getId());
+            putValue(values, CUSTOMER_REGISTERED, customer.isRegistered());
+        }
+        return values;
+    }
+
+    protected void putValue(Map<String, String> values, String field, Object value) {
+        if (value != null) {
+            values.put(field, normalizeValue(field, value.toString()));
+        }
+    }
+
+    protected String normalizeValue(String field, String value) {
+        return field.endsWith(".name") ? value.toUpperCase() : value;
+    }
+
+    protected OfferRulePredicate analyze(String rule, Pattern comparison, Map<String, OfferRulePredicate> cache) {
+        if (rule == null) {
+            return OfferRulePredicate.UNCONSTRAINED;
+        }
+        OfferRulePredicate predicate = cache.get(rule);
+        if (predicate == null) {
+            predicate = buildPredicate(rule, comparison);
+            cache.put(rule, predicate);
+        }
+        return predicate;
+    }
+
+    protected OfferRulePredicate buildPredicate(String rule, Pattern comparison) {
+        String expression = stripOuterParentheses(removeWhitespace(rule));
+        if (expression == null) {
+            return OfferRulePredicate.UNCONSTRAINED;
+        }
+
+        List<String> conjuncts;
+        List<String> disjuncts = splitTopLevel(expression, "||");
+        if (disjuncts == null) {
+            return OfferRulePredicate.UNCONSTRAINED;
+        } else if (disjuncts.size() > 1) {
+            // The whole rule is an OR, so it only constrains a field if every branch does
+            conjuncts = new ArrayList<String>();
+            conjuncts.add(expression);
+        } else {
+            conjuncts = splitTopLevel(expression, "&&");
+            if (conjuncts == null) {
+                return OfferRulePredicate.UNCONSTRAINED;
+            }
+        }
+
+        Map<String, Set<String>> requirements = new HashMap<String, Set<String>>();
+        for (String conjunct : conjuncts) {
+            Map.Entry<String, Set<String>> requirement = readRequirement(conjunct, comparison);
+            if (requirement != null) {
+                Set<String> values = requirements.get(requirement.getKey());
+                if (values == null) {
+                    requirements.put(requirement.getKey(), requirement.getValue());
+                } else {
+                    values.retainAll(requirement.getValue());
+                }
+            }
+        }
+        return requirements.isEmpty() ? OfferRulePredicate.UNCONSTRAINED : new OfferRulePredicate(requirements);
+    }
+
+    /**
+     * @return the field and its allowed values if the expression is a comparison, or a disjunction of comparisons, 
+     * on a single field. Otherwise, null.
+     */
+    protected Map.Entry<String, Set<String>> readRequirement(String expression, Pattern comparison) {
+        String stripped = stripOuterParentheses(expression);
+        List<String> disjuncts = stripped == null ? null : splitTopLevel(stripped, "||");
+        if (disjuncts == null) {
+            return null;
+        }
+
+        String field = null;
+        Set<String> values = new HashSet<String>();
+        for (String disjunct : disjuncts) {
+            String term = stripOuterParentheses(disjunct);
+            Matcher matcher = term == null ? null : comparison.matcher(term);
+            if (matcher == null || !matcher.matches()) {
+                return null;
+            }
+            String termField;
+            String value;
+            if (matcher.groupCount() == 3) {
+                termField = matcher.group(1) + "." + matcher.group(2);
+                value = matcher.group(3);
+            } else {
+                termField = "customer." + matcher.group(1);
+                value = matcher.group(2);
+            }
+            if (field != null && !field.equals(termField)) {
+                return null;
+            }
+            field = termField;
+            if (value.startsWith("\"")) {
+                value = value.substring(1, value.length() - 1);
+            }
+            values.add(normalizeValue(field, value));
+        }
+        return new AbstractMap.SimpleEntry<String, Set<String>>(field, values);
+    }
+
+    /**
+     * Removes the whitespace that is not part of a string literal
+     */
+    protected String removeWhitespace(String expression) {
+        StringBuilder sb = new StringBuilder(expression.length());
+        boolean quoted = false;
+        for (int i = 0; i < expression.length(); i++) {
+            char c = expression.charAt(i);
+            if (c == '"') {
+                quoted = !quoted;
+            }
+            if (quoted || !Character.isWhitespace(c)) {
+                sb.append(c);
+            }
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Removes any pairs of parentheses that enclose the entire expression
+     * 
+     * @return the expression, or null if its parentheses are not balanced
+     */
+    protected String stripOuterParentheses(String expression) {
+        while (expression.startsWith("(") && expression.endsWith(")")) {
+            int closing = findClosingParenthesis(expression, 0);
+            if (closing < 0) {
+                return null;
+            }
+            if (closing != expression.length() - 1) {
+                break;
+            }
+            expression = expression.substring(1, expression.length() - 1);
+        }
+        return expression;
+    }
+
+    protected int findClosingParenthesis(String expression, int opening) {
+        int depth = 0;
+        boolean quoted = false;
+        for (int i = opening; i < expression.length(); i++) {
+            char c = expression.charAt(i);
+            if (c == '"') {
+                quoted = !quoted;
+            } else if (!quoted && c == '(') {
+                depth++;
+            } else if (!quoted && c == ')') {
+                depth--;
+                if (depth == 0) {
+                    return i;
+                }
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Splits the expression on the given operator wherever it is not nested in parentheses or a string literal
+     * 
+     * @return the operands, or null if the parentheses or quotes are not balanced
+     */
+    protected List<String> splitTopLevel(String expression, String operator) {
+        List<String> operands = new ArrayList<String>();
+        int depth = 0;
+        boolean quoted = false;
+        int start = 0;
+        for (int i = 0; i < expression.length(); i++) {
+            char c = expression.charAt(i);
+            if (c == '"') {
+                quoted = !quoted;
+            } else if (!quoted && c == '(') {
+                depth++;
+            } else if (!quoted && c == ')') {
+                depth--;
+                if (depth < 0) {
+                    return null;
+                }
+            } else if (!quoted && depth == 0 && expression.startsWith(operator, i)) {
+                operands.add(expression.substring(start, i));
+                start = i + operator.length();
+                i = start - 1;
+            }
+        }
+        if (depth != 0 || quoted) {
+            return null;
+        }
+        operands.add(expression.substring(start));
+        return operands;
+    }
+
+}
@@ -0,0 +1,98 @@
+/*
+ * Copyright 2008-2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.broadleafcommerce.core.offer.service.processor;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.broadleafcommerce.common.rule.RuleExpressionService;
+import org.broadleafcommerce.common.time.SystemTime;
+import org.broadleafcommerce.core.offer.dao.OfferDao;
+import org.broadleafcommerce.core.offer.domain.Offer;
+import org.broadleafcommerce.core.offer.domain.OfferItemCriteria;
+import org.broadleafcommerce.core.offer.domain.OfferRule;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationListener;
+import org.springframework.context.event.ContextRefreshedEvent;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Date;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+import javax.annotation.Resource;
+
+/**
+ * Compiles the rules of every offer that has not yet ended when the application starts, so that the first carts 
+ * priced after a restart do not pay for compiling them.
+ */
+@Component("blOfferRuleExpressionWarmer")
+public class OfferRuleExpressionWarmer implements ApplicationListener<ContextRefreshedEvent> {
+
+    private static final Log LOG = LogFactory.getLog(OfferRuleExpressionWarmer.class);
+
+    @Value("${rule.expression.cache.warm.enabled}")
+    protected boolean warmEnabled = true;
+
+    @Resource(name = "blOfferDao")
+    protected OfferDao offerDao;
+
+    @Resource(name = "blRuleExpressionService")
+    protected RuleExpressionService ruleExpressionService;
+
+    protected volatile boolean warmed = false;
+
+    @Override
+    @Transactional("blTransactionManager")
+    public void onApplicationEvent(ContextRefreshedEvent event) {
+        if (!warmEnabled || warmed) {
+            return;
+        }
+        warmed = true;
+
+        Set<String> expressions = new LinkedHashSet<String>();
+        Date now = SystemTime.asDate();
+        for (Offer offer : offerDao.readAllOffers()) {
+            if (offer.getEndDate() == null || offer.getEndDate().after(now)) {
+                addOfferExpressions(offer, expressions);
+            }
+        }
+
+        int compiled = ruleExpressionService.warmExpressions(expressions, AbstractBaseProcessor.OFFER_RULE_IMPORTS);
+        LOG.info(String.format("Compiled [%s] offer rule expressions", compiled));
+    }
+
+    protected void addOfferExpressions(Offer offer, Set<String> expressions) {
+        expressions.add(offer.getAppliesToOrderRules());
+        expressions.add(offer.getAppliesToCustomerRules());
+        if (offer.getOfferMatchRules() != null) {
+            for (OfferRule rule : offer.getOfferMatchRules().values()) {
+                expressions.add(rule.getMatchRule());
+            }
+        }
+        if (offer.getQualifyingItemCriteria() != null) {
+            for (OfferItemCriteria criteria : offer.getQualifyingItemCriteria()) {
+                expressions.add(criteria.getMatchRule());
+            }
+        }
+        if (offer.getTargetItemCriteria() != null) {
+            for (OfferItemCriteria criteria : offer.getTargetItemCriteria()) {
+                expressions.add(criteria.getMatchRule());
+            }
+        }
+    }
+
+}
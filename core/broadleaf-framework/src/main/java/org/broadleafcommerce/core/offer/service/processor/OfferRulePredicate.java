@@ -0,0 +1,73 @@
+/*
+ * Copyright 2008-2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.broadleafcommerce.core.offer.service.processor;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * A necessary condition extracted from an offer rule by {@link OfferRuleAnalyzer}. Each requirement names a field 
+ * (for example, "product.id") and the values it must have for the rule to have any chance of matching. A subject 
+ * that does not satisfy the predicate can never satisfy the rule, so the rule does not need to be executed. A subject 
+ * that does satisfy it may still fail the rule.
+ */
+public class OfferRulePredicate {
+
+    /**
+     * The predicate of a rule from which nothing could be extracted
+     */
+    public static final OfferRulePredicate UNCONSTRAINED = new OfferRulePredicate(Collections.<String, Set<String>>emptyMap());
+
+    protected final Map<String, Set<String>> requirements;
+
+    public OfferRulePredicate(Map<String, Set<String>> requirements) {
+        this.requirements = Collections.unmodifiableMap(new HashMap<String, Set<String>>(requirements));
+    }
+
+    /**
+     * @param values the values of the subject, keyed by field. A missing or null value does not satisfy a requirement
+     * on that field.
+     * @return false if the subject can not match the rule this predicate was extracted from
+     */
+    public boolean couldMatch(Map<String, String> values) {
+        for (Map.Entry<String, Set<String>> requirement : requirements.entrySet()) {
+            String value = values.get(requirement.getKey());
+            if (value == null || !requirement.getValue().contains(value)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public boolean isUnconstrained() {
+        return requirements.isEmpty();
+    }
+
+    /**
+     * @return the required values for each constrained field
+     */
+    public Map<String, Set<String>> getRequirements() {
+        return requirements;
+    }
+
+    @Override
+    public String toString() {
+        return requirements.toString();
+    }
+
+}
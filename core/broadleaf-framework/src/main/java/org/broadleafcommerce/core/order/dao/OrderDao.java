@@ -17,6 +17,7 @@
 package org.broadleafcommerce.core.order.dao;
 
 import org.broadleafcommerce.core.order.domain.Order;
+import org.broadleafcommerce.core.order.service.call.CartSummary;
 import org.broadleafcommerce.core.order.service.type.OrderStatus;
 import org.broadleafcommerce.profile.core.domain.Customer;
 
@@ -26,6 +27,13 @@ public interface OrderDao {
 
     Order readOrderById(Long orderId);
 
+    /**
+     * @param orderId
+     * @param refresh whether to reload the order from the database if it is already held by the persistence context
+     * @return the order with the given id
+     */
+    Order readOrderById(Long orderId, boolean refresh);
+
     List<Order> readOrdersForCustomer(Customer customer, OrderStatus orderStatus);
 
     List<Order> readOrdersForCustomer(Long id);
@@ -34,6 +42,15 @@ public interface OrderDao {
 
     Order readCartForCustomer(Customer customer);
 
+    /**
+     * Reads a summary of the customer's current cart without loading the order items, fulfillment groups
+     * or adjustments.
+     *
+     * @param customer
+     * @return the summary of the cart, or null if the customer does not have a cart
+     */
+    CartSummary readCartSummaryForCustomer(Customer customer);
+
     Order save(Order order);
 
     void delete(Order order);
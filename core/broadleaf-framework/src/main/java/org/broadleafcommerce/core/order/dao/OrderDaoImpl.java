@@ -17,15 +17,19 @@
 package org.broadleafcommerce.core.order.dao;
 
 import org.broadleafcommerce.common.locale.domain.Locale;
+import org.broadleafcommerce.common.money.Money;
 import org.broadleafcommerce.common.persistence.EntityConfiguration;
 import org.broadleafcommerce.common.web.BroadleafRequestContext;
 import org.broadleafcommerce.core.order.domain.Order;
 import org.broadleafcommerce.core.order.domain.OrderImpl;
+import org.broadleafcommerce.core.order.service.call.CartSummary;
 import org.broadleafcommerce.core.order.service.type.OrderStatus;
 import org.broadleafcommerce.profile.core.dao.CustomerDao;
 import org.broadleafcommerce.profile.core.domain.Customer;
 import org.springframework.stereotype.Repository;
 
+import java.math.BigDecimal;
+import java.util.Date;
 import java.util.List;
 import java.util.ListIterator;
 
@@ -54,6 +58,15 @@ public class OrderDaoImpl implements OrderDao {
         return em.find(OrderImpl.class, orderId);
     }
 
+    @Override
+    public Order readOrderById(final Long orderId, final boolean refresh) {
+        Order order = readOrderById(orderId);
+        if (refresh && order != null) {
+            em.refresh(order);
+        }
+        return order;
+    }
+
     @Override
     public Order save(final Order order) {
         Order response = em.merge(order);
@@ -104,6 +117,29 @@ public class OrderDaoImpl implements OrderDao {
         return order;
     }
 
+    @Override
+    public CartSummary readCartSummaryForCustomer(final Customer customer) {
+        final Query query = em.createNamedQuery("BC_READ_CART_SUMMARY_BY_CUSTOMER_ID");
+        query.setParameter("customerId", customer.getId());
+        query.setParameter("orderStatus", OrderStatus.IN_PROCESS.getType());
+        query.setMaxResults(1);
+        @SuppressWarnings("unchecked")
+        final List<Object[]> temp = query.getResultList();
+        if (temp == null || temp.isEmpty()) {
+            return null;
+        }
+        Object[] row = temp.get(0);
+        String currencyCode = (String) row[2];
+        BigDecimal subTotalAmount = (BigDecimal) row[1];
+        Money subTotal = null;
+        if (subTotalAmount != null) {
+            subTotal = currencyCode == null ? new Money(subTotalAmount) : new Money(subTotalAmount, currencyCode);
+        }
+        int itemCount = ((Number) row[6]).intValue() + ((Number) row[7]).intValue();
+        return new CartSummary((Long) row[0], itemCount, subTotal, currencyCode, (String) row[3], (Date) row[4],
+                (String) row[5]);
+    }
+
     @Override
     public Order createNewCartForCustomer(Customer customer) {
         Order order = create();
@@ -0,0 +1,61 @@
+/*
+ * Copyright 2008-2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.broadleafcommerce.core.order.dao;
+
+import org.broadleafcommerce.core.order.domain.OrderLock;
+
+/**
+ * DAO for the order leases shared by the nodes of a cluster. A lease is written either in a short transaction of its 
+ * own, which makes it visible to the other nodes as soon as it is acquired, or in the transaction of the operation it
+ * guards, in which case the database keeps the row locked until that transaction completes.
+ * @see {@link org.broadleafcommerce.core.order.domain.OrderLock}
+ */
+public interface OrderLockDao {
+
+    /**
+     * Acquires the lease on the given order if it is free or if it was last acquired before expiredBefore
+     * 
+     * @param orderId
+     * @param lockKey the key identifying the new holder
+     * @param expiredBefore leases acquired before this time, in milliseconds, are considered abandoned
+     * @return whether the lease was acquired, which is never the case if the order has no lease yet
+     */
+    public boolean acquireLock(Long orderId, String lockKey, long expiredBefore);
+
+    /**
+     * @param orderId
+     * @return the lease on the given order, or null if the order has none yet
+     */
+    public OrderLock readLock(Long orderId);
+
+    /**
+     * Inserts a free lease for the given order. Fails if another node inserts the lease of the same order at the 
+     * same time, so this is best done in a transaction of its own.
+     * 
+     * @param orderId
+     */
+    public void createLock(Long orderId);
+
+    /**
+     * Releases the lease on the given order if it is still held with the given key
+     * 
+     * @param orderId
+     * @param lockKey
+     * @return whether the lease was released
+     */
+    public boolean releaseLock(Long orderId, String lockKey);
+
+}
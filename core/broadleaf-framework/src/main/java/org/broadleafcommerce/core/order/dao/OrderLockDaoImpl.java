@@ -0,0 +1,73 @@
+/*
+ * Copyright 2008-2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.broadleafcommerce.core.order.dao;
+
+import org.broadleafcommerce.common.persistence.EntityConfiguration;
+import org.broadleafcommerce.core.order.domain.OrderLock;
+import org.broadleafcommerce.core.order.domain.OrderLockImpl;
+import org.springframework.stereotype.Repository;
+
+import javax.annotation.Resource;
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import javax.persistence.Query;
+
+@Repository("blOrderLockDao")
+public class OrderLockDaoImpl implements OrderLockDao {
+
+    @PersistenceContext(unitName = "blPU")
+    protected EntityManager em;
+
+    @Resource(name="blEntityConfiguration")
+    protected EntityConfiguration entityConfiguration;
+
+    @Override
+    public boolean acquireLock(Long orderId, String lockKey, long expiredBefore) {
+        Query query = em.createQuery("UPDATE " + OrderLockImpl.class.getName() + " orderLock SET orderLock.locked = true, " +
+                "orderLock.lockKey = :lockKey, orderLock.lastUpdated = :now WHERE orderLock.orderId = :orderId AND " +
+                "(orderLock.locked = false OR orderLock.lastUpdated < :expiredBefore)");
+        query.setParameter("lockKey", lockKey);
+        query.setParameter("now", System.currentTimeMillis());
+        query.setParameter("orderId", orderId);
+        query.setParameter("expiredBefore", expiredBefore);
+        return query.executeUpdate() > 0;
+    }
+
+    @Override
+    public OrderLock readLock(Long orderId) {
+        return em.find(OrderLockImpl.class, orderId);
+    }
+
+    @Override
+    public void createLock(Long orderId) {
+        OrderLock lock = (OrderLock) entityConfiguration.createEntityInstance(OrderLock.class.getName());
+        lock.setOrderId(orderId);
+        lock.setLocked(false);
+        lock.setLastUpdated(System.currentTimeMillis());
+        em.persist(lock);
+        em.flush();
+    }
+
+    @Override
+    public boolean releaseLock(Long orderId, String lockKey) {
+        Query query = em.createQuery("UPDATE " + OrderLockImpl.class.getName() + " orderLock SET orderLock.locked = false " +
+                "WHERE orderLock.orderId = :orderId AND orderLock.lockKey = :lockKey");
+        query.setParameter("orderId", orderId);
+        query.setParameter("lockKey", lockKey);
+        return query.executeUpdate() > 0;
+    }
+
+}
@@ -335,6 +335,16 @@ public class NullOrderImpl implements Order {
     public void setLocale(Locale locale) {
     }
 
+    @Override
+    public String getPricingFingerprint() {
+        return null;
+    }
+
+    @Override
+    public void setPricingFingerprint(String pricingFingerprint) {
+        throw new UnsupportedOperationException("NullOrder does not support any modification operations.");
+    }
+
     @Override
     public Money calculateSubTotal() {
         throw new UnsupportedOperationException("NullOrder does not support any modification operations.");
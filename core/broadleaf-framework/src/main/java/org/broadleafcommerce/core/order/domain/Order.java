@@ -448,6 +448,22 @@ public interface Order extends Serializable {
 
     public void setLocale(Locale locale);
 
+    /**
+     * Returns a digest of the inputs of the pricing workflow as of the last time this {@link Order} was priced. Pricing
+     * is skipped while the inputs still match.
+     * 
+     * @return the pricing fingerprint, or null if the order has not been priced yet
+     * @see {@link org.broadleafcommerce.core.pricing.service.PricingFingerprintService}
+     */
+    public String getPricingFingerprint();
+
+    /**
+     * Sets the pricing fingerprint. Setting it to null forces the next pricing request to run.
+     * 
+     * @param pricingFingerprint
+     */
+    public void setPricingFingerprint(String pricingFingerprint);
+
     /**
      * Returns true if this item has order adjustments.
      * @return
@@ -52,6 +52,7 @@ import org.broadleafcommerce.core.offer.domain.OrderAdjustmentImpl;
 import org.broadleafcommerce.core.order.service.type.OrderStatus;
 import org.broadleafcommerce.core.payment.domain.PaymentInfo;
 import org.broadleafcommerce.core.payment.domain.PaymentInfoImpl;
+import org.broadleafcommerce.core.workflow.IdentifiableSeed;
 import org.broadleafcommerce.profile.core.domain.Customer;
 import org.broadleafcommerce.profile.core.domain.CustomerImpl;
 import org.hibernate.annotations.BatchSize;
@@ -102,7 +103,7 @@ import javax.persistence.Table;
     }
 )
 @AdminPresentationClass(populateToOneFields = PopulateToOneFieldsEnum.TRUE, friendlyName = "OrderImpl_baseOrder")
-public class OrderImpl implements Order, AdminMainEntity, CurrencyCodeIdentifiable {
+public class OrderImpl implements Order, AdminMainEntity, CurrencyCodeIdentifiable, IdentifiableSeed {
 
     private static final long serialVersionUID = 1L;
 
@@ -261,6 +262,10 @@ public class OrderImpl implements Order, AdminMainEntity, CurrencyCodeIdentifiab
     @AdminPresentation(excluded = true)
     protected Locale locale;
 
+    @Column(name = "PRICING_FINGERPRINT")
+    @AdminPresentation(excluded = true)
+    protected String pricingFingerprint;
+
     @Override
     public Long getId() {
         return id;
@@ -647,6 +652,16 @@ public class OrderImpl implements Order, AdminMainEntity, CurrencyCodeIdentifiab
         this.locale = locale;
     }
 
+    @Override
+    public String getPricingFingerprint() {
+        return pricingFingerprint;
+    }
+
+    @Override
+    public void setPricingFingerprint(String pricingFingerprint) {
+        this.pricingFingerprint = pricingFingerprint;
+    }
+
     @Override
     public int getItemCount() {
         int count = 0;
@@ -684,6 +699,11 @@ public class OrderImpl implements Order, AdminMainEntity, CurrencyCodeIdentifiab
         return "";
     }
 
+    @Override
+    public String getSeedIdentifier() {
+        return "order id [" + id + "]";
+    }
+
     @Override
     public String getCurrencyCode() {
         if (getCurrency() != null) {
@@ -0,0 +1,50 @@
+/*
+ * Copyright 2008-2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.broadleafcommerce.core.order.domain;
+
+import java.io.Serializable;
+
+/**
+ * A lease on an order that is shared by every node of a cluster. A node holds the lease while it modifies the order,
+ * so that cart operations on the same order are serialized across nodes. A lease that has not been released within 
+ * the configured lease timeout is considered abandoned and may be taken over.
+ * @see {@link org.broadleafcommerce.core.order.service.OrderLockManager}
+ */
+public interface OrderLock extends Serializable {
+
+    public Long getOrderId();
+
+    public void setOrderId(Long orderId);
+
+    /**
+     * @return the key identifying the current holder of the lease
+     */
+    public String getLockKey();
+
+    public void setLockKey(String lockKey);
+
+    public Boolean getLocked();
+
+    public void setLocked(Boolean locked);
+
+    /**
+     * @return the time, in milliseconds, the lease was last acquired
+     */
+    public Long getLastUpdated();
+
+    public void setLastUpdated(Long lastUpdated);
+
+}
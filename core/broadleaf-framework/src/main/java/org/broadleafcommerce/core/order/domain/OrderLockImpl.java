@@ -0,0 +1,82 @@
+/*
+ * Copyright 2008-2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.broadleafcommerce.core.order.domain;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.persistence.Table;
+
+@Entity
+@Table(name = "BLC_ORDER_LOCK")
+public class OrderLockImpl implements OrderLock {
+
+    private static final long serialVersionUID = 1L;
+
+    @Id
+    @Column(name = "ORDER_ID")
+    protected Long orderId;
+
+    @Column(name = "LOCK_KEY")
+    protected String lockKey;
+
+    @Column(name = "LOCKED")
+    protected Boolean locked = false;
+
+    @Column(name = "LAST_UPDATED")
+    protected Long lastUpdated;
+
+    @Override
+    public Long getOrderId() {
+        return orderId;
+    }
+
+    @Override
+    public void setOrderId(Long orderId) {
+        this.orderId = orderId;
+    }
+
+    @Override
+    public String getLockKey() {
+        return lockKey;
+    }
+
+    @Override
+    public void setLockKey(String lockKey) {
+        this.lockKey = lockKey;
+    }
+
+    @Override
+    public Boolean getLocked() {
+        return locked;
+    }
+
+    @Override
+    public void setLocked(Boolean locked) {
+        this.locked = locked;
+    }
+
+    @Override
+    public Long getLastUpdated() {
+        return lastUpdated;
+    }
+
+    @Override
+    public void setLastUpdated(Long lastUpdated) {
+        this.lastUpdated = lastUpdated;
+    }
+
+}
@@ -0,0 +1,51 @@
+/*
+ * Copyright 2008-2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.broadleafcommerce.core.order.service;
+
+import org.broadleafcommerce.core.order.service.exception.OrderLockAcquisitionFailureException;
+
+/**
+ * Serializes the operations that modify an order, such as adding an item to a cart and pricing it, so that two 
+ * requests for the same cart (a double clicked button, parallel AJAX calls) run one after the other instead of 
+ * failing on database locks. Operations on different orders do not block each other.
+ * 
+ * Locks are reentrant: a thread that holds the lock on an order may acquire it again, and must release it as many 
+ * times as it acquired it.
+ */
+public interface OrderLockManager {
+
+    /**
+     * Blocks until the lock on the given order is available
+     * 
+     * @param orderId
+     * @return the lock object to pass to {@link #releaseLock(Object)}
+     * @throws OrderLockAcquisitionFailureException if the lock could not be acquired within the configured timeout
+     */
+    public Object acquireLock(Long orderId);
+
+    /**
+     * @param lockObject the object returned by {@link #acquireLock(Long)}
+     */
+    public void releaseLock(Object lockObject);
+
+    /**
+     * @param lockObject the object returned by {@link #acquireLock(Long)}
+     * @return whether another operation held the order when the current thread acquired the lock, in which case the 
+     * order may have changed since it was last read. Always false for a reentrant acquisition.
+     */
+    public boolean wasContended(Object lockObject);
+
+}
@@ -0,0 +1,388 @@
+/*
+ * Copyright 2008-2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.broadleafcommerce.core.order.service;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.broadleafcommerce.core.order.dao.OrderLockDao;
+import org.broadleafcommerce.core.order.service.exception.OrderLockAcquisitionFailureException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jmx.export.annotation.ManagedAttribute;
+import org.springframework.jmx.export.annotation.ManagedResource;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.DefaultTransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+import javax.annotation.Resource;
+
+/**
+ * Within this application, every order being modified has a fair lock of its own, so waiting operations on the 
+ * same order proceed in arrival order as soon as the previous one completes. Locks are discarded once no thread 
+ * holds or waits for them.
+ * 
+ * When <code>order.lock.database.enabled</code> is set, the holder of the local lock also acquires a lease on the 
+ * order in BLC_ORDER_LOCK, which serializes operations across the nodes of a cluster. Since only one thread per node
+ * competes for a lease, a lease held by another node is polled for every <code>order.lock.database.retryInterval</code>
+ * milliseconds.
+ * 
+ * A lease acquired while a transaction is active is written in that transaction rather than in one of its own, so a
+ * waiting operation never needs a second connection from the pool while its own is held. The lease row then stays
+ * locked by the database until the transaction completes, and is released in the same commit as the changes made
+ * under it. The only exception is the very first lease on an order, which is inserted in a transaction of its own.
+ */
+@Service("blOrderLockManager")
+@ManagedResource(objectName="org.broadleafcommerce:name=OrderLockManager", description="Order Lock Manager", currencyTimeLimit=15)
+public class OrderLockManagerImpl implements OrderLockManager {
+
+    private static final Log LOG = LogFactory.getLog(OrderLockManagerImpl.class);
+
+    @Resource(name = "blOrderLockDao")
+    protected OrderLockDao orderLockDao;
+
+    @Resource(name = "blTransactionManager")
+    protected PlatformTransactionManager transactionManager;
+
+    @Value("${order.lock.timeout}")
+    protected long lockTimeout = 30000;
+
+    @Value("${order.lock.database.enabled}")
+    protected boolean databaseLockEnabled = false;
+
+    @Value("${order.lock.database.leaseTimeout}")
+    protected long leaseTimeout = 60000;
+
+    @Value("${order.lock.database.retryInterval}")
+    protected long retryInterval = 50;
+
+    protected final ConcurrentMap<Long, OrderLane> lanes = new ConcurrentHashMap<Long, OrderLane>();
+
+    protected final AtomicLong acquisitionCount = new AtomicLong();
+    protected final AtomicLong contendedAcquisitionCount = new AtomicLong();
+    protected final AtomicLong failedAcquisitionCount = new AtomicLong();
+    protected final AtomicLong totalWaitTime = new AtomicLong();
+    protected final AtomicLong maxWaitTime = new AtomicLong();
+
+    @Override
+    public Object acquireLock(Long orderId) {
+        OrderLane lane = joinLane(orderId);
+        long start = System.currentTimeMillis();
+        boolean contended = false;
+        boolean acquired = false;
+        try {
+            acquired = lane.tryLock(0, TimeUnit.MILLISECONDS);
+            if (!acquired) {
+                contended = true;
+                acquired = lane.tryLock(lockTimeout, TimeUnit.MILLISECONDS);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (!acquired) {
+            leaveLane(lane);
+            failedAcquisitionCount.incrementAndGet();
+            throw new OrderLockAcquisitionFailureException("Unable to acquire the lock on order " + orderId + 
+                    " within " + lockTimeout + " ms");
+        }
+        
+        if (lane.getHoldCount() == 1) {
+            lane.lockKey = UUID.randomUUID().toString();
+            if (databaseLockEnabled) {
+                try {
+                    contended |= acquireLease(lane, start + lockTimeout);
+                } catch (RuntimeException e) {
+                    lane.unlock();
+                    leaveLane(lane);
+                    failedAcquisitionCount.incrementAndGet();
+                    throw e;
+                }
+            }
+            lane.contended = contended;
+            recordAcquisition(contended, System.currentTimeMillis() - start);
+        }
+        return lane;
+    }
+
+    @Override
+    public void releaseLock(Object lockObject) {
+        OrderLane lane = (OrderLane) lockObject;
+        try {
+            if (databaseLockEnabled && lane.getHoldCount() == 1 && !lane.leaseJoined) {
+                releaseLease(lane);
+            }
+        } finally {
+            if (lane.getHoldCount() == 1) {
+                lane.leaseJoined = false;
+            }
+            lane.unlock();
+            leaveLane(lane);
+        }
+    }
+
+    @Override
+    public boolean wasContended(Object lockObject) {
+        OrderLane lane = (OrderLane) lockObject;
+        // Only the outermost acquisition may have waited, reentrant ones were granted to the current holder
+        return lane.contended && lane.getHoldCount() == 1;
+    }
+
+    /**
+     * @return the lane of the given order, registering the current thread as one of its users
+     */
+    protected OrderLane joinLane(Long orderId) {
+        while (true) {
+            OrderLane lane = lanes.get(orderId);
+            if (lane == null) {
+                OrderLane created = new OrderLane(orderId);
+                lane = lanes.putIfAbsent(orderId, created);
+                if (lane == null) {
+                    return created;
+                }
+            }
+            if (lane.join()) {
+                return lane;
+            }
+            // The lane is being discarded by its last user, wait for it to be replaced
+            Thread.yield();
+        }
+    }
+
+    protected void leaveLane(OrderLane lane) {
+        if (lane.users.decrementAndGet() == 0) {
+            lanes.remove(lane.orderId, lane);
+        }
+    }
+
+    /**
+     * @return whether the lease was held by another node when the first attempt was made
+     */
+    protected boolean acquireLease(OrderLane lane, long deadline) {
+        boolean waited = false;
+        while (!tryAcquireLease(lane)) {
+            waited = true;
+            if (System.currentTimeMillis() >= deadline) {
+                throw new OrderLockAcquisitionFailureException("Unable to acquire the lease on order " + lane.orderId 
+                        + " within " + lockTimeout + " ms");
+            }
+            try {
+                Thread.sleep(retryInterval);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new OrderLockAcquisitionFailureException("Interrupted while waiting for the lease on order " 
+                        + lane.orderId, e);
+            }
+        }
+        return waited;
+    }
+
+    protected boolean tryAcquireLease(OrderLane lane) {
+        TransactionStatus status = startLeaseTransaction("acquireOrderLease");
+        boolean joined = !status.isNewTransaction();
+        boolean acquired;
+        boolean leaseExists = true;
+        try {
+            acquired = orderLockDao.acquireLock(lane.orderId, lane.lockKey, System.currentTimeMillis() - leaseTimeout);
+            if (!acquired) {
+                leaseExists = orderLockDao.readLock(lane.orderId) != null;
+            }
+            transactionManager.commit(status);
+        } catch (RuntimeException e) {
+            if (!status.isCompleted()) {
+                transactionManager.rollback(status);
+            }
+            if (joined) {
+                // The failure has marked the caller's transaction for rollback, trying again would be pointless
+                throw new OrderLockAcquisitionFailureException("Unable to acquire the lease on order " + lane.orderId, e);
+            }
+            if (LOG.isDebugEnabled()) {
+                LOG.debug("Unable to acquire the lease on order " + lane.orderId, e);
+            }
+            return false;
+        }
+        
+        if (!leaseExists) {
+            // Once the lease exists, acquiring it is an update that cannot fail the caller's transaction
+            return createLease(lane.orderId) && tryAcquireLease(lane);
+        }
+        
+        if (acquired && joined) {
+            lane.leaseJoined = true;
+            final Long orderId = lane.orderId;
+            final String lockKey = lane.lockKey;
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+                @Override
+                public void beforeCommit(boolean readOnly) {
+                    orderLockDao.releaseLock(orderId, lockKey);
+                }
+            });
+        }
+        return acquired;
+    }
+
+    /**
+     * Inserts the first lease on an order in a transaction of its own, so that a concurrent insert of the same lease 
+     * by another node only rolls back this transaction and never the one of the caller
+     * 
+     * @return whether the lease was inserted
+     */
+    protected boolean createLease(Long orderId) {
+        DefaultTransactionDefinition def = new DefaultTransactionDefinition();
+        def.setName("createOrderLease");
+        def.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        TransactionStatus status = transactionManager.getTransaction(def);
+        try {
+            orderLockDao.createLock(orderId);
+            transactionManager.commit(status);
+            return true;
+        } catch (RuntimeException e) {
+            if (!status.isCompleted()) {
+                transactionManager.rollback(status);
+            }
+            if (LOG.isDebugEnabled()) {
+                LOG.debug("Unable to create the lease on order " + orderId + ", another node may have created it", e);
+            }
+            return false;
+        }
+    }
+
+    protected void releaseLease(OrderLane lane) {
+        TransactionStatus status = startLeaseTransaction("releaseOrderLease");
+        try {
+            orderLockDao.releaseLock(lane.orderId, lane.lockKey);
+            transactionManager.commit(status);
+        } catch (RuntimeException e) {
+            if (!status.isCompleted()) {
+                transactionManager.rollback(status);
+            }
+            LOG.error("Unable to release the lease on order " + lane.orderId + ", it will expire after " + 
+                    leaseTimeout + " ms", e);
+        }
+    }
+
+    /**
+     * Joins the active transaction if there is one, see the class documentation
+     */
+    protected TransactionStatus startLeaseTransaction(String name) {
+        DefaultTransactionDefinition def = new DefaultTransactionDefinition();
+        def.setName(name);
+        def.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRED);
+        return transactionManager.getTransaction(def);
+    }
+
+    protected void recordAcquisition(boolean contended, long waitTime) {
+        acquisitionCount.incrementAndGet();
+        if (!contended) {
+            return;
+        }
+        contendedAcquisitionCount.incrementAndGet();
+        totalWaitTime.addAndGet(waitTime);
+        long max = maxWaitTime.get();
+        while (waitTime > max && !maxWaitTime.compareAndSet(max, waitTime)) {
+            max = maxWaitTime.get();
+        }
+    }
+
+    @ManagedAttribute(description="The number of order locks acquired", currencyTimeLimit=15)
+    public long getAcquisitionCount() {
+        return acquisitionCount.get();
+    }
+
+    @ManagedAttribute(description="The number of order locks that had to wait for another operation on the same order", currencyTimeLimit=15)
+    public long getContendedAcquisitionCount() {
+        return contendedAcquisitionCount.get();
+    }
+
+    @ManagedAttribute(description="The number of order locks that could not be acquired within the timeout", currencyTimeLimit=15)
+    public long getFailedAcquisitionCount() {
+        return failedAcquisitionCount.get();
+    }
+
+    @ManagedAttribute(description="The average milliseconds spent waiting by contended order locks", currencyTimeLimit=15)
+    public double getAverageWaitTime() {
+        long contended = contendedAcquisitionCount.get();
+        return contended == 0 ? 0 : (double) totalWaitTime.get() / contended;
+    }
+
+    @ManagedAttribute(description="The longest milliseconds spent waiting for an order lock", currencyTimeLimit=15)
+    public long getMaxWaitTime() {
+        return maxWaitTime.get();
+    }
+
+    @ManagedAttribute(description="The number of orders currently locked or waited for", currencyTimeLimit=15)
+    public int getActiveLaneCount() {
+        return lanes.size();
+    }
+
+    @ManagedAttribute(description="Whether order locks are also shared across nodes through the database", currencyTimeLimit=15)
+    public boolean isDatabaseLockEnabled() {
+        return databaseLockEnabled;
+    }
+
+    public long getLockTimeout() {
+        return lockTimeout;
+    }
+
+    public void setLockTimeout(long lockTimeout) {
+        this.lockTimeout = lockTimeout;
+    }
+
+    /**
+     * The lock of a single order, along with the number of threads holding or waiting for it
+     */
+    protected static class OrderLane extends ReentrantLock {
+
+        private static final long serialVersionUID = 1L;
+
+        protected final Long orderId;
+        protected final AtomicInteger users = new AtomicInteger(1);
+        protected String lockKey;
+        protected boolean contended;
+        protected boolean leaseJoined;
+
+        public OrderLane(Long orderId) {
+            super(true);
+            this.orderId = orderId;
+        }
+
+        /**
+         * @return false if the lane has no users left and is about to be discarded
+         */
+        protected boolean join() {
+            while (true) {
+                int count = users.get();
+                if (count == 0) {
+                    return false;
+                }
+                if (users.compareAndSet(count, count + 1)) {
+                    return true;
+                }
+            }
+        }
+
+    }
+
+}
@@ -20,6 +20,7 @@ import org.broadleafcommerce.core.offer.domain.OfferCode;
 import org.broadleafcommerce.core.offer.service.exception.OfferMaxUseExceededException;
 import org.broadleafcommerce.core.order.domain.Order;
 import org.broadleafcommerce.core.order.domain.OrderItem;
+import org.broadleafcommerce.core.order.service.call.CartSummary;
 import org.broadleafcommerce.core.order.service.call.GiftWrapOrderItemRequest;
 import org.broadleafcommerce.core.order.service.call.OrderItemRequestDTO;
 import org.broadleafcommerce.core.order.service.exception.AddToCartException;
@@ -107,6 +108,16 @@ public interface OrderService {
      * @return the current shopping cart for the customer
      */
     public Order findCartForCustomer(Customer customer);
+
+    /**
+     * Looks up a lightweight summary of the current shopping cart for the customer. Unlike
+     * {@link #findCartForCustomer(Customer)}, this does not load the order items, fulfillment groups
+     * or adjustments, which makes it suitable for code that runs on every request.
+     * 
+     * @param customer
+     * @return the summary of the customer's shopping cart, or null if there is no cart
+     */
+    public CartSummary findCartSummaryForCustomer(Customer customer);
     
     /**
      * Looks up all Orders for the specified customer, regardless of current OrderStatus
@@ -33,6 +33,7 @@ import org.broadleafcommerce.core.order.domain.NullOrderFactory;
 import org.broadleafcommerce.core.order.domain.Order;
 import org.broadleafcommerce.core.order.domain.OrderItem;
 import org.broadleafcommerce.core.order.domain.OrderItemAttribute;
+import org.broadleafcommerce.core.order.service.call.CartSummary;
 import org.broadleafcommerce.core.order.service.call.GiftWrapOrderItemRequest;
 import org.broadleafcommerce.core.order.service.call.OrderItemRequestDTO;
 import org.broadleafcommerce.core.order.service.exception.AddToCartException;
@@ -61,6 +62,8 @@ import org.springframework.transaction.TransactionDefinition;
 import org.springframework.transaction.TransactionStatus;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.transaction.support.DefaultTransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -112,6 +115,9 @@ public class OrderServiceImpl implements OrderService {
     @Resource(name = "blOrderServiceExtensionManager")
     protected OrderServiceExtensionManager extensionManager;
     
+    @Resource(name = "blOrderLockManager")
+    protected OrderLockManager orderLockManager;
+    
     /* Workflows */
     @Resource(name = "blAddItemWorkflow")
     protected SequenceProcessor addItemWorkflow;
@@ -127,9 +133,6 @@ public class OrderServiceImpl implements OrderService {
 
     @Value("${pricing.retry.count.for.lock.failure}")
     protected int pricingRetryCountForLockFailure = 3;
-
-    @Value("${pricing.retry.wait.interval.for.lock.failure}")
-    protected long pricingRetryWaitIntervalForLockFailure = 500L;
     
     /* Fields */
     protected boolean moveNamedOrderItems = true;
@@ -183,6 +186,11 @@ public class OrderServiceImpl implements OrderService {
         return orderDao.readCartForCustomer(customer);
     }
 
+    @Override
+    public CartSummary findCartSummaryForCustomer(Customer customer) {
+        return orderDao.readCartSummaryForCustomer(customer);
+    }
+
     @Override
     public List<Order> findOrdersForCustomer(Customer customer) {
         return orderDao.readOrdersForCustomer(customer.getId());
@@ -220,6 +228,19 @@ public class OrderServiceImpl implements OrderService {
 
     @Override
     public Order save(Order order, Boolean priceOrder) throws PricingException {
+        // Saves of the same order run one at a time, so pricing does not compete for the rows of the order
+        Object lockObject = order.getId() == null ? null : orderLockManager.acquireLock(order.getId());
+        boolean releaseDeferred = lockObject != null && releaseOnTransactionCompletion(lockObject);
+        try {
+            return persistAndPrice(order, priceOrder);
+        } finally {
+            if (lockObject != null && !releaseDeferred) {
+                orderLockManager.releaseLock(lockObject);
+            }
+        }
+    }
+
+    protected Order persistAndPrice(Order order, Boolean priceOrder) throws PricingException {
         //persist the order first
         DefaultTransactionDefinition def = new DefaultTransactionDefinition();
         def.setName("saveOrder");
@@ -269,14 +290,11 @@ public class OrderServiceImpl implements OrderService {
                                 throw new PricingException(ex);
                             }
                         } else {
+                            // Other operations on this order are held off by the order lock, so the conflict was
+                            // on shared rows (e.g. offer usage) and there is no point in waiting before retrying
                             order = findOrderById(order.getId());
                             retryCount++;
                         }
-                        try {
-                            Thread.sleep(pricingRetryWaitIntervalForLockFailure);
-                        } catch (Throwable e) {
-                            //do nothing
-                        }
                     } else {
                         if (ex instanceof PricingException) {
                             throw (PricingException) ex;
@@ -323,6 +341,84 @@ public class OrderServiceImpl implements OrderService {
         }
     }
     
+    /**
+     * Runs an operation that modifies the given order while holding the lock on the order, in a transaction of its
+     * own unless one is already active. If the operation had to wait for another operation on the same order, the
+     * order is re-read first, since the copy held by the current persistence context may be out of date.
+     * 
+     * When a transaction is already active, the lock is held until that transaction completes rather than until the
+     * operation returns. See {@link #releaseOnTransactionCompletion(Object)}.
+     * 
+     * @param orderId
+     * @param name the name of the transaction
+     * @param operation
+     * @return the result of the operation
+     * @throws E the exception thrown by the operation, in which case the transaction is rolled back
+     */
+    protected <T, E extends Exception> T executeWithOrderLock(Long orderId, String name, OrderOperation<T, E> operation) 
+            throws E {
+        Object lockObject = orderLockManager.acquireLock(orderId);
+        boolean releaseDeferred = releaseOnTransactionCompletion(lockObject);
+        try {
+            DefaultTransactionDefinition def = new DefaultTransactionDefinition();
+            def.setName(name);
+            def.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRED);
+            
+            TransactionStatus status = transactionManager.getTransaction(def);
+            boolean isError = true;
+            try {
+                if (orderLockManager.wasContended(lockObject)) {
+                    orderDao.readOrderById(orderId, true);
+                }
+                T response = operation.execute();
+                isError = false;
+                return response;
+            } finally {
+                if (isError) {
+                    transactionManager.rollback(status);
+                } else {
+                    transactionManager.commit(status);
+                }
+            }
+        } finally {
+            if (!releaseDeferred) {
+                orderLockManager.releaseLock(lockObject);
+            }
+        }
+    }
+    
+    /**
+     * Changes made under an order lock only become visible to the next holder once they are committed. When the lock 
+     * is acquired inside a transaction, such as one started by a caller or by the <code>@Transactional</code> cart 
+     * operations, its release is therefore deferred until that transaction has completed.
+     * 
+     * @param lockObject the object returned by {@link OrderLockManager#acquireLock(Long)}
+     * @return whether the release was deferred, otherwise the caller releases the lock itself once its own 
+     * transactions have completed
+     */
+    protected boolean releaseOnTransactionCompletion(final Object lockObject) {
+        if (!TransactionSynchronizationManager.isActualTransactionActive() || 
+                !TransactionSynchronizationManager.isSynchronizationActive()) {
+            return false;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+            @Override
+            public void afterCompletion(int status) {
+                orderLockManager.releaseLock(lockObject);
+            }
+        });
+        return true;
+    }
+    
+    /**
+     * An operation run by {@link OrderServiceImpl#executeWithOrderLock(Long, String, OrderOperation)}
+     */
+    protected interface OrderOperation<T, E extends Exception> {
+        
+        public T execute() throws E;
+        
+    }
+    
     // This method exists to provide OrderService methods the ability to save an order
     // without having to worry about a PricingException being thrown.
     protected Order persist(Order order) {
@@ -510,9 +606,18 @@ public class OrderServiceImpl implements OrderService {
 
     @Override
     @Transactional(value = "blTransactionManager", rollbackFor = { AddToCartException.class })
-    public Order addItemWithPriceOverrides(Long orderId, OrderItemRequestDTO orderItemRequestDTO, boolean priceOrder) throws AddToCartException {
-
-
+    public Order addItemWithPriceOverrides(final Long orderId, final OrderItemRequestDTO orderItemRequestDTO, 
+            final boolean priceOrder) throws AddToCartException {
+        return executeWithOrderLock(orderId, "addItem", new OrderOperation<Order, AddToCartException>() {
+            @Override
+            public Order execute() throws AddToCartException {
+                return addItemInternal(orderId, orderItemRequestDTO, priceOrder);
+            }
+        });
+    }
+    
+    protected Order addItemInternal(Long orderId, OrderItemRequestDTO orderItemRequestDTO, boolean priceOrder) 
+            throws AddToCartException {
         Order order = findOrderById(orderId);
         if (automaticallyMergeLikeItems) {
             OrderItem item = findMatchingItem(order, orderItemRequestDTO);
@@ -540,11 +645,22 @@ public class OrderServiceImpl implements OrderService {
 
     @Override
     @Transactional(value = "blTransactionManager", rollbackFor = {UpdateCartException.class, RemoveFromCartException.class})
-    public Order updateItemQuantity(Long orderId, OrderItemRequestDTO orderItemRequestDTO, boolean priceOrder) throws UpdateCartException, RemoveFromCartException {
+    public Order updateItemQuantity(final Long orderId, final OrderItemRequestDTO orderItemRequestDTO, 
+            final boolean priceOrder) throws UpdateCartException, RemoveFromCartException {
         if (orderItemRequestDTO.getQuantity() == 0) {
             return removeItem(orderId, orderItemRequestDTO.getOrderItemId(), priceOrder);
         }
         
+        return executeWithOrderLock(orderId, "updateItemQuantity", new OrderOperation<Order, UpdateCartException>() {
+            @Override
+            public Order execute() throws UpdateCartException {
+                return updateItemQuantityInternal(orderId, orderItemRequestDTO, priceOrder);
+            }
+        });
+    }
+    
+    protected Order updateItemQuantityInternal(Long orderId, OrderItemRequestDTO orderItemRequestDTO, boolean priceOrder) 
+            throws UpdateCartException {
         try {
             CartOperationRequest cartOpRequest = new CartOperationRequest(findOrderById(orderId), orderItemRequestDTO, priceOrder);
             CartOperationContext context = (CartOperationContext) updateItemWorkflow.doActivities(cartOpRequest);
@@ -556,7 +672,17 @@ public class OrderServiceImpl implements OrderService {
 
     @Override
     @Transactional(value = "blTransactionManager", rollbackFor = {RemoveFromCartException.class})
-    public Order removeItem(Long orderId, Long orderItemId, boolean priceOrder) throws RemoveFromCartException {
+    public Order removeItem(final Long orderId, final Long orderItemId, final boolean priceOrder) 
+            throws RemoveFromCartException {
+        return executeWithOrderLock(orderId, "removeItem", new OrderOperation<Order, RemoveFromCartException>() {
+            @Override
+            public Order execute() throws RemoveFromCartException {
+                return removeItemInternal(orderId, orderItemId, priceOrder);
+            }
+        });
+    }
+    
+    protected Order removeItemInternal(Long orderId, Long orderItemId, boolean priceOrder) throws RemoveFromCartException {
         try {
             OrderItemRequestDTO orderItemRequestDTO = new OrderItemRequestDTO();
             orderItemRequestDTO.setOrderItemId(orderItemId);
@@ -570,7 +696,16 @@ public class OrderServiceImpl implements OrderService {
 
     @Override
     @Transactional(value = "blTransactionManager", rollbackFor = { RemoveFromCartException.class })
-    public Order removeInactiveItems(Long orderId, boolean priceOrder) throws RemoveFromCartException {
+    public Order removeInactiveItems(final Long orderId, final boolean priceOrder) throws RemoveFromCartException {
+        return executeWithOrderLock(orderId, "removeInactiveItems", new OrderOperation<Order, RemoveFromCartException>() {
+            @Override
+            public Order execute() throws RemoveFromCartException {
+                return removeInactiveItemsInternal(orderId, priceOrder);
+            }
+        });
+    }
+    
+    protected Order removeInactiveItemsInternal(Long orderId, boolean priceOrder) throws RemoveFromCartException {
         Order order = findOrderById(orderId);
         try {
 
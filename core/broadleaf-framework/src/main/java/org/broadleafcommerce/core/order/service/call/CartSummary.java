@@ -0,0 +1,112 @@
+/*
+ * Copyright 2008-2009 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.broadleafcommerce.core.order.service.call;
+
+import org.broadleafcommerce.common.money.Money;
+import org.broadleafcommerce.core.order.domain.Order;
+
+import java.io.Serializable;
+import java.util.Date;
+
+/**
+ * Read-only projection of a customer's cart. It carries just enough information to render a cart summary
+ * (id, item count, subtotal and currency) and to tell whether the cart has changed since it was last looked at,
+ * without loading the order items, fulfillment groups or adjustments.
+ *
+ * @see org.broadleafcommerce.core.order.service.OrderService#findCartSummaryForCustomer(org.broadleafcommerce.profile.core.domain.Customer)
+ */
+public class CartSummary implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    protected final Long orderId;
+    protected final int itemCount;
+    protected final Money subTotal;
+    protected final String currencyCode;
+    protected final String localeCode;
+    protected final Date dateUpdated;
+    protected final String pricingFingerprint;
+
+    public CartSummary(Long orderId, int itemCount, Money subTotal, String currencyCode, String localeCode,
+            Date dateUpdated, String pricingFingerprint) {
+        this.orderId = orderId;
+        this.itemCount = itemCount;
+        this.subTotal = subTotal;
+        this.currencyCode = currencyCode;
+        this.localeCode = localeCode;
+        this.dateUpdated = dateUpdated;
+        this.pricingFingerprint = pricingFingerprint;
+    }
+
+    public Long getOrderId() {
+        return orderId;
+    }
+
+    public int getItemCount() {
+        return itemCount;
+    }
+
+    public Money getSubTotal() {
+        return subTotal;
+    }
+
+    public String getCurrencyCode() {
+        return currencyCode;
+    }
+
+    public String getLocaleCode() {
+        return localeCode;
+    }
+
+    public Date getDateUpdated() {
+        return dateUpdated;
+    }
+
+    public String getPricingFingerprint() {
+        return pricingFingerprint;
+    }
+
+    /**
+     * The version changes whenever items are added or removed or the cart is updated or repriced. The full
+     * millisecond update date is used, so that two updates within the same second are different versions.
+     *
+     * @return a value identifying this particular state of the cart
+     */
+    public String getVersion() {
+        return orderId + "|" + itemCount + "|" + (dateUpdated == null ? "" : dateUpdated.getTime()) + "|" +
+                (pricingFingerprint == null ? "" : pricingFingerprint);
+    }
+
+    /**
+     * Builds the summary of an order that has already been loaded.
+     *
+     * @param order
+     * @return the summary of the given order
+     */
+    public static CartSummary forOrder(Order order) {
+        String currencyCode = order.getCurrency() == null ? null : order.getCurrency().getCurrencyCode();
+        String localeCode = order.getLocale() == null ? null : order.getLocale().getLocaleCode();
+        Date dateUpdated = order.getAuditable() == null ? null : order.getAuditable().getDateUpdated();
+        return new CartSummary(order.getId(), order.getItemCount(), order.getSubTotal(), currencyCode, localeCode,
+                dateUpdated, order.getPricingFingerprint());
+    }
+
+    @Override
+    public String toString() {
+        return "CartSummary [orderId=" + orderId + ", itemCount=" + itemCount + ", subTotal=" + subTotal + "]";
+    }
+
+}
@@ -0,0 +1,41 @@
+/*
+ * Copyright 2008-2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.broadleafcommerce.core.order.service.exception;
+
+/**
+ * Thrown when the lock on an order could not be acquired within the configured timeout
+ */
+public class OrderLockAcquisitionFailureException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    public OrderLockAcquisitionFailureException() {
+        super();
+    }
+
+    public OrderLockAcquisitionFailureException(String message, Throwable cause) {
+        super(message, cause);
+    }
+
+    public OrderLockAcquisitionFailureException(String message) {
+        super(message);
+    }
+
+    public OrderLockAcquisitionFailureException(Throwable cause) {
+        super(cause);
+    }
+
+}
@@ -19,6 +19,9 @@ package org.broadleafcommerce.core.order.service.workflow;
 import org.broadleafcommerce.core.order.domain.Order;
 import org.broadleafcommerce.core.order.domain.OrderItem;
 import org.broadleafcommerce.core.order.service.call.OrderItemRequestDTO;
+import org.broadleafcommerce.core.workflow.IdentifiableSeed;
+
+import java.util.Map;
 
 /**
  * This class represents the basic context necessary for the execution
@@ -26,7 +29,7 @@ import org.broadleafcommerce.core.order.service.call.OrderItemRequestDTO;
  * 
  * @author apazzolini
  */
-public class CartOperationRequest {
+public class CartOperationRequest implements IdentifiableSeed {
 
     protected OrderItemRequestDTO itemRequest;
     
@@ -39,6 +42,9 @@ public class CartOperationRequest {
     
     // Set during the course of the workflow for use in subsequent workflow steps
     protected Integer orderItemQuantityDelta;
+
+    // Set during the course of the workflow so that the inventory reservation can be reverted
+    protected Map<Long, Integer> inventoryReservationDelta;
     
     public CartOperationRequest(Order order, OrderItemRequestDTO itemRequest, boolean priceOrder) {
         setOrder(order);
@@ -85,5 +91,18 @@ public class CartOperationRequest {
     public void setOrderItemQuantityDelta(Integer orderItemQuantityDelta) {
         this.orderItemQuantityDelta = orderItemQuantityDelta;
     }
+
+    public Map<Long, Integer> getInventoryReservationDelta() {
+        return inventoryReservationDelta;
+    }
+
+    public void setInventoryReservationDelta(Map<Long, Integer> inventoryReservationDelta) {
+        this.inventoryReservationDelta = inventoryReservationDelta;
+    }
+
+    @Override
+    public String getSeedIdentifier() {
+        return order == null ? null : "order id [" + order.getId() + "]";
+    }
     
 }
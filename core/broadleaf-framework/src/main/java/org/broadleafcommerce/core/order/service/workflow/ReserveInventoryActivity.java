@@ -0,0 +1,46 @@
+/*
+ * Copyright 2008-2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.broadleafcommerce.core.order.service.workflow;
+
+import org.broadleafcommerce.core.inventory.service.InventoryReservationService;
+import org.broadleafcommerce.core.workflow.BaseActivity;
+
+import javax.annotation.Resource;
+
+/**
+ * Brings the inventory reserved for the cart in line with its order items after they have been added, updated
+ * or removed. The workflow fails with an {@link org.broadleafcommerce.core.inventory.service.InventoryUnavailableException}
+ * if not enough units are available.
+ */
+public class ReserveInventoryActivity extends BaseActivity<CartOperationContext> {
+
+    @Resource(name = "blInventoryReservationService")
+    protected InventoryReservationService inventoryReservationService;
+
+    public ReserveInventoryActivity() {
+        super();
+        //We can automatically register a rollback handler because the state will be in the process context.
+        super.setAutomaticallyRegisterRollbackHandler(true);
+    }
+
+    @Override
+    public CartOperationContext execute(CartOperationContext context) throws Exception {
+        CartOperationRequest request = context.getSeedData();
+        request.setInventoryReservationDelta(inventoryReservationService.reserveInventory(request.getOrder()));
+        return context;
+    }
+
+}
@@ -0,0 +1,43 @@
+/*
+ * Copyright 2008-2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.broadleafcommerce.core.order.service.workflow;
+
+import org.broadleafcommerce.core.inventory.service.InventoryReservationService;
+import org.broadleafcommerce.core.workflow.Activity;
+import org.broadleafcommerce.core.workflow.ProcessContext;
+import org.broadleafcommerce.core.workflow.state.RollbackFailureException;
+import org.broadleafcommerce.core.workflow.state.RollbackHandler;
+
+import java.util.Map;
+
+import javax.annotation.Resource;
+
+public class ReserveInventoryRollbackHandler implements RollbackHandler {
+
+    @Resource(name = "blInventoryReservationService")
+    protected InventoryReservationService inventoryReservationService;
+
+    @Override
+    public void rollbackState(Activity<? extends ProcessContext> activity, ProcessContext processContext, Map<String, Object> stateConfiguration) throws RollbackFailureException {
+        CartOperationRequest request = ((CartOperationContext) processContext).getSeedData();
+        try {
+            inventoryReservationService.revertReservation(request.getOrder().getId(), request.getInventoryReservationDelta());
+        } catch (RuntimeException e) {
+            throw new RollbackFailureException("An exception occured reverting the inventory reservation for order id: " + request.getOrder().getId(), e);
+        }
+    }
+
+}
@@ -21,10 +21,11 @@ import org.broadleafcommerce.core.order.domain.Order;
 import org.broadleafcommerce.core.payment.domain.PaymentInfo;
 import org.broadleafcommerce.core.payment.domain.Referenced;
 import org.broadleafcommerce.core.payment.service.module.PaymentResponse;
+import org.broadleafcommerce.core.workflow.IdentifiableSeed;
 
 import java.util.Map;
 
-public class PaymentSeed implements CompositePaymentResponse {
+public class PaymentSeed implements CompositePaymentResponse, IdentifiableSeed {
 
     private Order order;
     private Map<PaymentInfo, Referenced> infos;
@@ -60,4 +61,9 @@ public class PaymentSeed implements CompositePaymentResponse {
         return transactionAmount;
     }
 
+    @Override
+    public String getSeedIdentifier() {
+        return order == null ? null : "order id [" + order.getId() + "]";
+    }
+
 }
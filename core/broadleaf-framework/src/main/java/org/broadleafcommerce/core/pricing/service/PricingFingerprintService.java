@@ -0,0 +1,39 @@
+/*
+ * Copyright 2008-2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.broadleafcommerce.core.pricing.service;
+
+import org.broadleafcommerce.core.order.domain.Order;
+
+/**
+ * Computes a digest of the pricing inputs held by an {@link Order}: the skus, quantities and prices of the items, the 
+ * offer codes, the customer, the fulfillment groups with their addresses and options, and the currency. When the 
+ * digest matches {@link Order#getPricingFingerprint()}, pricing the order again would produce the same result unless
+ * something outside of the order has changed.
+ * 
+ * Inputs outside of the order, such as offers being created or expiring, edited offer rules, sale price dates or 
+ * changed tax and shipping rates, are only picked up once the fingerprint expires, which happens after 
+ * <code>pricing.fingerprint.maxAge</code> milliseconds. This is why skipping is disabled by default, and why checkout
+ * always prices the order.
+ */
+public interface PricingFingerprintService {
+
+    /**
+     * @param order
+     * @return the fingerprint of the current pricing inputs of the given order
+     */
+    public String computeFingerprint(Order order);
+
+}
@@ -0,0 +1,185 @@
+/*
+ * Copyright 2008-2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.broadleafcommerce.core.pricing.service;
+
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+
+import org.broadleafcommerce.common.money.Money;
+import org.broadleafcommerce.core.catalog.domain.Sku;
+import org.broadleafcommerce.core.offer.domain.OfferCode;
+import org.broadleafcommerce.core.order.domain.BundleOrderItem;
+import org.broadleafcommerce.core.order.domain.DiscreteOrderItem;
+import org.broadleafcommerce.core.order.domain.FulfillmentGroup;
+import org.broadleafcommerce.core.order.domain.FulfillmentGroupItem;
+import org.broadleafcommerce.core.order.domain.Order;
+import org.broadleafcommerce.core.order.domain.OrderItem;
+import org.broadleafcommerce.core.order.domain.OrderItemAttribute;
+import org.broadleafcommerce.profile.core.domain.Address;
+import org.broadleafcommerce.profile.core.domain.Customer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * The fingerprint is computed on every pricing request, so it only reads what the order has already loaded and never
+ * queries for the offers available to the order. The fingerprint does not include the ids of order items or 
+ * fulfillment groups, since pricing may create items that only get an id once the order is saved. Extensions that 
+ * read additional inputs while pricing should add them in an override of one of the protected methods.
+ */
+@Service("blPricingFingerprintService")
+public class PricingFingerprintServiceImpl implements PricingFingerprintService {
+
+    /**
+     * Separates the values fed to the digest so that adjacent values cannot run into each other
+     */
+    protected static final char SEPARATOR = '\u0000';
+
+    @Value("${pricing.fingerprint.maxAge}")
+    protected long maxAge = 600000;
+
+    @Override
+    public String computeFingerprint(Order order) {
+        Hasher hasher = Hashing.md5().newHasher();
+        if (maxAge > 0) {
+            hasher.putLong(System.currentTimeMillis() / maxAge);
+        }
+        
+        addOrderInputs(hasher, order);
+        for (OrderItem orderItem : order.getOrderItems()) {
+            addOrderItemInputs(hasher, orderItem);
+        }
+        for (FulfillmentGroup fulfillmentGroup : order.getFulfillmentGroups()) {
+            addFulfillmentGroupInputs(hasher, fulfillmentGroup);
+        }
+        return hasher.hash().toString();
+    }
+
+    protected void addOrderInputs(Hasher hasher, Order order) {
+        Customer customer = order.getCustomer();
+        put(hasher, customer == null ? null : customer.getId());
+        put(hasher, customer == null ? null : customer.isRegistered());
+        put(hasher, order.getStatus() == null ? null : order.getStatus().getType());
+        put(hasher, order.getCurrency() == null ? null : order.getCurrency().getCurrencyCode());
+        put(hasher, order.getLocale() == null ? null : order.getLocale().getLocaleCode());
+        
+        List<String> offerCodes = new ArrayList<String>();
+        for (OfferCode offerCode : order.getAddedOfferCodes()) {
+            offerCodes.add(offerCode.getOfferCode());
+        }
+        Collections.sort(offerCodes);
+        put(hasher, offerCodes.size());
+        for (String offerCode : offerCodes) {
+            put(hasher, offerCode);
+        }
+    }
+
+    protected void addOrderItemInputs(Hasher hasher, OrderItem orderItem) {
+        put(hasher, orderItem.getClass().getName());
+        put(hasher, orderItem.getQuantity());
+        put(hasher, orderItem.getRetailPrice());
+        put(hasher, orderItem.getSalePrice());
+        put(hasher, orderItem.isRetailPriceOverride());
+        put(hasher, orderItem.isSalePriceOverride());
+        
+        Map<String, OrderItemAttribute> attributes = orderItem.getOrderItemAttributes();
+        if (attributes != null) {
+            for (Map.Entry<String, OrderItemAttribute> entry : new TreeMap<String, OrderItemAttribute>(attributes).entrySet()) {
+                put(hasher, entry.getKey());
+                put(hasher, entry.getValue() == null ? null : entry.getValue().getValue());
+            }
+        }
+        
+        if (orderItem instanceof DiscreteOrderItem) {
+            addSkuInputs(hasher, ((DiscreteOrderItem) orderItem).getSku());
+        } else if (orderItem instanceof BundleOrderItem) {
+            BundleOrderItem bundleOrderItem = (BundleOrderItem) orderItem;
+            addSkuInputs(hasher, bundleOrderItem.getSku());
+            for (DiscreteOrderItem discreteOrderItem : bundleOrderItem.getDiscreteOrderItems()) {
+                addOrderItemInputs(hasher, discreteOrderItem);
+            }
+        }
+    }
+
+    /**
+     * Adds the current prices of the sku, which may be dynamic and change independently of the order
+     */
+    protected void addSkuInputs(Hasher hasher, Sku sku) {
+        if (sku == null) {
+            put(hasher, null);
+            return;
+        }
+        put(hasher, sku.getId());
+        put(hasher, sku.getRetailPrice());
+        put(hasher, sku.getSalePrice());
+    }
+
+    protected void addFulfillmentGroupInputs(Hasher hasher, FulfillmentGroup fulfillmentGroup) {
+        put(hasher, fulfillmentGroup.getType() == null ? null : fulfillmentGroup.getType().getType());
+        put(hasher, fulfillmentGroup.getFulfillmentOption() == null ? null : fulfillmentGroup.getFulfillmentOption().getId());
+        put(hasher, fulfillmentGroup.getMethod());
+        put(hasher, fulfillmentGroup.getService());
+        
+        Address address = fulfillmentGroup.getAddress();
+        if (address == null) {
+            put(hasher, null);
+        } else {
+            put(hasher, address.getAddressLine1());
+            put(hasher, address.getAddressLine2());
+            put(hasher, address.getCity());
+            put(hasher, address.getCounty());
+            put(hasher, address.getState() == null ? null : address.getState().getAbbreviation());
+            put(hasher, address.getPostalCode());
+            put(hasher, address.getCountry() == null ? null : address.getCountry().getAbbreviation());
+        }
+        
+        for (FulfillmentGroupItem fulfillmentGroupItem : fulfillmentGroup.getFulfillmentGroupItems()) {
+            OrderItem orderItem = fulfillmentGroupItem.getOrderItem();
+            if (orderItem instanceof DiscreteOrderItem) {
+                Sku sku = ((DiscreteOrderItem) orderItem).getSku();
+                put(hasher, sku == null ? null : sku.getId());
+            } else if (orderItem instanceof BundleOrderItem) {
+                Sku sku = ((BundleOrderItem) orderItem).getSku();
+                put(hasher, sku == null ? null : sku.getId());
+            } else {
+                put(hasher, orderItem == null ? null : orderItem.getName());
+            }
+            put(hasher, fulfillmentGroupItem.getQuantity());
+        }
+    }
+
+    protected void put(Hasher hasher, Object value) {
+        if (value instanceof Money) {
+            Money money = (Money) value;
+            value = money.getAmount().stripTrailingZeros().toPlainString() + money.getCurrency().getCurrencyCode();
+        }
+        hasher.putString(String.valueOf(value)).putChar(SEPARATOR);
+    }
+
+    public long getMaxAge() {
+        return maxAge;
+    }
+
+    public void setMaxAge(long maxAge) {
+        this.maxAge = maxAge;
+    }
+
+}
@@ -23,4 +23,13 @@ public interface PricingService {
 
     public Order executePricing(Order order) throws PricingException;
 
+    /**
+     * @param order
+     * @param allowSkip whether pricing may be skipped when the pricing inputs of the order have not changed since it 
+     * was last priced. {@link #executePricing(Order)} allows it.
+     * @return the priced order
+     * @throws PricingException
+     */
+    public Order executePricing(Order order, boolean allowSkip) throws PricingException;
+
 }
@@ -16,25 +16,62 @@
 
 package org.broadleafcommerce.core.pricing.service;
 
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
 import org.broadleafcommerce.core.order.domain.Order;
 import org.broadleafcommerce.core.pricing.service.exception.PricingException;
 import org.broadleafcommerce.core.pricing.service.workflow.PricingContext;
 import org.broadleafcommerce.core.workflow.SequenceProcessor;
 import org.broadleafcommerce.core.workflow.WorkflowException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jmx.export.annotation.ManagedAttribute;
+import org.springframework.jmx.export.annotation.ManagedResource;
 import org.springframework.stereotype.Service;
 
+import java.util.concurrent.atomic.AtomicLong;
+
 import javax.annotation.Resource;
 
 @Service("blPricingService")
+@ManagedResource(objectName="org.broadleafcommerce:name=PricingService", description="Pricing Service", currencyTimeLimit=15)
 public class PricingServiceImpl implements PricingService {
 
+    private static final Log LOG = LogFactory.getLog(PricingServiceImpl.class);
+
     @Resource(name="blPricingWorkflow")
     protected SequenceProcessor pricingWorkflow;
 
+    @Resource(name="blPricingFingerprintService")
+    protected PricingFingerprintService pricingFingerprintService;
+
+    @Value("${pricing.fingerprint.enabled}")
+    protected boolean fingerprintEnabled = false;
+
+    protected final AtomicLong pricedCount = new AtomicLong();
+    protected final AtomicLong skippedCount = new AtomicLong();
+
     public Order executePricing(Order order) throws PricingException {
+        return executePricing(order, true);
+    }
+
+    public Order executePricing(Order order, boolean allowSkip) throws PricingException {
+        // Pricing the order again would give the same result as long as none of its pricing inputs have changed
+        if (allowSkip && fingerprintEnabled && order.getPricingFingerprint() != null
+                && order.getPricingFingerprint().equals(pricingFingerprintService.computeFingerprint(order))) {
+            skippedCount.incrementAndGet();
+            if (LOG.isDebugEnabled()) {
+                LOG.debug("Pricing inputs of order " + order.getId() + " are unchanged, skipping pricing");
+            }
+            return order;
+        }
+        
         try {
             PricingContext context = (PricingContext) pricingWorkflow.doActivities(order);
             Order response = context.getSeedData();
+            if (fingerprintEnabled) {
+                response.setPricingFingerprint(pricingFingerprintService.computeFingerprint(response));
+            }
+            pricedCount.incrementAndGet();
 
             return response;
         } catch (WorkflowException e) {
@@ -42,4 +79,31 @@ public class PricingServiceImpl implements PricingService {
         }
     }
 
+    @ManagedAttribute(description="The number of times the pricing workflow was run", currencyTimeLimit=15)
+    public long getPricedCount() {
+        return pricedCount.get();
+    }
+
+    @ManagedAttribute(description="The number of pricing requests skipped because the pricing inputs were unchanged", currencyTimeLimit=15)
+    public long getSkippedCount() {
+        return skippedCount.get();
+    }
+
+    @ManagedAttribute(description="The ratio of pricing requests that were skipped", currencyTimeLimit=15)
+    public double getSkipRate() {
+        long skipped = skippedCount.get();
+        long total = skipped + pricedCount.get();
+        return total == 0 ? 0 : (double) skipped / total;
+    }
+
+    @ManagedAttribute(description="Whether pricing is skipped for orders whose pricing inputs are unchanged", currencyTimeLimit=15)
+    public boolean isFingerprintEnabled() {
+        return fingerprintEnabled;
+    }
+
+    @ManagedAttribute(description="Whether pricing is skipped for orders whose pricing inputs are unchanged", currencyTimeLimit=15)
+    public void setFingerprintEnabled(boolean fingerprintEnabled) {
+        this.fingerprintEnabled = fingerprintEnabled;
+    }
+
 }
@@ -16,21 +16,74 @@
 
 package org.broadleafcommerce.core.pricing.service;
 
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+
 import org.broadleafcommerce.common.config.domain.ModuleConfiguration;
 import org.broadleafcommerce.common.config.service.ModuleConfigurationService;
 import org.broadleafcommerce.common.config.service.type.ModuleConfigurationType;
+import org.broadleafcommerce.common.money.Money;
+import org.broadleafcommerce.core.order.domain.DiscreteOrderItem;
+import org.broadleafcommerce.core.order.domain.FulfillmentGroup;
+import org.broadleafcommerce.core.order.domain.FulfillmentGroupFee;
+import org.broadleafcommerce.core.order.domain.FulfillmentGroupItem;
 import org.broadleafcommerce.core.order.domain.Order;
+import org.broadleafcommerce.core.order.domain.OrderItem;
+import org.broadleafcommerce.core.order.domain.TaxDetail;
 import org.broadleafcommerce.core.pricing.service.exception.TaxException;
+import org.broadleafcommerce.core.pricing.service.tax.TaxCalculationResult;
 import org.broadleafcommerce.core.pricing.service.tax.provider.TaxProvider;
+import org.broadleafcommerce.profile.core.domain.Address;
+import org.broadleafcommerce.profile.core.domain.Customer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jmx.export.annotation.ManagedAttribute;
+import org.springframework.jmx.export.annotation.ManagedOperation;
+import org.springframework.jmx.export.annotation.ManagedResource;
 
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Date;
 import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
 
 import javax.annotation.Resource;
 
+/**
+ * Delegates to the first {@link TaxProvider} that can respond to the active tax configuration. 
+ * 
+ * When <code>tax.calculation.cache.enabled=true</code>, calculated taxes are remembered per taxable line, keyed by the 
+ * inputs of the line (its address, taxable amount and tax category) together with the customer, the customer's tax 
+ * exemption code and the tax date of the order. When an order is taxed again with exactly the same inputs, for example 
+ * because pricing was triggered by a change that does not affect taxes, the remembered taxes are applied without 
+ * calling the provider. This is disabled by default; only enable it for providers whose results depend on nothing 
+ * but these inputs.
+ */
+@ManagedResource(objectName="org.broadleafcommerce:name=TaxService", description="Tax Service", currencyTimeLimit=15)
 public class TaxServiceImpl implements TaxService {
 
+    /**
+     * Separates the values of a line key so that adjacent values cannot run into each other
+     */
+    protected static final char SEPARATOR = '\u0000';
+
     protected boolean mustCalculate = false;
 
+    @Value("${tax.calculation.cache.enabled}")
+    protected boolean cacheEnabled = false;
+
+    @Value("${tax.calculation.cache.ttl}")
+    protected long ttl = 600000;
+
+    @Value("${tax.calculation.cache.maximumSize}")
+    protected long maximumSize = 10000;
+
+    protected volatile Cache<String, TaxCalculationResult> resultCache;
+
     @Resource(name = "blTaxProviders")
     protected List<TaxProvider> providers;
 
@@ -62,7 +115,7 @@ public class TaxServiceImpl implements TaxService {
             if (providers != null && !providers.isEmpty()) {
                 for (TaxProvider provider : providers) {
                     if (provider.canRespond(config)) {
-                        return provider.calculateTaxForOrder(order, config);
+                        return calculateTax(provider, order, config);
                     }
                 }
             }
@@ -144,6 +197,189 @@ public class TaxServiceImpl implements TaxService {
         }
     }
 
+    /**
+     * Calculates the taxes for the order with the given provider, or applies the taxes calculated for an order with the
+     * same taxable lines
+     */
+    protected Order calculateTax(TaxProvider provider, Order order, ModuleConfiguration config) throws TaxException {
+        if (!cacheEnabled) {
+            return provider.calculateTaxForOrder(order, config);
+        }
+
+        Map<String, List<List<TaxDetail>>> lines = getTaxableLines(order);
+        String key = getResultKey(order, config, lines);
+        Cache<String, TaxCalculationResult> cache = getResultCacheInstance();
+        TaxCalculationResult result = cache.getIfPresent(key);
+        if (result != null && result.applyTo(lines, order, config)) {
+            return order;
+        }
+
+        Order taxedOrder = provider.calculateTaxForOrder(order, config);
+
+        // The provider could have changed the lines it was given, in which case its result is not remembered
+        Map<String, List<List<TaxDetail>>> taxedLines = getTaxableLines(taxedOrder);
+        if (key.equals(getResultKey(taxedOrder, config, taxedLines))) {
+            result = TaxCalculationResult.capture(taxedLines);
+            if (result != null) {
+                cache.put(key, result);
+            }
+        }
+        return taxedOrder;
+    }
+
+    /**
+     * @return the tax details of every taxable line of the order, keyed by the inputs of the line. Lines with the same
+     * inputs share a key.
+     */
+    protected Map<String, List<List<TaxDetail>>> getTaxableLines(Order order) {
+        Map<String, List<List<TaxDetail>>> lines = new TreeMap<String, List<List<TaxDetail>>>();
+        for (FulfillmentGroup fulfillmentGroup : order.getFulfillmentGroups()) {
+            String addressKey = getAddressKey(fulfillmentGroup.getAddress());
+            for (FulfillmentGroupItem fgItem : fulfillmentGroup.getFulfillmentGroupItems()) {
+                OrderItem orderItem = fgItem.getOrderItem();
+                String taxCode = null;
+                if (orderItem instanceof DiscreteOrderItem && ((DiscreteOrderItem) orderItem).getSku() != null) {
+                    taxCode = ((DiscreteOrderItem) orderItem).getSku().getTaxCode();
+                }
+                addLine(lines, fgItem.getTaxes(), "item", addressKey, fgItem.getTotalItemTaxableAmount(), taxCode, 
+                        orderItem == null ? null : orderItem.isTaxable());
+            }
+            for (FulfillmentGroupFee fgFee : fulfillmentGroup.getFulfillmentGroupFees()) {
+                addLine(lines, fgFee.getTaxes(), "fee", addressKey, fgFee.getAmount(), fgFee.getName(), 
+                        fgFee.isTaxable());
+            }
+            String fulfillmentType = fulfillmentGroup.getType() == null ? null : fulfillmentGroup.getType().getType();
+            addLine(lines, fulfillmentGroup.getTaxes(), "fulfillment", addressKey, 
+                    fulfillmentGroup.getFulfillmentPrice(), fulfillmentType, fulfillmentGroup.isShippingPriceTaxable());
+        }
+        return lines;
+    }
+
+    protected void addLine(Map<String, List<List<TaxDetail>>> lines, List<TaxDetail> taxes, Object... inputs) {
+        StringBuilder sb = new StringBuilder();
+        for (Object input : inputs) {
+            if (input instanceof Money) {
+                Money money = (Money) input;
+                input = money.getAmount().stripTrailingZeros().toPlainString() + money.getCurrency().getCurrencyCode();
+            }
+            sb.append(input).append(SEPARATOR);
+        }
+        String lineKey = sb.toString();
+        List<List<TaxDetail>> lineTaxes = lines.get(lineKey);
+        if (lineTaxes == null) {
+            lineTaxes = new ArrayList<List<TaxDetail>>();
+            lines.put(lineKey, lineTaxes);
+        }
+        lineTaxes.add(taxes);
+    }
+
+    protected String getAddressKey(Address address) {
+        if (address == null) {
+            return null;
+        }
+        StringBuilder sb = new StringBuilder();
+        sb.append(address.getAddressLine1()).append(SEPARATOR);
+        sb.append(address.getAddressLine2()).append(SEPARATOR);
+        sb.append(address.getAddressLine3()).append(SEPARATOR);
+        sb.append(address.getCity()).append(SEPARATOR);
+        sb.append(address.getCounty()).append(SEPARATOR);
+        sb.append(address.getPostalCode()).append(SEPARATOR);
+        sb.append(address.getState() == null ? null : address.getState().getAbbreviation()).append(SEPARATOR);
+        sb.append(address.getCountry() == null ? null : address.getCountry().getAbbreviation());
+        return sb.toString();
+    }
+
+    /**
+     * @return a key that is the same for every order taxed with the same configuration, for the same customer and tax
+     * exemption, on the same tax date, that has the same lines 
+     */
+    protected String getResultKey(Order order, ModuleConfiguration config, Map<String, List<List<TaxDetail>>> lines) {
+        Hasher hasher = Hashing.md5().newHasher();
+        hasher.putString(String.valueOf(config.getId())).putChar(SEPARATOR);
+        if (config.getAuditable() != null && config.getAuditable().getDateUpdated() != null) {
+            hasher.putLong(config.getAuditable().getDateUpdated().getTime());
+        }
+        hasher.putChar(SEPARATOR);
+        hasher.putString(order.getCurrency() == null ? "" : order.getCurrency().getCurrencyCode()).putChar(SEPARATOR);
+        Customer customer = order.getCustomer();
+        if (customer != null) {
+            hasher.putString(String.valueOf(customer.getId())).putChar(SEPARATOR);
+            hasher.putString(String.valueOf(customer.getTaxExemptionCode()));
+        }
+        hasher.putChar(SEPARATOR);
+        hasher.putString(getTaxDateKey(order)).putChar(SEPARATOR);
+        for (Map.Entry<String, List<List<TaxDetail>>> entry : lines.entrySet()) {
+            hasher.putString(entry.getKey()).putInt(entry.getValue().size());
+        }
+        return hasher.hash().toString();
+    }
+
+    /**
+     * @return the day on which the order is taxed: the day it was submitted, or today for an order that is not 
+     * submitted yet 
+     */
+    protected String getTaxDateKey(Order order) {
+        Date taxDate = order.getSubmitDate() == null ? new Date() : order.getSubmitDate();
+        return new SimpleDateFormat("yyyyMMdd").format(taxDate);
+    }
+
+    protected Cache<String, TaxCalculationResult> getResultCacheInstance() {
+        Cache<String, TaxCalculationResult> cache = resultCache;
+        if (cache == null) {
+            synchronized (this) {
+                cache = resultCache;
+                if (cache == null) {
+                    cache = CacheBuilder.newBuilder()
+                            .maximumSize(maximumSize)
+                            .expireAfterWrite(ttl, TimeUnit.MILLISECONDS)
+                            .recordStats()
+                            .<String, TaxCalculationResult>build();
+                    resultCache = cache;
+                }
+            }
+        }
+        return cache;
+    }
+
+    @ManagedOperation(description="Removes every remembered tax calculation")
+    public void invalidateAll() {
+        if (resultCache != null) {
+            resultCache.invalidateAll();
+        }
+    }
+
+    @ManagedAttribute(description="The number of remembered tax calculations", currencyTimeLimit=15)
+    public long getCacheSize() {
+        return resultCache == null ? 0 : resultCache.size();
+    }
+
+    @ManagedAttribute(description="The number of orders taxed without calling the tax provider", currencyTimeLimit=15)
+    public long getHitCount() {
+        return getCacheStats().hitCount();
+    }
+
+    @ManagedAttribute(description="The number of orders taxed by calling the tax provider", currencyTimeLimit=15)
+    public long getMissCount() {
+        return getCacheStats().missCount();
+    }
+
+    @ManagedAttribute(description="The ratio of orders taxed without calling the tax provider", currencyTimeLimit=15)
+    public double getHitRate() {
+        return getCacheStats().hitRate();
+    }
+
+    protected CacheStats getCacheStats() {
+        return resultCache == null ? new CacheStats(0, 0, 0, 0, 0, 0) : resultCache.stats();
+    }
+
+    public boolean isCacheEnabled() {
+        return cacheEnabled;
+    }
+
+    public void setCacheEnabled(boolean cacheEnabled) {
+        this.cacheEnabled = cacheEnabled;
+    }
+
     /**
      * Sets a list of <code>TaxProvider</code> implementations.
      * 
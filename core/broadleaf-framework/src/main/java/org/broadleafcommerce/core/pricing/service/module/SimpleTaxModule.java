@@ -24,11 +24,13 @@ import org.broadleafcommerce.core.order.domain.TaxDetail;
 import org.broadleafcommerce.core.order.domain.TaxDetailImpl;
 import org.broadleafcommerce.core.order.domain.TaxType;
 import org.broadleafcommerce.core.pricing.service.exception.TaxException;
+import org.broadleafcommerce.core.pricing.service.tax.TaxJurisdictionRateIndex;
 import org.broadleafcommerce.profile.core.domain.Address;
 import org.broadleafcommerce.profile.core.domain.Country;
 import org.broadleafcommerce.profile.core.domain.State;
 
 import java.math.BigDecimal;
+import java.util.List;
 import java.util.Map;
 
 /**
@@ -67,77 +69,129 @@ public class SimpleTaxModule implements TaxModule {
 
     protected boolean taxFees;
 
+    protected volatile TaxJurisdictionRateIndex itemRateIndex;
+    protected volatile TaxJurisdictionRateIndex fulfillmentGroupRateIndex;
+
     @Override
     public Order calculateTaxForOrder(Order order) throws TaxException {
         for (FulfillmentGroup fulfillmentGroup : order.getFulfillmentGroups()) {
+            // The jurisdiction only depends on the address, so it is resolved once for the whole group
+            BigDecimal itemRate = getExactRate(determineItemTaxRate(fulfillmentGroup.getAddress()));
             
             // Set taxes on the fulfillment group items
-            for (FulfillmentGroupItem fgItem : fulfillmentGroup.getFulfillmentGroupItems()) {
-                if (isItemTaxable(fgItem)) {
-                    Double factor = determineItemTaxRate(fulfillmentGroup.getAddress());
-                    if (factor != null && factor.compareTo(0d) != 0) {
-                        TaxDetail tax;
-                        checkDetail: {
-                            for (TaxDetail detail : fgItem.getTaxes()) {
-                                if (detail.getType().equals(TaxType.COMBINED)) {
-                                    tax = detail;
-                                    break checkDetail;
-                                }
-                            }
-                            tax = new TaxDetailImpl();
-                            tax.setType(TaxType.COMBINED);
-                            fgItem.getTaxes().add(tax);
-                        }
-                        tax.setRate(new BigDecimal(factor));
-                        tax.setAmount(fgItem.getTotalItemTaxableAmount().multiply(factor));
+            if (itemRate.signum() != 0) {
+                for (FulfillmentGroupItem fgItem : fulfillmentGroup.getFulfillmentGroupItems()) {
+                    if (isItemTaxable(fgItem)) {
+                        TaxDetail tax = getCombinedTaxDetail(fgItem.getTaxes());
+                        tax.setRate(itemRate);
+                        tax.setAmount(fgItem.getTotalItemTaxableAmount().multiply(itemRate));
                     }
                 }
-            }
 
-            for (FulfillmentGroupFee fgFee : fulfillmentGroup.getFulfillmentGroupFees()) {
-                if (isFeeTaxable(fgFee)) {
-                    Double factor = determineItemTaxRate(fulfillmentGroup.getAddress());
-                    if (factor != null && factor.compareTo(0d) != 0) {
-                        TaxDetail tax;
-                        checkDetail: {
-                            for (TaxDetail detail : fgFee.getTaxes()) {
-                                if (detail.getType().equals(TaxType.COMBINED)) {
-                                    tax = detail;
-                                    break checkDetail;
-                                }
-                            }
-                            tax = new TaxDetailImpl();
-                            tax.setType(TaxType.COMBINED);
-                            fgFee.getTaxes().add(tax);
-                        }
-                        tax.setRate(new BigDecimal(factor));
-                        tax.setAmount(fgFee.getAmount().multiply(factor));
+                for (FulfillmentGroupFee fgFee : fulfillmentGroup.getFulfillmentGroupFees()) {
+                    if (isFeeTaxable(fgFee)) {
+                        TaxDetail tax = getCombinedTaxDetail(fgFee.getTaxes());
+                        tax.setRate(itemRate);
+                        tax.setAmount(fgFee.getAmount().multiply(itemRate));
                     }
                 }
             }
 
-            Double factor = determineTaxRateForFulfillmentGroup(fulfillmentGroup);
-            if (factor != null && factor.compareTo(0d) != 0) {
-                TaxDetail tax;
-                checkDetail: {
-                    for (TaxDetail detail : fulfillmentGroup.getTaxes()) {
-                        if (detail.getType().equals(TaxType.COMBINED)) {
-                            tax = detail;
-                            break checkDetail;
-                        }
-                    }
-                    tax = new TaxDetailImpl();
-                    tax.setType(TaxType.COMBINED);
-                    fulfillmentGroup.getTaxes().add(tax);
-                }
-                tax.setRate(new BigDecimal(factor));
-                tax.setAmount(fulfillmentGroup.getFulfillmentPrice().multiply(factor));
+            BigDecimal fulfillmentGroupRate = getExactRate(determineTaxRateForFulfillmentGroup(fulfillmentGroup));
+            if (fulfillmentGroupRate.signum() != 0) {
+                TaxDetail tax = getCombinedTaxDetail(fulfillmentGroup.getTaxes());
+                tax.setRate(fulfillmentGroupRate);
+                tax.setAmount(fulfillmentGroup.getFulfillmentPrice().multiply(fulfillmentGroupRate));
             }
         }
 
         return order;
     }
 
+    /**
+     * @return the existing combined tax detail in the list, or a new one that has been added to it
+     */
+    protected TaxDetail getCombinedTaxDetail(List<TaxDetail> taxes) {
+        for (TaxDetail detail : taxes) {
+            if (detail.getType().equals(TaxType.COMBINED)) {
+                return detail;
+            }
+        }
+        TaxDetail tax = new TaxDetailImpl();
+        tax.setType(TaxType.COMBINED);
+        taxes.add(tax);
+        return tax;
+    }
+
+    /**
+     * @return the exact decimal value of a rate returned by one of the determine methods, or zero if there is none
+     */
+    protected BigDecimal getExactRate(Double rate) {
+        return rate == null ? BigDecimal.ZERO : TaxJurisdictionRateIndex.toRate(rate);
+    }
+
+    /**
+     * @return the index of the item rates, which is created on first use. The index remembers the rate of each
+     * jurisdiction and resolves new jurisdictions through the lookup methods of this module.
+     */
+    protected TaxJurisdictionRateIndex getItemRateIndex() {
+        TaxJurisdictionRateIndex index = itemRateIndex;
+        if (index == null) {
+            index = new TaxJurisdictionRateIndex(defaultItemTaxRate) {
+                @Override
+                protected BigDecimal lookupRate(Address address) {
+                    Double rate = lookupTaxRate(address, itemPostalCodeTaxRateMap, itemCityTaxRateMap,
+                            itemStateTaxRateMap, itemCountryTaxRateMap);
+                    return rate == null ? getDefaultRate() : toRate(rate);
+                }
+            };
+            itemRateIndex = index;
+        }
+        return index;
+    }
+
+    /**
+     * @return the index of the fulfillment group rates, which is created on first use. The index remembers the
+     * rate of each jurisdiction and resolves new jurisdictions through the lookup methods of this module.
+     */
+    protected TaxJurisdictionRateIndex getFulfillmentGroupRateIndex() {
+        TaxJurisdictionRateIndex index = fulfillmentGroupRateIndex;
+        if (index == null) {
+            index = new TaxJurisdictionRateIndex(defaultFulfillmentGroupTaxRate) {
+                @Override
+                protected BigDecimal lookupRate(Address address) {
+                    Double rate = lookupTaxRate(address, fulfillmentGroupPostalCodeTaxRateMap,
+                            fulfillmentGroupCityTaxRateMap, fulfillmentGroupStateTaxRateMap,
+                            fulfillmentGroupCountryTaxRateMap);
+                    return rate == null ? getDefaultRate() : toRate(rate);
+                }
+            };
+            fulfillmentGroupRateIndex = index;
+        }
+        return index;
+    }
+
+    /**
+     * Checks the passed in maps in order - (postal code, city, state, country)
+     *
+     * @return the rate of the most specific match, or null if no match is found
+     */
+    protected Double lookupTaxRate(Address address, Map<String, Double> postalCodeTaxRateMap,
+            Map<String, Double> cityTaxRateMap, Map<String, Double> stateTaxRateMap,
+            Map<String, Double> countryTaxRateMap) {
+        Double rate = lookupPostalCodeRate(postalCodeTaxRateMap, address.getPostalCode());
+        if (rate == null) {
+            rate = lookupCityRate(cityTaxRateMap, address.getCity());
+        }
+        if (rate == null) {
+            rate = lookupStateRate(stateTaxRateMap, address.getState());
+        }
+        if (rate == null) {
+            rate = lookupCountryRate(countryTaxRateMap, address.getCountry());
+        }
+        return rate;
+    }
+
     @Override
     public String getName() {
         return name;
@@ -239,78 +293,43 @@ public class SimpleTaxModule implements TaxModule {
      * Uses the passed in address to determine if the item is taxable.
      *
      * Checks the configured maps in order - (postal code, city, state, country)
+     * 
+     * The rate of each distinct postal code, city, state and country is only looked up once, and is remembered
+     * until one of the item rates is changed.
      *
      * @param address
      * @return
      */
     public Double determineItemTaxRate(Address address) {
-        if (address != null) {
-            Double postalCodeRate = lookupPostalCodeRate(itemPostalCodeTaxRateMap, address.getPostalCode());
-            if (postalCodeRate != null) {
-                return postalCodeRate;
-            }
-            Double cityCodeRate = lookupCityRate(itemCityTaxRateMap, address.getCity());
-            if (cityCodeRate != null) {
-                return cityCodeRate;
-            }
-            Double stateCodeRate = lookupStateRate(itemStateTaxRateMap, address.getState());
-            if (stateCodeRate != null) {
-                return stateCodeRate;
-            }
-            Double countryCodeRate = lookupCountryRate(itemCountryTaxRateMap, address.getCountry());
-            if (countryCodeRate != null) {
-                return countryCodeRate;
-            }
-        }
-
-        if (defaultItemTaxRate != null) {
-            return defaultItemTaxRate;
-        } else {
-            return 0d;
-        }
+        return getItemRateIndex().resolveRate(address).doubleValue();
     }
 
     /**
      * Uses the passed in address to determine if the item is taxable.
      *
      * Checks the configured maps in order - (postal code, city, state, country)
+     * 
+     * The rate of each distinct postal code, city, state and country is only looked up once, and is remembered
+     * until one of the fulfillment group rates is changed.
      *
      * @param fulfillmentGroup
      * @return
      */
     public Double determineTaxRateForFulfillmentGroup(FulfillmentGroup fulfillmentGroup) {
-        boolean isTaxable = true;
-
-        if (fulfillmentGroup.isShippingPriceTaxable() != null) {
-            isTaxable = fulfillmentGroup.isShippingPriceTaxable();
-        }
-
-        if (isTaxable) {
-            Address address = fulfillmentGroup.getAddress();
-            if (address != null) {
-                Double postalCodeRate = lookupPostalCodeRate(fulfillmentGroupPostalCodeTaxRateMap, address.getPostalCode());
-                if (postalCodeRate != null) {
-                    return postalCodeRate;
-                }
-                Double cityCodeRate = lookupCityRate(fulfillmentGroupCityTaxRateMap, address.getCity());
-                if (cityCodeRate != null) {
-                    return cityCodeRate;
-                }
-                Double stateCodeRate = lookupStateRate(fulfillmentGroupStateTaxRateMap, address.getState());
-                if (stateCodeRate != null) {
-                    return stateCodeRate;
-                }
-                Double countryCodeRate = lookupCountryRate(fulfillmentGroupCountryTaxRateMap, address.getCountry());
-                if (countryCodeRate != null) {
-                    return countryCodeRate;
-                }
-            }
+        return resolveTaxRateForFulfillmentGroup(fulfillmentGroup).doubleValue();
+    }
 
-            if (defaultFulfillmentGroupTaxRate != null) {
-                return defaultFulfillmentGroupTaxRate;
-            }
+    /**
+     * Returns the exact rate used to tax the fulfillment price of the group, or zero if shipping is not taxable
+     *
+     * @param fulfillmentGroup
+     * @return
+     */
+    protected BigDecimal resolveTaxRateForFulfillmentGroup(FulfillmentGroup fulfillmentGroup) {
+        if (fulfillmentGroup.isShippingPriceTaxable() != null && !fulfillmentGroup.isShippingPriceTaxable()) {
+            return BigDecimal.ZERO;
         }
-        return 0d;
+        return getFulfillmentGroupRateIndex().resolveRate(fulfillmentGroup.getAddress());
     }
 
     public Map<String, Double> getItemPostalCodeTaxRateMap() {
@@ -319,6 +338,7 @@ public class SimpleTaxModule implements TaxModule {
 
     public void setItemPostalCodeTaxRateMap(Map<String, Double> itemPostalCodeTaxRateMap) {
         this.itemPostalCodeTaxRateMap = itemPostalCodeTaxRateMap;
+        itemRateIndex = null;
     }
 
     public Map<String, Double> getItemCityTaxRateMap() {
@@ -327,6 +347,7 @@ public class SimpleTaxModule implements TaxModule {
 
     public void setItemCityTaxRateMap(Map<String, Double> itemCityTaxRateMap) {
         this.itemCityTaxRateMap = itemCityTaxRateMap;
+        itemRateIndex = null;
     }
 
     public Map<String, Double> getItemStateTaxRateMap() {
@@ -335,6 +356,7 @@ public class SimpleTaxModule implements TaxModule {
 
     public void setItemStateTaxRateMap(Map<String, Double> itemStateTaxRateMap) {
         this.itemStateTaxRateMap = itemStateTaxRateMap;
+        itemRateIndex = null;
     }
 
     public Map<String, Double> getItemCountryTaxRateMap() {
@@ -343,6 +365,7 @@ public class SimpleTaxModule implements TaxModule {
 
     public void setItemCountryTaxRateMap(Map<String, Double> itemCountryTaxRateMap) {
         this.itemCountryTaxRateMap = itemCountryTaxRateMap;
+        itemRateIndex = null;
     }
 
     public Map<String, Double> getFulfillmentGroupPostalCodeTaxRateMap() {
@@ -351,6 +374,7 @@ public class SimpleTaxModule implements TaxModule {
 
     public void setFulfillmentGroupPostalCodeTaxRateMap(Map<String, Double> fulfillmentGroupPostalCodeTaxRateMap) {
         this.fulfillmentGroupPostalCodeTaxRateMap = fulfillmentGroupPostalCodeTaxRateMap;
+        fulfillmentGroupRateIndex = null;
     }
 
     public Map<String, Double> getFulfillmentGroupCityTaxRateMap() {
@@ -359,6 +383,7 @@ public class SimpleTaxModule implements TaxModule {
 
     public void setFulfillmentGroupCityTaxRateMap(Map<String, Double> fulfillmentGroupCityTaxRateMap) {
         this.fulfillmentGroupCityTaxRateMap = fulfillmentGroupCityTaxRateMap;
+        fulfillmentGroupRateIndex = null;
     }
 
     public Map<String, Double> getFulfillmentGroupStateTaxRateMap() {
@@ -367,6 +392,7 @@ public class SimpleTaxModule implements TaxModule {
 
     public void setFulfillmentGroupStateTaxRateMap(Map<String, Double> fulfillmentGroupStateTaxRateMap) {
         this.fulfillmentGroupStateTaxRateMap = fulfillmentGroupStateTaxRateMap;
+        fulfillmentGroupRateIndex = null;
     }
 
     public Map<String, Double> getFulfillmentGroupCountryTaxRateMap() {
@@ -375,6 +401,7 @@ public class SimpleTaxModule implements TaxModule {
 
     public void setFulfillmentGroupCountryTaxRateMap(Map<String, Double> fulfillmentGroupCountryTaxRateMap) {
         this.fulfillmentGroupCountryTaxRateMap = fulfillmentGroupCountryTaxRateMap;
+        fulfillmentGroupRateIndex = null;
     }
 
     public Double getDefaultItemTaxRate() {
@@ -383,6 +410,7 @@ public class SimpleTaxModule implements TaxModule {
 
     public void setDefaultItemTaxRate(Double defaultItemTaxRate) {
         this.defaultItemTaxRate = defaultItemTaxRate;
+        itemRateIndex = null;
     }
 
     public Double getDefaultFulfillmentGroupTaxRate() {
@@ -391,6 +419,7 @@ public class SimpleTaxModule implements TaxModule {
 
     public void setDefaultFulfillmentGroupTaxRate(Double defaultFulfillmentGroupTaxRate) {
         this.defaultFulfillmentGroupTaxRate = defaultFulfillmentGroupTaxRate;
+        fulfillmentGroupRateIndex = null;
     }
 
     /**
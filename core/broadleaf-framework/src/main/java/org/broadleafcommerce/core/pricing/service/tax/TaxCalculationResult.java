@@ -0,0 +1,192 @@
+/*
+ * Copyright 2008-2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.broadleafcommerce.core.pricing.service.tax;
+
+import org.broadleafcommerce.common.config.domain.ModuleConfiguration;
+import org.broadleafcommerce.common.money.Money;
+import org.broadleafcommerce.core.order.domain.Order;
+import org.broadleafcommerce.core.order.domain.TaxDetail;
+import org.broadleafcommerce.core.order.domain.TaxDetailImpl;
+import org.broadleafcommerce.core.order.domain.TaxType;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Immutable copy of the taxes a provider calculated for an order. The taxes are stored per taxable line (item,
+ * fee or fulfillment group), keyed by the inputs of that line such as its address, taxable amount and tax
+ * category, rather than by entity. Lines with the same inputs always receive the same taxes, so the result can be
+ * applied to any order with the same tax inputs.
+ */
+public class TaxCalculationResult {
+
+    protected final Map<String, List<TaxDetailSnapshot>> lineTaxes;
+
+    protected TaxCalculationResult(Map<String, List<TaxDetailSnapshot>> lineTaxes) {
+        this.lineTaxes = lineTaxes;
+    }
+
+    /**
+     * Copies the taxes of every line
+     *
+     * @param lines the tax details of each line, keyed by the inputs of the line
+     * @return the result, or null if two lines with the same inputs were taxed differently
+     */
+    public static TaxCalculationResult capture(Map<String, List<List<TaxDetail>>> lines) {
+        Map<String, List<TaxDetailSnapshot>> lineTaxes = new HashMap<String, List<TaxDetailSnapshot>>();
+        for (Map.Entry<String, List<List<TaxDetail>>> entry : lines.entrySet()) {
+            List<TaxDetailSnapshot> snapshots = null;
+            for (List<TaxDetail> taxes : entry.getValue()) {
+                List<TaxDetailSnapshot> lineSnapshots = new ArrayList<TaxDetailSnapshot>(taxes.size());
+                for (TaxDetail detail : taxes) {
+                    lineSnapshots.add(new TaxDetailSnapshot(detail));
+                }
+                if (snapshots == null) {
+                    snapshots = lineSnapshots;
+                } else if (!snapshots.equals(lineSnapshots)) {
+                    return null;
+                }
+            }
+            lineTaxes.put(entry.getKey(), snapshots == null ? Collections.<TaxDetailSnapshot>emptyList() : snapshots);
+        }
+        return new TaxCalculationResult(lineTaxes);
+    }
+
+    /**
+     * Copies the stored taxes onto the tax details of every line
+     *
+     * @param lines the tax details of each line, keyed by the inputs of the line
+     * @param order
+     * @param config the configuration the taxes were calculated with
+     * @return false if the result has no taxes for one of the lines, in which case nothing was changed
+     */
+    public boolean applyTo(Map<String, List<List<TaxDetail>>> lines, Order order, ModuleConfiguration config) {
+        if (!lineTaxes.keySet().containsAll(lines.keySet())) {
+            return false;
+        }
+        for (Map.Entry<String, List<List<TaxDetail>>> entry : lines.entrySet()) {
+            List<TaxDetailSnapshot> snapshots = lineTaxes.get(entry.getKey());
+            for (List<TaxDetail> taxes : entry.getValue()) {
+                apply(taxes, snapshots, order, config);
+            }
+        }
+        return true;
+    }
+
+    protected void apply(List<TaxDetail> taxes, List<TaxDetailSnapshot> snapshots, Order order, ModuleConfiguration config) {
+        boolean sameTypes = taxes.size() == snapshots.size();
+        for (int i = 0; sameTypes && i < taxes.size(); i++) {
+            sameTypes = snapshots.get(i).type.equals(taxes.get(i).getType());
+        }
+        if (!sameTypes) {
+            taxes.clear();
+            for (TaxDetailSnapshot snapshot : snapshots) {
+                TaxDetail detail = new TaxDetailImpl();
+                detail.setType(snapshot.type);
+                taxes.add(detail);
+            }
+        }
+        for (int i = 0; i < snapshots.size(); i++) {
+            snapshots.get(i).copyTo(taxes.get(i), order, config);
+        }
+    }
+
+    public int getLineCount() {
+        return lineTaxes.size();
+    }
+
+    /**
+     * The values of a single {@link TaxDetail}. Entities are not kept; the currency and configuration are taken from
+     * the order and the configuration being taxed when the snapshot is applied.
+     */
+    protected static class TaxDetailSnapshot {
+
+        protected final TaxType type;
+        protected final BigDecimal rate;
+        protected final BigDecimal amount;
+        protected final boolean hasCurrency;
+        protected final boolean hasModuleConfiguration;
+        protected final String jurisdictionName;
+        protected final String taxName;
+        protected final String region;
+        protected final String country;
+
+        protected TaxDetailSnapshot(TaxDetail detail) {
+            type = detail.getType();
+            rate = detail.getRate();
+            amount = detail.getAmount() == null ? null : detail.getAmount().getAmount();
+            hasCurrency = detail.getCurrency() != null;
+            hasModuleConfiguration = detail.getModuleConfiguration() != null;
+            jurisdictionName = detail.getJurisdictionName();
+            taxName = detail.getTaxName();
+            region = detail.getRegion();
+            country = detail.getCountry();
+        }
+
+        protected void copyTo(TaxDetail detail, Order order, ModuleConfiguration config) {
+            detail.setType(type);
+            detail.setRate(rate);
+            if (amount == null) {
+                detail.setAmount(null);
+            } else {
+                detail.setAmount(order.getCurrency() == null ? new Money(amount) : new Money(amount, order.getCurrency()));
+            }
+            if (hasCurrency) {
+                detail.setCurrency(order.getCurrency());
+            }
+            if (hasModuleConfiguration) {
+                detail.setModuleConfiguration(config);
+            }
+            detail.setJurisdictionName(jurisdictionName);
+            detail.setTaxName(taxName);
+            detail.setRegion(region);
+            detail.setCountry(country);
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj) {
+                return true;
+            }
+            if (!(obj instanceof TaxDetailSnapshot)) {
+                return false;
+            }
+            TaxDetailSnapshot other = (TaxDetailSnapshot) obj;
+            return eq(type, other.type) && compare(rate, other.rate) && compare(amount, other.amount)
+                    && hasCurrency == other.hasCurrency && hasModuleConfiguration == other.hasModuleConfiguration
+                    && eq(jurisdictionName, other.jurisdictionName) && eq(taxName, other.taxName)
+                    && eq(region, other.region) && eq(country, other.country);
+        }
+
+        @Override
+        public int hashCode() {
+            return type == null ? 0 : type.hashCode();
+        }
+
+        protected boolean eq(Object a, Object b) {
+            return a == null ? b == null : a.equals(b);
+        }
+
+        protected boolean compare(BigDecimal a, BigDecimal b) {
+            return a == null ? b == null : b != null && a.compareTo(b) == 0;
+        }
+    }
+
+}
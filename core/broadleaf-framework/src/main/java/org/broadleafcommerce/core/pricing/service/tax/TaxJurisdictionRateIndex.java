@@ -0,0 +1,179 @@
+/*
+ * Copyright 2008-2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.broadleafcommerce.core.pricing.service.tax;
+
+import org.broadleafcommerce.profile.core.domain.Address;
+import org.broadleafcommerce.profile.core.domain.Country;
+import org.broadleafcommerce.profile.core.domain.State;
+
+import java.math.BigDecimal;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Immutable index of tax rates by postal code, city, state and country. The rate for an address is the most
+ * specific match, checked in that order, and falls back to the default rate. Rates are held as
+ * <code>BigDecimal</code> values, converted from the configured numbers through their decimal string
+ * representation so that a configured 0.0825 stays exactly 0.0825.
+ *
+ * The resolved rate of each distinct jurisdiction is remembered, so the fallback only runs once per address.
+ */
+public class TaxJurisdictionRateIndex {
+
+    /**
+     * Upper bound on the number of remembered jurisdictions. The memo is simply cleared when it is reached.
+     */
+    protected static final int MAX_RESOLVED_RATES = 10000;
+
+    protected final Map<String, BigDecimal> postalCodeRates;
+    protected final Map<String, BigDecimal> cityRates;
+    protected final Map<String, BigDecimal> stateRates;
+    protected final Map<String, BigDecimal> countryRates;
+    protected final BigDecimal defaultRate;
+
+    protected final ConcurrentMap<String, BigDecimal> resolvedRates = new ConcurrentHashMap<String, BigDecimal>();
+
+    public TaxJurisdictionRateIndex(Map<String, ? extends Number> postalCodeRates, Map<String, ? extends Number> cityRates,
+            Map<String, ? extends Number> stateRates, Map<String, ? extends Number> countryRates, Number defaultRate) {
+        this.postalCodeRates = compile(postalCodeRates);
+        this.cityRates = compile(cityRates);
+        this.stateRates = compile(stateRates);
+        this.countryRates = compile(countryRates);
+        this.defaultRate = defaultRate == null ? BigDecimal.ZERO : toRate(defaultRate);
+    }
+
+    /**
+     * For subclasses that look up the rate of an address themselves by overriding {@link #lookupRate(Address)}
+     */
+    protected TaxJurisdictionRateIndex(Number defaultRate) {
+        this(null, null, null, null, defaultRate);
+    }
+
+    /**
+     * @param address may be null
+     * @return the rate of the most specific jurisdiction matching the address, or the default rate
+     */
+    public BigDecimal resolveRate(Address address) {
+        if (address == null) {
+            return defaultRate;
+        }
+        String key = getJurisdictionKey(address);
+        BigDecimal rate = resolvedRates.get(key);
+        if (rate == null) {
+            rate = lookupRate(address);
+            if (resolvedRates.size() >= MAX_RESOLVED_RATES) {
+                resolvedRates.clear();
+            }
+            resolvedRates.put(key, rate);
+        }
+        return rate;
+    }
+
+    public BigDecimal getDefaultRate() {
+        return defaultRate;
+    }
+
+    protected BigDecimal lookupRate(Address address) {
+        BigDecimal rate = null;
+        if (address.getPostalCode() != null) {
+            rate = postalCodeRates.get(address.getPostalCode());
+        }
+        if (rate == null && address.getCity() != null) {
+            rate = cityRates.get(address.getCity().toUpperCase());
+        }
+        if (rate == null) {
+            rate = lookupStateRate(address.getState());
+        }
+        if (rate == null) {
+            rate = lookupCountryRate(address.getCountry());
+        }
+        return rate == null ? defaultRate : rate;
+    }
+
+    /**
+     * Checks the abbreviation (uppercase) followed by the name (uppercase)
+     */
+    protected BigDecimal lookupStateRate(State state) {
+        if (state == null || state.getAbbreviation() == null) {
+            return null;
+        }
+        BigDecimal rate = stateRates.get(state.getAbbreviation().toUpperCase());
+        if (rate == null && state.getName() != null) {
+            rate = stateRates.get(state.getName().toUpperCase());
+        }
+        return rate;
+    }
+
+    /**
+     * Checks the abbreviation (uppercase) followed by the name (uppercase)
+     */
+    protected BigDecimal lookupCountryRate(Country country) {
+        if (country == null || country.getAbbreviation() == null) {
+            return null;
+        }
+        BigDecimal rate = countryRates.get(country.getAbbreviation().toUpperCase());
+        if (rate == null && country.getName() != null) {
+            rate = countryRates.get(country.getName().toUpperCase());
+        }
+        return rate;
+    }
+
+    /**
+     * @return a key that is the same for every address with the same postal code, city, state and country
+     */
+    protected String getJurisdictionKey(Address address) {
+        StringBuilder sb = new StringBuilder();
+        sb.append(address.getPostalCode()).append('|');
+        sb.append(address.getCity() == null ? null : address.getCity().toUpperCase()).append('|');
+        State state = address.getState();
+        if (state != null) {
+            sb.append(state.getAbbreviation()).append('|').append(state.getName());
+        }
+        sb.append('|');
+        Country country = address.getCountry();
+        if (country != null) {
+            sb.append(country.getAbbreviation()).append('|').append(country.getName());
+        }
+        return sb.toString();
+    }
+
+    protected Map<String, BigDecimal> compile(Map<String, ? extends Number> rates) {
+        if (rates == null || rates.isEmpty()) {
+            return Collections.emptyMap();
+        }
+        Map<String, BigDecimal> compiled = new HashMap<String, BigDecimal>(rates.size() * 2);
+        for (Map.Entry<String, ? extends Number> entry : rates.entrySet()) {
+            if (entry.getKey() != null && entry.getValue() != null) {
+                compiled.put(entry.getKey(), toRate(entry.getValue()));
+            }
+        }
+        return Collections.unmodifiableMap(compiled);
+    }
+
+    /**
+     * Converts a configured rate without picking up the binary representation error of a double
+     */
+    public static BigDecimal toRate(Number rate) {
+        if (rate instanceof BigDecimal) {
+            return (BigDecimal) rate;
+        }
+        return new BigDecimal(rate.toString());
+    }
+
+}
@@ -16,9 +16,9 @@
 
 package org.broadleafcommerce.core.pricing.service.workflow;
 
-import org.apache.commons.collections.map.LRUMap;
 import org.apache.commons.lang.StringUtils;
 import org.broadleafcommerce.common.rule.MvelHelper;
+import org.broadleafcommerce.common.rule.RuleExpressionService;
 import org.broadleafcommerce.core.catalog.domain.SkuFee;
 import org.broadleafcommerce.core.catalog.service.type.SkuFeeType;
 import org.broadleafcommerce.core.order.domain.BundleOrderItem;
@@ -29,14 +29,9 @@ import org.broadleafcommerce.core.order.domain.FulfillmentGroupItem;
 import org.broadleafcommerce.core.order.domain.Order;
 import org.broadleafcommerce.core.order.service.FulfillmentGroupService;
 import org.broadleafcommerce.core.workflow.BaseActivity;
-import org.mvel2.MVEL;
-import org.mvel2.ParserContext;
 
-import java.io.Serializable;
-import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
 
 import javax.annotation.Resource;
 
@@ -46,8 +41,8 @@ import javax.annotation.Resource;
  */
 public class ConsolidateFulfillmentFeesActivity extends BaseActivity<PricingContext> {
     
-    @SuppressWarnings("unchecked")
-    protected static final Map EXPRESSION_CACHE = Collections.synchronizedMap(new LRUMap(1000));
+    @Resource(name = "blRuleExpressionService")
+    protected RuleExpressionService ruleExpressionService;
     
     @Resource(name = "blFulfillmentGroupService")
     protected FulfillmentGroupService fulfillmentGroupService;
@@ -104,18 +99,9 @@ public class ConsolidateFulfillmentFeesActivity extends BaseActivity<PricingCont
         String feeExpression = fee.getExpression();
         
         if (!StringUtils.isEmpty(feeExpression)) {
-            Serializable exp = (Serializable) EXPRESSION_CACHE.get(feeExpression);
-            if (exp == null) {
-                ParserContext mvelContext = new ParserContext();
-                mvelContext.addImport("MVEL", MVEL.class);
-                mvelContext.addImport("MvelHelper", MvelHelper.class);
-                exp = MVEL.compileExpression(feeExpression, mvelContext);
-            
-                EXPRESSION_CACHE.put(feeExpression, exp);
-            }
             HashMap<String, Object> vars = new HashMap<String, Object>();
             vars.put("fulfillmentGroup", fulfillmentGroup);
-            return (Boolean)MVEL.executeExpression(feeExpression, vars);
+            return (Boolean) ruleExpressionService.executeExpression(feeExpression, MvelHelper.DEFAULT_IMPORTS, vars);
         }
         
         return appliesToFulfillmentGroup;
@@ -0,0 +1,54 @@
+/*
+ * Copyright 2008-2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.broadleafcommerce.core.search.dao;
+
+import org.broadleafcommerce.core.search.domain.SearchIndexQueueItem;
+
+import java.util.List;
+
+/**
+ * DAO for the durable queue of products waiting to be re-indexed
+ */
+public interface SearchIndexQueueDao {
+
+    /**
+     * @return a new, unsaved queue item
+     */
+    public SearchIndexQueueItem create();
+
+    public SearchIndexQueueItem save(SearchIndexQueueItem item);
+
+    /**
+     * Reads the oldest items in the queue
+     * 
+     * @param maxResults
+     * @return at most maxResults items, oldest first
+     */
+    public List<SearchIndexQueueItem> readNextItems(int maxResults);
+
+    /**
+     * Removes the given items from the queue
+     * 
+     * @param itemIds
+     */
+    public void deleteItems(List<Long> itemIds);
+
+    /**
+     * @return the number of items currently waiting in the queue
+     */
+    public Long readQueueSize();
+
+}
@@ -0,0 +1,84 @@
+/*
+ * Copyright 2008-2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.broadleafcommerce.core.search.dao;
+
+import org.broadleafcommerce.common.persistence.EntityConfiguration;
+import org.broadleafcommerce.core.search.domain.SearchIndexQueueItem;
+import org.broadleafcommerce.core.search.domain.SearchIndexQueueItemImpl;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+import javax.annotation.Resource;
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import javax.persistence.Query;
+import javax.persistence.TypedQuery;
+import javax.persistence.criteria.CriteriaBuilder;
+import javax.persistence.criteria.CriteriaQuery;
+import javax.persistence.criteria.Root;
+
+@Repository("blSearchIndexQueueDao")
+public class SearchIndexQueueDaoImpl implements SearchIndexQueueDao {
+
+    @PersistenceContext(unitName = "blPU")
+    protected EntityManager em;
+
+    @Resource(name="blEntityConfiguration")
+    protected EntityConfiguration entityConfiguration;
+
+    @Override
+    public SearchIndexQueueItem create() {
+        return (SearchIndexQueueItem) entityConfiguration.createEntityInstance(SearchIndexQueueItem.class.getName());
+    }
+
+    @Override
+    public SearchIndexQueueItem save(SearchIndexQueueItem item) {
+        return em.merge(item);
+    }
+
+    @Override
+    public List<SearchIndexQueueItem> readNextItems(int maxResults) {
+        CriteriaBuilder builder = em.getCriteriaBuilder();
+        CriteriaQuery<SearchIndexQueueItem> criteria = builder.createQuery(SearchIndexQueueItem.class);
+        Root<SearchIndexQueueItemImpl> root = criteria.from(SearchIndexQueueItemImpl.class);
+        criteria.select(root);
+        criteria.orderBy(builder.asc(root.get("id")));
+
+        TypedQuery<SearchIndexQueueItem> query = em.createQuery(criteria);
+        return query.setMaxResults(maxResults).getResultList();
+    }
+
+    @Override
+    public void deleteItems(List<Long> itemIds) {
+        if (itemIds.isEmpty()) {
+            return;
+        }
+        Query query = em.createQuery("DELETE FROM " + SearchIndexQueueItemImpl.class.getName() + " item WHERE item.id IN :ids");
+        query.setParameter("ids", itemIds);
+        query.executeUpdate();
+    }
+
+    @Override
+    public Long readQueueSize() {
+        CriteriaBuilder builder = em.getCriteriaBuilder();
+        CriteriaQuery<Long> criteria = builder.createQuery(Long.class);
+        Root<SearchIndexQueueItemImpl> root = criteria.from(SearchIndexQueueItemImpl.class);
+        criteria.select(builder.count(root));
+        return em.createQuery(criteria).getSingleResult();
+    }
+
+}
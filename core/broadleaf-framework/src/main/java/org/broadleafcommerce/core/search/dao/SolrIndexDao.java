@@ -0,0 +1,95 @@
+/*
+ * Copyright 2008-2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.broadleafcommerce.core.search.dao;
+
+import org.broadleafcommerce.core.catalog.domain.Category;
+import org.broadleafcommerce.core.catalog.domain.Product;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * DAO that reads the data needed to build Solr documents as scalar projections rather than as fully hydrated 
+ * Product entity graphs. Only the columns backing the requested property names are selected, and associated
+ * data is fetched in one query per batch of products.
+ */
+public interface SolrIndexDao {
+
+    /**
+     * Determines whether or not the value for the given Product property name can be read with 
+     * {@link #readProductPropertyValues(List, Collection)}. This is the case for properties that resolve
+     * through single-valued associations to a basic persistent attribute (for example, "defaultSku.name") as
+     * well as for product attributes (for example, "productAttributes.heatRange").
+     * 
+     * @param propertyName
+     * @return whether or not the property can be projected
+     */
+    public boolean isProjectable(String propertyName);
+
+    /**
+     * Reads the values of the given properties for the given products. Every property name must be projectable.
+     * 
+     * @param productIds
+     * @param propertyNames
+     * @return a map of product id to a map of property name to value. Products without a value for a property
+     * will not have an entry for that property.
+     */
+    public Map<Long, Map<String, Object>> readProductPropertyValues(List<Long> productIds, Collection<String> propertyNames);
+
+    /**
+     * Reads the ids of the categories that the given products are explicitly assigned to.
+     * 
+     * @param productIds
+     * @return a map of product id to the ids of its parent categories
+     */
+    public Map<Long, List<Long>> readParentCategoryIds(List<Long> productIds);
+
+    /**
+     * Reads the categories with the given ids, with one query per batch of ids.
+     * 
+     * @param categoryIds
+     * @return a map of category id to category. Ids that do not match a category are left out.
+     */
+    public Map<Long, Category> readCategories(Collection<Long> categoryIds);
+
+    /**
+     * Reads every child to parent category relationship, whether it is defined by the default parent category or by
+     * a category xref.
+     * 
+     * @return pairs of [category id, parent category id]
+     */
+    public List<Long[]> readAllCategoryParentIds();
+
+    /**
+     * Reads every category to product assignment, ordered by category and then by the display order of the product
+     * within that category.
+     * 
+     * @return pairs of [category id, product id]
+     */
+    public List<Long[]> readAllCategoryProductIds();
+
+    /**
+     * Returns an uninitialized reference to the product with the given id. The product is only loaded if a caller 
+     * needs state that was not part of the projection.
+     * 
+     * @param productId
+     * @return the product reference
+     */
+    public Product readProductReference(Long productId);
+
+}
@@ -0,0 +1,309 @@
+/*
+ * Copyright 2008-2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.broadleafcommerce.core.search.dao;
+
+import org.apache.commons.lang3.StringUtils;
+import org.broadleafcommerce.common.persistence.EntityConfiguration;
+import org.broadleafcommerce.core.catalog.domain.Category;
+import org.broadleafcommerce.core.catalog.domain.CategoryImpl;
+import org.broadleafcommerce.core.catalog.domain.CategoryProductXrefImpl;
+import org.broadleafcommerce.core.catalog.domain.CategoryXrefImpl;
+import org.broadleafcommerce.core.catalog.domain.Product;
+import org.broadleafcommerce.core.catalog.domain.ProductAttributeImpl;
+import org.springframework.stereotype.Repository;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import javax.annotation.Resource;
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import javax.persistence.Tuple;
+import javax.persistence.TypedQuery;
+import javax.persistence.criteria.CriteriaBuilder;
+import javax.persistence.criteria.CriteriaQuery;
+import javax.persistence.criteria.From;
+import javax.persistence.criteria.JoinType;
+import javax.persistence.criteria.Path;
+import javax.persistence.criteria.Root;
+import javax.persistence.criteria.Selection;
+import javax.persistence.metamodel.Attribute;
+import javax.persistence.metamodel.Attribute.PersistentAttributeType;
+import javax.persistence.metamodel.ManagedType;
+import javax.persistence.metamodel.SingularAttribute;
+import javax.persistence.metamodel.Type;
+
+@Repository("blSolrIndexDao")
+public class SolrIndexDaoImpl implements SolrIndexDao {
+
+    protected static final String ATTR_MAP = "productAttributes";
+
+    /**
+     * The maximum number of ids bound to a single IN clause
+     */
+    protected static final int IN_CLAUSE_LIMIT = 500;
+
+    @PersistenceContext(unitName = "blPU")
+    protected EntityManager em;
+
+    @Resource(name="blEntityConfiguration")
+    protected EntityConfiguration entityConfiguration;
+
+    protected Map<String, Boolean> projectableCache = new ConcurrentHashMap<String, Boolean>();
+
+    @Override
+    public boolean isProjectable(String propertyName) {
+        Boolean projectable = projectableCache.get(propertyName);
+        if (projectable == null) {
+            projectable = isAttributePropertyName(propertyName) || resolvesToBasicAttribute(propertyName);
+            projectableCache.put(propertyName, projectable);
+        }
+        return projectable;
+    }
+
+    @Override
+    public Map<Long, Map<String, Object>> readProductPropertyValues(List<Long> productIds, Collection<String> propertyNames) {
+        List<String> pathNames = new ArrayList<String>();
+        Map<String, String> attributeNames = new HashMap<String, String>();
+        for (String propertyName : propertyNames) {
+            if (isAttributePropertyName(propertyName)) {
+                attributeNames.put(propertyName.substring(ATTR_MAP.length() + 1), propertyName);
+            } else {
+                pathNames.add(propertyName);
+            }
+        }
+
+        Map<Long, Map<String, Object>> values = new HashMap<Long, Map<String, Object>>();
+        for (List<Long> ids : partition(productIds)) {
+            if (!pathNames.isEmpty()) {
+                readPathValues(ids, pathNames, values);
+            }
+            if (!attributeNames.isEmpty()) {
+                readAttributeValues(ids, attributeNames, values);
+            }
+        }
+        return values;
+    }
+
+    @Override
+    public Map<Long, List<Long>> readParentCategoryIds(List<Long> productIds) {
+        Map<Long, List<Long>> categoryIds = new HashMap<Long, List<Long>>();
+        for (List<Long> ids : partition(productIds)) {
+            TypedQuery<Object[]> query = em.createQuery(
+                    "SELECT xref.categoryProductXref.product.id, xref.categoryProductXref.category.id " +
+                    "FROM " + CategoryProductXrefImpl.class.getName() + " xref " +
+                    "WHERE xref.categoryProductXref.product.id IN :productIds", Object[].class);
+            query.setParameter("productIds", ids);
+            for (Object[] row : query.getResultList()) {
+                Long productId = (Long) row[0];
+                List<Long> parentIds = categoryIds.get(productId);
+                if (parentIds == null) {
+                    parentIds = new ArrayList<Long>();
+                    categoryIds.put(productId, parentIds);
+                }
+                parentIds.add((Long) row[1]);
+            }
+        }
+        return categoryIds;
+    }
+
+    @Override
+    public Map<Long, Category> readCategories(Collection<Long> categoryIds) {
+        Map<Long, Category> categories = new HashMap<Long, Category>();
+        for (List<Long> ids : partition(new ArrayList<Long>(categoryIds))) {
+            TypedQuery<Category> query = em.createQuery(
+                    "SELECT category FROM " + getCategoryClass().getName() + " category " +
+                    "WHERE category.id IN :categoryIds", Category.class);
+            query.setParameter("categoryIds", ids);
+            for (Category category : query.getResultList()) {
+                categories.put(category.getId(), category);
+            }
+        }
+        return categories;
+    }
+
+    @Override
+    public List<Long[]> readAllCategoryParentIds() {
+        List<Long[]> parentIds = new ArrayList<Long[]>();
+        addIdPairs(parentIds, em.createQuery(
+                "SELECT category.id, category.defaultParentCategory.id " +
+                "FROM " + CategoryImpl.class.getName() + " category " +
+                "WHERE category.defaultParentCategory IS NOT NULL", Object[].class));
+        addIdPairs(parentIds, em.createQuery(
+                "SELECT xref.categoryXrefPK.subCategory.id, xref.categoryXrefPK.category.id " +
+                "FROM " + CategoryXrefImpl.class.getName() + " xref", Object[].class));
+        return parentIds;
+    }
+
+    @Override
+    public List<Long[]> readAllCategoryProductIds() {
+        List<Long[]> productIds = new ArrayList<Long[]>();
+        addIdPairs(productIds, em.createQuery(
+                "SELECT xref.categoryProductXref.category.id, xref.categoryProductXref.product.id " +
+                "FROM " + CategoryProductXrefImpl.class.getName() + " xref " +
+                "ORDER BY xref.categoryProductXref.category.id, xref.displayOrder", Object[].class));
+        return productIds;
+    }
+
+    protected void addIdPairs(List<Long[]> pairs, TypedQuery<Object[]> query) {
+        for (Object[] row : query.getResultList()) {
+            pairs.add(new Long[] { (Long) row[0], (Long) row[1] });
+        }
+    }
+
+    @Override
+    public Product readProductReference(Long productId) {
+        return (Product) em.getReference(getProductClass(), productId);
+    }
+
+    protected void readPathValues(List<Long> productIds, List<String> pathNames, Map<Long, Map<String, Object>> values) {
+        CriteriaBuilder builder = em.getCriteriaBuilder();
+        CriteriaQuery<Tuple> criteria = builder.createTupleQuery();
+        Root<?> product = criteria.from(getProductClass());
+
+        // Associations are left joined once per distinct path so that a missing association (e.g. a product without 
+        // a default category) only nulls out the properties that go through it
+        Map<String, From<?, ?>> joins = new HashMap<String, From<?, ?>>();
+        List<Selection<?>> selections = new ArrayList<Selection<?>>();
+        selections.add(product.get("id"));
+        for (String pathName : pathNames) {
+            selections.add(buildPath(product, pathName, joins));
+        }
+
+        criteria.multiselect(selections);
+        criteria.where(product.get("id").in(productIds));
+
+        for (Tuple tuple : em.createQuery(criteria).getResultList()) {
+            Map<String, Object> productValues = getProductValues(values, (Long) tuple.get(0));
+            for (int i = 0; i < pathNames.size(); i++) {
+                Object value = tuple.get(i + 1);
+                if (value != null) {
+                    productValues.put(pathNames.get(i), value);
+                }
+            }
+        }
+    }
+
+    protected void readAttributeValues(List<Long> productIds, Map<String, String> attributeNames, 
+            Map<Long, Map<String, Object>> values) {
+        TypedQuery<Object[]> query = em.createQuery(
+                "SELECT attribute.product.id, attribute.name, attribute.value " +
+                "FROM " + ProductAttributeImpl.class.getName() + " attribute " +
+                "WHERE attribute.product.id IN :productIds AND attribute.name IN :names", Object[].class);
+        query.setParameter("productIds", productIds);
+        query.setParameter("names", attributeNames.keySet());
+        for (Object[] row : query.getResultList()) {
+            if (row[2] != null) {
+                getProductValues(values, (Long) row[0]).put(attributeNames.get(row[1]), row[2]);
+            }
+        }
+    }
+
+    protected Path<?> buildPath(Root<?> product, String pathName, Map<String, From<?, ?>> joins) {
+        String[] parts = StringUtils.split(pathName, '.');
+        ManagedType<?> type = em.getMetamodel().managedType(getProductClass());
+        From<?, ?> from = product;
+        Path<?> path = product;
+        StringBuilder joinKey = new StringBuilder();
+        for (int i = 0; i < parts.length - 1; i++) {
+            Attribute<?, ?> attribute = type.getAttribute(parts[i]);
+            type = (ManagedType<?>) ((SingularAttribute<?, ?>) attribute).getType();
+            if (attribute.getPersistentAttributeType() == PersistentAttributeType.EMBEDDED) {
+                path = path.get(parts[i]);
+            } else {
+                joinKey.append(parts[i]).append('.');
+                From<?, ?> join = joins.get(joinKey.toString());
+                if (join == null) {
+                    join = from.join(parts[i], JoinType.LEFT);
+                    joins.put(joinKey.toString(), join);
+                }
+                from = join;
+                path = join;
+            }
+        }
+        return path.get(parts[parts.length - 1]);
+    }
+
+    /**
+     * A property can be projected when every segment but the last is a single-valued association or an embedded 
+     * component (which may only be followed by its basic attribute) and the last segment is a basic attribute.
+     */
+    protected boolean resolvesToBasicAttribute(String propertyName) {
+        String[] parts = StringUtils.split(propertyName, '.');
+        if (parts == null || parts.length == 0) {
+            return false;
+        }
+        try {
+            ManagedType<?> type = em.getMetamodel().managedType(getProductClass());
+            for (int i = 0; i < parts.length; i++) {
+                Attribute<?, ?> attribute = type.getAttribute(parts[i]);
+                if (attribute.isCollection()) {
+                    return false;
+                }
+                PersistentAttributeType attributeType = attribute.getPersistentAttributeType();
+                if (i == parts.length - 1) {
+                    return attributeType == PersistentAttributeType.BASIC;
+                }
+                if (attributeType == PersistentAttributeType.EMBEDDED && i != parts.length - 2) {
+                    return false;
+                }
+                Type<?> next = ((SingularAttribute<?, ?>) attribute).getType();
+                if (!(next instanceof ManagedType)) {
+                    return false;
+                }
+                type = (ManagedType<?>) next;
+            }
+        } catch (IllegalArgumentException e) {
+            // The property is not a persistent attribute, e.g. a calculated getter
+        }
+        return false;
+    }
+
+    protected Class<?> getProductClass() {
+        return entityConfiguration.lookupEntityClass(Product.class.getName());
+    }
+
+    protected Class<?> getCategoryClass() {
+        return entityConfiguration.lookupEntityClass(Category.class.getName());
+    }
+
+    protected boolean isAttributePropertyName(String propertyName) {
+        return propertyName.startsWith(ATTR_MAP + ".") && propertyName.indexOf('.', ATTR_MAP.length() + 1) < 0;
+    }
+
+    protected Map<String, Object> getProductValues(Map<Long, Map<String, Object>> values, Long productId) {
+        Map<String, Object> productValues = values.get(productId);
+        if (productValues == null) {
+            productValues = new HashMap<String, Object>();
+            values.put(productId, productValues);
+        }
+        return productValues;
+    }
+
+    protected List<List<Long>> partition(List<Long> ids) {
+        List<List<Long>> partitions = new ArrayList<List<Long>>();
+        for (int i = 0; i < ids.size(); i += IN_CLAUSE_LIMIT) {
+            partitions.add(ids.subList(i, Math.min(ids.size(), i + IN_CLAUSE_LIMIT)));
+        }
+        return partitions;
+    }
+
+}
@@ -0,0 +1,46 @@
+/*
+ * Copyright 2008-2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.broadleafcommerce.core.search.domain;
+
+import java.io.Serializable;
+import java.util.Date;
+
+/**
+ * A pending change to the search index. An item is written in the same transaction as the catalog change that 
+ * caused it, so the change cannot be lost between the commit and the time the index is updated, even across
+ * restarts. Items are removed once the product they reference has been re-indexed.
+ */
+public interface SearchIndexQueueItem extends Serializable {
+
+    public Long getId();
+
+    public void setId(Long id);
+
+    /**
+     * @return the id of the product that needs to be re-indexed
+     */
+    public Long getProductId();
+
+    public void setProductId(Long productId);
+
+    /**
+     * @return the date this item was queued
+     */
+    public Date getDateAdded();
+
+    public void setDateAdded(Date dateAdded);
+
+}
@@ -0,0 +1,89 @@
+/*
+ * Copyright 2008-2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.broadleafcommerce.core.search.domain;
+
+import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.Index;
+import org.hibernate.annotations.Parameter;
+
+import java.util.Date;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.GeneratedValue;
+import javax.persistence.Id;
+import javax.persistence.Table;
+import javax.persistence.Temporal;
+import javax.persistence.TemporalType;
+
+@Entity
+@Table(name = "BLC_SEARCH_INDEX_QUEUE")
+public class SearchIndexQueueItemImpl implements SearchIndexQueueItem {
+
+    private static final long serialVersionUID = 1L;
+
+    @Id
+    @GeneratedValue(generator = "SearchIndexQueueItemId")
+    @GenericGenerator(
+        name="SearchIndexQueueItemId",
+        strategy="org.broadleafcommerce.common.persistence.IdOverrideTableGenerator",
+        parameters = {
+            @Parameter(name="segment_value", value="SearchIndexQueueItemImpl"),
+            @Parameter(name="entity_name", value="org.broadleafcommerce.core.search.domain.SearchIndexQueueItemImpl")
+        }
+    )
+    @Column(name = "SEARCH_INDEX_QUEUE_ID")
+    protected Long id;
+
+    @Column(name = "PRODUCT_ID", nullable = false)
+    @Index(name="SEARCHINDEXQUEUE_PRODUCT_INDEX", columnNames={"PRODUCT_ID"})
+    protected Long productId;
+
+    @Column(name = "DATE_ADDED")
+    @Temporal(TemporalType.TIMESTAMP)
+    protected Date dateAdded;
+
+    @Override
+    public Long getId() {
+        return id;
+    }
+
+    @Override
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    @Override
+    public Long getProductId() {
+        return productId;
+    }
+
+    @Override
+    public void setProductId(Long productId) {
+        this.productId = productId;
+    }
+
+    @Override
+    public Date getDateAdded() {
+        return dateAdded;
+    }
+
+    @Override
+    public void setDateAdded(Date dateAdded) {
+        this.dateAdded = dateAdded;
+    }
+
+}
@@ -0,0 +1,210 @@
+/*
+ * Copyright 2008-2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.broadleafcommerce.core.search.service.solr;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Immutable view of the category tree and of the order of the products within each category, captured once at the
+ * start of an index rebuild. Building a document then costs a binary search per parent category rather than walking
+ * {@link org.broadleafcommerce.core.catalog.domain.Category#buildFullCategoryHierarchy(List)} and scanning the
+ * product xrefs of every parent category for every product.
+ * 
+ * All lookups are keyed by primitive longs held in sorted arrays, so the snapshot may be shared by any number of
+ * threads and does not keep any entity instances alive.
+ */
+public class CategoryIndexSnapshot {
+
+    protected static final long[] NO_IDS = new long[0];
+    protected static final int[] NO_POSITIONS = new int[0];
+
+    /**
+     * The sorted ids of every category in the snapshot. The position of a category id in this array is the index 
+     * used for the other arrays.
+     */
+    protected final long[] categoryIds;
+
+    /**
+     * The ids of the category itself and all of its ancestors, through both default parents and category xrefs
+     */
+    protected final long[][] ancestorIds;
+
+    /**
+     * The sorted, distinct ids of the products assigned to each category
+     */
+    protected final long[][] productIds;
+
+    /**
+     * The position of each product in {@link #productIds} within the display order of the category
+     */
+    protected final int[][] productPositions;
+
+    /**
+     * @param parentIds pairs of [category id, parent category id]
+     * @param categoryProductIds pairs of [category id, product id], ordered by category and then by display order
+     */
+    public CategoryIndexSnapshot(List<Long[]> parentIds, List<Long[]> categoryProductIds) {
+        categoryIds = readCategoryIds(parentIds, categoryProductIds);
+        ancestorIds = buildAncestorIds(parentIds);
+        productIds = new long[categoryIds.length][];
+        productPositions = new int[categoryIds.length][];
+        buildProductPositions(categoryProductIds);
+    }
+
+    /**
+     * @param categoryId
+     * @return the ids of the given category and all of its ancestors. A category that is not part of the snapshot 
+     * is returned on its own.
+     */
+    public long[] getAncestorIds(long categoryId) {
+        int index = Arrays.binarySearch(categoryIds, categoryId);
+        return index < 0 ? new long[] { categoryId } : ancestorIds[index];
+    }
+
+    /**
+     * @param categoryId
+     * @param productId
+     * @return the zero based position of the product within the display order of the category, or -1 if the product
+     * is not assigned to the category
+     */
+    public int getProductPosition(long categoryId, long productId) {
+        int index = Arrays.binarySearch(categoryIds, categoryId);
+        if (index < 0) {
+            return -1;
+        }
+        int productIndex = Arrays.binarySearch(productIds[index], productId);
+        return productIndex < 0 ? -1 : productPositions[index][productIndex];
+    }
+
+    public int getCategoryCount() {
+        return categoryIds.length;
+    }
+
+    protected long[] readCategoryIds(List<Long[]> parentIds, List<Long[]> categoryProductIds) {
+        long[] ids = new long[parentIds.size() * 2 + categoryProductIds.size()];
+        int count = 0;
+        for (Long[] pair : parentIds) {
+            ids[count++] = pair[0];
+            ids[count++] = pair[1];
+        }
+        for (Long[] pair : categoryProductIds) {
+            ids[count++] = pair[0];
+        }
+        return distinct(ids, count);
+    }
+
+    /**
+     * Computes the ancestor closure of every category with a breadth first walk of its parents. A category that is 
+     * reachable more than once, including through a cycle, is only visited once, which mirrors 
+     * {@link org.broadleafcommerce.core.catalog.domain.Category#buildFullCategoryHierarchy(List)}.
+     */
+    protected long[][] buildAncestorIds(List<Long[]> parentIds) {
+        int[] parentCounts = new int[categoryIds.length];
+        for (Long[] pair : parentIds) {
+            parentCounts[indexOf(pair[0])]++;
+        }
+        int[][] parents = new int[categoryIds.length][];
+        for (int i = 0; i < parents.length; i++) {
+            parents[i] = new int[parentCounts[i]];
+            parentCounts[i] = 0;
+        }
+        for (Long[] pair : parentIds) {
+            int child = indexOf(pair[0]);
+            parents[child][parentCounts[child]++] = indexOf(pair[1]);
+        }
+
+        long[][] ancestors = new long[categoryIds.length][];
+        int[] visited = new int[categoryIds.length];
+        int[] pending = new int[categoryIds.length];
+        for (int i = 0; i < categoryIds.length; i++) {
+            int stamp = i + 1;
+            int head = 0;
+            int tail = 0;
+            pending[tail++] = i;
+            visited[i] = stamp;
+            while (head < tail) {
+                for (int parent : parents[pending[head++]]) {
+                    if (visited[parent] != stamp) {
+                        visited[parent] = stamp;
+                        pending[tail++] = parent;
+                    }
+                }
+            }
+            ancestors[i] = new long[tail];
+            for (int j = 0; j < tail; j++) {
+                ancestors[i][j] = categoryIds[pending[j]];
+            }
+        }
+        return ancestors;
+    }
+
+    protected void buildProductPositions(List<Long[]> categoryProductIds) {
+        int start = 0;
+        while (start < categoryProductIds.size()) {
+            long categoryId = categoryProductIds.get(start)[0];
+            int end = start;
+            while (end < categoryProductIds.size() && categoryProductIds.get(end)[0] == categoryId) {
+                end++;
+            }
+
+            long[] displayOrder = new long[end - start];
+            for (int i = start; i < end; i++) {
+                displayOrder[i - start] = categoryProductIds.get(i)[1];
+            }
+            long[] sortedIds = distinct(displayOrder.clone(), displayOrder.length);
+            int[] positions = new int[sortedIds.length];
+            Arrays.fill(positions, -1);
+            for (int i = 0; i < displayOrder.length; i++) {
+                int productIndex = Arrays.binarySearch(sortedIds, displayOrder[i]);
+                if (positions[productIndex] < 0) {
+                    positions[productIndex] = i;
+                }
+            }
+
+            int index = indexOf(categoryId);
+            productIds[index] = sortedIds;
+            productPositions[index] = positions;
+            start = end;
+        }
+
+        for (int i = 0; i < categoryIds.length; i++) {
+            if (productIds[i] == null) {
+                productIds[i] = NO_IDS;
+                productPositions[i] = NO_POSITIONS;
+            }
+        }
+    }
+
+    protected int indexOf(long categoryId) {
+        return Arrays.binarySearch(categoryIds, categoryId);
+    }
+
+    /**
+     * Sorts the first <code>count</code> ids in place and returns them without duplicates
+     */
+    protected static long[] distinct(long[] ids, int count) {
+        Arrays.sort(ids, 0, count);
+        int distinct = 0;
+        for (int i = 0; i < count; i++) {
+            if (distinct == 0 || ids[distinct - 1] != ids[i]) {
+                ids[distinct++] = ids[i];
+            }
+        }
+        return Arrays.copyOf(ids, distinct);
+    }
+
+}
@@ -0,0 +1,67 @@
+/*
+ * Copyright 2008-2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.broadleafcommerce.core.search.service.solr;
+
+import org.broadleafcommerce.core.catalog.domain.Category;
+import org.broadleafcommerce.core.catalog.domain.Product;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The data for a single product read by the projection based index builder. Holds the values of the projectable
+ * indexed properties, the product's parent categories and an uninitialized reference to the product, which is 
+ * only loaded when a value could not be projected or an extension handler needs the product itself.
+ */
+public class ProductIndexProjection {
+
+    protected final Long productId;
+    protected final Product product;
+    protected final Map<String, Object> values;
+    protected final List<Category> parentCategories;
+
+    public ProductIndexProjection(Long productId, Product product, Map<String, Object> values, 
+            List<Category> parentCategories) {
+        this.productId = productId;
+        this.product = product;
+        this.values = values;
+        this.parentCategories = parentCategories;
+    }
+
+    public Long getProductId() {
+        return productId;
+    }
+
+    /**
+     * @return a lazy reference to the product. Calling any method other than as a parameter will load it.
+     */
+    public Product getProduct() {
+        return product;
+    }
+
+    /**
+     * @return the projected values, keyed by Field property name
+     */
+    public Map<String, Object> getValues() {
+        return values;
+    }
+
+    public List<Category> getParentCategories() {
+        return parentCategories;
+    }
+
+}
@@ -114,6 +114,16 @@ public interface SolrHelperService {
      */
     public String getSolrDocumentId(SolrInputDocument document, Product product);
 
+    /**
+     * Variant of {@link #getSolrDocumentId(SolrInputDocument, Product)} used when documents are built from
+     * projections and the Product itself has not been loaded.
+     * 
+     * @param document
+     * @param productId
+     * @return the Solr id of the product with this id
+     */
+    public String getSolrDocumentId(SolrInputDocument document, Long productId);
+
     /**
      * @return the name of the field that keeps track what namespace this document belongs to
      */
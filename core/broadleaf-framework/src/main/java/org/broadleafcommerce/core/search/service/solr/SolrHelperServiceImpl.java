@@ -166,7 +166,12 @@ public class SolrHelperServiceImpl implements SolrHelperService {
 
     @Override
     public String getSolrDocumentId(SolrInputDocument document, Product product) {
-        return String.valueOf(product.getId());
+        return getSolrDocumentId(document, product.getId());
+    }
+
+    @Override
+    public String getSolrDocumentId(SolrInputDocument document, Long productId) {
+        return String.valueOf(productId);
     }
     
     @Override
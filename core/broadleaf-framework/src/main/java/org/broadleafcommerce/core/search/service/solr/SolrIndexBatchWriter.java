@@ -0,0 +1,131 @@
+/*
+ * Copyright 2008-2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.broadleafcommerce.core.search.service.solr;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.apache.solr.client.solrj.SolrServer;
+import org.apache.solr.common.SolrInputDocument;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The single consumer of a pipelined index rebuild. Document batches produced by the page readers are taken off
+ * of the queue, buffered until <code>batchSize</code> documents are available and sent to Solr in one request.
+ *
+ * A commit is only issued when <code>commitDocumentInterval</code> documents or <code>commitTimeInterval</code>
+ * milliseconds have been added since the last commit (a value of 0 disables the respective trigger), and once
+ * more after the final batch has been written. The writer stops when it receives {@link #END_OF_INDEX}.
+ */
+public class SolrIndexBatchWriter implements Callable<Void> {
+    private static final Log LOG = LogFactory.getLog(SolrIndexBatchWriter.class);
+
+    /**
+     * Marker placed on the queue once every page has been read
+     */
+    public static final Collection<SolrInputDocument> END_OF_INDEX = new ArrayList<SolrInputDocument>(0);
+
+    protected final SolrServer server;
+    protected final BlockingQueue<Collection<SolrInputDocument>> queue;
+    protected final SolrIndexProgress progress;
+    protected final int batchSize;
+    protected final int commitDocumentInterval;
+    protected final long commitTimeInterval;
+
+    protected final List<SolrInputDocument> buffer;
+    protected int uncommittedDocuments = 0;
+    protected long lastCommitTime = System.currentTimeMillis();
+
+    public SolrIndexBatchWriter(SolrServer server, BlockingQueue<Collection<SolrInputDocument>> queue,
+            SolrIndexProgress progress, int batchSize, int commitDocumentInterval, long commitTimeInterval) {
+        this.server = server;
+        this.queue = queue;
+        this.progress = progress;
+        this.batchSize = Math.max(1, batchSize);
+        this.commitDocumentInterval = commitDocumentInterval;
+        this.commitTimeInterval = commitTimeInterval;
+        this.buffer = new ArrayList<SolrInputDocument>(this.batchSize);
+    }
+
+    @Override
+    public Void call() throws Exception {
+        while (true) {
+            Collection<SolrInputDocument> documents = queue.poll(1, TimeUnit.SECONDS);
+            if (documents == END_OF_INDEX) {
+                break;
+            }
+            if (documents != null) {
+                buffer.addAll(documents);
+                if (buffer.size() >= batchSize) {
+                    flush();
+                }
+            }
+            if (isCommitRequired()) {
+                flush();
+                commit();
+            }
+        }
+
+        flush();
+        commit();
+        return null;
+    }
+
+    protected void flush() throws Exception {
+        if (buffer.isEmpty()) {
+            return;
+        }
+        if (LOG.isTraceEnabled()) {
+            for (SolrInputDocument document : buffer) {
+                LOG.trace(document);
+            }
+        }
+        server.add(buffer);
+        progress.documentsWritten(buffer.size());
+        uncommittedDocuments += buffer.size();
+        buffer.clear();
+    }
+
+    protected boolean isCommitRequired() {
+        int pendingDocuments = uncommittedDocuments + buffer.size();
+        if (pendingDocuments == 0) {
+            return false;
+        }
+        if (commitDocumentInterval > 0 && pendingDocuments >= commitDocumentInterval) {
+            return true;
+        }
+        return commitTimeInterval > 0 && System.currentTimeMillis() - lastCommitTime >= commitTimeInterval;
+    }
+
+    protected void commit() throws Exception {
+        if (uncommittedDocuments > 0) {
+            server.commit();
+            progress.committed();
+            if (LOG.isInfoEnabled()) {
+                LOG.info("Index rebuild progress: " + progress);
+            }
+        }
+        uncommittedDocuments = 0;
+        lastCommitTime = System.currentTimeMillis();
+    }
+
+}
@@ -0,0 +1,126 @@
+/*
+ * Copyright 2008-2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.broadleafcommerce.core.search.service.solr;
+
+import org.apache.commons.lang.time.DurationFormatUtils;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Thread-safe snapshot of a running (or the last completed) index rebuild. The counters are updated by the
+ * page readers and the Solr writer while the rebuild is in progress, so they may be read at any time to
+ * monitor progress and throughput.
+ */
+public class SolrIndexProgress {
+
+    protected final long startTime = System.currentTimeMillis();
+    protected volatile long endTime = -1;
+
+    protected final long totalProducts;
+    protected final int totalPages;
+
+    protected final AtomicInteger pagesRead = new AtomicInteger();
+    protected final AtomicLong documentsBuilt = new AtomicLong();
+    protected final AtomicLong documentsWritten = new AtomicLong();
+    protected final AtomicInteger commits = new AtomicInteger();
+
+    public SolrIndexProgress(long totalProducts, int totalPages) {
+        this.totalProducts = totalProducts;
+        this.totalPages = totalPages;
+    }
+
+    public void pageRead(int documentCount) {
+        pagesRead.incrementAndGet();
+        documentsBuilt.addAndGet(documentCount);
+    }
+
+    public void documentsWritten(int documentCount) {
+        documentsWritten.addAndGet(documentCount);
+    }
+
+    public void committed() {
+        commits.incrementAndGet();
+    }
+
+    public void finish() {
+        endTime = System.currentTimeMillis();
+    }
+
+    public boolean isRunning() {
+        return endTime < 0;
+    }
+
+    public long getElapsedTime() {
+        return (isRunning() ? System.currentTimeMillis() : endTime) - startTime;
+    }
+
+    /**
+     * @return the number of documents sent to Solr per second since the rebuild started
+     */
+    public double getThroughput() {
+        long elapsed = getElapsedTime();
+        if (elapsed <= 0) {
+            return 0;
+        }
+        return documentsWritten.get() * 1000D / elapsed;
+    }
+
+    /**
+     * @return the percentage of the active products that have been written to the index
+     */
+    public double getPercentComplete() {
+        if (totalProducts <= 0) {
+            return isRunning() ? 0 : 100;
+        }
+        return Math.min(100D, documentsWritten.get() * 100D / totalProducts);
+    }
+
+    public long getTotalProducts() {
+        return totalProducts;
+    }
+
+    public int getTotalPages() {
+        return totalPages;
+    }
+
+    public int getPagesRead() {
+        return pagesRead.get();
+    }
+
+    public long getDocumentsBuilt() {
+        return documentsBuilt.get();
+    }
+
+    public long getDocumentsWritten() {
+        return documentsWritten.get();
+    }
+
+    public int getCommits() {
+        return commits.get();
+    }
+
+    @Override
+    public String toString() {
+        return String.format("pages [%s/%s], documents built [%s], documents written [%s/%s] (%.1f%%), " +
+                "commits [%s], elapsed [%s], throughput [%.1f docs/sec]",
+                getPagesRead(), totalPages, getDocumentsBuilt(), getDocumentsWritten(), totalProducts,
+                getPercentComplete(), getCommits(), DurationFormatUtils.formatDurationHMS(getElapsedTime()),
+                getThroughput());
+    }
+
+}
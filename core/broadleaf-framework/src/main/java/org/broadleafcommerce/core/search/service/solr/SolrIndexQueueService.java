@@ -0,0 +1,45 @@
+/*
+ * Copyright 2008-2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.broadleafcommerce.core.search.service.solr;
+
+import org.broadleafcommerce.common.exception.ServiceException;
+
+import java.util.Collection;
+
+/**
+ * Keeps the active Solr index up to date between full rebuilds. Catalog changes queue the ids of the affected 
+ * products, and the queue is drained in micro-batches that re-index (or remove) just those products.
+ */
+public interface SolrIndexQueueService {
+
+    /**
+     * Queues the given products to be re-indexed. If a transaction is active, the ids are coalesced and written to 
+     * the queue when that transaction commits, so that they are only queued if the change itself is committed.
+     * 
+     * @param productIds
+     */
+    public void enqueueProducts(Collection<Long> productIds);
+
+    /**
+     * Re-indexes the queued products in batches until the queue is empty or the per-run limit is reached. Nothing 
+     * is processed while a full rebuild is in progress; the items stay queued and are applied after the cores swap.
+     * 
+     * @return the number of queue items processed
+     * @throws ServiceException
+     */
+    public int processQueue() throws ServiceException;
+
+}
@@ -0,0 +1,232 @@
+/*
+ * Copyright 2008-2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.broadleafcommerce.core.search.service.solr;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.broadleafcommerce.common.exception.ServiceException;
+import org.broadleafcommerce.common.time.SystemTime;
+import org.broadleafcommerce.core.search.dao.SearchIndexQueueDao;
+import org.broadleafcommerce.core.search.domain.SearchIndexQueueItem;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jmx.export.annotation.ManagedAttribute;
+import org.springframework.jmx.export.annotation.ManagedResource;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.DefaultTransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Date;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.annotation.Resource;
+
+@Service("blSolrIndexQueueService")
+@ManagedResource(objectName="org.broadleafcommerce:name=SolrIndexQueueService", description="Solr Index Queue Service", currencyTimeLimit=15)
+public class SolrIndexQueueServiceImpl implements SolrIndexQueueService {
+    private static final Log LOG = LogFactory.getLog(SolrIndexQueueServiceImpl.class);
+
+    @Value("${solr.index.queue.enabled}")
+    protected boolean queueEnabled;
+
+    @Value("${solr.index.queue.batchSize}")
+    protected int batchSize;
+
+    @Value("${solr.index.queue.maxItemsPerRun}")
+    protected int maxItemsPerRun;
+
+    @Resource(name = "blSearchIndexQueueDao")
+    protected SearchIndexQueueDao searchIndexQueueDao;
+
+    @Resource(name = "blSolrIndexService")
+    protected SolrIndexService solrIndexService;
+
+    @Resource(name = "blTransactionManager")
+    protected PlatformTransactionManager transactionManager;
+
+    protected AtomicLong processedItems = new AtomicLong();
+    protected AtomicLong reindexedProducts = new AtomicLong();
+
+    @Override
+    public void enqueueProducts(Collection<Long> productIds) {
+        if (!queueEnabled || productIds.isEmpty()) {
+            return;
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            getPendingProductIds().addAll(productIds);
+        } else {
+            TransactionStatus status = transactionManager.getTransaction(getTransactionDefinition("enqueueProducts", false));
+            try {
+                saveQueueItems(productIds);
+                transactionManager.commit(status);
+            } catch (RuntimeException e) {
+                transactionManager.rollback(status);
+                throw e;
+            }
+        }
+    }
+
+    /**
+     * @return the ids queued so far in the current transaction. The first call in a transaction registers a 
+     * synchronization that writes them to the queue table just before that transaction commits.
+     */
+    @SuppressWarnings("unchecked")
+    protected Set<Long> getPendingProductIds() {
+        Set<Long> pendingIds = (Set<Long>) TransactionSynchronizationManager.getResource(this);
+        if (pendingIds == null) {
+            final Set<Long> newPendingIds = new LinkedHashSet<Long>();
+            TransactionSynchronizationManager.bindResource(this, newPendingIds);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+                @Override
+                public void beforeCommit(boolean readOnly) {
+                    saveQueueItems(newPendingIds);
+                }
+
+                @Override
+                public void afterCompletion(int status) {
+                    TransactionSynchronizationManager.unbindResourceIfPossible(SolrIndexQueueServiceImpl.this);
+                }
+            });
+            pendingIds = newPendingIds;
+        }
+        return pendingIds;
+    }
+
+    protected void saveQueueItems(Collection<Long> productIds) {
+        Date now = SystemTime.asDate();
+        for (Long productId : productIds) {
+            SearchIndexQueueItem item = searchIndexQueueDao.create();
+            item.setProductId(productId);
+            item.setDateAdded(now);
+            searchIndexQueueDao.save(item);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${solr.index.queue.process.interval}")
+    public void processScheduledQueue() {
+        if (!queueEnabled || SolrContext.getServer() == null) {
+            return;
+        }
+        try {
+            processQueue();
+        } catch (Exception e) {
+            LOG.error("Unable to process the search index queue. The items will be retried on the next run.", e);
+        }
+    }
+
+    @Override
+    public int processQueue() throws ServiceException {
+        if (solrIndexService.isRebuildInProgress()) {
+            LOG.debug("A full index rebuild is in progress. Deferring the search index queue.");
+            return 0;
+        }
+
+        int processed = 0;
+        while (processed < maxItemsPerRun) {
+            List<SearchIndexQueueItem> items = readNextItems();
+            if (items.isEmpty()) {
+                break;
+            }
+
+            // Many changes to the same product collapse into a single update
+            Set<Long> productIds = new LinkedHashSet<Long>();
+            List<Long> itemIds = new ArrayList<Long>(items.size());
+            for (SearchIndexQueueItem item : items) {
+                productIds.add(item.getProductId());
+                itemIds.add(item.getId());
+            }
+
+            solrIndexService.reindexProducts(productIds);
+            deleteItems(itemIds);
+
+            processed += items.size();
+            processedItems.addAndGet(items.size());
+            reindexedProducts.addAndGet(productIds.size());
+            if (items.size() < batchSize) {
+                break;
+            }
+        }
+
+        if (processed > 0 && LOG.isDebugEnabled()) {
+            LOG.debug(String.format("Processed [%s] search index queue items", processed));
+        }
+        return processed;
+    }
+
+    protected List<SearchIndexQueueItem> readNextItems() {
+        TransactionStatus status = transactionManager.getTransaction(getTransactionDefinition("readSearchIndexQueue", true));
+        try {
+            List<SearchIndexQueueItem> items = searchIndexQueueDao.readNextItems(batchSize);
+            transactionManager.commit(status);
+            return items;
+        } catch (RuntimeException e) {
+            transactionManager.rollback(status);
+            throw e;
+        }
+    }
+
+    protected void deleteItems(List<Long> itemIds) {
+        TransactionStatus status = transactionManager.getTransaction(getTransactionDefinition("deleteSearchIndexQueueItems", false));
+        try {
+            searchIndexQueueDao.deleteItems(itemIds);
+            transactionManager.commit(status);
+        } catch (RuntimeException e) {
+            transactionManager.rollback(status);
+            throw e;
+        }
+    }
+
+    protected DefaultTransactionDefinition getTransactionDefinition(String name, boolean readOnly) {
+        DefaultTransactionDefinition def = new DefaultTransactionDefinition();
+        def.setName(name);
+        def.setReadOnly(readOnly);
+        def.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        return def;
+    }
+
+    @ManagedAttribute(description="The number of products waiting to be re-indexed", currencyTimeLimit=15)
+    public Long getQueueSize() {
+        TransactionStatus status = transactionManager.getTransaction(getTransactionDefinition("readSearchIndexQueueSize", true));
+        try {
+            Long size = searchIndexQueueDao.readQueueSize();
+            transactionManager.commit(status);
+            return size;
+        } catch (RuntimeException e) {
+            transactionManager.rollback(status);
+            throw e;
+        }
+    }
+
+    @ManagedAttribute(description="The number of queue items processed since startup", currencyTimeLimit=15)
+    public long getProcessedItems() {
+        return processedItems.get();
+    }
+
+    @ManagedAttribute(description="The number of distinct product updates sent to the index since startup", currencyTimeLimit=15)
+    public long getReindexedProducts() {
+        return reindexedProducts.get();
+    }
+
+}
@@ -19,6 +19,7 @@ package org.broadleafcommerce.core.search.service.solr;
 import org.broadleafcommerce.common.exception.ServiceException;
 
 import java.io.IOException;
+import java.util.Collection;
 
 /**
  * @author Andre Azzolini (apazzolini)
@@ -33,4 +34,26 @@ public interface SolrIndexService {
      */
     public void rebuildIndex() throws ServiceException, IOException;
 
+    /**
+     * Returns the progress of the currently running pipelined rebuild, or of the last one to have run if none is 
+     * currently in progress. 
+     * 
+     * @return the progress, or null if no pipelined rebuild has been started
+     */
+    public SolrIndexProgress getIndexProgress();
+
+    /**
+     * Updates the documents for the given products in the active index. Products that are no longer active (for
+     * example, archived or past their end date) or that no longer exist are removed from the index instead.
+     * 
+     * @param productIds
+     * @throws ServiceException
+     */
+    public void reindexProducts(Collection<Long> productIds) throws ServiceException;
+
+    /**
+     * @return whether or not a full rebuild of the index is currently running in this JVM
+     */
+    public boolean isRebuildInProgress();
+
 }
\ No newline at end of file
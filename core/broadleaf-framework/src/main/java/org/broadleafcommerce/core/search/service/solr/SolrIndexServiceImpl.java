@@ -34,14 +34,18 @@ import org.broadleafcommerce.core.catalog.domain.Category;
 import org.broadleafcommerce.core.catalog.domain.CategoryProductXref;
 import org.broadleafcommerce.core.catalog.domain.Product;
 import org.broadleafcommerce.core.catalog.service.dynamic.DynamicSkuActiveDatesService;
+import org.broadleafcommerce.core.catalog.service.dynamic.DynamicSkuPriceCache;
 import org.broadleafcommerce.core.catalog.service.dynamic.DynamicSkuPricingService;
 import org.broadleafcommerce.core.catalog.service.dynamic.SkuActiveDateConsiderationContext;
 import org.broadleafcommerce.core.catalog.service.dynamic.SkuPricingConsiderationContext;
 import org.broadleafcommerce.core.extension.ExtensionResultStatusType;
 import org.broadleafcommerce.core.search.dao.FieldDao;
+import org.broadleafcommerce.core.search.dao.SolrIndexDao;
 import org.broadleafcommerce.core.search.domain.Field;
 import org.broadleafcommerce.core.search.domain.solr.FieldType;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jmx.export.annotation.ManagedAttribute;
+import org.springframework.jmx.export.annotation.ManagedResource;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.transaction.TransactionDefinition;
@@ -52,12 +56,26 @@ import java.io.IOException;
 import java.lang.reflect.InvocationTargetException;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Date;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import javax.annotation.Resource;
 
@@ -68,18 +86,43 @@ import javax.annotation.Resource;
  * @author Andre Azzolini (apazzolini)
  */
 @Service("blSolrIndexService")
+@ManagedResource(objectName="org.broadleafcommerce:name=SolrIndexService", description="Solr Index Service", currencyTimeLimit=15)
 public class SolrIndexServiceImpl implements SolrIndexService {
     private static final Log LOG = LogFactory.getLog(SolrIndexServiceImpl.class);
 
     @Value("${solr.index.product.pageSize}")
     protected int pageSize;
 
+    @Value("${solr.index.product.projection.enabled}")
+    protected boolean projectionEnabled;
+
+    @Value("${solr.index.pipeline.enabled}")
+    protected boolean pipelineEnabled;
+
+    @Value("${solr.index.pipeline.reader.threads}")
+    protected int pipelineReaderThreads;
+
+    @Value("${solr.index.pipeline.queue.size}")
+    protected int pipelineQueueSize;
+
+    @Value("${solr.index.pipeline.writer.batchSize}")
+    protected int pipelineWriterBatchSize;
+
+    @Value("${solr.index.pipeline.commit.documentInterval}")
+    protected int pipelineCommitDocumentInterval;
+
+    @Value("${solr.index.pipeline.commit.timeInterval}")
+    protected long pipelineCommitTimeInterval;
+
     @Resource(name = "blProductDao")
     protected ProductDao productDao;
 
     @Resource(name = "blFieldDao")
     protected FieldDao fieldDao;
 
+    @Resource(name = "blSolrIndexDao")
+    protected SolrIndexDao solrIndexDao;
+
     @Resource(name = "blLocaleService")
     protected LocaleService localeService;
 
@@ -92,14 +135,36 @@ public class SolrIndexServiceImpl implements SolrIndexService {
     @Resource(name = "blTransactionManager")
     protected PlatformTransactionManager transactionManager;
 
+    @Resource(name = "blDynamicSkuPriceCache")
+    protected DynamicSkuPriceCache skuPriceCache;
+
     public static String ATTR_MAP = "productAttributes";
 
+    protected volatile SolrIndexProgress progress;
+
+    protected volatile boolean rebuildInProgress = false;
+
+    /**
+     * The category tree captured for the rebuild in progress, if any
+     */
+    protected volatile CategoryIndexSnapshot categorySnapshot;
+
     @Override
     @SuppressWarnings("rawtypes")
     public void rebuildIndex() throws ServiceException, IOException {
         LOG.info("Rebuilding the solr index...");
         StopWatch s = new StopWatch();
+        rebuildInProgress = true;
+        try {
+            doRebuildIndex();
+        } finally {
+            rebuildInProgress = false;
+        }
+        LOG.info(String.format("Finished building index in %s", s.toLapString()));
+    }
 
+    @SuppressWarnings("rawtypes")
+    protected void doRebuildIndex() throws ServiceException, IOException {
         // If we are in single core mode, we have to delete the documents before reindexing
         if (SolrContext.isSingleCoreMode()) {
             deleteAllDocuments();
@@ -115,10 +180,23 @@ public class SolrIndexServiceImpl implements SolrIndexService {
             if (LOG.isDebugEnabled()) {
                 LOG.debug("There are " + numProducts + " total products");
             }
-            int page = 0;
-            while ((page * pageSize) < numProducts) {
-                buildIncrementalIndex(page, pageSize);
-                page++;
+            categorySnapshot = readCategoryIndexSnapshot();
+            if (pipelineEnabled) {
+                buildPipelinedIndex(numProducts);
+            } else if (projectionEnabled) {
+                List<Field> fields = new ArrayList<Field>();
+                List<Locale> locales = new ArrayList<Locale>();
+                readIndexMetadata(fields, locales);
+                ProductIdCursor cursor = new ProductIdCursor();
+                while (buildIncrementalIndex(cursor, fields, locales)) {
+                    // keep going until the cursor is exhausted
+                }
+            } else {
+                int page = 0;
+                while ((page * pageSize) < numProducts) {
+                    buildIncrementalIndex(page, pageSize);
+                    page++;
+                }
             }
             try {
                 if (LOG.isDebugEnabled()) {
@@ -131,6 +209,7 @@ public class SolrIndexServiceImpl implements SolrIndexService {
         } catch (ServiceException e) {
             throw e;
         } finally {
+            categorySnapshot = null;
             // Restore the current context, regardless of whether an exception happened or not
             BroadleafRequestContext.setBroadleafRequestContext(savedContext);
             SkuPricingConsiderationContext.setSkuPricingConsiderationContext(savedPricing);
@@ -145,8 +224,76 @@ public class SolrIndexServiceImpl implements SolrIndexService {
         if (!SolrContext.isSingleCoreMode()) {
             deleteAllDocuments();
         }
+    }
 
-        LOG.info(String.format("Finished building index in %s", s.toLapString()));
+    @Override
+    public boolean isRebuildInProgress() {
+        return rebuildInProgress;
+    }
+
+    @Override
+    @SuppressWarnings("rawtypes")
+    public void reindexProducts(Collection<Long> productIds) throws ServiceException {
+        if (CollectionUtils.isEmpty(productIds)) {
+            return;
+        }
+        StopWatch s = new StopWatch();
+
+        BroadleafRequestContext savedContext = BroadleafRequestContext.getBroadleafRequestContext();
+        HashMap savedPricing = SkuPricingConsiderationContext.getSkuPricingConsiderationContext();
+        DynamicSkuPricingService savedPricingService = SkuPricingConsiderationContext.getSkuPricingService();
+        DynamicSkuActiveDatesService savedActiveDateServcie = SkuActiveDateConsiderationContext.getSkuActiveDatesService();
+
+        Collection<SolrInputDocument> documents = new ArrayList<SolrInputDocument>();
+        Set<Long> removedProductIds = new HashSet<Long>(productIds);
+        TransactionStatus status = transactionManager.getTransaction(getReadOnlyTransactionDefinition("reindexProducts"));
+        try {
+            List<Field> fields = fieldDao.readAllProductFields();
+            List<Locale> locales = getAllLocales();
+            List<Product> products = productDao.readProductsByIds(new ArrayList<Long>(productIds));
+            prefetchPrices(products);
+            for (Product product : products) {
+                if (product.isActive()) {
+                    documents.add(buildDocument(product, fields, locales));
+                    removedProductIds.remove(product.getId());
+                }
+            }
+            finalizeTransaction(status, false);
+        } catch (RuntimeException e) {
+            finalizeTransaction(status, true);
+            throw e;
+        } finally {
+            BroadleafRequestContext.setBroadleafRequestContext(savedContext);
+            SkuPricingConsiderationContext.setSkuPricingConsiderationContext(savedPricing);
+            SkuPricingConsiderationContext.setSkuPricingService(savedPricingService);
+            SkuActiveDateConsiderationContext.setSkuActiveDatesService(savedActiveDateServcie);
+        }
+
+        try {
+            if (!documents.isEmpty()) {
+                SolrContext.getServer().add(documents);
+            }
+            if (!removedProductIds.isEmpty()) {
+                SolrContext.getServer().deleteByQuery(buildProductIdQuery(removedProductIds));
+            }
+            SolrContext.getServer().commit();
+        } catch (SolrServerException e) {
+            throw new ServiceException("Could not update index", e);
+        } catch (IOException e) {
+            throw new ServiceException("Could not update index", e);
+        }
+
+        if (LOG.isDebugEnabled()) {
+            LOG.debug(String.format("Re-indexed [%s] and removed [%s] products in [%s]", documents.size(), 
+                    removedProductIds.size(), s.toLapString()));
+        }
+    }
+
+    /**
+     * @return a query that matches the documents of all of the given products
+     */
+    protected String buildProductIdQuery(Collection<Long> productIds) {
+        return shs.getProductIdFieldName() + ":(" + StringUtils.join(productIds, " OR ") + ")";
     }
 
     protected void deleteAllDocuments() throws ServiceException {
@@ -174,6 +321,7 @@ public class SolrIndexServiceImpl implements SolrIndexService {
             List<Product> products = readAllActiveProducts(page, pageSize);
             List<Field> fields = fieldDao.readAllProductFields();
             List<Locale> locales = getAllLocales();
+            prefetchPrices(products);
 
             Collection<SolrInputDocument> documents = new ArrayList<SolrInputDocument>();
             for (Product product : products) {
@@ -207,6 +355,351 @@ public class SolrIndexServiceImpl implements SolrIndexService {
         }
     }
 
+    /**
+     * Builds the reindex core with a pipeline instead of walking the pages one after another. A bounded pool of
+     * page readers claims pages, each one in its own read-only transaction (and therefore its own EntityManager), 
+     * and converts the products into documents while that transaction is still open. The resulting documents are 
+     * handed off through a bounded queue to a single {@link SolrIndexBatchWriter}, which batches the adds and only 
+     * commits on the configured document / time interval and once at the end, rather than once per page.
+     * 
+     * Progress is available through {@link #getIndexProgress()} while the rebuild is running.
+     * 
+     * @param numProducts the number of active products to index
+     * @throws ServiceException
+     */
+    protected void buildPipelinedIndex(Long numProducts) throws ServiceException {
+        final int numPages = (int) ((numProducts + pageSize - 1) / pageSize);
+        final SolrIndexProgress progress = new SolrIndexProgress(numProducts, numPages);
+        this.progress = progress;
+
+        final List<Field> fields = new ArrayList<Field>();
+        final List<Locale> locales = new ArrayList<Locale>();
+        readIndexMetadata(fields, locales);
+
+        final BlockingQueue<Collection<SolrInputDocument>> queue = 
+                new ArrayBlockingQueue<Collection<SolrInputDocument>>(Math.max(1, pipelineQueueSize));
+        final AtomicInteger nextPage = new AtomicInteger();
+        final ProductIdCursor cursor = projectionEnabled ? new ProductIdCursor() : null;
+        final AtomicBoolean aborted = new AtomicBoolean();
+        
+        // Documents are built under the same contexts as the sequential rebuild, which are thread local
+        final BroadleafRequestContext requestContext = BroadleafRequestContext.getBroadleafRequestContext();
+        @SuppressWarnings("rawtypes")
+        final HashMap pricingConsiderations = SkuPricingConsiderationContext.getSkuPricingConsiderationContext();
+        final DynamicSkuPricingService pricingService = SkuPricingConsiderationContext.getSkuPricingService();
+        @SuppressWarnings("rawtypes")
+        final HashMap activeDateConsiderations = SkuActiveDateConsiderationContext.getSkuActiveDatesConsiderationContext();
+        final DynamicSkuActiveDatesService activeDatesService = SkuActiveDateConsiderationContext.getSkuActiveDatesService();
+        int readerThreads = Math.max(1, Math.min(pipelineReaderThreads, numPages));
+
+        ExecutorService writerExecutor = Executors.newSingleThreadExecutor(new IndexThreadFactory("solr-index-writer"));
+        ExecutorService readerExecutor = Executors.newFixedThreadPool(readerThreads, new IndexThreadFactory("solr-index-reader"));
+        try {
+            Future<Void> writer = writerExecutor.submit(new SolrIndexBatchWriter(SolrContext.getReindexServer(), queue,
+                    progress, pipelineWriterBatchSize, pipelineCommitDocumentInterval, pipelineCommitTimeInterval));
+
+            List<Future<Void>> readers = new ArrayList<Future<Void>>();
+            for (int i = 0; i < readerThreads; i++) {
+                readers.add(readerExecutor.submit(new Callable<Void>() {
+                    @Override
+                    public Void call() throws Exception {
+                        BroadleafRequestContext.setBroadleafRequestContext(requestContext);
+                        SkuPricingConsiderationContext.setSkuPricingConsiderationContext(pricingConsiderations);
+                        SkuPricingConsiderationContext.setSkuPricingService(pricingService);
+                        SkuActiveDateConsiderationContext.setSkuActiveDatesConsiderationContext(activeDateConsiderations);
+                        SkuActiveDateConsiderationContext.setSkuActiveDatesService(activeDatesService);
+                        try {
+                            while (!aborted.get()) {
+                                Collection<SolrInputDocument> documents;
+                                if (cursor != null) {
+                                    documents = buildProjectedPageDocuments(cursor, fields, locales);
+                                    if (documents == null) {
+                                        break;
+                                    }
+                                } else {
+                                    int page = nextPage.getAndIncrement();
+                                    if (page >= numPages) {
+                                        break;
+                                    }
+                                    documents = buildPageDocuments(page, pageSize, fields, locales);
+                                }
+                                progress.pageRead(documents.size());
+                                while (!queue.offer(documents, 1, TimeUnit.SECONDS)) {
+                                    if (aborted.get()) {
+                                        return null;
+                                    }
+                                }
+                            }
+                        } finally {
+                            BroadleafRequestContext.setBroadleafRequestContext(null);
+                            SkuPricingConsiderationContext.setSkuPricingConsiderationContext(null);
+                            SkuPricingConsiderationContext.setSkuPricingService(null);
+                            SkuActiveDateConsiderationContext.setSkuActiveDatesConsiderationContext(null);
+                            SkuActiveDateConsiderationContext.setSkuActiveDatesService(null);
+                        }
+                        return null;
+                    }
+                }));
+            }
+
+            try {
+                for (Future<Void> reader : readers) {
+                    awaitIndexTask(reader, writer, aborted);
+                }
+                queue.put(SolrIndexBatchWriter.END_OF_INDEX);
+                awaitIndexTask(writer, null, aborted);
+            } catch (InterruptedException e) {
+                aborted.set(true);
+                Thread.currentThread().interrupt();
+                throw new ServiceException("Interrupted while rebuilding index", e);
+            }
+        } finally {
+            aborted.set(true);
+            readerExecutor.shutdownNow();
+            writerExecutor.shutdownNow();
+            progress.finish();
+        }
+
+        LOG.info("Finished pipelined index rebuild: " + progress);
+    }
+
+    /**
+     * Waits for the given pipeline task to complete. While waiting, the writer is checked as well so that a failure
+     * to write to Solr stops the readers instead of leaving them blocked on a full queue.
+     */
+    protected void awaitIndexTask(Future<Void> task, Future<Void> writer, AtomicBoolean aborted) 
+            throws ServiceException, InterruptedException {
+        try {
+            while (true) {
+                try {
+                    task.get(1, TimeUnit.SECONDS);
+                    return;
+                } catch (TimeoutException e) {
+                    if (writer != null && writer.isDone()) {
+                        writer.get();
+                        throw new ServiceException("The Solr writer stopped before all pages were read");
+                    }
+                }
+            }
+        } catch (ExecutionException e) {
+            aborted.set(true);
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new ServiceException("Could not rebuild index", cause);
+        }
+    }
+
+    /**
+     * Reads the fields and locales used by every page of a pipelined rebuild once, in a single read-only transaction.
+     * Lazy collections that are consulted during document building are initialized here, as the entities are shared
+     * by the page readers after this transaction completes.
+     */
+    protected void readIndexMetadata(List<Field> fields, List<Locale> locales) {
+        TransactionStatus status = transactionManager.getTransaction(getReadOnlyTransactionDefinition("readIndexMetadata"));
+        try {
+            fields.addAll(fieldDao.readAllProductFields());
+            for (Field field : fields) {
+                shs.getSearchableFieldTypes(field);
+            }
+            locales.addAll(getAllLocales());
+            finalizeTransaction(status, false);
+        } catch (RuntimeException e) {
+            finalizeTransaction(status, true);
+            throw e;
+        }
+    }
+
+    /**
+     * Reads a single page of active products in its own read-only transaction and converts it into documents. Used
+     * by the page readers of {@link #buildPipelinedIndex(Long)}.
+     */
+    protected Collection<SolrInputDocument> buildPageDocuments(int page, int pageSize, List<Field> fields,
+            List<Locale> locales) {
+        TransactionStatus status = transactionManager.getTransaction(getReadOnlyTransactionDefinition("buildPageDocuments"));
+        if (LOG.isDebugEnabled()) {
+            LOG.debug(String.format("Building documents - page: [%s], pageSize: [%s]", page, pageSize));
+        }
+        try {
+            List<Product> products = readAllActiveProducts(page, pageSize);
+            prefetchPrices(products);
+            Collection<SolrInputDocument> documents = new ArrayList<SolrInputDocument>(products.size());
+            for (Product product : products) {
+                documents.add(buildDocument(product, fields, locales));
+            }
+            finalizeTransaction(status, false);
+            return documents;
+        } catch (RuntimeException e) {
+            finalizeTransaction(status, true);
+            throw e;
+        }
+    }
+
+    /**
+     * Reads and indexes the next page of products from the given cursor using projections rather than entities. 
+     * The documents are committed to the reindex core after the page has been added.
+     * 
+     * @return false if there were no more products to index
+     * @throws ServiceException
+     */
+    protected boolean buildIncrementalIndex(ProductIdCursor cursor, List<Field> fields, List<Locale> locales) 
+            throws ServiceException {
+        StopWatch s = new StopWatch();
+        Collection<SolrInputDocument> documents = buildProjectedPageDocuments(cursor, fields, locales);
+        if (documents == null) {
+            return false;
+        }
+        try {
+            if (!CollectionUtils.isEmpty(documents)) {
+                SolrContext.getReindexServer().add(documents);
+                SolrContext.getReindexServer().commit();
+            }
+        } catch (SolrServerException e) {
+            throw new ServiceException("Could not rebuild index", e);
+        } catch (IOException e) {
+            throw new ServiceException("Could not rebuild index", e);
+        }
+        if (LOG.isDebugEnabled()) {
+            LOG.debug(String.format("Built index - [%s] products after id [%s] in [%s]", documents.size(), 
+                    cursor.getLastProductId(), s.toLapString()));
+        }
+        return true;
+    }
+
+    /**
+     * Claims the next page of product ids from the cursor and builds their documents from projections, all in one 
+     * read-only transaction.
+     * 
+     * @return the documents, or null if the cursor is exhausted
+     */
+    protected Collection<SolrInputDocument> buildProjectedPageDocuments(ProductIdCursor cursor, List<Field> fields,
+            List<Locale> locales) {
+        TransactionStatus status = transactionManager.getTransaction(getReadOnlyTransactionDefinition("buildProjectedPageDocuments"));
+        try {
+            List<Long> productIds = cursor.next();
+            if (productIds.isEmpty()) {
+                finalizeTransaction(status, false);
+                return null;
+            }
+
+            List<ProductIndexProjection> projections = readProductProjections(productIds, fields);
+            List<Product> products = new ArrayList<Product>(projections.size());
+            for (ProductIndexProjection projection : projections) {
+                products.add(projection.getProduct());
+            }
+            prefetchPrices(products);
+            Collection<SolrInputDocument> documents = new ArrayList<SolrInputDocument>(projections.size());
+            for (ProductIndexProjection projection : projections) {
+                documents.add(buildDocument(projection, fields, locales));
+            }
+            finalizeTransaction(status, false);
+            return documents;
+        } catch (RuntimeException e) {
+            finalizeTransaction(status, true);
+            throw e;
+        }
+    }
+
+    /**
+     * Reads the projected values of the indexed fields, the parent category ids and the parent categories for the
+     * given products with one query per kind of data for the whole page, instead of hydrating each Product graph.
+     * 
+     * @param productIds
+     * @param fields
+     * @return the projections, in the same order as the given ids
+     */
+    protected List<ProductIndexProjection> readProductProjections(List<Long> productIds, List<Field> fields) {
+        Set<String> propertyNames = new HashSet<String>();
+        for (Field field : fields) {
+            if (!field.getTranslatable() && solrIndexDao.isProjectable(field.getPropertyName())) {
+                propertyNames.add(field.getPropertyName());
+            }
+        }
+
+        Map<Long, Map<String, Object>> values = propertyNames.isEmpty() ? new HashMap<Long, Map<String, Object>>()
+                : solrIndexDao.readProductPropertyValues(productIds, propertyNames);
+        Map<Long, List<Long>> parentCategoryIds = solrIndexDao.readParentCategoryIds(productIds);
+        Set<Long> allCategoryIds = new HashSet<Long>();
+        for (List<Long> categoryIds : parentCategoryIds.values()) {
+            allCategoryIds.addAll(categoryIds);
+        }
+        Map<Long, Category> categories = allCategoryIds.isEmpty() ? new HashMap<Long, Category>() 
+                : solrIndexDao.readCategories(allCategoryIds);
+
+        List<ProductIndexProjection> projections = new ArrayList<ProductIndexProjection>(productIds.size());
+        for (Long productId : productIds) {
+            List<Category> parentCategories = new ArrayList<Category>();
+            List<Long> categoryIds = parentCategoryIds.get(productId);
+            if (categoryIds != null) {
+                for (Long categoryId : categoryIds) {
+                    Category category = categories.get(categoryId);
+                    if (category != null) {
+                        parentCategories.add(category);
+                    }
+                }
+            }
+
+            Map<String, Object> productValues = values.get(productId);
+            if (productValues == null) {
+                productValues = new HashMap<String, Object>();
+            }
+
+            projections.add(new ProductIndexProjection(productId, solrIndexDao.readProductReference(productId),
+                    productValues, parentCategories));
+        }
+        return projections;
+    }
+
+    /**
+     * Reads the category tree and the product order of every category in one read-only transaction, so that document 
+     * building does not have to walk the category entities for every product.
+     * 
+     * @return the snapshot
+     */
+    protected CategoryIndexSnapshot readCategoryIndexSnapshot() {
+        StopWatch s = new StopWatch();
+        TransactionStatus status = transactionManager.getTransaction(getReadOnlyTransactionDefinition("readCategoryIndexSnapshot"));
+        try {
+            CategoryIndexSnapshot snapshot = new CategoryIndexSnapshot(solrIndexDao.readAllCategoryParentIds(),
+                    solrIndexDao.readAllCategoryProductIds());
+            finalizeTransaction(status, false);
+            if (LOG.isDebugEnabled()) {
+                LOG.debug(String.format("Read the index snapshot of [%s] categories in [%s]", snapshot.getCategoryCount(), 
+                        s.toLapString()));
+            }
+            return snapshot;
+        } catch (RuntimeException e) {
+            finalizeTransaction(status, true);
+            throw e;
+        }
+    }
+
+    protected DefaultTransactionDefinition getReadOnlyTransactionDefinition(String name) {
+        DefaultTransactionDefinition def = new DefaultTransactionDefinition();
+        def.setName(name);
+        def.setReadOnly(true);
+        def.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRED);
+        return def;
+    }
+
+    @Override
+    public SolrIndexProgress getIndexProgress() {
+        return progress;
+    }
+
+    @ManagedAttribute(description="The progress of the running or last pipelined index rebuild", currencyTimeLimit=15)
+    public String getIndexProgressSummary() {
+        SolrIndexProgress current = progress;
+        return current == null ? "No pipelined index rebuild has been run" : current.toString();
+    }
+
+    @ManagedAttribute(description="The number of documents written per second by the running or last pipelined index rebuild", currencyTimeLimit=15)
+    public double getIndexThroughput() {
+        SolrIndexProgress current = progress;
+        return current == null ? 0 : current.getThroughput();
+    }
+
     protected void finalizeTransaction(TransactionStatus status, boolean isError) {
         boolean isActive = false;
         try {
@@ -251,6 +744,16 @@ public class SolrIndexServiceImpl implements SolrIndexService {
         return productDao.readAllActiveProducts(page, pageSize, SystemTime.asDate());
     }
 
+    /**
+     * Prices the products of a page with a single call to the dynamic pricing service, if one is active, so that
+     * price fields do not price each product separately while the documents are built
+     * 
+     * @param products
+     */
+    protected void prefetchPrices(List<Product> products) {
+        skuPriceCache.prefetchProductPrices(products);
+    }
+
     /**
      * @return a list of all possible locale prefixes to consider
      */
@@ -271,7 +774,35 @@ public class SolrIndexServiceImpl implements SolrIndexService {
         SolrInputDocument document = new SolrInputDocument();
 
         attachBasicDocumentFields(product, document);
+        attachIndexedFields(document, product, null, fields, locales);
+
+        return document;
+    }
+
+    /**
+     * Builds the SolrInputDocument for a product read by {@link #readProductProjections(List, List)}. Values are taken
+     * from the projection where possible; the product is only loaded for the fields that could not be projected.
+     * 
+     * @param projection
+     * @param fields
+     * @param locales
+     * @return the document
+     */
+    protected SolrInputDocument buildDocument(ProductIndexProjection projection, List<Field> fields, List<Locale> locales) {
+        SolrInputDocument document = new SolrInputDocument();
+
+        attachBasicDocumentFields(projection, document);
+        attachIndexedFields(document, projection.getProduct(), projection, fields, locales);
 
+        return document;
+    }
+
+    /**
+     * Adds the searchable and facet fields to the document. If a projection is given, its values take precedence over
+     * reading the property from the product.
+     */
+    protected void attachIndexedFields(SolrInputDocument document, Product product, ProductIndexProjection projection,
+            List<Field> fields, List<Locale> locales) {
         // Keep track of searchable fields added to the index.   We need to also add the search facets if 
         // they weren't already added as a searchable field.
         List<String> addedProperties = new ArrayList<String>();
@@ -282,7 +813,7 @@ public class SolrIndexServiceImpl implements SolrIndexService {
                 if (field.getSearchable()) {
                     List<FieldType> searchableFieldTypes = shs.getSearchableFieldTypes(field);
                     for (FieldType sft : searchableFieldTypes) {
-                        Map<String, Object> propertyValues = getPropertyValues(product, field, sft, locales);
+                        Map<String, Object> propertyValues = getPropertyValues(product, projection, field, sft, locales);
 
                         // Build out the field for every prefix
                         for (Entry<String, Object> entry : propertyValues.entrySet()) {
@@ -301,7 +832,7 @@ public class SolrIndexServiceImpl implements SolrIndexService {
                 // Index the faceted field type as well
                 FieldType facetType = field.getFacetFieldType();
                 if (facetType != null) {
-                    Map<String, Object> propertyValues = getPropertyValues(product, field, facetType, locales);
+                    Map<String, Object> propertyValues = getPropertyValues(product, projection, field, facetType, locales);
 
                     // Build out the field for every prefix
                     for (Entry<String, Object> entry : propertyValues.entrySet()) {
@@ -318,11 +849,9 @@ public class SolrIndexServiceImpl implements SolrIndexService {
                 }
             } catch (Exception e) {
                 LOG.trace("Could not get value for property[" + field.getQualifiedFieldName() + "] for product id["
-                        + product.getId() + "]", e);
+                        + (projection == null ? product.getId() : projection.getProductId()) + "]", e);
             }
         }
-
-        return document;
     }
 
     /**
@@ -338,30 +867,77 @@ public class SolrIndexServiceImpl implements SolrIndexService {
         document.addField(shs.getProductIdFieldName(), product.getId());
         extensionManager.getProxy().attachAdditionalBasicFields(product, document, shs);
 
-        // The explicit categories are the ones defined by the product itself
+        List<Category> parentCategories = new ArrayList<Category>();
         for (CategoryProductXref categoryXref : product.getAllParentCategoryXrefs()) {
-            document.addField(shs.getExplicitCategoryFieldName(), categoryXref.getCategory().getId());
-
-            String categorySortFieldName = shs.getCategorySortFieldName(categoryXref.getCategory());
-            int index = -1;
-            int count = 0;
-            for (CategoryProductXref productXref : categoryXref.getCategory().getAllProductXrefs()) {
-                if (productXref.getProduct().equals(product)) {
-                    index = count;
-                    break;
+            parentCategories.add(categoryXref.getCategory());
+        }
+        attachCategoryFields(product.getId(), parentCategories, document);
+    }
+
+    /**
+     * Adds the ID, category, and explicitCategory fields for the projected product to the document
+     * 
+     * @param projection
+     * @param document
+     */
+    protected void attachBasicDocumentFields(ProductIndexProjection projection, SolrInputDocument document) {
+        document.addField(shs.getNamespaceFieldName(), shs.getCurrentNamespace());
+        document.addField(shs.getIdFieldName(), shs.getSolrDocumentId(document, projection.getProductId()));
+        document.addField(shs.getProductIdFieldName(), projection.getProductId());
+        extensionManager.getProxy().attachAdditionalBasicFields(projection.getProduct(), document, shs);
+
+        attachCategoryFields(projection.getProductId(), projection.getParentCategories(), document);
+    }
+
+    /**
+     * Adds the explicit category, category sort and full category hierarchy fields for the product with the given id.
+     * During a rebuild, the sort positions and ancestors are read from the {@link CategoryIndexSnapshot} taken when 
+     * the rebuild started; otherwise they are read from the category entities.
+     * 
+     * @param productId
+     * @param parentCategories the categories the product is explicitly assigned to
+     * @param document
+     */
+    protected void attachCategoryFields(Long productId, List<Category> parentCategories, SolrInputDocument document) {
+        CategoryIndexSnapshot snapshot = categorySnapshot;
+
+        // The explicit categories are the ones defined by the product itself
+        for (Category parentCategory : parentCategories) {
+            document.addField(shs.getExplicitCategoryFieldName(), parentCategory.getId());
+
+            String categorySortFieldName = shs.getCategorySortFieldName(parentCategory);
+            int index;
+            if (snapshot != null) {
+                index = snapshot.getProductPosition(parentCategory.getId(), productId);
+            } else {
+                index = -1;
+                int count = 0;
+                for (CategoryProductXref productXref : parentCategory.getAllProductXrefs()) {
+                    if (productXref.getProduct().getId().equals(productId)) {
+                        index = count;
+                        break;
+                    }
+                    count++;
                 }
-                count++;
             }
             document.addField(categorySortFieldName, index);
         }
 
         // This is the entire tree of every category defined on the product
-        Set<Category> fullCategoryHierarchy = new HashSet<Category>();
-        for (CategoryProductXref categoryXref : product.getAllParentCategoryXrefs()) {
-            fullCategoryHierarchy.addAll(categoryXref.getCategory().buildFullCategoryHierarchy(null));
+        Set<Long> fullCategoryHierarchy = new LinkedHashSet<Long>();
+        for (Category parentCategory : parentCategories) {
+            if (snapshot != null) {
+                for (long categoryId : snapshot.getAncestorIds(parentCategory.getId())) {
+                    fullCategoryHierarchy.add(categoryId);
+                }
+            } else {
+                for (Category category : parentCategory.buildFullCategoryHierarchy(null)) {
+                    fullCategoryHierarchy.add(category.getId());
+                }
+            }
         }
-        for (Category category : fullCategoryHierarchy) {
-            document.addField(shs.getCategoryFieldName(), category.getId());
+        for (Long categoryId : fullCategoryHierarchy) {
+            document.addField(shs.getCategoryFieldName(), categoryId);
         }
     }
 
@@ -391,11 +967,44 @@ public class SolrIndexServiceImpl implements SolrIndexService {
             ExtensionResultStatusType result = extensionManager.getProxy().addPropertyValues(product, field, fieldType, values, propertyName, locales);
 
             if (ExtensionResultStatusType.NOT_HANDLED.equals(result)) {
-                final Object propertyValue;
-                if (propertyName.contains(ATTR_MAP)) {
-                    propertyValue = PropertyUtils.getMappedProperty(product, ATTR_MAP, propertyName.substring(ATTR_MAP.length() + 1));
-                } else {
-                    propertyValue = PropertyUtils.getProperty(product, propertyName);
+                values.put("", readPropertyValue(product, propertyName));
+            }
+        }
+
+        return values;
+    }
+
+    /**
+     * Returns the values for the requested field, preferring the value from the projection when there is one. Fields
+     * handled by an extension handler, and values that were not projected, are read from the product as in
+     * {@link #getPropertyValues(Product, Field, FieldType, List)}.
+     * 
+     * @param product
+     * @param projection the projection for the product, or null if the product was loaded as an entity
+     * @param field
+     * @param fieldType
+     * @param locales
+     * @return a map of prefix to value
+     */
+    protected Map<String, Object> getPropertyValues(Product product, ProductIndexProjection projection, Field field,
+            FieldType fieldType, List<Locale> locales)
+            throws IllegalAccessException, InvocationTargetException, NoSuchMethodException {
+        if (projection == null) {
+            return getPropertyValues(product, field, fieldType, locales);
+        }
+
+        String propertyName = field.getPropertyName();
+        Map<String, Object> values = new HashMap<String, Object>();
+
+        if (extensionManager != null) {
+            ExtensionResultStatusType result = extensionManager.getProxy().addPropertyValues(product, field, fieldType, values, propertyName, locales);
+
+            if (ExtensionResultStatusType.NOT_HANDLED.equals(result)) {
+                Object propertyValue = projection.getValues().get(propertyName);
+                // A null column may still have a value through its getter (e.g. a Sku inheriting from its default Sku),
+                // but a product attribute that was not found simply does not exist
+                if (propertyValue == null && !propertyName.startsWith(ATTR_MAP + ".")) {
+                    propertyValue = readPropertyValue(product, propertyName);
                 }
                 values.put("", propertyValue);
             }
@@ -404,6 +1013,57 @@ public class SolrIndexServiceImpl implements SolrIndexService {
         return values;
     }
 
+    protected Object readPropertyValue(Product product, String propertyName) 
+            throws IllegalAccessException, InvocationTargetException, NoSuchMethodException {
+        if (propertyName.contains(ATTR_MAP)) {
+            return PropertyUtils.getMappedProperty(product, ATTR_MAP, propertyName.substring(ATTR_MAP.length() + 1));
+        }
+        return PropertyUtils.getProperty(product, propertyName);
+    }
+
+    /**
+     * Hands out consecutive pages of active product ids by seeking past the last id handed out, so that the page 
+     * readers never have to skip over an offset. Safe to share between the pipeline's readers; each call is made 
+     * within the caller's transaction.
+     */
+    protected class ProductIdCursor {
+
+        protected Long lastProductId = null;
+        protected final Date currentDate = SystemTime.asDate();
+
+        public synchronized List<Long> next() {
+            List<Long> productIds = productDao.readAllActiveProductIds(lastProductId, pageSize, currentDate);
+            if (!productIds.isEmpty()) {
+                lastProductId = productIds.get(productIds.size() - 1);
+            }
+            return productIds;
+        }
+
+        public synchronized Long getLastProductId() {
+            return lastProductId;
+        }
+    }
+
+    /**
+     * Names the pipeline threads so that they can be told apart in thread dumps
+     */
+    protected static class IndexThreadFactory implements ThreadFactory {
+
+        protected final String prefix;
+        protected final AtomicInteger count = new AtomicInteger();
+
+        public IndexThreadFactory(String prefix) {
+            this.prefix = prefix;
+        }
+
+        @Override
+        public Thread newThread(Runnable runnable) {
+            Thread thread = new Thread(runnable, prefix + "-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+
     /**
      * Converts a propertyName to one that is able to reference inside a map. For example, consider the property
      * in Product that references a List<ProductAttribute>, "productAttributes". Also consider the utility method
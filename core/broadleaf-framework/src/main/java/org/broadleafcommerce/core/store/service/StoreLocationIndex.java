@@ -0,0 +1,237 @@
+/*
+ * Copyright 2008-2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.broadleafcommerce.core.store.service;
+
+import org.broadleafcommerce.core.store.domain.Store;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+/**
+ * An immutable k-d tree of store locations. Every store with coordinates is placed on the unit sphere as an (x, y, z)
+ * point, where the straight line distance between two points grows with their great circle distance. This allows
+ * radius and nearest neighbor searches to prune the tree without any special handling of the poles or the 
+ * 180th meridian.
+ */
+public class StoreLocationIndex {
+
+    public static final double EARTH_RADIUS_MILES = 3959;
+
+    protected final Store[] stores;
+    protected final double[][] points;
+    protected final Integer[] tree;
+    protected final long buildTime = System.currentTimeMillis();
+
+    public StoreLocationIndex(List<Store> allStores) {
+        List<Store> located = new ArrayList<Store>(allStores.size());
+        for (Store store : allStores) {
+            if (store.getLatitude() != null && store.getLongitude() != null) {
+                located.add(store);
+            }
+        }
+        stores = located.toArray(new Store[located.size()]);
+        points = new double[stores.length][];
+        tree = new Integer[stores.length];
+        for (int i = 0; i < stores.length; i++) {
+            points[i] = toPoint(stores[i].getLatitude(), stores[i].getLongitude());
+            tree[i] = i;
+        }
+        build(0, tree.length, 0);
+    }
+
+    /**
+     * Orders the range of the tree so that its middle element splits the rest on the axis of this depth
+     */
+    protected void build(int lo, int hi, int depth) {
+        if (hi - lo <= 1) {
+            return;
+        }
+        final int axis = depth % 3;
+        Arrays.sort(tree, lo, hi, new Comparator<Integer>() {
+            @Override
+            public int compare(Integer o1, Integer o2) {
+                return Double.compare(points[o1][axis], points[o2][axis]);
+            }
+        });
+        int mid = (lo + hi) >>> 1;
+        build(lo, mid, depth + 1);
+        build(mid + 1, hi, depth + 1);
+    }
+
+    /**
+     * @param latitude
+     * @param longitude
+     * @param distance the maximum distance in miles
+     * @return the stores within the distance, nearest first, with their distance in miles
+     */
+    public Map<Store, Double> findWithinDistance(double latitude, double longitude, double distance) {
+        double[] point = toPoint(latitude, longitude);
+        double limit = toChord(distance);
+        List<Integer> matches = new ArrayList<Integer>();
+        searchRadius(0, tree.length, 0, point, limit, matches);
+        return toResult(point, matches);
+    }
+
+    /**
+     * @param latitude
+     * @param longitude
+     * @param distance the maximum distance in miles
+     * @param limit the maximum number of stores to return
+     * @return up to limit stores within the distance, nearest first, with their distance in miles
+     */
+    public Map<Store, Double> findNearest(double latitude, double longitude, double distance, int limit) {
+        double[] point = toPoint(latitude, longitude);
+        double chordLimit = toChord(distance);
+        PriorityQueue<Neighbor> nearest = new PriorityQueue<Neighbor>(Math.max(1, limit), Collections.reverseOrder());
+        if (limit > 0) {
+            searchNearest(0, tree.length, 0, point, chordLimit, limit, nearest);
+        }
+        List<Integer> matches = new ArrayList<Integer>(nearest.size());
+        for (Neighbor neighbor : nearest) {
+            matches.add(neighbor.index);
+        }
+        return toResult(point, matches);
+    }
+
+    protected void searchRadius(int lo, int hi, int depth, double[] point, double limit, List<Integer> matches) {
+        if (lo >= hi) {
+            return;
+        }
+        int mid = (lo + hi) >>> 1;
+        int index = tree[mid];
+        if (chordDistance(points[index], point) <= limit) {
+            matches.add(index);
+        }
+        double diff = point[depth % 3] - points[index][depth % 3];
+        if (diff <= limit) {
+            searchRadius(lo, mid, depth + 1, point, limit, matches);
+        }
+        if (diff >= -limit) {
+            searchRadius(mid + 1, hi, depth + 1, point, limit, matches);
+        }
+    }
+
+    protected void searchNearest(int lo, int hi, int depth, double[] point, double limit, int k, PriorityQueue<Neighbor> nearest) {
+        if (lo >= hi) {
+            return;
+        }
+        int mid = (lo + hi) >>> 1;
+        int index = tree[mid];
+        double distance = chordDistance(points[index], point);
+        if (distance <= limit) {
+            if (nearest.size() < k) {
+                nearest.add(new Neighbor(index, distance));
+            } else if (distance < nearest.peek().distance) {
+                nearest.poll();
+                nearest.add(new Neighbor(index, distance));
+            }
+        }
+        double diff = point[depth % 3] - points[index][depth % 3];
+        boolean leftFirst = diff <= 0;
+        if (leftFirst) {
+            searchNearest(lo, mid, depth + 1, point, limit, k, nearest);
+        } else {
+            searchNearest(mid + 1, hi, depth + 1, point, limit, k, nearest);
+        }
+        double bound = nearest.size() < k ? limit : Math.min(limit, nearest.peek().distance);
+        if (Math.abs(diff) <= bound) {
+            if (leftFirst) {
+                searchNearest(mid + 1, hi, depth + 1, point, limit, k, nearest);
+            } else {
+                searchNearest(lo, mid, depth + 1, point, limit, k, nearest);
+            }
+        }
+    }
+
+    protected Map<Store, Double> toResult(double[] point, List<Integer> matches) {
+        final double[] distances = new double[stores.length];
+        for (Integer index : matches) {
+            distances[index] = toMiles(chordDistance(points[index], point));
+        }
+        Collections.sort(matches, new Comparator<Integer>() {
+            @Override
+            public int compare(Integer o1, Integer o2) {
+                return Double.compare(distances[o1], distances[o2]);
+            }
+        });
+        Map<Store, Double> result = new LinkedHashMap<Store, Double>();
+        for (Integer index : matches) {
+            result.put(stores[index], distances[index]);
+        }
+        return result;
+    }
+
+    protected double[] toPoint(double latitude, double longitude) {
+        double lat = Math.toRadians(latitude);
+        double lon = Math.toRadians(longitude);
+        return new double[] { Math.cos(lat) * Math.cos(lon), Math.cos(lat) * Math.sin(lon), Math.sin(lat) };
+    }
+
+    protected double chordDistance(double[] a, double[] b) {
+        double dx = a[0] - b[0];
+        double dy = a[1] - b[1];
+        double dz = a[2] - b[2];
+        return Math.sqrt(dx * dx + dy * dy + dz * dz);
+    }
+
+    /**
+     * @return the straight line distance on the unit sphere corresponding to a great circle distance in miles
+     */
+    protected double toChord(double miles) {
+        double angle = miles / EARTH_RADIUS_MILES;
+        if (angle >= Math.PI) {
+            return 2;
+        }
+        return 2 * Math.sin(angle / 2);
+    }
+
+    protected double toMiles(double chord) {
+        return EARTH_RADIUS_MILES * 2 * Math.asin(Math.min(1, chord / 2));
+    }
+
+    public int getStoreCount() {
+        return stores.length;
+    }
+
+    public long getBuildTime() {
+        return buildTime;
+    }
+
+    protected static class Neighbor implements Comparable<Neighbor> {
+
+        protected final int index;
+        protected final double distance;
+
+        public Neighbor(int index, double distance) {
+            this.index = index;
+            this.distance = distance;
+        }
+
+        @Override
+        public int compareTo(Neighbor o) {
+            return Double.compare(distance, o.distance);
+        }
+
+    }
+
+}
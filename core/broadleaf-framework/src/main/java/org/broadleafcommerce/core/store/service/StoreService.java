@@ -26,8 +26,28 @@ public interface StoreService {
 
     public Store readStoreByStoreCode(String storeCode);
 
+    /**
+     * @param searchAddress
+     * @param distance the maximum distance in miles from the postal code of the address
+     * @return the stores within the distance, nearest first, with their distance in miles
+     */
     public Map<Store,Double> findStoresByAddress(Address searchAddress, double distance);
 
+    /**
+     * @param searchAddress
+     * @param distance the maximum distance in miles from the postal code of the address
+     * @param limit the maximum number of stores to return
+     * @return the nearest stores within the distance, nearest first, with their distance in miles
+     */
+    public Map<Store,Double> findNearestStoresByAddress(Address searchAddress, double distance, int limit);
+
+    /**
+     * Rebuilds the in-memory index of store locations used by {@link #findStoresByAddress(Address, double)} and 
+     * {@link #findNearestStoresByAddress(Address, double, int)}. The index is also rebuilt periodically, as configured
+     * by the store.location.index.refresh.interval property.
+     */
+    public void refreshStoreIndex();
+
     public List<Store> readAllStores();
 
 }
\ No newline at end of file
@@ -20,12 +20,14 @@ import org.broadleafcommerce.core.store.dao.StoreDao;
 import org.broadleafcommerce.core.store.domain.Store;
 import org.broadleafcommerce.core.store.domain.ZipCode;
 import org.broadleafcommerce.profile.core.domain.Address;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 import javax.annotation.Resource;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.locks.ReentrantLock;
 
 @Service("blStoreService")
 public class StoreServiceImpl implements StoreService {
@@ -36,6 +38,15 @@ public class StoreServiceImpl implements StoreService {
     @Resource(name = "blZipCodeService")
     private ZipCodeService zipCodeService;
 
+    /**
+     * The number of milliseconds after which the store location index is rebuilt from the database
+     */
+    @Value("${store.location.index.refresh.interval}")
+    protected long storeIndexRefreshInterval = 300000;
+
+    protected volatile StoreLocationIndex storeIndex;
+    protected final ReentrantLock storeIndexLock = new ReentrantLock();
+
     public Store readStoreByStoreCode(String storeCode) {
         return storeDao.readStoreByStoreCode(storeCode);
     }
@@ -45,26 +56,60 @@ public class StoreServiceImpl implements StoreService {
     }
 
     public Map<Store, Double> findStoresByAddress(Address searchAddress, double distance) {
-        Map<Store, Double> matchingStores = new HashMap<Store, Double>();
-        for (Store store : readAllStores()) {
-            Double storeDistance = findStoreDistance(store, Integer.parseInt(searchAddress.getPostalCode()));
-            if (storeDistance != null && storeDistance <= distance) {
-                matchingStores.put(store, storeDistance);
-            }
+        ZipCode zipCode = findZipCode(searchAddress);
+        if (zipCode == null) {
+            return new HashMap<Store, Double>();
         }
-
-        return matchingStores;
+        return getStoreIndex().findWithinDistance(zipCode.getZipLatitude(), zipCode.getZipLongitude(), distance);
     }
 
-    private Double findStoreDistance(Store store, Integer zip) {
-        ZipCode zipCode = zipCodeService.findZipCodeByZipCode(zip);
+    public Map<Store, Double> findNearestStoresByAddress(Address searchAddress, double distance, int limit) {
+        ZipCode zipCode = findZipCode(searchAddress);
         if (zipCode == null) {
-            return null;
+            return new HashMap<Store, Double>();
+        }
+        return getStoreIndex().findNearest(zipCode.getZipLatitude(), zipCode.getZipLongitude(), distance, limit);
+    }
+
+    public void refreshStoreIndex() {
+        storeIndexLock.lock();
+        try {
+            storeIndex = new StoreLocationIndex(readAllStores());
+        } finally {
+            storeIndexLock.unlock();
+        }
+    }
+
+    protected ZipCode findZipCode(Address searchAddress) {
+        return zipCodeService.findZipCodeByZipCode(Integer.parseInt(searchAddress.getPostalCode()));
+    }
+
+    /**
+     * @return the store location index. The first caller builds it; once it is older than the refresh interval, one
+     * caller rebuilds it while the others keep using the previous index.
+     */
+    protected StoreLocationIndex getStoreIndex() {
+        StoreLocationIndex index = storeIndex;
+        if (index == null) {
+            storeIndexLock.lock();
+            try {
+                if (storeIndex == null) {
+                    storeIndex = new StoreLocationIndex(readAllStores());
+                }
+                return storeIndex;
+            } finally {
+                storeIndexLock.unlock();
+            }
+        }
+        if (System.currentTimeMillis() - index.getBuildTime() > storeIndexRefreshInterval && storeIndexLock.tryLock()) {
+            try {
+                if (storeIndex == index) {
+                    storeIndex = new StoreLocationIndex(readAllStores());
+                }
+            } finally {
+                storeIndexLock.unlock();
+            }
         }
-        // A constant used to convert from degrees to radians.
-        double degreesToRadians = 57.3;
-        double storeDistance = 3959 * Math.acos((Math.sin(zipCode.getZipLatitude() / degreesToRadians) * Math.sin(store.getLatitude() / degreesToRadians))
-                + (Math.cos(zipCode.getZipLatitude() / degreesToRadians) * Math.cos(store.getLatitude() / degreesToRadians) * Math.cos((store.getLongitude() / degreesToRadians) - (zipCode.getZipLongitude() / degreesToRadians))));
-        return storeDistance;
+        return storeIndex;
     }
 }
@@ -20,8 +20,9 @@ import org.broadleafcommerce.core.workflow.state.RollbackHandler;
 import org.springframework.core.Ordered;
 
 import java.util.Map;
+import java.util.Set;
 
-public abstract class BaseActivity<T extends ProcessContext> implements Activity<T> {
+public abstract class BaseActivity<T extends ProcessContext> implements Activity<T>, ContextAccessAware {
     
     protected ErrorHandler errorHandler;
     protected String beanName;
@@ -31,6 +32,8 @@ public abstract class BaseActivity<T extends ProcessContext> implements Activity
     protected Map<String, Object> stateConfiguration;
     protected boolean automaticallyRegisterRollbackHandler = false;
     protected int order = Ordered.LOWEST_PRECEDENCE;
+    protected Set<String> contextReads;
+    protected Set<String> contextWrites;
     
     @Override
     public boolean shouldExecute(T context) {
@@ -106,4 +109,22 @@ public abstract class BaseActivity<T extends ProcessContext> implements Activity
         this.order = order;
     }
 
+    @Override
+    public Set<String> getContextReads() {
+        return contextReads;
+    }
+
+    public void setContextReads(Set<String> contextReads) {
+        this.contextReads = contextReads;
+    }
+
+    @Override
+    public Set<String> getContextWrites() {
+        return contextWrites;
+    }
+
+    public void setContextWrites(Set<String> contextWrites) {
+        this.contextWrites = contextWrites;
+    }
+
 }
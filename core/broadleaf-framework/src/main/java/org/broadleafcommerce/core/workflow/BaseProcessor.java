@@ -18,6 +18,8 @@ package org.broadleafcommerce.core.workflow;
 
 import org.apache.commons.collections.CollectionUtils;
 import org.apache.commons.collections.Transformer;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
 import org.broadleafcommerce.common.logging.LifeCycleEvent;
 import org.broadleafcommerce.common.logging.SupportLogManager;
 import org.broadleafcommerce.common.logging.SupportLogger;
@@ -38,6 +40,9 @@ import java.util.Arrays;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import javax.annotation.Resource;
 
 /**
  * Base class for all Workflow Processors.  Responsible of keeping track of an ordered collection
@@ -49,6 +54,8 @@ import java.util.List;
  */
 public abstract class BaseProcessor implements InitializingBean, BeanNameAware, BeanFactoryAware, Processor {
 
+    private static final Log LOG = LogFactory.getLog(BaseProcessor.class);
+
     protected BeanFactory beanFactory;
     protected String beanName;
     protected List<Activity<ProcessContext>> activities = new ArrayList<Activity<ProcessContext>>();
@@ -56,6 +63,9 @@ public abstract class BaseProcessor implements InitializingBean, BeanNameAware,
     
     protected ErrorHandler defaultErrorHandler;
 
+    @Resource(name = "blWorkflowMonitor")
+    protected WorkflowMonitor workflowMonitor;
+
     @Value("${workflow.auto.rollback.on.error}")
     private boolean autoRollbackOnError = true;
     
@@ -182,6 +192,47 @@ public abstract class BaseProcessor implements InitializingBean, BeanNameAware,
         
     }
 
+    /**
+     * @return whether executions of this workflow and its activities should be reported to the {@link WorkflowMonitor}
+     */
+    protected boolean isMonitored() {
+        return workflowMonitor != null && workflowMonitor.isEnabled();
+    }
+
+    /**
+     * Reports an activity execution to the {@link WorkflowMonitor} and logs it if it took longer than the configured
+     * slow activity threshold
+     * 
+     * @param activity
+     * @param seedData the seed data the workflow was started with, used to identify the execution in the log
+     * @param nanos the time spent in {@link Activity#execute(ProcessContext)}
+     * @param error whether the activity threw an exception
+     */
+    protected void recordActivity(Activity<? extends ProcessContext> activity, Object seedData, long nanos, boolean error) {
+        String activityName = getActivityName(activity);
+        workflowMonitor.recordActivity(getBeanName(), activityName, nanos, error);
+        long threshold = workflowMonitor.getSlowActivityThreshold();
+        long millis = TimeUnit.NANOSECONDS.toMillis(nanos);
+        if (threshold > 0 && millis >= threshold && LOG.isWarnEnabled()) {
+            LOG.warn("Slow activity [" + activityName + "] in workflow [" + getBeanName() + "] took [" + millis +
+                    "ms] for " + getSeedIdentifier(seedData));
+        }
+    }
+
+    protected String getActivityName(Activity<? extends ProcessContext> activity) {
+        return activity.getBeanName() == null ? activity.getClass().getSimpleName() : activity.getBeanName();
+    }
+
+    /**
+     * Override to identify seed data that does not implement {@link IdentifiableSeed}
+     * 
+     * @param seedData
+     * @return what the workflow was started for, or null if the seed data does not say
+     */
+    protected String getSeedIdentifier(Object seedData) {
+        return seedData instanceof IdentifiableSeed ? ((IdentifiableSeed) seedData).getSeedIdentifier() : null;
+    }
+
     /**
      * Returns the bean description if the current bean factory allows it.
      * @return spring bean description configure via the spring description tag
@@ -234,4 +285,12 @@ public abstract class BaseProcessor implements InitializingBean, BeanNameAware,
     public BeanFactory getBeanFactory() {
         return beanFactory;
     }
+
+    public WorkflowMonitor getWorkflowMonitor() {
+        return workflowMonitor;
+    }
+
+    public void setWorkflowMonitor(WorkflowMonitor workflowMonitor) {
+        this.workflowMonitor = workflowMonitor;
+    }
 }
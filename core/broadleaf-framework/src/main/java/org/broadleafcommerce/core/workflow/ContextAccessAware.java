@@ -0,0 +1,42 @@
+/*
+ * Copyright 2008-2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.broadleafcommerce.core.workflow;
+
+import java.util.Set;
+
+/**
+ * Declares which parts of the {@link ProcessContext} an activity reads and writes, which allows the
+ * {@link ParallelSequenceProcessor} to run activities that do not touch the same parts at the same time. Parts are
+ * named by dotted paths such as "order", "order.fulfillmentGroups" or "order.taxes". A path conflicts with itself
+ * and with every path nested beneath it.
+ * 
+ * An activity that returns null from both methods has not declared its access and is never run concurrently with
+ * any other activity.
+ */
+public interface ContextAccessAware {
+
+    /**
+     * @return the parts of the context read by the activity, including anything read by 
+     * {@link Activity#shouldExecute(ProcessContext)}
+     */
+    public Set<String> getContextReads();
+
+    /**
+     * @return the parts of the context modified by the activity
+     */
+    public Set<String> getContextWrites();
+
+}
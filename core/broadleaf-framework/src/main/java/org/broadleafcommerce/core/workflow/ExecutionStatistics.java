@@ -0,0 +1,155 @@
+/*
+ * Copyright 2008-2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.broadleafcommerce.core.workflow;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Thread-safe counters and a latency histogram for a single workflow or workflow activity. Latencies are counted
+ * in fixed millisecond buckets so that recording never allocates or locks, and percentiles are reported as the
+ * upper bound of the bucket they fall in.
+ */
+public class ExecutionStatistics {
+
+    /**
+     * Upper bounds, in milliseconds, of every bucket but the last, which holds everything slower
+     */
+    protected static final long[] BUCKET_BOUNDS = {1, 2, 5, 10, 25, 50, 100, 250, 500, 1000, 2500, 5000, 10000};
+
+    protected final String name;
+
+    protected final AtomicLong invocations = new AtomicLong();
+    protected final AtomicLong skips = new AtomicLong();
+    protected final AtomicLong errors = new AtomicLong();
+    protected final AtomicLong totalNanos = new AtomicLong();
+    protected final AtomicLong maxNanos = new AtomicLong();
+    protected final AtomicLongArray buckets = new AtomicLongArray(BUCKET_BOUNDS.length + 1);
+
+    public ExecutionStatistics(String name) {
+        this.name = name;
+    }
+
+    public void recordExecution(long nanos, boolean error) {
+        invocations.incrementAndGet();
+        if (error) {
+            errors.incrementAndGet();
+        }
+        totalNanos.addAndGet(nanos);
+        long max = maxNanos.get();
+        while (nanos > max && !maxNanos.compareAndSet(max, nanos)) {
+            max = maxNanos.get();
+        }
+        buckets.incrementAndGet(getBucket(TimeUnit.NANOSECONDS.toMillis(nanos)));
+    }
+
+    public void recordSkip() {
+        skips.incrementAndGet();
+    }
+
+    protected int getBucket(long millis) {
+        for (int i = 0; i < BUCKET_BOUNDS.length; i++) {
+            if (millis < BUCKET_BOUNDS[i]) {
+                return i;
+            }
+        }
+        return BUCKET_BOUNDS.length;
+    }
+
+    /**
+     * @param percentile between 0 and 100
+     * @return the upper bound, in milliseconds, of the bucket containing the given percentile of executions, or -1 if
+     * the percentile falls in the unbounded bucket
+     */
+    public long getPercentile(double percentile) {
+        long count = 0;
+        long[] snapshot = new long[buckets.length()];
+        for (int i = 0; i < snapshot.length; i++) {
+            snapshot[i] = buckets.get(i);
+            count += snapshot[i];
+        }
+        if (count == 0) {
+            return 0;
+        }
+        long threshold = (long) Math.ceil(count * percentile / 100D);
+        long seen = 0;
+        for (int i = 0; i < BUCKET_BOUNDS.length; i++) {
+            seen += snapshot[i];
+            if (seen >= threshold) {
+                return BUCKET_BOUNDS[i];
+            }
+        }
+        return -1;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public long getInvocations() {
+        return invocations.get();
+    }
+
+    public long getSkips() {
+        return skips.get();
+    }
+
+    public long getErrors() {
+        return errors.get();
+    }
+
+    public long getTotalTime() {
+        return TimeUnit.NANOSECONDS.toMillis(totalNanos.get());
+    }
+
+    public long getMaxTime() {
+        return TimeUnit.NANOSECONDS.toMillis(maxNanos.get());
+    }
+
+    public double getAverageTime() {
+        long count = invocations.get();
+        return count == 0 ? 0 : totalNanos.get() / 1000000D / count;
+    }
+
+    /**
+     * @return the number of executions in each latency bucket, labelled with the bucket's upper bound
+     */
+    public String getHistogram() {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < buckets.length(); i++) {
+            if (i > 0) {
+                sb.append(", ");
+            }
+            sb.append(i < BUCKET_BOUNDS.length ? "<" + BUCKET_BOUNDS[i] + "ms" : ">=" + BUCKET_BOUNDS[i - 1] + "ms");
+            sb.append('=').append(buckets.get(i));
+        }
+        return sb.toString();
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s: invocations [%s], skips [%s], errors [%s], total [%sms], avg [%.2fms], " +
+                "p50 [%s], p99 [%s], max [%sms], histogram [%s]",
+                name, getInvocations(), getSkips(), getErrors(), getTotalTime(), getAverageTime(),
+                formatPercentile(getPercentile(50)), formatPercentile(getPercentile(99)), getMaxTime(), getHistogram());
+    }
+
+    protected String formatPercentile(long bound) {
+        return bound < 0 ? ">=" + BUCKET_BOUNDS[BUCKET_BOUNDS.length - 1] + "ms" : "<" + bound + "ms";
+    }
+
+}
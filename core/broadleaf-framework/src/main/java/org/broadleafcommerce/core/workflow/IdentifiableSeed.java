@@ -0,0 +1,29 @@
+/*
+ * Copyright 2008-2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.broadleafcommerce.core.workflow;
+
+/**
+ * Implemented by seed data that can name what its workflow runs for, such as the order being priced or checked out.
+ * This lets a {@link BaseProcessor} identify the seed in its log messages without knowing the seed types.
+ */
+public interface IdentifiableSeed {
+
+    /**
+     * @return a short description such as "order id [123]", or null if there is nothing to identify yet
+     */
+    public String getSeedIdentifier();
+
+}
@@ -0,0 +1,366 @@
+/*
+ * Copyright 2008-2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.broadleafcommerce.core.workflow;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.broadleafcommerce.common.web.BroadleafRequestContext;
+import org.broadleafcommerce.core.workflow.state.RollbackStateLocal;
+import org.springframework.beans.factory.DisposableBean;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A {@link SequenceProcessor} that runs independent activities concurrently. Activities declare the parts of the
+ * {@link ProcessContext} they read and write through {@link ContextAccessAware} (the contextReads and contextWrites
+ * properties of {@link BaseActivity}). Two activities conflict when one writes a part the other reads or writes, and
+ * an activity that has not declared its access conflicts with every other activity. Each activity is scheduled in
+ * the first stage after all of the earlier, conflicting activities, so a workflow in which nothing is declared
+ * behaves exactly like a {@link SequenceProcessor}.
+ * 
+ * The activities of a stage run on a bounded executor, with the calling thread running the first of them. The
+ * {@link BroadleafRequestContext} and rollback state of the calling thread are made available to the other threads,
+ * but the persistence context is not, so an activity that uses the EntityManager should not declare its access.
+ * Once every activity of a stage has finished, the RollbackHandlers of all of the activities of the stage that
+ * succeeded are registered, in the configured activity order, so that a rollback also undoes the activities that ran
+ * alongside a failing one. The results are then handled in the configured activity order, as the 
+ * {@link SequenceProcessor} would: errors are passed to the error handler of the activity (or the default error
+ * handler, which aborts the workflow) and a stopped context ends the workflow. A failing activity can not prevent the
+ * other activities of its stage from running, but the workflow never proceeds to the next stage after an abort.
+ * 
+ * Activities running in the same stage share the context instance and must return it from 
+ * {@link Activity#execute(ProcessContext)}.
+ */
+public class ParallelSequenceProcessor extends SequenceProcessor implements DisposableBean {
+
+    private static final Log LOG = LogFactory.getLog(ParallelSequenceProcessor.class);
+
+    protected ExecutorService executorService;
+    protected boolean createdExecutorService = false;
+    protected int maxThreads = 4;
+    protected int queueCapacity = 100;
+
+    protected volatile List<List<Activity<ProcessContext>>> stages;
+
+    @Override
+    public void afterPropertiesSet() throws Exception {
+        super.afterPropertiesSet();
+        if (executorService == null) {
+            executorService = createExecutorService();
+            createdExecutorService = true;
+        }
+        stages = buildStages(getActivities());
+        if (LOG.isInfoEnabled()) {
+            LOG.info("The stages of the " + getBeanName() + " workflow are: " + describeStages(stages));
+        }
+    }
+
+    @Override
+    public void destroy() throws Exception {
+        if (createdExecutorService) {
+            executorService.shutdown();
+        }
+    }
+
+    @Override
+    public void setActivities(List<Activity<ProcessContext>> activities) {
+        super.setActivities(activities);
+        stages = null;
+    }
+
+    protected ExecutorService createExecutorService() {
+        final AtomicInteger threadNumber = new AtomicInteger();
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(maxThreads, maxThreads, 60, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<Runnable>(queueCapacity), new ThreadFactory() {
+                    @Override
+                    public Thread newThread(Runnable runnable) {
+                        Thread thread = new Thread(runnable, getBeanName() + "-" + threadNumber.incrementAndGet());
+                        thread.setDaemon(true);
+                        return thread;
+                    }
+                }, new ThreadPoolExecutor.CallerRunsPolicy());
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+
+    /**
+     * Assigns every activity to the first stage after all of the earlier activities it conflicts with
+     * 
+     * @param activities the activities, in their configured order
+     * @return the activities of each stage, in their configured order
+     */
+    protected List<List<Activity<ProcessContext>>> buildStages(List<Activity<ProcessContext>> activities) {
+        List<List<Activity<ProcessContext>>> stages = new ArrayList<List<Activity<ProcessContext>>>();
+        int[] activityStages = new int[activities.size()];
+        for (int j = 0; j < activities.size(); j++) {
+            int stage = 0;
+            for (int i = 0; i < j; i++) {
+                if (activityStages[i] >= stage && conflicts(activities.get(i), activities.get(j))) {
+                    stage = activityStages[i] + 1;
+                }
+            }
+            activityStages[j] = stage;
+            if (stage == stages.size()) {
+                stages.add(new ArrayList<Activity<ProcessContext>>());
+            }
+            stages.get(stage).add(activities.get(j));
+        }
+        return stages;
+    }
+
+    protected boolean conflicts(Activity<ProcessContext> first, Activity<ProcessContext> second) {
+        if (!isDeclared(first) || !isDeclared(second)) {
+            return true;
+        }
+        ContextAccessAware firstAccess = (ContextAccessAware) first;
+        ContextAccessAware secondAccess = (ContextAccessAware) second;
+        return overlaps(firstAccess.getContextWrites(), secondAccess.getContextWrites())
+                || overlaps(firstAccess.getContextWrites(), secondAccess.getContextReads())
+                || overlaps(firstAccess.getContextReads(), secondAccess.getContextWrites());
+    }
+
+    protected boolean isDeclared(Activity<ProcessContext> activity) {
+        if (!(activity instanceof ContextAccessAware)) {
+            return false;
+        }
+        ContextAccessAware access = (ContextAccessAware) activity;
+        return access.getContextReads() != null || access.getContextWrites() != null;
+    }
+
+    protected boolean overlaps(Set<String> first, Set<String> second) {
+        if (first == null || second == null) {
+            return false;
+        }
+        for (String a : first) {
+            for (String b : second) {
+                if (a.equals(b) || a.startsWith(b + ".") || b.startsWith(a + ".")) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    protected String describeStages(List<List<Activity<ProcessContext>>> stages) {
+        List<List<String>> names = new ArrayList<List<String>>();
+        for (List<Activity<ProcessContext>> stage : stages) {
+            List<String> stageNames = new ArrayList<String>();
+            for (Activity<ProcessContext> activity : stage) {
+                stageNames.add(getActivityName(activity));
+            }
+            names.add(stageNames);
+        }
+        return names.toString();
+    }
+
+    @Override
+    protected ProcessContext executeActivities(ProcessContext context, Object seedData, boolean monitored) throws WorkflowException {
+        List<List<Activity<ProcessContext>>> stages = this.stages;
+        if (stages == null) {
+            stages = buildStages(getActivities());
+            this.stages = stages;
+        }
+
+        for (List<Activity<ProcessContext>> stage : stages) {
+            List<Activity<ProcessContext>> executing = new ArrayList<Activity<ProcessContext>>(stage.size());
+            for (Activity<ProcessContext> activity : stage) {
+                if (activity.shouldExecute(context)) {
+                    executing.add(activity);
+                } else {
+                    LOG.debug("Not executing activity: " + activity.getBeanName() + " based on the context: " + context);
+                    if (monitored) {
+                        workflowMonitor.recordActivitySkipped(getBeanName(), getActivityName(activity));
+                    }
+                }
+            }
+            if (executing.isEmpty()) {
+                continue;
+            }
+
+            List<ActivityResult> results = executeStage(executing, context);
+
+            // Every activity of the stage has run, so all of the successful ones must be rolled back on an error
+            List<Throwable> errors = new ArrayList<Throwable>(executing.size());
+            for (int i = 0; i < executing.size(); i++) {
+                Activity<ProcessContext> activity = executing.get(i);
+                ActivityResult result = results.get(i);
+                Throwable error = result.error;
+                if (error == null && result.context != context && executing.size() > 1) {
+                    error = new IllegalStateException("The activity " + getActivityName(activity) + " returned a " +
+                            "different ProcessContext, which is not supported while running concurrently with other activities");
+                }
+                errors.add(error);
+                if (error == null) {
+                    registerRollbackHandler(activity, result.context);
+                }
+            }
+
+            for (int i = 0; i < executing.size(); i++) {
+                Activity<ProcessContext> activity = executing.get(i);
+                ActivityResult result = results.get(i);
+                Throwable error = errors.get(i);
+                if (monitored) {
+                    recordActivity(activity, seedData, result.nanos, error != null);
+                }
+                if (error == null) {
+                    context = result.context;
+                } else if (handleActivityError(activity, context, error)) {
+                    return context;
+                }
+
+                //ensure its ok to continue the process
+                if (processShouldStop(context, activity)) {
+                    return context;
+                }
+
+                if (error != null) {
+                    // the error handler let the workflow continue, as it would in the SequenceProcessor
+                    registerRollbackHandler(activity, context);
+                }
+            }
+        }
+        return context;
+    }
+
+    /**
+     * Runs the activities, the first on the calling thread and the others on the executor, and waits for all of them
+     * to finish
+     * 
+     * @return the result of each activity, in the same order as the activities
+     */
+    protected List<ActivityResult> executeStage(List<Activity<ProcessContext>> activities, ProcessContext context) {
+        if (activities.size() == 1) {
+            return Collections.singletonList(execute(activities.get(0), context));
+        }
+
+        final BroadleafRequestContext requestContext = BroadleafRequestContext.getBroadleafRequestContext();
+        final RollbackStateLocal rollbackStateLocal = RollbackStateLocal.getRollbackStateLocal();
+        List<Future<ActivityResult>> futures = new ArrayList<Future<ActivityResult>>(activities.size() - 1);
+        for (int i = 1; i < activities.size(); i++) {
+            final Activity<ProcessContext> activity = activities.get(i);
+            final ProcessContext activityContext = context;
+            futures.add(executorService.submit(new Callable<ActivityResult>() {
+                @Override
+                public ActivityResult call() {
+                    BroadleafRequestContext previousRequestContext = BroadleafRequestContext.getBroadleafRequestContext();
+                    RollbackStateLocal previousRollbackStateLocal = RollbackStateLocal.getRollbackStateLocal();
+                    BroadleafRequestContext.setBroadleafRequestContext(requestContext);
+                    RollbackStateLocal.setRollbackStateLocal(rollbackStateLocal);
+                    try {
+                        return execute(activity, activityContext);
+                    } finally {
+                        BroadleafRequestContext.setBroadleafRequestContext(previousRequestContext);
+                        RollbackStateLocal.setRollbackStateLocal(previousRollbackStateLocal);
+                    }
+                }
+            }));
+        }
+
+        List<ActivityResult> results = new ArrayList<ActivityResult>(activities.size());
+        results.add(execute(activities.get(0), context));
+        for (Future<ActivityResult> future : futures) {
+            results.add(getResult(future));
+        }
+        return results;
+    }
+
+    protected ActivityResult getResult(Future<ActivityResult> future) {
+        boolean interrupted = false;
+        try {
+            while (true) {
+                try {
+                    return future.get();
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                } catch (ExecutionException e) {
+                    return new ActivityResult(null, e.getCause(), 0);
+                }
+            }
+        } finally {
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    protected ActivityResult execute(Activity<ProcessContext> activity, ProcessContext context) {
+        if (LOG.isDebugEnabled()) {
+            LOG.debug("running activity:" + activity.getBeanName() + " using arguments:" + context);
+        }
+        long start = System.nanoTime();
+        try {
+            ProcessContext result = activity.execute(context);
+            return new ActivityResult(result, null, System.nanoTime() - start);
+        } catch (Throwable th) {
+            return new ActivityResult(null, th, System.nanoTime() - start);
+        }
+    }
+
+    public ExecutorService getExecutorService() {
+        return executorService;
+    }
+
+    /**
+     * @param executorService the executor to run activities on. If not set, a pool of {@link #getMaxThreads()} threads
+     * is created for this processor, which runs activities on the calling thread once its queue is full.
+     */
+    public void setExecutorService(ExecutorService executorService) {
+        this.executorService = executorService;
+    }
+
+    public int getMaxThreads() {
+        return maxThreads;
+    }
+
+    public void setMaxThreads(int maxThreads) {
+        this.maxThreads = maxThreads;
+    }
+
+    public int getQueueCapacity() {
+        return queueCapacity;
+    }
+
+    public void setQueueCapacity(int queueCapacity) {
+        this.queueCapacity = queueCapacity;
+    }
+
+    protected static class ActivityResult {
+
+        protected final ProcessContext context;
+        protected final Throwable error;
+        protected final long nanos;
+
+        public ActivityResult(ProcessContext context, Throwable error, long nanos) {
+            this.context = context;
+            this.error = error;
+            this.nanos = nanos;
+        }
+
+    }
+
+}
@@ -30,6 +30,8 @@ public class SequenceProcessor extends BaseProcessor {
 
     private ProcessContextFactory processContextFactory;
 
+    private volatile ActivityStateManager activityStateManager;
+
     /*
      * (non-Javadoc)
      *
@@ -50,10 +52,10 @@ public class SequenceProcessor extends BaseProcessor {
         if (LOG.isDebugEnabled()) {
             LOG.debug(getBeanName() + " processor is running..");
         }
-        ActivityStateManager activityStateManager = ((ActivityStateManager) getBeanFactory().getBean("blActivityStateManager"));
-        if (activityStateManager == null) {
-            throw new IllegalStateException("Unable to find an instance of ActivityStateManager registered under bean id blActivityStateManager");
-        }
+        ActivityStateManager activityStateManager = getActivityStateManager();
+        boolean monitored = isMonitored();
+        long workflowStart = monitored ? System.nanoTime() : 0;
+        boolean workflowError = true;
         ProcessContext context = null;
         RollbackStateLocal rollbackStateLocal = RollbackStateLocal.getRollbackStateLocal();
         if (rollbackStateLocal == null) {
@@ -63,50 +65,15 @@ public class SequenceProcessor extends BaseProcessor {
             RollbackStateLocal.setRollbackStateLocal(rollbackStateLocal);
         }
         try {
-            //retrieve injected by Spring
-            List<Activity<ProcessContext>> activities = getActivities();
-
             //retrieve a new instance of the Workflow ProcessContext
             context = createContext(seedData);
 
-            for (Activity<ProcessContext> activity : activities) {
-                if (activity.shouldExecute(context)) {
-                    if (LOG.isDebugEnabled()) {
-                        LOG.debug("running activity:" + activity.getBeanName() + " using arguments:" + context);
-                    }
-    
-                    try {
-                        context = activity.execute(context);
-                    } catch (Throwable th) {
-                        if (getAutoRollbackOnError()) {
-                            LOG.info("Automatically rolling back state for any previously registered RollbackHandlers. RollbackHandlers may be registered for workflow activities in appContext.");
-                            ActivityStateManagerImpl.getStateManager().rollbackAllState();
-                        }
-                        ErrorHandler errorHandler = activity.getErrorHandler();
-                        if (errorHandler == null) {
-                            LOG.info("no error handler for this action, run default error" + "handler and abort processing ");
-                            getDefaultErrorHandler().handleError(context, th);
-                            break;
-                        } else {
-                            LOG.info("run error handler and continue");
-                            errorHandler.handleError(context, th);
-                        }
-                    }
-    
-                    //ensure its ok to continue the process
-                    if (processShouldStop(context, activity)) {
-                        break;
-                    }
-    
-                    //register the RollbackHandler
-                    if (activity.getRollbackHandler() != null && activity.getAutomaticallyRegisterRollbackHandler()) {
-                        ActivityStateManagerImpl.getStateManager().registerState(activity, context, activity.getRollbackRegion(), activity.getRollbackHandler(), activity.getStateConfiguration());
-                    }
-                } else {
-                    LOG.debug("Not executing activity: " + activity.getBeanName() + " based on the context: " + context);
-                }
-            }
+            context = executeActivities(context, seedData, monitored);
+            workflowError = false;
         } finally {
+            if (monitored) {
+                workflowMonitor.recordWorkflow(getBeanName(), System.nanoTime() - workflowStart, workflowError);
+            }
             rollbackStateLocal = RollbackStateLocal.getRollbackStateLocal();
             if (rollbackStateLocal != null && rollbackStateLocal.getWorkflowId().equals(getBeanName())) {
                 activityStateManager.clearAllState();
@@ -118,6 +85,84 @@ public class SequenceProcessor extends BaseProcessor {
         return context;
     }
 
+    /**
+     * Runs the activities of this workflow, in order, against the given context
+     *
+     * @param context the newly created context of the workflow
+     * @param seedData the seed data the workflow was started with
+     * @param monitored whether executions should be reported to the {@link WorkflowMonitor}
+     * @return the resulting context
+     */
+    protected ProcessContext executeActivities(ProcessContext context, Object seedData, boolean monitored) throws WorkflowException {
+        //retrieve injected by Spring
+        List<Activity<ProcessContext>> activities = getActivities();
+
+        for (Activity<ProcessContext> activity : activities) {
+            if (activity.shouldExecute(context)) {
+                if (LOG.isDebugEnabled()) {
+                    LOG.debug("running activity:" + activity.getBeanName() + " using arguments:" + context);
+                }
+
+                long activityStart = monitored ? System.nanoTime() : 0;
+                try {
+                    context = activity.execute(context);
+                    if (monitored) {
+                        recordActivity(activity, seedData, System.nanoTime() - activityStart, false);
+                    }
+                } catch (Throwable th) {
+                    if (monitored) {
+                        recordActivity(activity, seedData, System.nanoTime() - activityStart, true);
+                    }
+                    if (handleActivityError(activity, context, th)) {
+                        break;
+                    }
+                }
+
+                //ensure its ok to continue the process
+                if (processShouldStop(context, activity)) {
+                    break;
+                }
+
+                registerRollbackHandler(activity, context);
+            } else {
+                LOG.debug("Not executing activity: " + activity.getBeanName() + " based on the context: " + context);
+                if (monitored) {
+                    workflowMonitor.recordActivitySkipped(getBeanName(), getActivityName(activity));
+                }
+            }
+        }
+        return context;
+    }
+
+    /**
+     * Rolls back the registered state, if configured to do so, and passes the error to the error handler of the
+     * activity or, if it has none, to the default error handler
+     *
+     * @return true if processing must be aborted because the activity had no error handler of its own
+     */
+    protected boolean handleActivityError(Activity<ProcessContext> activity, ProcessContext context, Throwable th) throws WorkflowException {
+        if (getAutoRollbackOnError()) {
+            LOG.info("Automatically rolling back state for any previously registered RollbackHandlers. RollbackHandlers may be registered for workflow activities in appContext.");
+            ActivityStateManagerImpl.getStateManager().rollbackAllState();
+        }
+        ErrorHandler errorHandler = activity.getErrorHandler();
+        if (errorHandler == null) {
+            LOG.info("no error handler for this action, run default error" + "handler and abort processing ");
+            getDefaultErrorHandler().handleError(context, th);
+            return true;
+        } else {
+            LOG.info("run error handler and continue");
+            errorHandler.handleError(context, th);
+            return false;
+        }
+    }
+
+    protected void registerRollbackHandler(Activity<ProcessContext> activity, ProcessContext context) {
+        if (activity.getRollbackHandler() != null && activity.getAutomaticallyRegisterRollbackHandler()) {
+            ActivityStateManagerImpl.getStateManager().registerState(activity, context, activity.getRollbackRegion(), activity.getRollbackHandler(), activity.getStateConfiguration());
+        }
+    }
+
     /**
      * Determine if the process should stop
      *
@@ -134,6 +179,21 @@ public class SequenceProcessor extends BaseProcessor {
         return false;
     }
 
+    /**
+     * @return the ActivityStateManager registered under the bean id blActivityStateManager, which is only looked up
+     * in the bean factory on the first call
+     */
+    protected ActivityStateManager getActivityStateManager() {
+        if (activityStateManager == null) {
+            ActivityStateManager stateManager = (ActivityStateManager) getBeanFactory().getBean("blActivityStateManager");
+            if (stateManager == null) {
+                throw new IllegalStateException("Unable to find an instance of ActivityStateManager registered under bean id blActivityStateManager");
+            }
+            activityStateManager = stateManager;
+        }
+        return activityStateManager;
+    }
+
     protected ProcessContext createContext(Object seedData) throws WorkflowException {
         return processContextFactory.createContext(seedData);
     }
@@ -0,0 +1,53 @@
+/*
+ * Copyright 2008-2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.broadleafcommerce.core.workflow;
+
+import java.util.List;
+
+/**
+ * Collects execution statistics for every workflow processor and its activities. The processors report to this
+ * service as they run; the statistics are exposed through JMX.
+ */
+public interface WorkflowMonitor {
+
+    public boolean isEnabled();
+
+    /**
+     * @return activities that take at least this many milliseconds are logged along with what the workflow runs for,
+     * as described by {@link IdentifiableSeed} seed data. A value of 0 or less disables the log.
+     */
+    public long getSlowActivityThreshold();
+
+    public void recordWorkflow(String workflowName, long nanos, boolean error);
+
+    public void recordActivity(String workflowName, String activityName, long nanos, boolean error);
+
+    public void recordActivitySkipped(String workflowName, String activityName);
+
+    /**
+     * @return the statistics of every workflow that has run, sorted by total time descending
+     */
+    public List<ExecutionStatistics> getWorkflowStatistics();
+
+    /**
+     * @return the statistics of every activity that has run, sorted by total time descending. Activities are named
+     * "workflow.activity".
+     */
+    public List<ExecutionStatistics> getActivityStatistics();
+
+    public void resetStatistics();
+
+}
@@ -0,0 +1,154 @@
+/*
+ * Copyright 2008-2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.broadleafcommerce.core.workflow;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jmx.export.annotation.ManagedAttribute;
+import org.springframework.jmx.export.annotation.ManagedOperation;
+import org.springframework.jmx.export.annotation.ManagedResource;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+@Service("blWorkflowMonitor")
+@ManagedResource(objectName="org.broadleafcommerce:name=WorkflowMonitor", description="Workflow Execution Statistics", currencyTimeLimit=15)
+public class WorkflowMonitorImpl implements WorkflowMonitor {
+
+    protected static final Comparator<ExecutionStatistics> TOTAL_TIME_COMPARATOR = new Comparator<ExecutionStatistics>() {
+        @Override
+        public int compare(ExecutionStatistics o1, ExecutionStatistics o2) {
+            long t1 = o1.getTotalTime();
+            long t2 = o2.getTotalTime();
+            return t1 < t2 ? 1 : (t1 == t2 ? o1.getName().compareTo(o2.getName()) : -1);
+        }
+    };
+
+    @Value("${workflow.monitor.enabled}")
+    protected boolean enabled = true;
+
+    @Value("${workflow.monitor.slow.activity.threshold}")
+    protected long slowActivityThreshold = 1000;
+
+    protected final ConcurrentMap<String, ExecutionStatistics> workflowStatistics = new ConcurrentHashMap<String, ExecutionStatistics>();
+    protected final ConcurrentMap<String, ExecutionStatistics> activityStatistics = new ConcurrentHashMap<String, ExecutionStatistics>();
+
+    @Override
+    public void recordWorkflow(String workflowName, long nanos, boolean error) {
+        getStatistics(workflowStatistics, workflowName).recordExecution(nanos, error);
+    }
+
+    @Override
+    public void recordActivity(String workflowName, String activityName, long nanos, boolean error) {
+        getStatistics(activityStatistics, workflowName + "." + activityName).recordExecution(nanos, error);
+    }
+
+    @Override
+    public void recordActivitySkipped(String workflowName, String activityName) {
+        getStatistics(activityStatistics, workflowName + "." + activityName).recordSkip();
+    }
+
+    protected ExecutionStatistics getStatistics(ConcurrentMap<String, ExecutionStatistics> statistics, String name) {
+        ExecutionStatistics stats = statistics.get(name);
+        if (stats == null) {
+            stats = new ExecutionStatistics(name);
+            ExecutionStatistics existing = statistics.putIfAbsent(name, stats);
+            if (existing != null) {
+                stats = existing;
+            }
+        }
+        return stats;
+    }
+
+    @Override
+    public List<ExecutionStatistics> getWorkflowStatistics() {
+        return sort(workflowStatistics);
+    }
+
+    @Override
+    public List<ExecutionStatistics> getActivityStatistics() {
+        return sort(activityStatistics);
+    }
+
+    protected List<ExecutionStatistics> sort(ConcurrentMap<String, ExecutionStatistics> statistics) {
+        List<ExecutionStatistics> sorted = new ArrayList<ExecutionStatistics>(statistics.values());
+        Collections.sort(sorted, TOTAL_TIME_COMPARATOR);
+        return sorted;
+    }
+
+    @ManagedAttribute(description="Statistics of each workflow, slowest total first", currencyTimeLimit=15)
+    public String[] getWorkflowSummaries() {
+        return summarize(getWorkflowStatistics());
+    }
+
+    @ManagedAttribute(description="Statistics of each workflow activity, slowest total first", currencyTimeLimit=15)
+    public String[] getActivitySummaries() {
+        return summarize(getActivityStatistics());
+    }
+
+    @ManagedOperation(description="Statistics of the activities of a single workflow, slowest total first")
+    public String[] getWorkflowActivitySummaries(String workflowName) {
+        List<ExecutionStatistics> statistics = new ArrayList<ExecutionStatistics>();
+        for (ExecutionStatistics stats : getActivityStatistics()) {
+            if (stats.getName().startsWith(workflowName + ".")) {
+                statistics.add(stats);
+            }
+        }
+        return summarize(statistics);
+    }
+
+    protected String[] summarize(List<ExecutionStatistics> statistics) {
+        String[] summaries = new String[statistics.size()];
+        for (int i = 0; i < summaries.length; i++) {
+            summaries[i] = statistics.get(i).toString();
+        }
+        return summaries;
+    }
+
+    @Override
+    @ManagedOperation(description="Discard all collected statistics")
+    public void resetStatistics() {
+        workflowStatistics.clear();
+        activityStatistics.clear();
+    }
+
+    @Override
+    @ManagedAttribute(description="Whether workflow statistics are being collected", currencyTimeLimit=15)
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    @ManagedAttribute(description="Whether workflow statistics are being collected")
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    @Override
+    @ManagedAttribute(description="Activities taking at least this many milliseconds are logged", currencyTimeLimit=15)
+    public long getSlowActivityThreshold() {
+        return slowActivityThreshold;
+    }
+
+    @ManagedAttribute(description="Activities taking at least this many milliseconds are logged")
+    public void setSlowActivityThreshold(long slowActivityThreshold) {
+        this.slowActivityThreshold = slowActivityThreshold;
+    }
+
+}
@@ -0,0 +1,153 @@
+/*
+ * Copyright 2008-2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.broadleafcommerce.core.inventory.service;
+
+import junit.framework.TestCase;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Hammers a single sku from many threads at once to verify that the counter never hands out more units than
+ * it holds
+ */
+public class StripedInventoryCounterTest extends TestCase {
+
+    private static final int THREADS = 64;
+    private static final int UNITS = 1000;
+
+    public void testConcurrentDecrementsNeverOversell() throws Exception {
+        final StripedInventoryCounter counter = new StripedInventoryCounter(1L, UNITS, 8);
+        final AtomicInteger acquired = new AtomicInteger();
+
+        run(5000, new Runnable() {
+            @Override
+            public void run() {
+                if (counter.tryAcquire(1)) {
+                    acquired.incrementAndGet();
+                }
+            }
+        });
+
+        assertEquals(UNITS, acquired.get());
+        assertEquals(0, counter.getAvailable());
+        assertFalse(counter.tryAcquire(1));
+    }
+
+    public void testMultiUnitDecrementsSpanStripes() throws Exception {
+        final StripedInventoryCounter counter = new StripedInventoryCounter(1L, UNITS, 8);
+        final AtomicInteger acquired = new AtomicInteger();
+        final AtomicInteger attempt = new AtomicInteger();
+
+        run(5000, new Runnable() {
+            @Override
+            public void run() {
+                int quantity = attempt.incrementAndGet() % 7 + 1;
+                if (counter.tryAcquire(quantity)) {
+                    acquired.addAndGet(quantity);
+                }
+            }
+        });
+
+        assertTrue(acquired.get() <= UNITS);
+        assertEquals(UNITS - acquired.get(), counter.getAvailable());
+
+        // Whatever is left can still be taken one unit at a time
+        while (counter.tryAcquire(1)) {
+            acquired.incrementAndGet();
+        }
+        assertEquals(UNITS, acquired.get());
+    }
+
+    public void testNoReservationFailsWhileUnitsRemain() throws Exception {
+        final StripedInventoryCounter counter = new StripedInventoryCounter(1L, UNITS, 8);
+        final AtomicInteger failed = new AtomicInteger();
+
+        // Exactly enough units for every task, so a failure could only come from contention
+        run(UNITS / 2, new Runnable() {
+            @Override
+            public void run() {
+                if (!counter.tryAcquire(2)) {
+                    failed.incrementAndGet();
+                }
+            }
+        });
+
+        assertEquals(0, failed.get());
+        assertEquals(0, counter.getAvailable());
+    }
+
+    public void testReleasedUnitsCanBeReservedAgain() throws Exception {
+        final StripedInventoryCounter counter = new StripedInventoryCounter(1L, 100, 8);
+        final AtomicInteger held = new AtomicInteger();
+        final AtomicInteger maxHeld = new AtomicInteger();
+
+        run(20000, new Runnable() {
+            @Override
+            public void run() {
+                if (counter.tryAcquire(2)) {
+                    int current = held.addAndGet(2);
+                    int max = maxHeld.get();
+                    while (current > max && !maxHeld.compareAndSet(max, current)) {
+                        max = maxHeld.get();
+                    }
+                    held.addAndGet(-2);
+                    counter.release(2);
+                }
+            }
+        });
+
+        assertTrue(maxHeld.get() <= 100);
+        assertEquals(100, counter.getAvailable());
+    }
+
+    public void testAdjust() {
+        StripedInventoryCounter counter = new StripedInventoryCounter(1L, 10, 4);
+        counter.adjust(-4);
+        assertEquals(6, counter.getAvailable());
+        counter.adjust(-10);
+        assertEquals(0, counter.getAvailable());
+        counter.adjust(3);
+        assertTrue(counter.tryAcquire(3));
+        assertFalse(counter.tryAcquire(1));
+    }
+
+    protected void run(int tasks, final Runnable task) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        final CountDownLatch start = new CountDownLatch(1);
+        for (int i = 0; i < tasks; i++) {
+            executor.submit(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        start.await();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        return;
+                    }
+                    task.run();
+                }
+            });
+        }
+        start.countDown();
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(1, TimeUnit.MINUTES));
+    }
+
+}
@@ -17,6 +17,8 @@
 package org.broadleafcommerce.core.offer.service;
 
 import org.broadleafcommerce.common.money.Money;
+import org.broadleafcommerce.common.rule.RuleExpressionService;
+import org.broadleafcommerce.common.rule.RuleExpressionServiceImpl;
 import org.broadleafcommerce.core.offer.dao.CustomerOfferDao;
 import org.broadleafcommerce.core.offer.dao.OfferCodeDao;
 import org.broadleafcommerce.core.offer.dao.OfferDao;
@@ -34,10 +36,10 @@ import org.broadleafcommerce.core.offer.domain.OrderAdjustmentImpl;
 import org.broadleafcommerce.core.offer.domain.OrderItemAdjustment;
 import org.broadleafcommerce.core.offer.domain.OrderItemAdjustmentImpl;
 import org.broadleafcommerce.core.offer.service.discount.domain.PromotableItemFactoryImpl;
-import org.broadleafcommerce.core.offer.service.processor.FulfillmentGroupOfferProcessor;
 import org.broadleafcommerce.core.offer.service.processor.FulfillmentGroupOfferProcessorImpl;
-import org.broadleafcommerce.core.offer.service.processor.ItemOfferProcessor;
 import org.broadleafcommerce.core.offer.service.processor.ItemOfferProcessorImpl;
+import org.broadleafcommerce.core.offer.service.processor.OfferRuleAnalyzer;
+import org.broadleafcommerce.core.offer.service.processor.OfferRuleAnalyzerImpl;
 import org.broadleafcommerce.core.offer.service.processor.OfferTimeZoneProcessor;
 import org.broadleafcommerce.core.offer.service.processor.OrderOfferProcessorImpl;
 import org.broadleafcommerce.core.offer.service.type.OfferDiscountType;
@@ -74,6 +76,9 @@ import junit.framework.TestCase;
  *
  */
 public class OfferServiceTest extends TestCase { 
+
+    protected RuleExpressionService ruleExpressionService = new RuleExpressionServiceImpl();
+    protected OfferRuleAnalyzer offerRuleAnalyzer = new OfferRuleAnalyzerImpl();
     
     protected OfferServiceImpl offerService;
     protected CustomerOfferDao customerOfferDaoMock;
@@ -108,18 +113,24 @@ public class OfferServiceTest extends TestCase {
         offerTimeZoneProcessorMock = EasyMock.createMock(OfferTimeZoneProcessor.class);
 
         OrderOfferProcessorImpl orderProcessor = new OrderOfferProcessorImpl();
+        orderProcessor.setRuleExpressionService(ruleExpressionService);
+        orderProcessor.setOfferRuleAnalyzer(offerRuleAnalyzer);
         orderProcessor.setOfferDao(offerDaoMock);
         orderProcessor.setOrderItemDao(orderItemDaoMock);
         orderProcessor.setPromotableItemFactory(new PromotableItemFactoryImpl());
         orderProcessor.setOfferTimeZoneProcessor(offerTimeZoneProcessorMock);
         offerService.setOrderOfferProcessor(orderProcessor);
 
-        ItemOfferProcessor itemProcessor = new ItemOfferProcessorImpl();
+        ItemOfferProcessorImpl itemProcessor = new ItemOfferProcessorImpl();
+        itemProcessor.setRuleExpressionService(ruleExpressionService);
+        itemProcessor.setOfferRuleAnalyzer(offerRuleAnalyzer);
         itemProcessor.setOfferDao(offerDaoMock);
         itemProcessor.setPromotableItemFactory(new PromotableItemFactoryImpl());
         offerService.setItemOfferProcessor(itemProcessor);
 
-        FulfillmentGroupOfferProcessor fgProcessor = new FulfillmentGroupOfferProcessorImpl();
+        FulfillmentGroupOfferProcessorImpl fgProcessor = new FulfillmentGroupOfferProcessorImpl();
+        fgProcessor.setRuleExpressionService(ruleExpressionService);
+        fgProcessor.setOfferRuleAnalyzer(offerRuleAnalyzer);
         fgProcessor.setOfferDao(offerDaoMock);
         fgProcessor.setPromotableItemFactory(new PromotableItemFactoryImpl());
         offerService.setFulfillmentGroupOfferProcessor(fgProcessor);
@@ -16,6 +16,8 @@
 
 package org.broadleafcommerce.core.offer.service.processor;
 
+import org.broadleafcommerce.common.rule.RuleExpressionService;
+import org.broadleafcommerce.common.rule.RuleExpressionServiceImpl;
 import org.broadleafcommerce.core.offer.dao.CustomerOfferDao;
 import org.broadleafcommerce.core.offer.dao.OfferCodeDao;
 import org.broadleafcommerce.core.offer.dao.OfferDao;
@@ -70,6 +72,9 @@ import junit.framework.TestCase;
  */
 public class FulfillmentGroupOfferProcessorTest extends TestCase {
 
+    protected RuleExpressionService ruleExpressionService = new RuleExpressionServiceImpl();
+    protected OfferRuleAnalyzer offerRuleAnalyzer = new OfferRuleAnalyzerImpl();
+
     protected OfferDao offerDaoMock;
     protected OrderItemDao orderItemDaoMock;
     protected OfferServiceImpl offerService;
@@ -98,18 +103,24 @@ public class FulfillmentGroupOfferProcessorTest extends TestCase {
         multishipOptionServiceMock = EasyMock.createMock(OrderMultishipOptionService.class);
 
         fgProcessor = new FulfillmentGroupOfferProcessorImpl();
+        fgProcessor.setRuleExpressionService(ruleExpressionService);
+        fgProcessor.setOfferRuleAnalyzer(offerRuleAnalyzer);
         fgProcessor.setOfferDao(offerDaoMock);
         fgProcessor.setOrderItemDao(orderItemDaoMock);
         fgProcessor.setPromotableItemFactory(new PromotableItemFactoryImpl());
 
         OrderOfferProcessorImpl orderProcessor = new OrderOfferProcessorImpl();
+        orderProcessor.setRuleExpressionService(ruleExpressionService);
+        orderProcessor.setOfferRuleAnalyzer(offerRuleAnalyzer);
         orderProcessor.setOfferDao(offerDaoMock);
         orderProcessor.setPromotableItemFactory(new PromotableItemFactoryImpl());
         offerTimeZoneProcessorMock = EasyMock.createMock(OfferTimeZoneProcessor.class);
         orderProcessor.setOfferTimeZoneProcessor(offerTimeZoneProcessorMock);
         orderProcessor.setOrderItemDao(orderItemDaoMock);
 
-        ItemOfferProcessor itemProcessor = new ItemOfferProcessorImpl();
+        ItemOfferProcessorImpl itemProcessor = new ItemOfferProcessorImpl();
+        itemProcessor.setRuleExpressionService(ruleExpressionService);
+        itemProcessor.setOfferRuleAnalyzer(offerRuleAnalyzer);
         itemProcessor.setOfferDao(offerDaoMock);
         itemProcessor.setPromotableItemFactory(new PromotableItemFactoryImpl());
         itemProcessor.setOrderItemDao(orderItemDaoMock);
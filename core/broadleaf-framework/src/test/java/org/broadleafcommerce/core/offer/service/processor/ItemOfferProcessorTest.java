@@ -17,6 +17,8 @@
 package org.broadleafcommerce.core.offer.service.processor;
 
 import org.broadleafcommerce.common.money.Money;
+import org.broadleafcommerce.common.rule.RuleExpressionService;
+import org.broadleafcommerce.common.rule.RuleExpressionServiceImpl;
 import org.broadleafcommerce.core.offer.dao.CustomerOfferDao;
 import org.broadleafcommerce.core.offer.dao.OfferCodeDao;
 import org.broadleafcommerce.core.offer.dao.OfferDao;
@@ -64,6 +66,9 @@ import junit.framework.TestCase;
  */
 public class ItemOfferProcessorTest extends TestCase {
 
+    protected RuleExpressionService ruleExpressionService = new RuleExpressionServiceImpl();
+    protected OfferRuleAnalyzer offerRuleAnalyzer = new OfferRuleAnalyzerImpl();
+
     protected OfferDao offerDaoMock;
     protected OrderItemDao orderItemDaoMock;
     protected OrderService orderServiceMock;
@@ -92,6 +97,8 @@ public class ItemOfferProcessorTest extends TestCase {
         offerTimeZoneProcessorMock = EasyMock.createMock(OfferTimeZoneProcessor.class);
 
         itemProcessor = new ItemOfferProcessorImpl();
+        itemProcessor.setRuleExpressionService(ruleExpressionService);
+        itemProcessor.setOfferRuleAnalyzer(offerRuleAnalyzer);
         itemProcessor.setOfferDao(offerDaoMock);
         itemProcessor.setOrderItemDao(orderItemDaoMock);
         itemProcessor.setOfferTimeZoneProcessor(offerTimeZoneProcessorMock);
@@ -100,6 +107,8 @@ public class ItemOfferProcessorTest extends TestCase {
         offerService = new OfferServiceImpl();
 
         OrderOfferProcessorImpl orderProcessor = new OrderOfferProcessorImpl();
+        orderProcessor.setRuleExpressionService(ruleExpressionService);
+        orderProcessor.setOfferRuleAnalyzer(offerRuleAnalyzer);
         orderProcessor.setOfferDao(offerDaoMock);
         orderProcessor.setPromotableItemFactory(new PromotableItemFactoryImpl());
         orderProcessor.setOfferTimeZoneProcessor(offerTimeZoneProcessorMock);
@@ -0,0 +1,174 @@
+/*
+ * Copyright 2008-2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.broadleafcommerce.core.offer.service.processor;
+
+import org.broadleafcommerce.core.catalog.domain.Product;
+import org.broadleafcommerce.core.catalog.domain.ProductImpl;
+import org.broadleafcommerce.core.catalog.domain.Sku;
+import org.broadleafcommerce.core.catalog.domain.SkuImpl;
+import org.broadleafcommerce.core.offer.domain.Offer;
+import org.broadleafcommerce.core.offer.domain.OfferImpl;
+import org.broadleafcommerce.core.offer.domain.OfferItemCriteria;
+import org.broadleafcommerce.core.offer.domain.OfferItemCriteriaImpl;
+import org.broadleafcommerce.core.offer.service.discount.domain.PromotableOrder;
+import org.broadleafcommerce.core.offer.service.discount.domain.PromotableOrderItem;
+import org.broadleafcommerce.core.offer.service.type.OfferType;
+import org.broadleafcommerce.core.order.domain.BundleOrderItem;
+import org.broadleafcommerce.core.order.domain.BundleOrderItemImpl;
+import org.broadleafcommerce.core.order.domain.DiscreteOrderItem;
+import org.broadleafcommerce.core.order.domain.DiscreteOrderItemImpl;
+import org.broadleafcommerce.core.order.domain.OrderItem;
+import org.easymock.EasyMock;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import junit.framework.TestCase;
+
+public class OfferCandidateIndexImplTest extends TestCase {
+
+    protected OfferCandidateIndexImpl index;
+
+    @Override
+    protected void setUp() throws Exception {
+        index = new OfferCandidateIndexImpl();
+        index.setOfferRuleAnalyzer(new OfferRuleAnalyzerImpl());
+    }
+
+    public void testOffersForProductsNotInTheOrderArePruned() throws Exception {
+        Offer inCart = createOffer(1L, OfferType.ORDER_ITEM, "discreteOrderItem.?product.?id==1");
+        Offer notInCart = createOffer(2L, OfferType.ORDER, "discreteOrderItem.?product.?id==3");
+        PromotableOrder order = createOrder(items(createDiscreteItem(1L, "Shirt")), null);
+
+        List<Offer> candidates = index.filterCandidateOffers(Arrays.asList(inCart, notInCart), order);
+        assertEquals(Arrays.asList(inCart), candidates);
+    }
+
+    public void testUnindexedOffersAreAlwaysCandidates() throws Exception {
+        Offer unconstrained = createOffer(1L, OfferType.ORDER_ITEM, "discreteOrderItem.?quantity>=2");
+        Offer fulfillmentGroup = createOffer(2L, OfferType.FULFILLMENT_GROUP, "discreteOrderItem.?product.?id==3");
+        Offer noCriteria = createOffer(3L, OfferType.ORDER);
+        Offer noId = createOffer(null, OfferType.ORDER, "discreteOrderItem.?product.?id==3");
+        Offer notInCart = createOffer(4L, OfferType.ORDER, "discreteOrderItem.?product.?id==3");
+        PromotableOrder order = createOrder(items(createDiscreteItem(1L, "Shirt")), null);
+
+        List<Offer> candidates = index.filterCandidateOffers(
+                Arrays.asList(unconstrained, fulfillmentGroup, noCriteria, noId, notInCart), order);
+        assertEquals(Arrays.asList(unconstrained, fulfillmentGroup, noCriteria, noId), candidates);
+    }
+
+    public void testDisjunctionMatchesAnyValue() throws Exception {
+        Offer offer = createOffer(1L, OfferType.ORDER_ITEM, 
+                "discreteOrderItem.?product.?id==1 || discreteOrderItem.?product.?id==2");
+        PromotableOrder order = createOrder(items(createDiscreteItem(2L, "Pants")), null);
+
+        assertEquals(Arrays.asList(offer), index.filterCandidateOffers(Arrays.asList(offer), order));
+    }
+
+    public void testNegatedRuleIsNotPruned() throws Exception {
+        Offer offer = createOffer(1L, OfferType.ORDER_ITEM, "!(discreteOrderItem.?product.?id==1)");
+        PromotableOrder order = createOrder(items(createDiscreteItem(2L, "Pants")), null);
+
+        assertEquals(Arrays.asList(offer), index.filterCandidateOffers(Arrays.asList(offer), order));
+    }
+
+    public void testNamesIgnoreCase() throws Exception {
+        Offer offer = createOffer(1L, OfferType.ORDER_ITEM, 
+                "MvelHelper.toUpperCase(discreteOrderItem.?sku.?name)==MvelHelper.toUpperCase(\"shirt\")");
+        PromotableOrder order = createOrder(items(createDiscreteItem(1L, "Shirt")), null);
+
+        assertEquals(Arrays.asList(offer), index.filterCandidateOffers(Arrays.asList(offer), order));
+    }
+
+    public void testBundleChildItemsAreCandidates() throws Exception {
+        // Only the child of the bundle is discountable, so only the child is matched against the rule
+        DiscreteOrderItem child = createDiscreteItem(20L, "Socks");
+        BundleOrderItem bundle = new BundleOrderItemImpl();
+        bundle.getDiscreteOrderItems().add(child);
+        Offer offer = createOffer(1L, OfferType.ORDER_ITEM, "discreteOrderItem.?product.?id==20");
+        PromotableOrder order = createOrder(items(bundle), items(child));
+
+        assertEquals(Arrays.asList(offer), index.filterCandidateOffers(Arrays.asList(offer), order));
+    }
+
+    public void testEditedOfferIsIndexedAgain() throws Exception {
+        Offer offer = createOffer(1L, OfferType.ORDER_ITEM, "discreteOrderItem.?product.?id==3");
+        PromotableOrder order = createOrder(items(createDiscreteItem(1L, "Shirt")), null);
+        assertTrue(index.filterCandidateOffers(Arrays.asList(offer), order).isEmpty());
+
+        offer.getQualifyingItemCriteria().iterator().next().setMatchRule("discreteOrderItem.?product.?id==1");
+        assertEquals(Arrays.asList(offer), index.filterCandidateOffers(Arrays.asList(offer), order));
+    }
+
+    protected Offer createOffer(Long id, OfferType type, String... matchRules) {
+        Offer offer = new OfferImpl();
+        offer.setId(id);
+        offer.setType(type);
+        Set<OfferItemCriteria> criteria = new HashSet<OfferItemCriteria>();
+        for (String matchRule : matchRules) {
+            OfferItemCriteria itemCriteria = new OfferItemCriteriaImpl();
+            itemCriteria.setQuantity(1);
+            itemCriteria.setMatchRule(matchRule);
+            criteria.add(itemCriteria);
+        }
+        offer.setQualifyingItemCriteria(criteria);
+        return offer;
+    }
+
+    protected DiscreteOrderItem createDiscreteItem(Long id, String name) {
+        Sku sku = new SkuImpl();
+        sku.setId(id);
+        sku.setName(name);
+        Product product = new ProductImpl();
+        product.setId(id);
+        product.setDefaultSku(sku);
+        DiscreteOrderItem orderItem = new DiscreteOrderItemImpl();
+        orderItem.setSku(sku);
+        orderItem.setProduct(product);
+        return orderItem;
+    }
+
+    protected List<OrderItem> items(OrderItem... orderItems) {
+        return Arrays.asList(orderItems);
+    }
+
+    /**
+     * @param discountableItems the discountable items, or null if they are the same as the items of the order
+     */
+    protected PromotableOrder createOrder(List<OrderItem> orderItems, List<OrderItem> discountableItems) {
+        PromotableOrder order = EasyMock.createMock(PromotableOrder.class);
+        EasyMock.expect(order.getAllOrderItems()).andReturn(promote(orderItems)).anyTimes();
+        EasyMock.expect(order.getDiscountableOrderItems())
+                .andReturn(promote(discountableItems == null ? orderItems : discountableItems)).anyTimes();
+        EasyMock.replay(order);
+        return order;
+    }
+
+    protected List<PromotableOrderItem> promote(List<OrderItem> orderItems) {
+        List<PromotableOrderItem> items = new ArrayList<PromotableOrderItem>();
+        for (OrderItem orderItem : orderItems) {
+            PromotableOrderItem item = EasyMock.createMock(PromotableOrderItem.class);
+            EasyMock.expect(item.getOrderItem()).andReturn(orderItem).anyTimes();
+            EasyMock.replay(item);
+            items.add(item);
+        }
+        return items;
+    }
+
+}
@@ -0,0 +1,165 @@
+/*
+ * Copyright 2008-2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.broadleafcommerce.core.offer.service.processor;
+
+import org.broadleafcommerce.core.catalog.domain.Category;
+import org.broadleafcommerce.core.catalog.domain.CategoryImpl;
+import org.broadleafcommerce.core.catalog.domain.Product;
+import org.broadleafcommerce.core.catalog.domain.ProductImpl;
+import org.broadleafcommerce.core.catalog.domain.Sku;
+import org.broadleafcommerce.core.catalog.domain.SkuImpl;
+import org.broadleafcommerce.core.offer.service.discount.domain.PromotableOrderItem;
+import org.broadleafcommerce.core.order.domain.DiscreteOrderItem;
+import org.broadleafcommerce.core.order.domain.DiscreteOrderItemImpl;
+import org.broadleafcommerce.profile.core.domain.Customer;
+import org.broadleafcommerce.profile.core.domain.CustomerImpl;
+import org.easymock.EasyMock;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+import junit.framework.TestCase;
+
+public class OfferRuleAnalyzerImplTest extends TestCase {
+
+    protected OfferRuleAnalyzerImpl analyzer;
+
+    @Override
+    protected void setUp() throws Exception {
+        analyzer = new OfferRuleAnalyzerImpl();
+    }
+
+    public void testSingleComparison() throws Exception {
+        OfferRulePredicate predicate = analyzer.analyzeItemRule("discreteOrderItem.?product.?id == 5");
+        assertEquals(values("5"), predicate.getRequirements().get(OfferRuleAnalyzer.PRODUCT_ID));
+        assertEquals(1, predicate.getRequirements().size());
+    }
+
+    public void testConjunction() throws Exception {
+        OfferRulePredicate predicate = analyzer.analyzeItemRule(
+                "discreteOrderItem.?product.?id==5 && (discreteOrderItem.?category.?id==7)");
+        assertEquals(values("5"), predicate.getRequirements().get(OfferRuleAnalyzer.PRODUCT_ID));
+        assertEquals(values("7"), predicate.getRequirements().get(OfferRuleAnalyzer.CATEGORY_ID));
+    }
+
+    public void testDisjunctionOnOneField() throws Exception {
+        OfferRulePredicate predicate = analyzer.analyzeItemRule(
+                "(discreteOrderItem.?sku.?id==1 || discreteOrderItem.?sku.?id==2) && orderItem.?category.?id==3");
+        assertEquals(values("1", "2"), predicate.getRequirements().get(OfferRuleAnalyzer.SKU_ID));
+        assertEquals(values("3"), predicate.getRequirements().get(OfferRuleAnalyzer.CATEGORY_ID));
+
+        predicate = analyzer.analyzeItemRule("discreteOrderItem.?sku.?id==1 || discreteOrderItem.?sku.?id==2");
+        assertEquals(values("1", "2"), predicate.getRequirements().get(OfferRuleAnalyzer.SKU_ID));
+    }
+
+    public void testDisjunctionOnDifferentFieldsIsUnconstrained() throws Exception {
+        assertTrue(analyzer.analyzeItemRule(
+                "discreteOrderItem.?sku.?id==1 || discreteOrderItem.?product.?id==2").isUnconstrained());
+        assertTrue(analyzer.analyzeItemRule(
+                "(discreteOrderItem.?sku.?id==1 && discreteOrderItem.?product.?id==2) || discreteOrderItem.?sku.?id==3")
+                .isUnconstrained());
+    }
+
+    public void testNegationsAreIgnored() throws Exception {
+        assertTrue(analyzer.analyzeItemRule("!(discreteOrderItem.?product.?id==5)").isUnconstrained());
+        assertTrue(analyzer.analyzeItemRule("discreteOrderItem.?product.?id!=5").isUnconstrained());
+
+        OfferRulePredicate predicate = analyzer.analyzeItemRule(
+                "discreteOrderItem.?category.?id==7 && !(discreteOrderItem.?product.?id==5)");
+        assertEquals(1, predicate.getRequirements().size());
+        assertEquals(values("7"), predicate.getRequirements().get(OfferRuleAnalyzer.CATEGORY_ID));
+    }
+
+    public void testUnbalancedParenthesesAreUnconstrained() throws Exception {
+        assertTrue(analyzer.analyzeItemRule("((discreteOrderItem.?product.?id==5)").isUnconstrained());
+        assertTrue(analyzer.analyzeItemRule("discreteOrderItem.?product.?id==5)").isUnconstrained());
+        assertTrue(analyzer.analyzeItemRule("discreteOrderItem.?sku.?name==\"shirt").isUnconstrained());
+    }
+
+    public void testUnknownComparisonsAreIgnored() throws Exception {
+        assertTrue(analyzer.analyzeItemRule(null).isUnconstrained());
+        assertTrue(analyzer.analyzeItemRule("discreteOrderItem.?quantity>=2").isUnconstrained());
+        assertTrue(analyzer.analyzeItemRule("discreteOrderItem.?product.?id==5L").isUnconstrained());
+    }
+
+    public void testNamesIgnoreCase() throws Exception {
+        OfferRulePredicate upperCased = analyzer.analyzeItemRule(
+                "MvelHelper.toUpperCase(discreteOrderItem.?product.?name)==MvelHelper.toUpperCase(\"red shirt\")");
+        assertEquals(values("RED SHIRT"), upperCased.getRequirements().get(OfferRuleAnalyzer.PRODUCT_NAME));
+
+        OfferRulePredicate exact = analyzer.analyzeItemRule("discreteOrderItem.?product.?name==\"Red Shirt\"");
+        assertEquals(values("RED SHIRT"), exact.getRequirements().get(OfferRuleAnalyzer.PRODUCT_NAME));
+
+        Map<String, String> values = analyzer.getItemValues(createItem(1L, "Red Shirt", 10L));
+        assertTrue(upperCased.couldMatch(values));
+        assertTrue(exact.couldMatch(values));
+    }
+
+    public void testItemValues() throws Exception {
+        Map<String, String> values = analyzer.getItemValues(createItem(1L, "Shirt", 10L));
+        assertEquals("1", values.get(OfferRuleAnalyzer.PRODUCT_ID));
+        assertEquals("SHIRT", values.get(OfferRuleAnalyzer.PRODUCT_NAME));
+        assertEquals("1", values.get(OfferRuleAnalyzer.SKU_ID));
+        assertEquals("SHIRT", values.get(OfferRuleAnalyzer.SKU_NAME));
+        assertEquals("10", values.get(OfferRuleAnalyzer.CATEGORY_ID));
+        assertEquals("CATEGORY10", values.get(OfferRuleAnalyzer.CATEGORY_NAME));
+
+        assertTrue(analyzer.analyzeItemRule("discreteOrderItem.?product.?id==1").couldMatch(values));
+        assertFalse(analyzer.analyzeItemRule("discreteOrderItem.?product.?id==2").couldMatch(values));
+        assertFalse(analyzer.analyzeItemRule("discreteOrderItem.?category.?id==11").couldMatch(values));
+    }
+
+    public void testCustomerRule() throws Exception {
+        Customer customer = new CustomerImpl();
+        customer.setId(3L);
+        customer.setRegistered(true);
+        Map<String, String> values = analyzer.getCustomerValues(customer);
+
+        assertTrue(analyzer.analyzeCustomerRule("customer.registered == true").couldMatch(values));
+        assertFalse(analyzer.analyzeCustomerRule("customer.registered == false").couldMatch(values));
+        assertTrue(analyzer.analyzeCustomerRule("customer.?id==3 || customer.?id==4").couldMatch(values));
+        assertTrue(analyzer.analyzeCustomerRule("customer.?firstName==\"Bob\"").isUnconstrained());
+    }
+
+    protected PromotableOrderItem createItem(Long id, String name, Long categoryId) {
+        Sku sku = new SkuImpl();
+        sku.setId(id);
+        sku.setName(name);
+        Product product = new ProductImpl();
+        product.setId(id);
+        product.setDefaultSku(sku);
+        Category category = new CategoryImpl();
+        category.setId(categoryId);
+        category.setName("category" + categoryId);
+
+        DiscreteOrderItem orderItem = new DiscreteOrderItemImpl();
+        orderItem.setSku(sku);
+        orderItem.setProduct(product);
+        orderItem.setCategory(category);
+
+        PromotableOrderItem item = EasyMock.createMock(PromotableOrderItem.class);
+        EasyMock.expect(item.getOrderItem()).andReturn(orderItem).anyTimes();
+        EasyMock.replay(item);
+        return item;
+    }
+
+    protected Set<String> values(String... values) {
+        return new HashSet<String>(Arrays.asList(values));
+    }
+
+}
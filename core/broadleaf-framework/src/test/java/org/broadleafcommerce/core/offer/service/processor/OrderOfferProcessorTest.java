@@ -16,6 +16,8 @@
 
 package org.broadleafcommerce.core.offer.service.processor;
 
+import org.broadleafcommerce.common.rule.RuleExpressionService;
+import org.broadleafcommerce.common.rule.RuleExpressionServiceImpl;
 import org.broadleafcommerce.core.offer.dao.OfferDao;
 import org.broadleafcommerce.core.offer.domain.Offer;
 import org.broadleafcommerce.core.offer.domain.OfferImpl;
@@ -41,6 +43,9 @@ import junit.framework.TestCase;
  */
 public class OrderOfferProcessorTest extends TestCase {
 
+    protected RuleExpressionService ruleExpressionService = new RuleExpressionServiceImpl();
+    protected OfferRuleAnalyzer offerRuleAnalyzer = new OfferRuleAnalyzerImpl();
+
     protected OfferDao offerDaoMock;
     protected OrderOfferProcessorImpl orderProcessor;
     protected OfferDataItemProvider dataProvider = new OfferDataItemProvider();
@@ -51,6 +56,8 @@ public class OrderOfferProcessorTest extends TestCase {
         offerDaoMock = EasyMock.createMock(OfferDao.class);
         offerTimeZoneProcessorMock = EasyMock.createMock(OfferTimeZoneProcessor.class);
         orderProcessor = new OrderOfferProcessorImpl();
+        orderProcessor.setRuleExpressionService(ruleExpressionService);
+        orderProcessor.setOfferRuleAnalyzer(offerRuleAnalyzer);
         orderProcessor.setOfferDao(offerDaoMock);
         orderProcessor.setOfferTimeZoneProcessor(offerTimeZoneProcessorMock);
         orderProcessor.setPromotableItemFactory(new PromotableItemFactoryImpl());
@@ -0,0 +1,289 @@
+/*
+ * Copyright 2008-2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.broadleafcommerce.core.order.service;
+
+import junit.framework.TestCase;
+import org.broadleafcommerce.core.order.dao.OrderLockDao;
+import org.broadleafcommerce.core.order.domain.OrderLock;
+import org.broadleafcommerce.core.order.domain.OrderLockImpl;
+import org.broadleafcommerce.core.order.service.exception.OrderLockAcquisitionFailureException;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+public class OrderLockManagerImplTest extends TestCase {
+
+    private static final Long ORDER_ID = 1L;
+
+    private OrderLockManagerImpl lockManager;
+    private ExecutorService executor;
+
+    @Override
+    protected void setUp() throws Exception {
+        lockManager = new OrderLockManagerImpl();
+        lockManager.setLockTimeout(5000);
+        executor = Executors.newCachedThreadPool();
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        executor.shutdownNow();
+    }
+
+    public void testLockIsReentrant() throws Exception {
+        Object outer = lockManager.acquireLock(ORDER_ID);
+        Object inner = lockManager.acquireLock(ORDER_ID);
+        assertSame(outer, inner);
+        assertFalse(lockManager.wasContended(inner));
+        assertEquals(1, lockManager.getAcquisitionCount());
+
+        lockManager.releaseLock(inner);
+        lockManager.setLockTimeout(50);
+        assertFalse(acquireInOtherThread(ORDER_ID).get());
+
+        lockManager.releaseLock(outer);
+        assertTrue(acquireInOtherThread(ORDER_ID).get());
+    }
+
+    public void testWaitingOperationProceedsOnceTheLockIsReleased() throws Exception {
+        Object lockObject = lockManager.acquireLock(ORDER_ID);
+        final CountDownLatch acquired = new CountDownLatch(1);
+        Future<Boolean> waiter = executor.submit(new Callable<Boolean>() {
+            @Override
+            public Boolean call() {
+                Object waiterLock = lockManager.acquireLock(ORDER_ID);
+                try {
+                    acquired.countDown();
+                    return lockManager.wasContended(waiterLock);
+                } finally {
+                    lockManager.releaseLock(waiterLock);
+                }
+            }
+        });
+        assertFalse(acquired.await(100, TimeUnit.MILLISECONDS));
+
+        lockManager.releaseLock(lockObject);
+        assertTrue(waiter.get(5, TimeUnit.SECONDS));
+        assertEquals(1, lockManager.getContendedAcquisitionCount());
+    }
+
+    public void testDifferentOrdersDoNotBlockEachOther() throws Exception {
+        Object lockObject = lockManager.acquireLock(ORDER_ID);
+        try {
+            lockManager.setLockTimeout(50);
+            assertTrue(acquireInOtherThread(2L).get());
+        } finally {
+            lockManager.releaseLock(lockObject);
+        }
+    }
+
+    public void testLaneIsDiscardedOnceUnused() throws Exception {
+        Object outer = lockManager.acquireLock(ORDER_ID);
+        Object inner = lockManager.acquireLock(ORDER_ID);
+        assertEquals(1, lockManager.getActiveLaneCount());
+        lockManager.releaseLock(inner);
+        assertEquals(1, lockManager.getActiveLaneCount());
+        lockManager.releaseLock(outer);
+        assertEquals(0, lockManager.getActiveLaneCount());
+
+        // A failed acquisition does not leave its lane behind either
+        Object lockObject = lockManager.acquireLock(ORDER_ID);
+        lockManager.setLockTimeout(50);
+        assertFalse(acquireInOtherThread(ORDER_ID).get());
+        assertEquals(1, lockManager.getFailedAcquisitionCount());
+        lockManager.releaseLock(lockObject);
+        assertEquals(0, lockManager.getActiveLaneCount());
+
+        // A new lane is created for the next operation on the order
+        lockObject = lockManager.acquireLock(ORDER_ID);
+        assertEquals(1, lockManager.getActiveLaneCount());
+        lockManager.releaseLock(lockObject);
+        assertEquals(0, lockManager.getActiveLaneCount());
+    }
+
+    public void testFirstLeaseIsCreatedInItsOwnTransaction() {
+        StubOrderLockDao orderLockDao = new StubOrderLockDao();
+        StubTransactionManager transactionManager = enableDatabaseLock(orderLockDao);
+
+        Object lockObject = lockManager.acquireLock(ORDER_ID);
+        OrderLock lease = orderLockDao.readLock(ORDER_ID);
+        assertTrue(lease.getLocked());
+        assertNotNull(lease.getLockKey());
+        assertTrue(transactionManager.propagationBehaviors.contains(TransactionDefinition.PROPAGATION_REQUIRES_NEW));
+
+        lockManager.releaseLock(lockObject);
+        assertFalse(lease.getLocked());
+
+        // The lease is reused by later operations
+        transactionManager.propagationBehaviors.clear();
+        lockObject = lockManager.acquireLock(ORDER_ID);
+        assertTrue(lease.getLocked());
+        assertFalse(transactionManager.propagationBehaviors.contains(TransactionDefinition.PROPAGATION_REQUIRES_NEW));
+        lockManager.releaseLock(lockObject);
+    }
+
+    public void testLeaseCreatedConcurrentlyByAnotherNodeIsAcquired() {
+        StubOrderLockDao orderLockDao = new StubOrderLockDao();
+        orderLockDao.concurrentlyCreated = true;
+        enableDatabaseLock(orderLockDao);
+
+        Object lockObject = lockManager.acquireLock(ORDER_ID);
+        assertTrue(orderLockDao.readLock(ORDER_ID).getLocked());
+        lockManager.releaseLock(lockObject);
+        assertFalse(orderLockDao.readLock(ORDER_ID).getLocked());
+    }
+
+    public void testLeaseHeldByAnotherNodeIsWaitedFor() throws Exception {
+        StubOrderLockDao orderLockDao = new StubOrderLockDao();
+        enableDatabaseLock(orderLockDao);
+        orderLockDao.createLock(ORDER_ID);
+        assertTrue(orderLockDao.acquireLock(ORDER_ID, "otherNode", 0));
+
+        lockManager.setLockTimeout(50);
+        assertFalse(acquireInOtherThread(ORDER_ID).get());
+
+        orderLockDao.releaseLock(ORDER_ID, "otherNode");
+        assertTrue(acquireInOtherThread(ORDER_ID).get());
+        assertEquals(0, lockManager.getActiveLaneCount());
+    }
+
+    protected StubTransactionManager enableDatabaseLock(OrderLockDao orderLockDao) {
+        StubTransactionManager transactionManager = new StubTransactionManager();
+        lockManager.databaseLockEnabled = true;
+        lockManager.retryInterval = 5;
+        lockManager.orderLockDao = orderLockDao;
+        lockManager.transactionManager = transactionManager;
+        return transactionManager;
+    }
+
+    /**
+     * @return whether another thread could acquire and release the lock on the given order
+     */
+    protected Future<Boolean> acquireInOtherThread(final Long orderId) {
+        return executor.submit(new Callable<Boolean>() {
+            @Override
+            public Boolean call() {
+                Object lockObject;
+                try {
+                    lockObject = lockManager.acquireLock(orderId);
+                } catch (OrderLockAcquisitionFailureException e) {
+                    return false;
+                }
+                lockManager.releaseLock(lockObject);
+                return true;
+            }
+        });
+    }
+
+    /**
+     * Holds the leases in memory, like the BLC_ORDER_LOCK table shared by the nodes of a cluster
+     */
+    protected static class StubOrderLockDao implements OrderLockDao {
+
+        protected final Map<Long, OrderLock> leases = new HashMap<Long, OrderLock>();
+
+        /**
+         * Whether another node inserts the lease of an order right before this one tries to
+         */
+        protected boolean concurrentlyCreated;
+
+        @Override
+        public synchronized boolean acquireLock(Long orderId, String lockKey, long expiredBefore) {
+            OrderLock lease = leases.get(orderId);
+            if (lease == null || (lease.getLocked() && lease.getLastUpdated() >= expiredBefore)) {
+                return false;
+            }
+            lease.setLocked(true);
+            lease.setLockKey(lockKey);
+            lease.setLastUpdated(System.currentTimeMillis());
+            return true;
+        }
+
+        @Override
+        public synchronized OrderLock readLock(Long orderId) {
+            return leases.get(orderId);
+        }
+
+        @Override
+        public synchronized void createLock(Long orderId) {
+            if (concurrentlyCreated) {
+                concurrentlyCreated = false;
+                insert(orderId);
+            }
+            if (leases.containsKey(orderId)) {
+                throw new IllegalStateException("Duplicate lease on order " + orderId);
+            }
+            insert(orderId);
+        }
+
+        @Override
+        public synchronized boolean releaseLock(Long orderId, String lockKey) {
+            OrderLock lease = leases.get(orderId);
+            if (lease == null || !lockKey.equals(lease.getLockKey())) {
+                return false;
+            }
+            lease.setLocked(false);
+            return true;
+        }
+
+        protected void insert(Long orderId) {
+            OrderLock lease = new OrderLockImpl();
+            lease.setOrderId(orderId);
+            lease.setLocked(false);
+            lease.setLastUpdated(System.currentTimeMillis());
+            leases.put(orderId, lease);
+        }
+
+    }
+
+    /**
+     * Starts a new transaction for every request and records the requested propagation behaviors
+     */
+    protected static class StubTransactionManager implements PlatformTransactionManager {
+
+        protected final List<Integer> propagationBehaviors = new ArrayList<Integer>();
+
+        @Override
+        public synchronized TransactionStatus getTransaction(TransactionDefinition definition) {
+            propagationBehaviors.add(definition.getPropagationBehavior());
+            return new SimpleTransactionStatus(true);
+        }
+
+        @Override
+        public void commit(TransactionStatus status) {
+            ((SimpleTransactionStatus) status).setCompleted();
+        }
+
+        @Override
+        public void rollback(TransactionStatus status) {
+            ((SimpleTransactionStatus) status).setCompleted();
+        }
+
+    }
+
+}
@@ -0,0 +1,126 @@
+/*
+ * Copyright 2008-2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.broadleafcommerce.core.pricing.service;
+
+import junit.framework.TestCase;
+import org.broadleafcommerce.common.money.Money;
+import org.broadleafcommerce.core.offer.domain.OfferCode;
+import org.broadleafcommerce.core.offer.domain.OfferCodeImpl;
+import org.broadleafcommerce.core.offer.service.OfferDataItemProvider;
+import org.broadleafcommerce.core.order.domain.DiscreteOrderItem;
+import org.broadleafcommerce.core.order.domain.Order;
+import org.broadleafcommerce.core.order.domain.OrderItemAttribute;
+import org.broadleafcommerce.core.order.domain.OrderItemAttributeImpl;
+
+public class PricingFingerprintServiceImplTest extends TestCase {
+
+    private OfferDataItemProvider dataProvider = new OfferDataItemProvider();
+    private PricingFingerprintServiceImpl fingerprintService = new PricingFingerprintServiceImpl();
+
+    @Override
+    protected void setUp() throws Exception {
+        fingerprintService.setMaxAge(0);
+    }
+
+    public void testUnchangedOrderKeepsFingerprint() throws Exception {
+        Order order = dataProvider.createBasicOrder();
+        assertEquals(fingerprintService.computeFingerprint(order), fingerprintService.computeFingerprint(order));
+    }
+
+    public void testIdsAreIgnored() throws Exception {
+        // Each order gets new order and item ids, everything else is the same
+        Order order1 = dataProvider.createBasicOrder();
+        Order order2 = dataProvider.createBasicOrder();
+        assertEquals(fingerprintService.computeFingerprint(order1), fingerprintService.computeFingerprint(order2));
+    }
+
+    public void testItemQuantityChangesFingerprint() throws Exception {
+        Order order = dataProvider.createBasicOrder();
+        String fingerprint = fingerprintService.computeFingerprint(order);
+        order.getOrderItems().get(0).setQuantity(5);
+        assertFalse(fingerprint.equals(fingerprintService.computeFingerprint(order)));
+    }
+
+    public void testItemPriceChangesFingerprint() throws Exception {
+        Order order = dataProvider.createBasicOrder();
+        String fingerprint = fingerprintService.computeFingerprint(order);
+        order.getOrderItems().get(0).setSalePrice(new Money(10D));
+        assertFalse(fingerprint.equals(fingerprintService.computeFingerprint(order)));
+    }
+
+    public void testPriceOverrideChangesFingerprint() throws Exception {
+        Order order = dataProvider.createBasicOrder();
+        String fingerprint = fingerprintService.computeFingerprint(order);
+        order.getOrderItems().get(0).setSalePriceOverride(true);
+        assertFalse(fingerprint.equals(fingerprintService.computeFingerprint(order)));
+    }
+
+    public void testSkuPriceChangesFingerprint() throws Exception {
+        Order order = dataProvider.createBasicOrder();
+        String fingerprint = fingerprintService.computeFingerprint(order);
+        ((DiscreteOrderItem) order.getOrderItems().get(1)).getSku().setRetailPrice(new Money(24.99D));
+        assertFalse(fingerprint.equals(fingerprintService.computeFingerprint(order)));
+    }
+
+    public void testItemAttributeChangesFingerprint() throws Exception {
+        Order order = dataProvider.createBasicOrder();
+        String fingerprint = fingerprintService.computeFingerprint(order);
+        OrderItemAttribute attribute = new OrderItemAttributeImpl();
+        attribute.setName("color");
+        attribute.setValue("red");
+        order.getOrderItems().get(0).getOrderItemAttributes().put("color", attribute);
+        assertFalse(fingerprint.equals(fingerprintService.computeFingerprint(order)));
+    }
+
+    public void testOfferCodeChangesFingerprint() throws Exception {
+        Order order = dataProvider.createBasicOrder();
+        String fingerprint = fingerprintService.computeFingerprint(order);
+        OfferCode offerCode = new OfferCodeImpl();
+        offerCode.setOfferCode("SAVE10");
+        order.getAddedOfferCodes().add(offerCode);
+        assertFalse(fingerprint.equals(fingerprintService.computeFingerprint(order)));
+    }
+
+    public void testCustomerRegistrationChangesFingerprint() throws Exception {
+        Order order = dataProvider.createBasicOrder();
+        String fingerprint = fingerprintService.computeFingerprint(order);
+        order.getCustomer().setRegistered(false);
+        assertFalse(fingerprint.equals(fingerprintService.computeFingerprint(order)));
+    }
+
+    public void testFulfillmentAddressChangesFingerprint() throws Exception {
+        Order order = dataProvider.createBasicOrder();
+        String fingerprint = fingerprintService.computeFingerprint(order);
+        order.getFulfillmentGroups().get(0).getAddress().setPostalCode("10001");
+        assertFalse(fingerprint.equals(fingerprintService.computeFingerprint(order)));
+    }
+
+    public void testFulfillmentQuantityChangesFingerprint() throws Exception {
+        Order order = dataProvider.createBasicOrder();
+        String fingerprint = fingerprintService.computeFingerprint(order);
+        order.getFulfillmentGroups().get(1).getFulfillmentGroupItems().get(0).setQuantity(1);
+        assertFalse(fingerprint.equals(fingerprintService.computeFingerprint(order)));
+    }
+
+    public void testFingerprintExpiresAfterMaxAge() throws Exception {
+        Order order = dataProvider.createBasicOrder();
+        fingerprintService.setMaxAge(1);
+        String fingerprint = fingerprintService.computeFingerprint(order);
+        Thread.sleep(5);
+        assertFalse(fingerprint.equals(fingerprintService.computeFingerprint(order)));
+    }
+
+}
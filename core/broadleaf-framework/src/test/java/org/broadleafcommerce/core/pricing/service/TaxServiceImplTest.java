@@ -0,0 +1,183 @@
+/*
+ * Copyright 2008-2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.broadleafcommerce.core.pricing.service;
+
+import junit.framework.TestCase;
+import org.broadleafcommerce.common.config.domain.AbstractModuleConfiguration;
+import org.broadleafcommerce.common.config.domain.ModuleConfiguration;
+import org.broadleafcommerce.common.config.service.ModuleConfigurationService;
+import org.broadleafcommerce.common.config.service.type.ModuleConfigurationType;
+import org.broadleafcommerce.common.money.Money;
+import org.broadleafcommerce.core.offer.service.OfferDataItemProvider;
+import org.broadleafcommerce.core.order.domain.FulfillmentGroup;
+import org.broadleafcommerce.core.order.domain.FulfillmentGroupItem;
+import org.broadleafcommerce.core.order.domain.Order;
+import org.broadleafcommerce.core.order.domain.TaxDetail;
+import org.broadleafcommerce.core.order.domain.TaxDetailImpl;
+import org.broadleafcommerce.core.order.domain.TaxType;
+import org.broadleafcommerce.core.pricing.service.exception.TaxException;
+import org.broadleafcommerce.core.pricing.service.tax.provider.TaxProvider;
+import org.easymock.EasyMock;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+public class TaxServiceImplTest extends TestCase {
+
+    private OfferDataItemProvider dataProvider = new OfferDataItemProvider();
+    private TaxServiceImpl taxService = new TaxServiceImpl();
+    private CountingTaxProvider provider = new CountingTaxProvider();
+
+    @Override
+    protected void setUp() throws Exception {
+        ModuleConfiguration config = new AbstractModuleConfiguration() {
+        };
+        config.setId(1L);
+        config.setIsDefault(true);
+        List<ModuleConfiguration> configurations = new ArrayList<ModuleConfiguration>();
+        configurations.add(config);
+
+        ModuleConfigurationService moduleConfigService = EasyMock.createMock(ModuleConfigurationService.class);
+        EasyMock.expect(moduleConfigService.findActiveConfigurationsByType(ModuleConfigurationType.TAX_CALCULATION))
+                .andReturn(configurations).anyTimes();
+        EasyMock.replay(moduleConfigService);
+
+        List<TaxProvider> providers = new ArrayList<TaxProvider>();
+        providers.add(provider);
+        taxService.moduleConfigService = moduleConfigService;
+        taxService.providers = providers;
+        taxService.cacheEnabled = true;
+    }
+
+    public void testCacheIsDisabledByDefault() throws Exception {
+        assertFalse(new TaxServiceImpl().cacheEnabled);
+        taxService.cacheEnabled = false;
+        Order order = dataProvider.createBasicOrder();
+        taxService.calculateTaxForOrder(order);
+        taxService.calculateTaxForOrder(order);
+        assertEquals(2, provider.calls);
+    }
+
+    public void testUnchangedOrderIsNotTaxedAgain() throws Exception {
+        Order order = dataProvider.createBasicOrder();
+        taxService.calculateTaxForOrder(order);
+        taxService.calculateTaxForOrder(order);
+        assertEquals(1, provider.calls);
+        assertEquals(1, taxService.getCacheSize());
+    }
+
+    public void testRememberedTaxesAreApplied() throws Exception {
+        taxService.calculateTaxForOrder(dataProvider.createBasicOrder());
+        Order order = dataProvider.createBasicOrder();
+        taxService.calculateTaxForOrder(order);
+        assertEquals(1, provider.calls);
+        for (FulfillmentGroup fulfillmentGroup : order.getFulfillmentGroups()) {
+            for (FulfillmentGroupItem fgItem : fulfillmentGroup.getFulfillmentGroupItems()) {
+                assertEquals(1, fgItem.getTaxes().size());
+                TaxDetail detail = fgItem.getTaxes().get(0);
+                assertEquals(TaxType.STATE, detail.getType());
+                assertEquals(0, new BigDecimal("0.0825").compareTo(detail.getRate()));
+            }
+        }
+    }
+
+    public void testTaxableAmountChangeIsTaxedAgain() throws Exception {
+        Order order = dataProvider.createBasicOrder();
+        taxService.calculateTaxForOrder(order);
+        order.getFulfillmentGroups().get(0).getFulfillmentGroupItems().get(0).setTotalItemTaxableAmount(new Money(5D));
+        taxService.calculateTaxForOrder(order);
+        assertEquals(2, provider.calls);
+    }
+
+    public void testAddressChangeIsTaxedAgain() throws Exception {
+        Order order = dataProvider.createBasicOrder();
+        taxService.calculateTaxForOrder(order);
+        order.getFulfillmentGroups().get(0).getAddress().setPostalCode("10001");
+        taxService.calculateTaxForOrder(order);
+        assertEquals(2, provider.calls);
+    }
+
+    public void testTaxExemptionChangeIsTaxedAgain() throws Exception {
+        Order order = dataProvider.createBasicOrder();
+        taxService.calculateTaxForOrder(order);
+        order.getCustomer().setTaxExemptionCode("RESALE");
+        taxService.calculateTaxForOrder(order);
+        assertEquals(2, provider.calls);
+    }
+
+    public void testOtherCustomerIsTaxedAgain() throws Exception {
+        Order order1 = dataProvider.createBasicOrder();
+        order1.getCustomer().setId(1L);
+        Order order2 = dataProvider.createBasicOrder();
+        order2.getCustomer().setId(2L);
+        taxService.calculateTaxForOrder(order1);
+        taxService.calculateTaxForOrder(order2);
+        assertEquals(2, provider.calls);
+    }
+
+    public void testOtherTaxDateIsTaxedAgain() throws Exception {
+        Order order = dataProvider.createBasicOrder();
+        taxService.calculateTaxForOrder(order);
+        order.setSubmitDate(new Date(0));
+        taxService.calculateTaxForOrder(order);
+        assertEquals(2, provider.calls);
+    }
+
+    public void testInvalidateAllIsTaxedAgain() throws Exception {
+        Order order = dataProvider.createBasicOrder();
+        taxService.calculateTaxForOrder(order);
+        taxService.invalidateAll();
+        taxService.calculateTaxForOrder(order);
+        assertEquals(2, provider.calls);
+    }
+
+    /**
+     * Taxes every fulfillment group item at a fixed state rate and counts how often it was called
+     */
+    private static class CountingTaxProvider implements TaxProvider {
+
+        private int calls = 0;
+
+        @Override
+        public boolean canRespond(ModuleConfiguration config) {
+            return true;
+        }
+
+        @Override
+        public Order calculateTaxForOrder(Order order, ModuleConfiguration config) throws TaxException {
+            calls++;
+            for (FulfillmentGroup fulfillmentGroup : order.getFulfillmentGroups()) {
+                for (FulfillmentGroupItem fgItem : fulfillmentGroup.getFulfillmentGroupItems()) {
+                    fgItem.getTaxes().clear();
+                    fgItem.getTaxes().add(new TaxDetailImpl(TaxType.STATE, new Money(1D), new BigDecimal("0.0825")));
+                }
+            }
+            return order;
+        }
+
+        @Override
+        public Order commitTaxForOrder(Order order, ModuleConfiguration config) throws TaxException {
+            return order;
+        }
+
+        @Override
+        public void cancelTax(Order order, ModuleConfiguration config) throws TaxException {
+        }
+    }
+
+}
@@ -0,0 +1,117 @@
+/*
+ * Copyright 2008-2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.broadleafcommerce.core.pricing.service.tax;
+
+import junit.framework.TestCase;
+import org.broadleafcommerce.profile.core.domain.Address;
+import org.broadleafcommerce.profile.core.domain.AddressImpl;
+import org.broadleafcommerce.profile.core.domain.Country;
+import org.broadleafcommerce.profile.core.domain.CountryImpl;
+import org.broadleafcommerce.profile.core.domain.State;
+import org.broadleafcommerce.profile.core.domain.StateImpl;
+
+import java.math.BigDecimal;
+import java.util.HashMap;
+import java.util.Map;
+
+public class TaxJurisdictionRateIndexTest extends TestCase {
+
+    private TaxJurisdictionRateIndex index;
+
+    @Override
+    protected void setUp() throws Exception {
+        Map<String, Double> postalCodeRates = new HashMap<String, Double>();
+        postalCodeRates.put("75244", 0.0825D);
+        Map<String, Double> cityRates = new HashMap<String, Double>();
+        cityRates.put("DALLAS", 0.08D);
+        Map<String, Double> stateRates = new HashMap<String, Double>();
+        stateRates.put("TX", 0.0625D);
+        stateRates.put("CALIFORNIA", 0.075D);
+        Map<String, Double> countryRates = new HashMap<String, Double>();
+        countryRates.put("US", 0.05D);
+        countryRates.put("CANADA", 0.13D);
+        index = new TaxJurisdictionRateIndex(postalCodeRates, cityRates, stateRates, countryRates, 0.01D);
+    }
+
+    public void testPostalCodeIsCheckedFirst() throws Exception {
+        assertRate("0.0825", createAddress("75244", "Dallas", "TX", "Texas", "US", "United States"));
+    }
+
+    public void testCityIsCheckedBeforeState() throws Exception {
+        assertRate("0.08", createAddress("75001", "Dallas", "TX", "Texas", "US", "United States"));
+    }
+
+    public void testCityIsCaseInsensitive() throws Exception {
+        assertRate("0.08", createAddress(null, "dallas", null, null, null, null));
+    }
+
+    public void testStateIsCheckedBeforeCountry() throws Exception {
+        assertRate("0.0625", createAddress("77001", "Houston", "TX", "Texas", "US", "United States"));
+    }
+
+    public void testStateNameIsCheckedAfterAbbreviation() throws Exception {
+        assertRate("0.075", createAddress("90001", "Los Angeles", "CA", "California", "US", "United States"));
+    }
+
+    public void testCountryIsCheckedBeforeDefault() throws Exception {
+        assertRate("0.05", createAddress("10001", "New York", "NY", "New York", "US", "United States"));
+    }
+
+    public void testCountryNameIsCheckedAfterAbbreviation() throws Exception {
+        assertRate("0.13", createAddress("M5V", "Toronto", "ON", "Ontario", "CA", "Canada"));
+    }
+
+    public void testDefaultRateIsTheLastFallback() throws Exception {
+        assertRate("0.01", createAddress("10115", "Berlin", "BE", "Berlin", "DE", "Germany"));
+        assertRate("0.01", null);
+    }
+
+    public void testRatesKeepTheirDecimalValue() throws Exception {
+        assertEquals(new BigDecimal("0.0825"), 
+                index.resolveRate(createAddress("75244", null, null, null, null, null)));
+    }
+
+    public void testResolvedRateIsNotSharedWithOtherJurisdictions() throws Exception {
+        assertRate("0.0825", createAddress("75244", "Dallas", "TX", "Texas", "US", "United States"));
+        assertRate("0.08", createAddress("75001", "Dallas", "TX", "Texas", "US", "United States"));
+        assertRate("0.0825", createAddress("75244", "Dallas", "TX", "Texas", "US", "United States"));
+    }
+
+    private void assertRate(String expected, Address address) {
+        assertEquals(0, new BigDecimal(expected).compareTo(index.resolveRate(address)));
+    }
+
+    private Address createAddress(String postalCode, String city, String stateAbbreviation, String stateName,
+            String countryAbbreviation, String countryName) {
+        Address address = new AddressImpl();
+        address.setPostalCode(postalCode);
+        address.setCity(city);
+        if (stateAbbreviation != null) {
+            State state = new StateImpl();
+            state.setAbbreviation(stateAbbreviation);
+            state.setName(stateName);
+            address.setState(state);
+        }
+        if (countryAbbreviation != null) {
+            Country country = new CountryImpl();
+            country.setAbbreviation(countryAbbreviation);
+            country.setName(countryName);
+            address.setCountry(country);
+        }
+        return address;
+    }
+
+}
@@ -0,0 +1,100 @@
+/*
+ * Copyright 2008-2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.broadleafcommerce.core.search.service.solr;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import junit.framework.TestCase;
+
+public class CategoryIndexSnapshotTest extends TestCase {
+
+    protected List<Long[]> parentIds;
+    protected List<Long[]> categoryProductIds;
+
+    @Override
+    protected void setUp() throws Exception {
+        parentIds = new ArrayList<Long[]>();
+        categoryProductIds = new ArrayList<Long[]>();
+    }
+
+    public void testAncestorsThroughDefaultParentsAndXrefs() throws Exception {
+        // 1 <- 2 <- 3, and 3 is also cross referenced into 4
+        parentIds.add(new Long[] { 2L, 1L });
+        parentIds.add(new Long[] { 3L, 2L });
+        parentIds.add(new Long[] { 3L, 4L });
+        CategoryIndexSnapshot snapshot = new CategoryIndexSnapshot(parentIds, categoryProductIds);
+
+        assertEquals(4, snapshot.getCategoryCount());
+        assertEquals(Arrays.asList(1L, 2L, 3L, 4L), sorted(snapshot.getAncestorIds(3L)));
+        assertEquals(Arrays.asList(1L, 2L), sorted(snapshot.getAncestorIds(2L)));
+        assertEquals(Arrays.asList(1L), sorted(snapshot.getAncestorIds(1L)));
+        assertEquals(3L, snapshot.getAncestorIds(3L)[0]);
+    }
+
+    public void testCycleIsOnlyVisitedOnce() throws Exception {
+        parentIds.add(new Long[] { 1L, 2L });
+        parentIds.add(new Long[] { 2L, 1L });
+        CategoryIndexSnapshot snapshot = new CategoryIndexSnapshot(parentIds, categoryProductIds);
+
+        assertEquals(Arrays.asList(1L, 2L), sorted(snapshot.getAncestorIds(1L)));
+        assertEquals(Arrays.asList(1L, 2L), sorted(snapshot.getAncestorIds(2L)));
+    }
+
+    public void testUnknownCategoryIsItsOwnAncestor() throws Exception {
+        CategoryIndexSnapshot snapshot = new CategoryIndexSnapshot(parentIds, categoryProductIds);
+
+        assertEquals(0, snapshot.getCategoryCount());
+        assertEquals(Arrays.asList(42L), sorted(snapshot.getAncestorIds(42L)));
+    }
+
+    public void testProductPositionsFollowDisplayOrder() throws Exception {
+        categoryProductIds.add(new Long[] { 10L, 300L });
+        categoryProductIds.add(new Long[] { 10L, 100L });
+        categoryProductIds.add(new Long[] { 10L, 200L });
+        // A product listed twice keeps its first position
+        categoryProductIds.add(new Long[] { 10L, 300L });
+        categoryProductIds.add(new Long[] { 20L, 100L });
+        CategoryIndexSnapshot snapshot = new CategoryIndexSnapshot(parentIds, categoryProductIds);
+
+        assertEquals(0, snapshot.getProductPosition(10L, 300L));
+        assertEquals(1, snapshot.getProductPosition(10L, 100L));
+        assertEquals(2, snapshot.getProductPosition(10L, 200L));
+        assertEquals(0, snapshot.getProductPosition(20L, 100L));
+    }
+
+    public void testProductNotInCategory() throws Exception {
+        parentIds.add(new Long[] { 20L, 10L });
+        categoryProductIds.add(new Long[] { 10L, 100L });
+        CategoryIndexSnapshot snapshot = new CategoryIndexSnapshot(parentIds, categoryProductIds);
+
+        assertEquals(-1, snapshot.getProductPosition(10L, 999L));
+        assertEquals(-1, snapshot.getProductPosition(20L, 100L));
+        assertEquals(-1, snapshot.getProductPosition(30L, 100L));
+    }
+
+    protected List<Long> sorted(long[] ids) {
+        List<Long> result = new ArrayList<Long>();
+        for (long id : ids) {
+            result.add(id);
+        }
+        Collections.sort(result);
+        return result;
+    }
+
+}
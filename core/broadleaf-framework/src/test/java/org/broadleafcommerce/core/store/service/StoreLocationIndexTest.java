@@ -0,0 +1,139 @@
+/*
+ * Copyright 2008-2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.broadleafcommerce.core.store.service;
+
+import org.broadleafcommerce.core.store.domain.Store;
+import org.broadleafcommerce.core.store.domain.StoreImpl;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import junit.framework.TestCase;
+
+public class StoreLocationIndexTest extends TestCase {
+
+    public void testStoresWithoutCoordinatesAreSkipped() throws Exception {
+        List<Store> stores = new ArrayList<Store>();
+        stores.add(createStore("dallas", 32.78, -96.80));
+        stores.add(createStore("unknown", null, -96.80));
+        StoreLocationIndex index = new StoreLocationIndex(stores);
+
+        assertEquals(1, index.getStoreCount());
+        assertEquals(1, index.findWithinDistance(32.78, -96.80, 10000).size());
+    }
+
+    public void testDistanceInMiles() throws Exception {
+        List<Store> stores = new ArrayList<Store>();
+        Store dallas = createStore("dallas", 32.7767, -96.7970);
+        Store austin = createStore("austin", 30.2672, -97.7431);
+        stores.add(dallas);
+        stores.add(austin);
+        StoreLocationIndex index = new StoreLocationIndex(stores);
+
+        Map<Store, Double> result = index.findWithinDistance(32.7767, -96.7970, 200);
+        assertEquals(2, result.size());
+        assertEquals(0, result.get(dallas), 0.001);
+        // Dallas to Austin is about 182 miles as the crow flies
+        assertEquals(182, result.get(austin), 2);
+
+        assertEquals(1, index.findWithinDistance(32.7767, -96.7970, 150).size());
+    }
+
+    public void testSearchAcrossTheDateLine() throws Exception {
+        List<Store> stores = new ArrayList<Store>();
+        Store east = createStore("east", 0, 179.9);
+        Store west = createStore("west", 0, -179.9);
+        stores.add(east);
+        stores.add(west);
+        StoreLocationIndex index = new StoreLocationIndex(stores);
+
+        Map<Store, Double> result = index.findWithinDistance(0, 179.95, 20);
+        assertEquals(2, result.size());
+        assertTrue(result.containsKey(west));
+    }
+
+    public void testMatchesBruteForce() throws Exception {
+        Random random = new Random(42);
+        List<Store> stores = new ArrayList<Store>();
+        for (int i = 0; i < 500; i++) {
+            stores.add(createStore("store" + i, random.nextDouble() * 180 - 90, random.nextDouble() * 360 - 180));
+        }
+        StoreLocationIndex index = new StoreLocationIndex(stores);
+
+        for (int i = 0; i < 50; i++) {
+            double latitude = random.nextDouble() * 180 - 90;
+            double longitude = random.nextDouble() * 360 - 180;
+            double distance = random.nextDouble() * 3000;
+            List<Store> expected = bruteForce(index, stores, latitude, longitude, distance);
+
+            Map<Store, Double> within = index.findWithinDistance(latitude, longitude, distance);
+            assertEquals(expected, new ArrayList<Store>(within.keySet()));
+
+            Map<Store, Double> nearest = index.findNearest(latitude, longitude, distance, 5);
+            assertEquals(expected.subList(0, Math.min(5, expected.size())), new ArrayList<Store>(nearest.keySet()));
+        }
+    }
+
+    public void testNearestWithoutLimit() throws Exception {
+        List<Store> stores = new ArrayList<Store>();
+        stores.add(createStore("dallas", 32.78, -96.80));
+        StoreLocationIndex index = new StoreLocationIndex(stores);
+
+        assertTrue(index.findNearest(32.78, -96.80, 100, 0).isEmpty());
+        assertTrue(new StoreLocationIndex(new ArrayList<Store>()).findNearest(32.78, -96.80, 100, 5).isEmpty());
+    }
+
+    protected List<Store> bruteForce(final StoreLocationIndex index, List<Store> stores, double latitude, 
+            double longitude, double distance) {
+        final double[] point = index.toPoint(latitude, longitude);
+        List<Store> matches = new ArrayList<Store>();
+        for (Store store : stores) {
+            if (miles(index, store, point) <= distance) {
+                matches.add(store);
+            }
+        }
+        Collections.sort(matches, new Comparator<Store>() {
+            @Override
+            public int compare(Store o1, Store o2) {
+                return Double.compare(miles(index, o1, point), miles(index, o2, point));
+            }
+        });
+        return matches;
+    }
+
+    protected double miles(StoreLocationIndex index, Store store, double[] point) {
+        double[] storePoint = index.toPoint(store.getLatitude(), store.getLongitude());
+        return index.toMiles(index.chordDistance(storePoint, point));
+    }
+
+    protected Store createStore(String id, Double latitude, Double longitude) {
+        Store store = new StoreImpl();
+        store.setId(id);
+        store.setName(id);
+        store.setLatitude(latitude);
+        store.setLongitude(longitude);
+        return store;
+    }
+
+    protected Store createStore(String id, double latitude, double longitude) {
+        return createStore(id, Double.valueOf(latitude), Double.valueOf(longitude));
+    }
+
+}
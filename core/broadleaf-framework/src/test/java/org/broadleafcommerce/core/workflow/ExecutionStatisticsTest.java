@@ -0,0 +1,116 @@
+/*
+ * Copyright 2008-2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.broadleafcommerce.core.workflow;
+
+import junit.framework.TestCase;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+public class ExecutionStatisticsTest extends TestCase {
+
+    private ExecutionStatistics statistics = new ExecutionStatistics("checkoutWorkflow");
+
+    public void testCountsInvocationsErrorsAndSkips() {
+        statistics.recordExecution(millis(3), false);
+        statistics.recordExecution(millis(4), true);
+        statistics.recordSkip();
+
+        assertEquals("checkoutWorkflow", statistics.getName());
+        assertEquals(2, statistics.getInvocations());
+        assertEquals(1, statistics.getErrors());
+        assertEquals(1, statistics.getSkips());
+    }
+
+    public void testTotalMaxAndAverageTime() {
+        statistics.recordExecution(millis(10), false);
+        statistics.recordExecution(millis(30), false);
+        statistics.recordExecution(millis(20), false);
+
+        assertEquals(60, statistics.getTotalTime());
+        assertEquals(30, statistics.getMaxTime());
+        assertEquals(20D, statistics.getAverageTime(), 0.0001D);
+    }
+
+    public void testEmptyStatistics() {
+        assertEquals(0, statistics.getPercentile(99));
+        assertEquals(0D, statistics.getAverageTime(), 0D);
+        assertEquals(0, statistics.getMaxTime());
+    }
+
+    public void testPercentilesAreReportedAsBucketUpperBounds() {
+        for (int i = 0; i < 98; i++) {
+            statistics.recordExecution(TimeUnit.MICROSECONDS.toNanos(500), false);
+        }
+        statistics.recordExecution(millis(30), false);
+        statistics.recordExecution(millis(300), false);
+
+        assertEquals(1, statistics.getPercentile(50));
+        assertEquals(1, statistics.getPercentile(98));
+        assertEquals(50, statistics.getPercentile(99));
+        assertEquals(500, statistics.getPercentile(100));
+    }
+
+    public void testSlowestBucketIsUnbounded() {
+        statistics.recordExecution(millis(20000), false);
+
+        assertEquals(-1, statistics.getPercentile(50));
+        assertTrue(statistics.toString().contains("p50 [>=10000ms]"));
+        assertTrue(statistics.getHistogram().endsWith(">=10000ms=1"));
+    }
+
+    public void testHistogramCountsEachBucket() {
+        statistics.recordExecution(millis(0), false);
+        statistics.recordExecution(millis(1), false);
+        statistics.recordExecution(millis(1), false);
+        statistics.recordExecution(millis(7), false);
+
+        assertTrue(statistics.getHistogram().startsWith("<1ms=1, <2ms=2, <5ms=0, <10ms=1, <25ms=0"));
+    }
+
+    public void testConcurrentRecording() throws Exception {
+        final int threads = 4;
+        final int executions = 10000;
+        List<Thread> workers = new ArrayList<Thread>();
+        for (int i = 0; i < threads; i++) {
+            final long nanos = millis(i);
+            Thread worker = new Thread() {
+                @Override
+                public void run() {
+                    for (int j = 0; j < executions; j++) {
+                        statistics.recordExecution(nanos, j % 2 == 0);
+                    }
+                }
+            };
+            workers.add(worker);
+            worker.start();
+        }
+        for (Thread worker : workers) {
+            worker.join();
+        }
+
+        assertEquals(threads * executions, statistics.getInvocations());
+        assertEquals(threads * executions / 2, statistics.getErrors());
+        assertEquals((0 + 1 + 2 + 3) * executions, statistics.getTotalTime());
+        assertEquals(3, statistics.getMaxTime());
+    }
+
+    protected long millis(long millis) {
+        return TimeUnit.MILLISECONDS.toNanos(millis);
+    }
+
+}
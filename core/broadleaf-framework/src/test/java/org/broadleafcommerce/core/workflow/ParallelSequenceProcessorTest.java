@@ -0,0 +1,226 @@
+/*
+ * Copyright 2008-2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.broadleafcommerce.core.workflow;
+
+import junit.framework.TestCase;
+import org.broadleafcommerce.core.workflow.state.ActivityStateManagerImpl;
+import org.broadleafcommerce.core.workflow.state.RollbackFailureException;
+import org.broadleafcommerce.core.workflow.state.RollbackHandler;
+import org.broadleafcommerce.core.workflow.state.RollbackStateLocal;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+public class ParallelSequenceProcessorTest extends TestCase {
+
+    private ParallelSequenceProcessor processor = new ParallelSequenceProcessor();
+    private ExecutorService executorService;
+    private List<String> executed = Collections.synchronizedList(new ArrayList<String>());
+    private List<String> rolledBack = new ArrayList<String>();
+    private List<Throwable> handledErrors = new ArrayList<Throwable>();
+
+    @Override
+    protected void setUp() throws Exception {
+        new ActivityStateManagerImpl().init();
+        RollbackStateLocal rollbackStateLocal = new RollbackStateLocal();
+        rollbackStateLocal.setThreadId(String.valueOf(Thread.currentThread().getId()));
+        rollbackStateLocal.setWorkflowId("testWorkflow");
+        RollbackStateLocal.setRollbackStateLocal(rollbackStateLocal);
+
+        executorService = Executors.newFixedThreadPool(2);
+        processor.setBeanName("testWorkflow");
+        processor.setExecutorService(executorService);
+        processor.setDefaultErrorHandler(new ErrorHandler() {
+            @Override
+            public void handleError(ProcessContext context, Throwable th) throws WorkflowException {
+                handledErrors.add(th);
+            }
+
+            @Override
+            public void setBeanName(String name) {
+            }
+        });
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        ActivityStateManagerImpl.getStateManager().clearAllState();
+        RollbackStateLocal.setRollbackStateLocal(null);
+        executorService.shutdown();
+    }
+
+    public void testUndeclaredActivitiesRunInSequence() throws Exception {
+        TestActivity a = new TestActivity("a", null, null);
+        TestActivity b = new TestActivity("b", null, null);
+        TestActivity c = new TestActivity("c", null, null);
+        assertStages(processor.buildStages(activities(a, b, c)), "[[a], [b], [c]]");
+    }
+
+    public void testUndeclaredActivityConflictsWithDeclaredActivity() throws Exception {
+        TestActivity a = new TestActivity("a", set("order"), null);
+        TestActivity b = new TestActivity("b", null, null);
+        assertTrue(processor.conflicts(a, b));
+        assertTrue(processor.conflicts(b, a));
+    }
+
+    public void testReadsDoNotConflict() throws Exception {
+        TestActivity a = new TestActivity("a", set("order"), null);
+        TestActivity b = new TestActivity("b", set("order"), set("payment"));
+        assertFalse(processor.conflicts(a, b));
+        assertStages(processor.buildStages(activities(a, b)), "[[a, b]]");
+    }
+
+    public void testWriteConflictsWithReadAndWrite() throws Exception {
+        TestActivity writer = new TestActivity("writer", null, set("order"));
+        TestActivity reader = new TestActivity("reader", set("order"), null);
+        TestActivity otherWriter = new TestActivity("otherWriter", null, set("order"));
+        assertTrue(processor.conflicts(writer, reader));
+        assertTrue(processor.conflicts(reader, writer));
+        assertTrue(processor.conflicts(writer, otherWriter));
+    }
+
+    public void testNestedPathsConflict() throws Exception {
+        TestActivity a = new TestActivity("a", null, set("order.items"));
+        TestActivity b = new TestActivity("b", set("order"), null);
+        TestActivity c = new TestActivity("c", set("order.itemsTotal"), null);
+        assertTrue(processor.conflicts(a, b));
+        assertFalse(processor.conflicts(a, c));
+    }
+
+    public void testActivityIsScheduledAfterItsLatestConflict() throws Exception {
+        TestActivity a = new TestActivity("a", null, set("order"));
+        TestActivity b = new TestActivity("b", null, set("payment"));
+        TestActivity c = new TestActivity("c", set("order"), set("tax"));
+        TestActivity d = new TestActivity("d", set("tax"), null);
+        TestActivity e = new TestActivity("e", set("payment"), null);
+        assertStages(processor.buildStages(activities(a, b, c, d, e)), "[[a, b], [c, e], [d]]");
+    }
+
+    public void testStagesKeepTheConfiguredOrder() throws Exception {
+        TestActivity a = new TestActivity("a", set("x"), null);
+        TestActivity b = new TestActivity("b", set("y"), null);
+        TestActivity c = new TestActivity("c", set("z"), null);
+        processor.setActivities(activities(a, b, c));
+        processor.executeActivities(new TestContext(), null, false);
+        assertStages(processor.stages, "[[a, b, c]]");
+        assertEquals(3, executed.size());
+        assertTrue(executed.containsAll(Arrays.asList("a", "b", "c")));
+    }
+
+    public void testFailureRollsBackEverySuccessfulActivityOfTheStage() throws Exception {
+        TestActivity a = new TestActivity("a", set("x"), null);
+        TestActivity b = new TestActivity("b", set("y"), null);
+        b.fail = true;
+        TestActivity c = new TestActivity("c", set("z"), null);
+        TestActivity d = new TestActivity("d", null, null);
+        processor.setActivities(activities(a, b, c, d));
+
+        processor.executeActivities(new TestContext(), null, false);
+
+        assertEquals(1, handledErrors.size());
+        assertEquals(Arrays.asList("a", "c"), rolledBack);
+        assertFalse(executed.contains("d"));
+    }
+
+    public void testStoppedContextRegistersEverySuccessfulActivityOfTheStage() throws Exception {
+        TestActivity a = new TestActivity("a", set("x"), null);
+        a.stop = true;
+        TestActivity b = new TestActivity("b", set("y"), null);
+        TestActivity c = new TestActivity("c", null, null);
+        processor.setActivities(activities(a, b, c));
+
+        ProcessContext context = processor.executeActivities(new TestContext(), null, false);
+
+        assertTrue(context.isStopped());
+        assertFalse(executed.contains("c"));
+        ActivityStateManagerImpl.getStateManager().rollbackAllState();
+        assertEquals(Arrays.asList("a", "b"), rolledBack);
+    }
+
+    protected void assertStages(List<List<Activity<ProcessContext>>> stages, String expected) {
+        assertEquals(expected, processor.describeStages(stages));
+    }
+
+    protected List<Activity<ProcessContext>> activities(Activity<ProcessContext>... activities) {
+        return new ArrayList<Activity<ProcessContext>>(Arrays.asList(activities));
+    }
+
+    protected Set<String> set(String... values) {
+        return new HashSet<String>(Arrays.asList(values));
+    }
+
+    protected class TestActivity extends BaseActivity<ProcessContext> {
+
+        protected boolean fail = false;
+        protected boolean stop = false;
+
+        public TestActivity(final String name, Set<String> reads, Set<String> writes) {
+            setBeanName(name);
+            setContextReads(reads);
+            setContextWrites(writes);
+            setAutomaticallyRegisterRollbackHandler(true);
+            setRollbackHandler(new RollbackHandler() {
+                @Override
+                public void rollbackState(Activity<? extends ProcessContext> activity, ProcessContext processContext,
+                        Map<String, Object> stateConfiguration) throws RollbackFailureException {
+                    rolledBack.add(name);
+                }
+            });
+        }
+
+        @Override
+        public ProcessContext execute(ProcessContext context) throws Exception {
+            executed.add(getBeanName());
+            if (fail) {
+                throw new IllegalStateException(getBeanName() + " failed");
+            }
+            if (stop) {
+                context.stopProcess();
+            }
+            return context;
+        }
+    }
+
+    protected static class TestContext implements ProcessContext {
+
+        private static final long serialVersionUID = 1L;
+
+        protected boolean stopped = false;
+
+        @Override
+        public boolean stopProcess() {
+            stopped = true;
+            return stopped;
+        }
+
+        @Override
+        public boolean isStopped() {
+            return stopped;
+        }
+
+        @Override
+        public void setSeedData(Object seedObject) {
+        }
+    }
+
+}
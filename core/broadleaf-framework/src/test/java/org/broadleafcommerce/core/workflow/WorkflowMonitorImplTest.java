@@ -0,0 +1,93 @@
+/*
+ * Copyright 2008-2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.broadleafcommerce.core.workflow;
+
+import junit.framework.TestCase;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+public class WorkflowMonitorImplTest extends TestCase {
+
+    private WorkflowMonitorImpl monitor = new WorkflowMonitorImpl();
+
+    public void testActivitiesAreNamedAfterTheirWorkflow() {
+        monitor.recordActivity("blCheckoutWorkflow", "blPaymentServiceActivity", millis(5), false);
+        monitor.recordActivity("blCheckoutWorkflow", "blPaymentServiceActivity", millis(5), true);
+        monitor.recordActivitySkipped("blCheckoutWorkflow", "blPaymentServiceActivity");
+        monitor.recordActivity("blPricingWorkflow", "blPaymentServiceActivity", millis(5), false);
+
+        List<ExecutionStatistics> statistics = monitor.getActivityStatistics();
+        assertEquals(2, statistics.size());
+        ExecutionStatistics checkout = find(statistics, "blCheckoutWorkflow.blPaymentServiceActivity");
+        assertEquals(2, checkout.getInvocations());
+        assertEquals(1, checkout.getErrors());
+        assertEquals(1, checkout.getSkips());
+        assertEquals(1, find(statistics, "blPricingWorkflow.blPaymentServiceActivity").getInvocations());
+        assertTrue(monitor.getWorkflowStatistics().isEmpty());
+    }
+
+    public void testStatisticsAreSortedBySlowestTotalTime() {
+        monitor.recordWorkflow("blPricingWorkflow", millis(10), false);
+        monitor.recordWorkflow("blCheckoutWorkflow", millis(40), false);
+        monitor.recordWorkflow("blAddItemWorkflow", millis(15), false);
+        monitor.recordWorkflow("blAddItemWorkflow", millis(15), false);
+
+        List<ExecutionStatistics> statistics = monitor.getWorkflowStatistics();
+        assertEquals("blCheckoutWorkflow", statistics.get(0).getName());
+        assertEquals("blAddItemWorkflow", statistics.get(1).getName());
+        assertEquals("blPricingWorkflow", statistics.get(2).getName());
+
+        String[] summaries = monitor.getWorkflowSummaries();
+        assertEquals(3, summaries.length);
+        assertTrue(summaries[0].startsWith("blCheckoutWorkflow: invocations [1]"));
+    }
+
+    public void testWorkflowActivitySummariesOnlyIncludeThatWorkflow() {
+        monitor.recordActivity("blCheckoutWorkflow", "first", millis(1), false);
+        monitor.recordActivity("blCheckoutWorkflow", "second", millis(2), false);
+        monitor.recordActivity("blCheckoutWorkflowExtension", "third", millis(3), false);
+
+        String[] summaries = monitor.getWorkflowActivitySummaries("blCheckoutWorkflow");
+        assertEquals(2, summaries.length);
+        assertTrue(summaries[0].startsWith("blCheckoutWorkflow.second:"));
+        assertTrue(summaries[1].startsWith("blCheckoutWorkflow.first:"));
+    }
+
+    public void testResetDiscardsAllStatistics() {
+        monitor.recordWorkflow("blCheckoutWorkflow", millis(1), false);
+        monitor.recordActivity("blCheckoutWorkflow", "first", millis(1), false);
+
+        monitor.resetStatistics();
+        assertTrue(monitor.getWorkflowStatistics().isEmpty());
+        assertTrue(monitor.getActivityStatistics().isEmpty());
+    }
+
+    protected ExecutionStatistics find(List<ExecutionStatistics> statistics, String name) {
+        for (ExecutionStatistics stats : statistics) {
+            if (stats.getName().equals(name)) {
+                return stats;
+            }
+        }
+        fail("No statistics for " + name);
+        return null;
+    }
+
+    protected long millis(long millis) {
+        return TimeUnit.MILLISECONDS.toNanos(millis);
+    }
+
+}
@@ -24,4 +24,14 @@ public interface IdGenerationDao {
 
     public IdGeneration findNextId(String idType) throws OptimisticLockException, Exception;
 
+    /**
+     * Reserves the next range of ids for the given type. The range starts at the stored batch start and, unless the 
+     * type has an end, contains batchSize ids; the stored batch size is left as it is.
+     * 
+     * @param idType
+     * @param batchSize the number of ids to reserve, or null to use the batch size stored for the type
+     * @return an IdGeneration whose batch start and batch size describe the reserved range
+     */
+    public IdGeneration findNextId(String idType, Long batchSize) throws OptimisticLockException, Exception;
+
 }
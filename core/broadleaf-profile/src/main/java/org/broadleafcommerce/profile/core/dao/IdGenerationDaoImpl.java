@@ -45,16 +45,23 @@ public class IdGenerationDaoImpl implements IdGenerationDao {
     protected EntityConfiguration entityConfiguration;
 
     public IdGeneration findNextId(String idType) throws OptimisticLockException, Exception {
+        return findNextId(idType, null);
+    }
+
+    public IdGeneration findNextId(String idType, Long batchSize) throws OptimisticLockException, Exception {
         IdGeneration response;
         Query query = em.createNamedQuery("BC_FIND_NEXT_ID");
         query.setParameter("idType", idType);
         try {
             IdGeneration idGeneration =  (IdGeneration) query.getSingleResult();
             response =  (IdGeneration) entityConfiguration.createEntityInstance("org.broadleafcommerce.profile.core.domain.IdGeneration");
-            response.setBatchSize(idGeneration.getBatchSize());
+            if (batchSize == null) {
+                batchSize = idGeneration.getBatchSize();
+            }
+            response.setBatchSize(batchSize);
             response.setBatchStart(idGeneration.getBatchStart());
             Long originalBatchStart = idGeneration.getBatchStart();
-            idGeneration.setBatchStart(originalBatchStart + idGeneration.getBatchSize());
+            idGeneration.setBatchStart(originalBatchStart + batchSize);
             if (idGeneration.getBegin() != null) {
                 response.setBegin(idGeneration.getBegin());
                 if (idGeneration.getBatchStart() < idGeneration.getBegin()) {
@@ -81,21 +88,29 @@ public class IdGenerationDaoImpl implements IdGenerationDao {
             if (LOG.isDebugEnabled()) {
                 LOG.debug("No row found in idGenerator table for " + idType + " creating row.");
             }
-            response =  (IdGeneration) entityConfiguration.createEntityInstance("org.broadleafcommerce.profile.core.domain.IdGeneration");
-            response.setType(idType);
-            response.setBegin(null);
-            response.setEnd(null);
-            response.setBatchStart(getDefaultBatchStart());
-            response.setBatchSize(getDefaultBatchSize());
+            if (batchSize == null) {
+                batchSize = getDefaultBatchSize();
+            }
+            // The new row starts after the range handed out here, so that the next call does not return it again
+            IdGeneration idGeneration = (IdGeneration) entityConfiguration.createEntityInstance("org.broadleafcommerce.profile.core.domain.IdGeneration");
+            idGeneration.setType(idType);
+            idGeneration.setBegin(null);
+            idGeneration.setEnd(null);
+            idGeneration.setBatchStart(getDefaultBatchStart() + batchSize);
+            idGeneration.setBatchSize(getDefaultBatchSize());
             try {
-                em.persist(response);
+                em.persist(idGeneration);
                 em.flush();
             } catch (EntityExistsException e) {
                 if (LOG.isWarnEnabled()) {
                     LOG.warn("Error inserting row id generation for idType " + idType + ".  Requerying table.");
                 }
-                return findNextId(idType);
+                return findNextId(idType, batchSize);
             }
+            response = (IdGeneration) entityConfiguration.createEntityInstance("org.broadleafcommerce.profile.core.domain.IdGeneration");
+            response.setType(idType);
+            response.setBatchStart(getDefaultBatchStart());
+            response.setBatchSize(batchSize);
         }
         
         return response;
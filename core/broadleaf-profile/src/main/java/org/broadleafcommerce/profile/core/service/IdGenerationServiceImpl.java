@@ -13,21 +13,57 @@
  * See the License for the specific language governing permissions and
  * limitations under the License.
  */
-
 package org.broadleafcommerce.profile.core.service;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.broadleafcommerce.profile.core.dao.IdGenerationDao;
 import org.broadleafcommerce.profile.core.domain.IdGeneration;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jmx.export.annotation.ManagedAttribute;
+import org.springframework.jmx.export.annotation.ManagedResource;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.DefaultTransactionDefinition;
 
+import javax.annotation.PreDestroy;
 import javax.annotation.Resource;
 import javax.persistence.OptimisticLockException;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.ReentrantLock;
 
+/**
+ * Hands out ids from ranges reserved in the id generation table. Taking an id from the current range of a type is a 
+ * single compare-and-set. Once the remaining ids of the range fall to the low water mark, the next range is reserved
+ * on a background thread, so that callers normally never wait for the database. Only when a range is exhausted 
+ * before its successor is available does the caller reserve (or wait for) the next range itself.
+ * 
+ * The size of the ranges adapts to the allocation rate of each type: a range that is used up in less than 
+ * id.generation.batch.fastRangeMillis doubles the next batch size, up to id.generation.batch.maxSize, and a range 
+ * that lasts longer than id.generation.batch.slowRangeMillis halves it, down to the batch size stored in the table.
+ * Types listed in {@link #setBatchSizes(Map)} always use the configured size instead.
+ * 
+ * Ranges are reserved in their own transaction.
+ */
 @Service("blIdGenerationService")
+@ManagedResource(objectName="org.broadleafcommerce:name=IdGenerationService", description="Id Generation Service", currencyTimeLimit=15)
 public class IdGenerationServiceImpl implements IdGenerationService {
 
     private static final Log LOG = LogFactory.getLog(IdGenerationServiceImpl.class);
@@ -35,73 +71,335 @@ public class IdGenerationServiceImpl implements IdGenerationService {
     @Resource(name="blIdGenerationDao")
     protected IdGenerationDao idGenerationDao;
 
-    protected Map<String, Id> idTypeIdMap = new HashMap<String, Id>();
+    @Resource(name="blTransactionManager")
+    protected PlatformTransactionManager transactionManager;
 
-    public Long findNextId(String idType) {
-        Id id;
-        synchronized (idTypeIdMap) {
-            id = idTypeIdMap.get(idType);
-            if (id == null) {
-                // recheck, another thread may have added this.
-                id = idTypeIdMap.get(idType);
-                if (id == null) {
-                    if (LOG.isDebugEnabled()) {
-                        LOG.debug("Getting the initial id from the database.");
-                    }
-                    IdGeneration idGeneration = getCurrentIdRange(idType);
-                    id = new Id(idGeneration.getBatchStart(), idGeneration.getBatchSize());
-                }
-                idTypeIdMap.put(idType, id);
-            }
+    @Value("${id.generation.prefetch.enabled}")
+    protected boolean prefetchEnabled = true;
+
+    /**
+     * The fraction of a range that may remain when the next range is reserved in the background
+     */
+    @Value("${id.generation.prefetch.lowWaterMark}")
+    protected double lowWaterMark = 0.25D;
+
+    @Value("${id.generation.batch.maxSize}")
+    protected long maxBatchSize = 10000L;
+
+    @Value("${id.generation.batch.fastRangeMillis}")
+    protected long fastRangeMillis = 10000L;
+
+    @Value("${id.generation.batch.slowRangeMillis}")
+    protected long slowRangeMillis = 300000L;
+
+    protected Map<String, Long> batchSizes = new HashMap<String, Long>();
+
+    protected final ConcurrentMap<String, IdAllocator> allocators = new ConcurrentHashMap<String, IdAllocator>();
+
+    protected final AtomicLong rangeFetchCount = new AtomicLong();
+    protected final AtomicLong prefetchCount = new AtomicLong();
+    protected final AtomicLong synchronousFetchCount = new AtomicLong();
+    protected final AtomicLong contendedFetchCount = new AtomicLong();
+    protected final AtomicLong rangeFetchRetryCount = new AtomicLong();
+    protected final AtomicLong totalFetchNanos = new AtomicLong();
+
+    protected final ExecutorService prefetchExecutor = Executors.newSingleThreadExecutor(new ThreadFactory() {
+        @Override
+        public Thread newThread(Runnable runnable) {
+            Thread thread = new Thread(runnable, "blIdGenerationPrefetch");
+            thread.setDaemon(true);
+            return thread;
         }
+    });
 
-        synchronized(id) {
-            if (id.batchSize == 0L) {
-                if (LOG.isDebugEnabled()) {
-                    LOG.debug("Updating batch size for idType " + idType);
-                }
-                IdGeneration idGeneration = getCurrentIdRange(idType);
-                id.nextId = idGeneration.getBatchStart();
-                id.batchSize = idGeneration.getBatchSize();
+    public Long findNextId(String idType) {
+        IdAllocator allocator = allocators.get(idType);
+        if (allocator == null) {
+            allocator = new IdAllocator(idType);
+            IdAllocator existing = allocators.putIfAbsent(idType, allocator);
+            if (existing != null) {
+                allocator = existing;
             }
-            Long retId = id.nextId++;
-            id.batchSize--;
-
-            return retId;
         }
+        return allocator.nextId();
     }
-    
-    private IdGeneration getCurrentIdRange(String idType) {
+
+    @PreDestroy
+    public void destroy() {
+        prefetchExecutor.shutdownNow();
+    }
+
+    /**
+     * Reserves the next range of the type in a new transaction, retrying if the row is concurrently modified
+     * 
+     * @param idType
+     * @param batchSize the number of ids to reserve, or null to use the stored batch size
+     */
+    protected IdGeneration getCurrentIdRange(String idType, Long batchSize) {
+        long start = System.nanoTime();
         IdGeneration idGeneration = null;
         int retryCount = 0;
         boolean stale = true;
         while (stale) {
+            DefaultTransactionDefinition def = new DefaultTransactionDefinition();
+            def.setName("findNextId");
+            def.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+            TransactionStatus status = transactionManager.getTransaction(def);
             try {
-                idGeneration = idGenerationDao.findNextId(idType);
+                idGeneration = idGenerationDao.findNextId(idType, batchSize);
+                transactionManager.commit(status);
                 stale = false;
             } catch (OptimisticLockException e) {
+                rollback(status);
+                rangeFetchRetryCount.incrementAndGet();
                 //do nothing -- we will try again
                 if (LOG.isWarnEnabled()) {
                     LOG.warn("Error saving batch start for " + idType + ".  Requerying table.");
                 }
             } catch (Exception e) {
+                rollback(status);
                 throw new RuntimeException("Unable to retrieve id range for " + idType, e);
             }
-            if (retryCount >= 10) {
+            if (stale && retryCount >= 10) {
                 throw new RuntimeException("Unable to retrieve id range for " + idType + ". Tried " + retryCount + " times, but the version for this entity continues to be concurrently modified.");
             }
             retryCount++;
         }
+        rangeFetchCount.incrementAndGet();
+        totalFetchNanos.addAndGet(System.nanoTime() - start);
         return idGeneration;
     }
 
-    private class Id {
-        public Long nextId;
-        public Long batchSize;
+    protected void rollback(TransactionStatus status) {
+        if (!status.isCompleted()) {
+            transactionManager.rollback(status);
+        }
+    }
+
+    @ManagedAttribute(description="The number of id ranges reserved", currencyTimeLimit=15)
+    public long getRangeFetchCount() {
+        return rangeFetchCount.get();
+    }
+
+    @ManagedAttribute(description="The number of id ranges reserved in the background", currencyTimeLimit=15)
+    public long getPrefetchCount() {
+        return prefetchCount.get();
+    }
+
+    @ManagedAttribute(description="The number of times a caller had to reserve an id range itself", currencyTimeLimit=15)
+    public long getSynchronousFetchCount() {
+        return synchronousFetchCount.get();
+    }
+
+    @ManagedAttribute(description="The number of times a caller waited for another thread to reserve an id range", currencyTimeLimit=15)
+    public long getContendedFetchCount() {
+        return contendedFetchCount.get();
+    }
+
+    @ManagedAttribute(description="The number of optimistic lock failures while reserving id ranges", currencyTimeLimit=15)
+    public long getRangeFetchRetryCount() {
+        return rangeFetchRetryCount.get();
+    }
+
+    @ManagedAttribute(description="The average time in milliseconds to reserve an id range", currencyTimeLimit=15)
+    public double getAverageFetchTime() {
+        long count = rangeFetchCount.get();
+        return count == 0 ? 0 : totalFetchNanos.get() / 1000000D / count;
+    }
+
+    @ManagedAttribute(description="The current range and batch size of each id type", currencyTimeLimit=15)
+    public String[] getIdTypeSummaries() {
+        List<String> summaries = new ArrayList<String>();
+        for (IdAllocator allocator : allocators.values()) {
+            summaries.add(allocator.toString());
+        }
+        return summaries.toArray(new String[summaries.size()]);
+    }
+
+    /**
+     * @param batchSizes fixed batch sizes for individual id types, which are then not adapted to the allocation rate
+     */
+    public void setBatchSizes(Map<String, Long> batchSizes) {
+        this.batchSizes = batchSizes;
+    }
+
+    public Map<String, Long> getBatchSizes() {
+        return batchSizes;
+    }
+
+    /**
+     * A reserved range of ids. The next id is claimed by incrementing {@link #next}; claims beyond the end of the 
+     * range fail and leave the range exhausted.
+     */
+    protected static class IdRange {
+
+        protected final long start;
+        protected final long end;
+        protected final long lowWater;
+        protected volatile long activationTime = System.currentTimeMillis();
+        protected final AtomicLong next;
+
+        public IdRange(long start, long size, double lowWaterMark) {
+            this.start = start;
+            this.end = start + size;
+            this.lowWater = end - (long) Math.ceil(size * lowWaterMark);
+            this.next = new AtomicLong(start);
+        }
+
+        public long size() {
+            return end - start;
+        }
+
+    }
+
+    protected class IdAllocator {
+
+        protected final String idType;
+        protected final AtomicReference<IdRange> current = new AtomicReference<IdRange>();
+        protected final ReentrantLock fetchLock = new ReentrantLock();
+        protected final AtomicBoolean prefetching = new AtomicBoolean();
+        protected volatile Future<IdRange> prefetched;
+        protected volatile long batchSize = -1;
+        protected volatile long minBatchSize = 1;
 
-        public Id(Long nextId, Long batchSize) {
-            this.nextId = nextId;
-            this.batchSize = batchSize;
+        public IdAllocator(String idType) {
+            this.idType = idType;
         }
+
+        public Long nextId() {
+            while (true) {
+                IdRange range = current.get();
+                if (range != null) {
+                    long id = range.next.getAndIncrement();
+                    if (id < range.end) {
+                        if (id == range.lowWater) {
+                            prefetch(range);
+                        }
+                        return id;
+                    }
+                }
+                replaceRange(range);
+            }
+        }
+
+        /**
+         * Installs the next range, unless another thread already replaced the exhausted one
+         */
+        protected void replaceRange(IdRange exhausted) {
+            if (!fetchLock.tryLock()) {
+                contendedFetchCount.incrementAndGet();
+                fetchLock.lock();
+            }
+            try {
+                if (current.get() != exhausted) {
+                    return;
+                }
+                IdRange next = takePrefetched();
+                if (next == null) {
+                    synchronousFetchCount.incrementAndGet();
+                    next = fetchRange();
+                }
+                next.activationTime = System.currentTimeMillis();
+                current.set(next);
+            } finally {
+                fetchLock.unlock();
+            }
+        }
+
+        protected void prefetch(IdRange range) {
+            if (!prefetchEnabled || !prefetching.compareAndSet(false, true)) {
+                return;
+            }
+            try {
+                prefetched = prefetchExecutor.submit(new Callable<IdRange>() {
+                    @Override
+                    public IdRange call() {
+                        IdRange next = fetchRange();
+                        prefetchCount.incrementAndGet();
+                        return next;
+                    }
+                });
+            } catch (RuntimeException e) {
+                prefetching.set(false);
+                LOG.warn("Unable to prefetch the next id range for " + idType, e);
+            }
+        }
+
+        /**
+         * @return the prefetched range, waiting for it if it is still being reserved, or null if there is none
+         */
+        protected IdRange takePrefetched() {
+            Future<IdRange> future = prefetched;
+            if (future == null) {
+                return null;
+            }
+            prefetched = null;
+            prefetching.set(false);
+            try {
+                if (!future.isDone()) {
+                    contendedFetchCount.incrementAndGet();
+                }
+                return future.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return null;
+            } catch (ExecutionException e) {
+                LOG.warn("Unable to prefetch the next id range for " + idType, e.getCause());
+                return null;
+            }
+        }
+
+        protected IdRange fetchRange() {
+            IdRange previous = current.get();
+            IdGeneration idGeneration = getCurrentIdRange(idType, getRequestedBatchSize());
+            if (batchSize < 0) {
+                minBatchSize = idGeneration.getBatchSize();
+                batchSize = minBatchSize;
+            }
+            adaptBatchSize(previous);
+            return new IdRange(idGeneration.getBatchStart(), idGeneration.getBatchSize(), lowWaterMark);
+        }
+
+        /**
+         * @return the configured batch size of the type, the adapted batch size once the first range has been 
+         * reserved, or null to use the batch size stored for the type
+         */
+        protected Long getRequestedBatchSize() {
+            Long fixedBatchSize = batchSizes.get(idType);
+            if (fixedBatchSize != null) {
+                return fixedBatchSize;
+            }
+            return batchSize > 0 ? batchSize : null;
+        }
+
+        /**
+         * Grows the batch size if the previous range is being used up quickly and shrinks it if it lasted a long time
+         */
+        protected void adaptBatchSize(IdRange previous) {
+            Long fixedBatchSize = batchSizes.get(idType);
+            if (fixedBatchSize != null) {
+                batchSize = fixedBatchSize;
+                return;
+            }
+            if (previous == null) {
+                return;
+            }
+            long lifetime = System.currentTimeMillis() - previous.activationTime;
+            if (lifetime < fastRangeMillis) {
+                batchSize = Math.min(maxBatchSize, batchSize * 2);
+            } else if (lifetime > slowRangeMillis) {
+                batchSize = Math.max(minBatchSize, batchSize / 2);
+            }
+        }
+
+        @Override
+        public String toString() {
+            IdRange range = current.get();
+            return idType + ": range [" + (range == null ? "none" : range.start + "-" + (range.end - 1)) + "], next [" + 
+                    (range == null ? "none" : String.valueOf(Math.min(range.next.get(), range.end))) + 
+                    "], batch size [" + batchSize + "]";
+        }
+
     }
+
 }
@@ -0,0 +1,224 @@
+/*
+ * Copyright 2008-2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.broadleafcommerce.profile.core.service;
+
+import junit.framework.TestCase;
+import org.broadleafcommerce.profile.core.dao.IdGenerationDao;
+import org.broadleafcommerce.profile.core.domain.IdGeneration;
+import org.broadleafcommerce.profile.core.domain.IdGenerationImpl;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+public class IdGenerationServiceImplTest extends TestCase {
+
+    private static final String ID_TYPE = "org.broadleafcommerce.test.Entity";
+
+    private IdGenerationServiceImpl service;
+    private StubIdGenerationDao dao;
+
+    @Override
+    protected void setUp() throws Exception {
+        dao = new StubIdGenerationDao(10L);
+        service = new IdGenerationServiceImpl();
+        service.idGenerationDao = dao;
+        service.transactionManager = new StubTransactionManager();
+        service.prefetchEnabled = false;
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        service.destroy();
+    }
+
+    public void testIdsContinueAcrossRanges() {
+        for (long expected = 1; expected <= 25; expected++) {
+            assertEquals(Long.valueOf(expected), service.findNextId(ID_TYPE));
+        }
+        assertEquals(3, dao.getRequestCount());
+        assertEquals(3, service.getRangeFetchCount());
+        assertEquals(3, service.getSynchronousFetchCount());
+    }
+
+    public void testConcurrentCallersReceiveDistinctIds() throws Exception {
+        final int threads = 8;
+        final int idsPerThread = 500;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<List<Long>>> futures = new ArrayList<Future<List<Long>>>();
+            for (int i = 0; i < threads; i++) {
+                futures.add(executor.submit(new Callable<List<Long>>() {
+                    @Override
+                    public List<Long> call() {
+                        List<Long> ids = new ArrayList<Long>();
+                        for (int j = 0; j < idsPerThread; j++) {
+                            ids.add(service.findNextId(ID_TYPE));
+                        }
+                        return ids;
+                    }
+                }));
+            }
+            Set<Long> ids = new HashSet<Long>();
+            for (Future<List<Long>> future : futures) {
+                ids.addAll(future.get());
+            }
+            assertEquals(threads * idsPerThread, ids.size());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    public void testNextRangeIsPrefetchedAtTheLowWaterMark() throws Exception {
+        service.prefetchEnabled = true;
+        service.lowWaterMark = 0.5D;
+        for (long expected = 1; expected <= 6; expected++) {
+            assertEquals(Long.valueOf(expected), service.findNextId(ID_TYPE));
+        }
+        long deadline = System.currentTimeMillis() + 5000;
+        while (service.getPrefetchCount() == 0 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(1, service.getPrefetchCount());
+        assertEquals(2, dao.getRequestCount());
+
+        for (long expected = 7; expected <= 12; expected++) {
+            assertEquals(Long.valueOf(expected), service.findNextId(ID_TYPE));
+        }
+        // Only the very first range was reserved by a caller
+        assertEquals(1, service.getSynchronousFetchCount());
+    }
+
+    public void testFirstRangeUsesTheConfiguredBatchSize() {
+        Map<String, Long> batchSizes = new HashMap<String, Long>();
+        batchSizes.put(ID_TYPE, 50L);
+        service.setBatchSizes(batchSizes);
+
+        for (int i = 0; i < 120; i++) {
+            service.findNextId(ID_TYPE);
+        }
+        assertEquals(Collections.nCopies(3, 50L), dao.getRequestedBatchSizes());
+    }
+
+    public void testBatchSizeGrowsWhileRangesAreUsedQuickly() {
+        service.fastRangeMillis = Long.MAX_VALUE;
+        service.maxBatchSize = 40L;
+
+        for (int i = 0; i < 120; i++) {
+            service.findNextId(ID_TYPE);
+        }
+        // The first range uses the stored batch size and each later range reflects the pace of the one before it
+        List<Long> expected = new ArrayList<Long>();
+        expected.add(null);
+        expected.add(10L);
+        expected.add(20L);
+        expected.add(40L);
+        expected.add(40L);
+        assertEquals(expected, dao.getRequestedBatchSizes());
+    }
+
+    public void testBatchSizeShrinksBackWhenRangesLastLong() {
+        service.fastRangeMillis = Long.MAX_VALUE;
+        service.maxBatchSize = 40L;
+        for (int i = 0; i < 70; i++) {
+            service.findNextId(ID_TYPE);
+        }
+        assertEquals(Long.valueOf(40L), dao.getLastRequestedBatchSize());
+
+        service.fastRangeMillis = -1L;
+        service.slowRangeMillis = -1L;
+        for (int i = 0; i < 150; i++) {
+            service.findNextId(ID_TYPE);
+        }
+        // Never below the batch size stored for the type
+        assertEquals(Long.valueOf(10L), dao.getLastRequestedBatchSize());
+    }
+
+    /**
+     * Hands out consecutive ranges starting at 1, like a single row in the id generation table
+     */
+    protected static class StubIdGenerationDao implements IdGenerationDao {
+
+        protected final Long storedBatchSize;
+        protected long batchStart = 1L;
+        protected final List<Long> requestedBatchSizes = new ArrayList<Long>();
+
+        public StubIdGenerationDao(Long storedBatchSize) {
+            this.storedBatchSize = storedBatchSize;
+        }
+
+        @Override
+        public IdGeneration findNextId(String idType) {
+            return findNextId(idType, null);
+        }
+
+        @Override
+        public synchronized IdGeneration findNextId(String idType, Long batchSize) {
+            requestedBatchSizes.add(batchSize);
+            IdGeneration response = new IdGenerationImpl();
+            response.setType(idType);
+            response.setBatchStart(batchStart);
+            response.setBatchSize(batchSize == null ? storedBatchSize : batchSize);
+            batchStart += response.getBatchSize();
+            return response;
+        }
+
+        public synchronized int getRequestCount() {
+            return requestedBatchSizes.size();
+        }
+
+        public synchronized List<Long> getRequestedBatchSizes() {
+            return new ArrayList<Long>(requestedBatchSizes);
+        }
+
+        public synchronized Long getLastRequestedBatchSize() {
+            return requestedBatchSizes.get(requestedBatchSizes.size() - 1);
+        }
+
+    }
+
+    protected static class StubTransactionManager implements PlatformTransactionManager {
+
+        @Override
+        public TransactionStatus getTransaction(TransactionDefinition definition) {
+            return new SimpleTransactionStatus();
+        }
+
+        @Override
+        public void commit(TransactionStatus status) {
+            ((SimpleTransactionStatus) status).setCompleted();
+        }
+
+        @Override
+        public void rollback(TransactionStatus status) {
+            ((SimpleTransactionStatus) status).setCompleted();
+        }
+
+    }
+
+}